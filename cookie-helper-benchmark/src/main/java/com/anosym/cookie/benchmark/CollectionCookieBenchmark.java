@@ -0,0 +1,92 @@
+package com.anosym.cookie.benchmark;
+
+import com.anosym.cookie.benchmark.model.RecentlyViewedCookie;
+import com.anosym.cookie.codec.EncodedCookieFormat;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of an encoded cookie of sorted product ids, a list of embeddables and an int array.
+ *
+ * The setup prints the length of the cookie, next to the length of the same ids written as individual cookies, one per
+ * id, as they are without collection fields.
+ *
+ * @author mochieng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionCookieBenchmark {
+
+    //Product ids of a large catalogue.
+    private static final long FIRST_PRODUCT_ID = 4_000_000_000L;
+
+    @Param({"8", "32"})
+    private int products;
+
+    private CookieSchema schema;
+    private RecentlyViewedCookie cookie;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        schema = CookieSchema.of(RecentlyViewedCookie.class);
+        cookie = newCookie(products);
+        encoded = EncodedCookieFormat.encode(schema, cookie);
+        final RecentlyViewedCookie decoded = new RecentlyViewedCookie();
+        EncodedCookieFormat.decode(schema, decoded, encoded);
+        if (!EncodedCookieFormat.encode(schema, decoded).equals(encoded)) {
+            throw new IllegalStateException("Decoded cookie differs from " + encoded);
+        }
+        int individualLength = 0;
+        int index = 0;
+        for (Long productId : cookie.getProductIds()) {
+            //the name, the value and the separator of the Cookie request header.
+            individualLength += ("rv" + index++).length() + 1 + productId.toString().length() + 2;
+        }
+        System.out.printf("%n%d product ids: encoded cookie %d chars, individual cookies %d chars%n", products,
+                          schema.getName().length() + 1 + encoded.length(), individualLength);
+    }
+
+    @Benchmark
+    public String encode() {
+        return EncodedCookieFormat.encode(schema, cookie);
+    }
+
+    @Benchmark
+    public Object decode() {
+        final RecentlyViewedCookie target = new RecentlyViewedCookie();
+        EncodedCookieFormat.decode(schema, target, encoded);
+        return target;
+    }
+
+    static RecentlyViewedCookie newCookie(final int products) {
+        final Random random = new Random(products);
+        final RecentlyViewedCookie cookie = new RecentlyViewedCookie();
+        long productId = FIRST_PRODUCT_ID;
+        for (int i = 0; i < products; i++) {
+            productId += 1 + random.nextInt(5000);
+            cookie.getProductIds().add(productId);
+        }
+        cookie.getSearches().add(new RecentlyViewedCookie.Search("running shoes", 2, RecentlyViewedCookie.Sort.PRICE));
+        cookie.getSearches().add(new RecentlyViewedCookie.Search("trail", 1, RecentlyViewedCookie.Sort.RELEVANCE));
+        cookie.setPageSizes(new int[]{24, 48, 96});
+        return cookie;
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.anosym.cookie.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.http.Cookie;
+
+/**
+ * Emulates how servlet containers materialize {@link javax.servlet.http.HttpServletRequest#getCookies() }: every cookie
+ * of the header is split out and turned into a {@link Cookie}, whether the application uses it or not.
+ *
+ * @author mochieng
+ */
+final class ContainerCookieParsing {
+
+    private ContainerCookieParsing() {
+    }
+
+    static Cookie[] parse(String header) {
+        if (header == null || header.isEmpty()) {
+            return new Cookie[0];
+        }
+        final List<Cookie> cookies = new ArrayList<>();
+        for (String pair : header.split(";")) {
+            final int separator = pair.indexOf('=');
+            if (separator > 0) {
+                final String name = pair.substring(0, separator).trim();
+                String value = pair.substring(separator + 1).trim();
+                if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                cookies.add(new Cookie(name, value));
+            }
+        }
+        return cookies.toArray(new Cookie[cookies.size()]);
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.anosym.cookie.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the cookie-helper benchmarks, accepting the usual JMH command line options, with the GC profiler always enabled
+ * so that the allocation rate ({@code gc.alloc.rate.norm}) of every benchmark is reported.
+ *
+ * @author mochieng
+ */
+public final class CookieBenchmarks {
+
+    private CookieBenchmarks() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.anosym.cookie.benchmark;
+
+import com.anosym.cookie.benchmark.model.LargeEncodedCookie;
+import com.anosym.cookie.benchmark.model.LargeIndividualCookie;
+import com.anosym.cookie.benchmark.model.SmallEncodedCookie;
+import com.anosym.cookie.benchmark.model.SmallIndividualCookie;
+import com.anosym.cookie.core.CookieEngine;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletContext;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading and writing a single cookie pojo directly through the {@link CookieEngine}, without any CDI lookups.
+ *
+ * @author mochieng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CookieEngineBenchmark {
+
+    @Param({"true", "false"})
+    private boolean encoded;
+
+    @Param({"4", "16"})
+    private int fields;
+
+    @Param({"8", "256"})
+    private int valueSize;
+
+    private CookieEngine engine;
+    private Class<?> cookieClass;
+    private Object cookie;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        cookieClass = encoded
+                ? (fields <= 4 ? SmallEncodedCookie.class : LargeEncodedCookie.class)
+                : (fields <= 4 ? SmallIndividualCookie.class : LargeIndividualCookie.class);
+        cookie = Fixtures.newCookie(cookieClass, valueSize);
+        final ServletContext context = MockServlet.context(Collections.<String, String>emptyMap());
+        engine = CookieEngine.of(context);
+
+        final List<String> written = new ArrayList<>();
+        engine.write(MockServlet.response(new ArrayList<Cookie>(), written), cookie);
+        request = MockServlet.request(context, Fixtures.cookieHeader(Collections.<Cookie>emptyList(), written, 0));
+        response = MockServlet.discardingResponse();
+    }
+
+    @Benchmark
+    public Object read() {
+        return engine.read(request, cookieClass);
+    }
+
+    @Benchmark
+    public void write() {
+        engine.write(response, cookie);
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.anosym.cookie.benchmark;
+
+import com.anosym.cookie.benchmark.model.LargeEncodedCookie;
+import com.anosym.cookie.benchmark.model.LargeIndividualCookie;
+import com.anosym.cookie.benchmark.model.SmallEncodedCookie;
+import com.anosym.cookie.benchmark.model.SmallIndividualCookie;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding ({@code updateHttpCookie}, through {@code setEncodedHttpCookie} or {@code setIndividualHttpFieldCookies})
+ * and decoding ({@code updateObjectCookie}, through {@code updateEncodedObjectCookie} or
+ * {@code updateIndividualObjectCookie}) of a single cookie pojo by the cookie service.
+ *
+ * @author mochieng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CookieServiceBenchmark {
+
+    @Param({"true", "false"})
+    private boolean encoded;
+
+    @Param({"4", "16"})
+    private int fields;
+
+    @Param({"8", "256"})
+    private int valueSize;
+
+    private ServiceHarness harness;
+    private Object cookie;
+    private HttpServletRequest request;
+    private HttpServletRequest emptyRequest;
+    private int iteration;
+
+    @Setup
+    public void setUp() {
+        final Class<?> cookieClass = encoded
+                ? (fields <= 4 ? SmallEncodedCookie.class : LargeEncodedCookie.class)
+                : (fields <= 4 ? SmallIndividualCookie.class : LargeIndividualCookie.class);
+        cookie = Fixtures.newCookie(cookieClass, valueSize);
+        harness = new ServiceHarness(MockServlet.context(Collections.<String, String>emptyMap()),
+                                     Collections.singletonList(cookie));
+
+        final List<Cookie> written = new ArrayList<>();
+        final List<String> writtenHeaders = new ArrayList<>();
+        emptyRequest = MockServlet.request(harness.context(), "");
+        harness.request(emptyRequest, MockServlet.response(written, writtenHeaders));
+        request = MockServlet.request(harness.context(), Fixtures.cookieHeader(written, writtenHeaders, 0));
+        harness.setResponse(MockServlet.response());
+    }
+
+    /**
+     * Encodes the pojo after a change, so that its cookies are written.
+     *
+     * The service keeps no state between requests, hence this includes initializing a request without cookies.
+     */
+    @Benchmark
+    public void updateHttpCookie() {
+        harness.setRequest(emptyRequest);
+        harness.service().updateObjectCookie();
+        harness.access();
+        Fixtures.mutate(cookie, iteration++);
+        harness.service().updateHttpCookie();
+    }
+
+    @Benchmark
+    public void updateObjectCookie() {
+        harness.setRequest(request);
+        harness.service().updateObjectCookie();
+        harness.access();
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.anosym.cookie.benchmark;
+
+import com.anosym.cookie.codec.DecodedCookieCache;
+import com.anosym.cookie.codec.EncodedCookieFormat;
+import com.anosym.cookie.codec.EncodedSegments;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of a single encoded cookie value, through the generated codec or reflectively.
+ *
+ * @author mochieng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodedCookieBenchmark {
+
+    @Param({"4", "16"})
+    private int fields;
+
+    @Param({"8", "256"})
+    private int valueSize;
+
+    @Param({"true", "false"})
+    private boolean generatedCodec;
+
+    private CookieSchema schema;
+    private Object cookie;
+    private Object target;
+    private String encoded;
+    private DecodedCookieCache decodeCache;
+    private EncodedSegments segments;
+    private int iteration;
+
+    @Setup
+    public void setUp() {
+        final Class<?> cookieClass = Fixtures.encodedCookieClass(fields, generatedCodec);
+        schema = CookieSchema.of(cookieClass);
+        if (generatedCodec != (schema.getCodec() != null)) {
+            throw new IllegalStateException("Unexpected codec for " + cookieClass + ": " + schema.getCodec());
+        }
+        cookie = Fixtures.newCookie(cookieClass, valueSize);
+        target = Fixtures.newCookie(cookieClass, 0);
+        encoded = EncodedCookieFormat.encode(schema, cookie);
+        decodeCache = new DecodedCookieCache(1 << 20);
+        segments = new EncodedSegments(schema);
+        if (!segments.encode(cookie).equals(encoded)) {
+            throw new IllegalStateException("Encoded segments differ from the encoded cookie of " + cookieClass);
+        }
+    }
+
+    @Benchmark
+    public String encode() {
+        return EncodedCookieFormat.encode(schema, cookie);
+    }
+
+    @Benchmark
+    public Object decode() {
+        EncodedCookieFormat.decode(schema, target, encoded);
+        return target;
+    }
+
+    /**
+     * Encodes the unchanged cookie from its encoded segments.
+     */
+    @Benchmark
+    public String encodeUnchangedSegments() {
+        return segments.encode(cookie);
+    }
+
+    /**
+     * Changes the last field of the cookie on every invocation, re-encoding only that field.
+     */
+    @Benchmark
+    public String encodeChangedSegment() {
+        Fixtures.mutate(cookie, fields - 1, iteration++);
+        return segments.encode(cookie);
+    }
+
+    /**
+     * Changes the last field of the cookie on every invocation, re-encoding the whole cookie, for comparison.
+     */
+    @Benchmark
+    public String encodeChanged() {
+        Fixtures.mutate(cookie, fields - 1, iteration++);
+        return EncodedCookieFormat.encode(schema, cookie);
+    }
+
+    /**
+     * Decodes the same value on every invocation, hence always hits the decode cache.
+     */
+    @Benchmark
+    public Object decodeCached() {
+        decodeCache.decode(schema, target, encoded);
+        return target;
+    }
+
+}
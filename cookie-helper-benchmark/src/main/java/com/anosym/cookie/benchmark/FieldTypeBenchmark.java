@@ -0,0 +1,76 @@
+package com.anosym.cookie.benchmark;
+
+import com.anosym.cookie.codec.CookieInput;
+import com.anosym.cookie.codec.CookieOutput;
+import com.anosym.cookie.codec.FieldType;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of a single field value of each supported type, to and from its individual (text) and encoded (binary)
+ * cookie forms. This is the reflective per-field path of {@code updateField}.
+ *
+ * @author mochieng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldTypeBenchmark {
+
+    @Param({"STRING", "BIG_DECIMAL", "CALENDAR", "BYTE", "SHORT", "INT", "LONG", "FLOAT", "DOUBLE", "CHAR", "BOOLEAN"})
+    private FieldType type;
+
+    @Param({"8"})
+    private int valueSize;
+
+    private Object value;
+    private String text;
+    private CookieOutput out;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() {
+        value = Fixtures.sampleValue(type, valueSize);
+        text = type.toText(value);
+        out = new CookieOutput();
+        type.write(out, value, true);
+        binary = Arrays.copyOf(out.buffer(), out.size());
+    }
+
+    @Benchmark
+    public Object fromText() {
+        return type.fromText(text);
+    }
+
+    @Benchmark
+    public String toText() {
+        return type.toText(value);
+    }
+
+    @Benchmark
+    public int write() {
+        out.reset();
+        type.write(out, value, true);
+        return out.size();
+    }
+
+    @Benchmark
+    public Object read() {
+        return type.read(new CookieInput(binary), true);
+    }
+
+}
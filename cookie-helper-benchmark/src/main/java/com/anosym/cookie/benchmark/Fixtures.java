@@ -0,0 +1,172 @@
+package com.anosym.cookie.benchmark;
+
+import com.anosym.cookie.benchmark.model.LargeEncodedCookie;
+import com.anosym.cookie.benchmark.model.LargeIndividualCookie;
+import com.anosym.cookie.benchmark.model.ReflectiveLargeEncodedCookie;
+import com.anosym.cookie.benchmark.model.ReflectiveSmallEncodedCookie;
+import com.anosym.cookie.benchmark.model.SmallEncodedCookie;
+import com.anosym.cookie.benchmark.model.SmallIndividualCookie;
+import com.anosym.cookie.codec.FieldType;
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+import com.google.common.base.Strings;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sample cookie pojos and values shared by the benchmarks.
+ *
+ * @author mochieng
+ */
+final class Fixtures {
+
+    /**
+     * The cookie classes of the request lifecycle benchmarks, the first n of which are registered.
+     */
+    static final List<Class<?>> LIFECYCLE_COOKIES = list(SmallEncodedCookie.class,
+                                                           SmallIndividualCookie.class,
+                                                           LargeEncodedCookie.class,
+                                                           LargeIndividualCookie.class);
+
+    /**
+     * Third party cookies the library does not handle, as typically sent along by browsers.
+     */
+    static final String THIRD_PARTY_COOKIE = "_ga=GA1.2.1284716240.1589393725";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Returns the encoded cookie class with the specified number of fields.
+     *
+     * @param fields 4 or 16
+     * @param generated whether the class has a generated codec, or is accessed reflectively
+     */
+    static Class<?> encodedCookieClass(int fields, boolean generated) {
+        if (fields <= 4) {
+            return generated ? SmallEncodedCookie.class : ReflectiveSmallEncodedCookie.class;
+        }
+        return generated ? LargeEncodedCookie.class : ReflectiveLargeEncodedCookie.class;
+    }
+
+    static Object newCookie(Class<?> cookieClass, int valueSize) {
+        try {
+            final Object cookie = cookieClass.getDeclaredConstructor().newInstance();
+            populate(cookie, valueSize);
+            return cookie;
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Sets every field of the cookie to a non-null sample value, with strings of the specified length.
+     */
+    static void populate(Object cookie, int valueSize) {
+        final CookieSchema schema = CookieSchema.of(cookie.getClass());
+        for (CookieFieldSchema field : schema.getFields()) {
+            field.set(cookie, sampleValue(field.getFieldType(), valueSize));
+        }
+    }
+
+    /**
+     * Changes the first field of the cookie, so that its cookie must be rewritten.
+     */
+    static void mutate(Object cookie, int iteration) {
+        mutate(cookie, 0, iteration);
+    }
+
+    /**
+     * Changes the specified field of the cookie, so that its cookie must be rewritten.
+     */
+    static void mutate(Object cookie, int fieldIndex, int iteration) {
+        final CookieFieldSchema field = CookieSchema.of(cookie.getClass()).getFields().get(fieldIndex);
+        if (field.getFieldType() == FieldType.INT) {
+            field.set(cookie, iteration);
+        } else if (field.getFieldType() == FieldType.BOOLEAN) {
+            field.set(cookie, (iteration & 1) == 0);
+        } else {
+            field.set(cookie, field.getFieldType().fromText(String.valueOf(iteration & 0x3F)));
+        }
+    }
+
+    static Object sampleValue(FieldType type, int valueSize) {
+        switch (type) {
+            case STRING:
+                return Strings.repeat("v", valueSize);
+            case BIG_DECIMAL:
+                return new BigDecimal("123456.78");
+            case CALENDAR:
+                final Calendar cal = Calendar.getInstance();
+                cal.setTimeInMillis(1589393725000L);
+                return cal;
+            case BYTE:
+                return (byte) 12;
+            case SHORT:
+                return (short) 1234;
+            case INT:
+                return 123456;
+            case LONG:
+                return 1589393725000L;
+            case FLOAT:
+                return 3.25f;
+            case DOUBLE:
+                return 1234.5678d;
+            case CHAR:
+                return 'c';
+            case BOOLEAN:
+                return true;
+            default:
+                throw new IllegalArgumentException("Unknown field type: " + type);
+        }
+    }
+
+    /**
+     * The {@code Cookie} header a browser would send back, with the specified number of third party cookies.
+     */
+    static String cookieHeader(List<javax.servlet.http.Cookie> cookies, int thirdPartyCookies) {
+        return cookieHeader(cookies, Collections.<String>emptyList(), thirdPartyCookies);
+    }
+
+    /**
+     * The {@code Cookie} header a browser would send back for the added cookies and {@code Set-Cookie} headers, with
+     * the specified number of third party cookies.
+     */
+    static String cookieHeader(List<javax.servlet.http.Cookie> cookies, List<String> setCookieHeaders,
+                               int thirdPartyCookies) {
+        final StringBuilder header = new StringBuilder();
+        for (int i = 0; i < thirdPartyCookies; i++) {
+            if (header.length() > 0) {
+                header.append("; ");
+            }
+            header.append(THIRD_PARTY_COOKIE.replace("_ga", "_tp" + i));
+        }
+        for (javax.servlet.http.Cookie cookie : cookies) {
+            if (header.length() > 0) {
+                header.append("; ");
+            }
+            header.append(cookie.getName()).append('=').append(cookie.getValue());
+        }
+        for (String setCookie : setCookieHeaders) {
+            if (header.length() > 0) {
+                header.append("; ");
+            }
+            final int end = setCookie.indexOf(';');
+            header.append(end < 0 ? setCookie : setCookie.substring(0, end));
+        }
+        return header.toString();
+    }
+
+    @SafeVarargs
+    private static <T> List<T> list(T... values) {
+        final List<T> list = new ArrayList<>();
+        for (T value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.anosym.cookie.benchmark;
+
+import com.anosym.cookie.benchmark.model.LargeIndividualCookie;
+import com.anosym.cookie.benchmark.model.SmallEncodedCookie;
+import com.anosym.cookie.http.CookieHeaderParser;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the raw {@link CookieHeaderParser} with the container path, which materializes a {@link Cookie} for every
+ * cookie of the header. Compare the {@code gc.alloc.rate.norm} of both as the number of third party cookies grows.
+ *
+ * @author mochieng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderParsingBenchmark {
+
+    @Param({"0", "10", "40"})
+    private int thirdPartyCookies;
+
+    private String header;
+    private CookieHeaderParser parser;
+
+    @Setup
+    public void setUp() {
+        final List<String> names = new ArrayList<>();
+        names.addAll(CookieSchema.of(SmallEncodedCookie.class).getCookieNames());
+        names.addAll(CookieSchema.of(LargeIndividualCookie.class).getCookieNames());
+        parser = new CookieHeaderParser(names);
+
+        final List<Cookie> cookies = new ArrayList<>();
+        cookies.add(new Cookie(names.get(0), "AersbjoBAVMGMTIuNTAAeAdow6lsbG8BlpPYn-5H"));
+        cookies.add(new Cookie(names.get(1), "123456"));
+        header = Fixtures.cookieHeader(cookies, thirdPartyCookies);
+    }
+
+    @Benchmark
+    public void container(Blackhole bh) {
+        for (Cookie cookie : ContainerCookieParsing.parse(header)) {
+            bh.consume(cookie.getName());
+            bh.consume(cookie.getValue());
+        }
+    }
+
+    @Benchmark
+    public void raw(final Blackhole bh) {
+        parser.parse(header, new CookieHeaderParser.Handler() {
+
+            @Override
+            public void cookie(String name, String value) {
+                bh.consume(name);
+                bh.consume(value);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.anosym.cookie.benchmark;
+
+import com.google.common.collect.Iterators;
+import java.lang.annotation.Annotation;
+import java.util.Iterator;
+import java.util.List;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.util.TypeLiteral;
+
+/**
+ * A fixed {@link Instance}, standing in for the CDI container.
+ *
+ * @author mochieng
+ * @param <T>
+ */
+final class MockInstance<T> implements Instance<T> {
+
+    private final List<T> instances;
+
+    MockInstance(List<T> instances) {
+        this.instances = instances;
+    }
+
+    @Override
+    public T get() {
+        return instances.get(0);
+    }
+
+    @Override
+    public Instance<T> select(Annotation... qualifiers) {
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <U extends T> Instance<U> select(Class<U> subtype, Annotation... qualifiers) {
+        return (Instance<U>) this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <U extends T> Instance<U> select(TypeLiteral<U> subtype, Annotation... qualifiers) {
+        return (Instance<U>) this;
+    }
+
+    @Override
+    public boolean isUnsatisfied() {
+        return instances.isEmpty();
+    }
+
+    @Override
+    public boolean isAmbiguous() {
+        return instances.size() > 1;
+    }
+
+    @Override
+    public void destroy(T instance) {
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return Iterators.unmodifiableIterator(instances.iterator());
+    }
+
+}
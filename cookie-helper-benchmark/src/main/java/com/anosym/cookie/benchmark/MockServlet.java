@@ -0,0 +1,184 @@
+package com.anosym.cookie.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.ServletContext;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Minimal servlet request, response and context stand-ins, backed by dynamic proxies.
+ *
+ * Only the methods used by cookie-helper are implemented, everything else returns the default value of its return type.
+ *
+ * @author mochieng
+ */
+final class MockServlet {
+
+    private MockServlet() {
+    }
+
+    static ServletContext context(final Map<String, String> initParameters) {
+        final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        return proxy(ServletContext.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getInitParameter":
+                        return initParameters.get((String) args[0]);
+                    case "getAttribute":
+                        return attributes.get((String) args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    default:
+                        return defaultValue(method);
+                }
+            }
+        });
+    }
+
+    /**
+     * A session whose attributes may be accessed concurrently.
+     */
+    static HttpSession session(final ServletContext context) {
+        final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        return proxy(HttpSession.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getServletContext":
+                        return context;
+                    case "getAttribute":
+                        return attributes.get((String) args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    case "removeAttribute":
+                        attributes.remove((String) args[0]);
+                        return null;
+                    default:
+                        return defaultValue(method);
+                }
+            }
+        });
+    }
+
+    /**
+     * A request carrying the {@code Cookie} header, whose container parsed cookies are derived from the header.
+     */
+    static HttpServletRequest request(final ServletContext context, final String cookieHeader) {
+        return request(context, cookieHeader, null);
+    }
+
+    /**
+     * A request of the session, carrying the specified {@code Cookie} header.
+     */
+    static HttpServletRequest request(final ServletContext context, final String cookieHeader,
+                                      final HttpSession session) {
+        final Cookie[] cookies = ContainerCookieParsing.parse(cookieHeader);
+        final Map<String, Object> attributes = new HashMap<>();
+        return proxy(HttpServletRequest.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getServletContext":
+                        return context;
+                    case "getAttribute":
+                        return attributes.get((String) args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    case "removeAttribute":
+                        attributes.remove((String) args[0]);
+                        return null;
+                    case "getCookies":
+                        return cookies.length > 0 ? cookies.clone() : null;
+                    case "getHeader":
+                        return "Cookie".equalsIgnoreCase((String) args[0]) ? cookieHeader
+                                : "host".equalsIgnoreCase((String) args[0]) ? "localhost" : null;
+                    case "getHeaders":
+                        return "Cookie".equalsIgnoreCase((String) args[0])
+                                ? Collections.enumeration(Collections.singletonList(cookieHeader))
+                                : Collections.emptyEnumeration();
+                    case "getRequestURI":
+                        return "/";
+                    case "getSession":
+                        return session;
+                    default:
+                        return defaultValue(method);
+                }
+            }
+        });
+    }
+
+    /**
+     * A response recording the cookies and headers added to it.
+     */
+    static HttpServletResponse response(final List<Cookie> cookies, final List<String> setCookieHeaders) {
+        return proxy(HttpServletResponse.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "addCookie":
+                        cookies.add((Cookie) args[0]);
+                        return null;
+                    case "addHeader":
+                        if ("Set-Cookie".equalsIgnoreCase((String) args[0])) {
+                            setCookieHeaders.add((String) args[1]);
+                        }
+                        return null;
+                    default:
+                        return defaultValue(method);
+                }
+            }
+        });
+    }
+
+    static HttpServletResponse response() {
+        return response(new ArrayList<Cookie>(), new ArrayList<String>());
+    }
+
+    /**
+     * A response discarding the cookies and headers added to it.
+     */
+    static HttpServletResponse discardingResponse() {
+        return proxy(HttpServletResponse.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return defaultValue(method);
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(MockServlet.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object defaultValue(Method method) {
+        final Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+}
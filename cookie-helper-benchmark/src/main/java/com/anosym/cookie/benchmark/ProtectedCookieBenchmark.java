@@ -0,0 +1,99 @@
+package com.anosym.cookie.benchmark;
+
+import com.anosym.cookie.CookieConfiguration;
+import com.anosym.cookie.benchmark.model.EncryptedAccountCookie;
+import com.anosym.cookie.benchmark.model.SignedAccountCookie;
+import com.anosym.cookie.core.CookieEngine;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletContext;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading and writing a signed, and an encrypted, cookie through the engine, with and without the cache of verified
+ * values. Reads of the same value hit the cache, hence only the first read pays the verification.
+ *
+ * @author mochieng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtectedCookieBenchmark {
+
+    //A 256 bit secret of zeros, for benchmarking only.
+    private static final String KEYS = "bench:AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=";
+
+    @Param({"signed", "encrypted"})
+    private String protection;
+
+    @Param({"0", "1048576"})
+    private long verifiedCacheMaxBytes;
+
+    private CookieEngine engine;
+    private Class<?> cookieClass;
+    private Object cookie;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        final Map<String, String> initParameters = new HashMap<>();
+        initParameters.put(CookieConfiguration.KEYS, KEYS);
+        initParameters.put(CookieConfiguration.VERIFIED_CACHE_MAX_BYTES, String.valueOf(verifiedCacheMaxBytes));
+        final ServletContext context = MockServlet.context(initParameters);
+        engine = CookieEngine.of(context);
+        if ("signed".equals(protection)) {
+            final SignedAccountCookie signed = new SignedAccountCookie();
+            signed.setAccount(7_340_032L, 0x15, System.currentTimeMillis() + 3_600_000L, "acme");
+            cookie = signed;
+        } else {
+            final EncryptedAccountCookie encrypted = new EncryptedAccountCookie();
+            encrypted.setAccount(7_340_032L, 0x15, System.currentTimeMillis() + 3_600_000L, "acme");
+            cookie = encrypted;
+        }
+        cookieClass = cookie.getClass();
+        final List<String> written = new ArrayList<>();
+        engine.write(MockServlet.response(new ArrayList<Cookie>(), written), cookie);
+        final String header = Fixtures.cookieHeader(Collections.<Cookie>emptyList(), written, 0);
+        request = MockServlet.request(context, header);
+        response = MockServlet.discardingResponse();
+        final Object read = engine.read(request, cookieClass);
+        final long accountId = read instanceof SignedAccountCookie ? ((SignedAccountCookie) read).getAccountId()
+                : ((EncryptedAccountCookie) read).getAccountId();
+        if (accountId != 7_340_032L) {
+            throw new IllegalStateException("Protected cookie not read back: " + header);
+        }
+        System.out.printf("%n%s cookie header: %s%n", protection, header);
+    }
+
+    @Benchmark
+    public Object read() {
+        return engine.read(request, cookieClass);
+    }
+
+    @Benchmark
+    public void write() {
+        engine.write(response, cookie);
+    }
+
+}
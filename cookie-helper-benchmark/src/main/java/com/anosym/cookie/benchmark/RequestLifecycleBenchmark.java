@@ -0,0 +1,94 @@
+package com.anosym.cookie.benchmark;
+
+import com.anosym.cookie.CookieConfiguration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full request, from {@code requestInitialized} to {@code requestDestroyed} of the {@code CookieWebListener}, with
+ * the browser sending back the cookies of the previous response along with third party cookies.
+ *
+ * @author mochieng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestLifecycleBenchmark {
+
+    @Param({"1", "2", "4"})
+    private int cookieClasses;
+
+    @Param({"8", "256"})
+    private int valueSize;
+
+    @Param({"10"})
+    private int thirdPartyCookies;
+
+    @Param({"false", "true"})
+    private boolean rawHeaderParsing;
+
+    /**
+     * Whether the request changes a cookie pojo, so that its cookie is written back.
+     */
+    @Param({"false", "true"})
+    private boolean modifying;
+
+    private ServiceHarness harness;
+    private List<Object> cookies;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private int iteration;
+    //the page, changing a cookie pojo.
+    private final Runnable page = new Runnable() {
+
+        @Override
+        public void run() {
+            Fixtures.mutate(cookies.get(0), iteration++);
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        final Map<String, String> initParameters = new HashMap<>();
+        initParameters.put(CookieConfiguration.RAW_HEADER_PARSING, String.valueOf(rawHeaderParsing));
+        cookies = new ArrayList<>();
+        for (Class<?> cookieClass : Fixtures.LIFECYCLE_COOKIES.subList(0, cookieClasses)) {
+            cookies.add(Fixtures.newCookie(cookieClass, valueSize));
+        }
+        harness = new ServiceHarness(MockServlet.context(initParameters), cookies);
+
+        //the first response sets all the cookies, which the browser then sends back.
+        final List<Cookie> written = new ArrayList<>();
+        final List<String> writtenHeaders = new ArrayList<>();
+        harness.request(MockServlet.request(harness.context(), ""), MockServlet.response(written, writtenHeaders));
+        request = MockServlet.request(harness.context(), Fixtures.cookieHeader(written, writtenHeaders,
+                                                                                 thirdPartyCookies));
+        response = MockServlet.response();
+    }
+
+    @Benchmark
+    public void request() {
+        harness.request(request, response, modifying ? page : null);
+    }
+
+}
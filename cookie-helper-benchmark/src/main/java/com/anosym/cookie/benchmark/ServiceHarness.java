@@ -0,0 +1,107 @@
+package com.anosym.cookie.benchmark;
+
+import com.anosym.cookie.CookieService;
+import com.anosym.cookie.CookieWebListener;
+import com.anosym.cookie.impl.CookieExtension;
+import com.anosym.cookie.impl.CookieServiceImpl;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Wires a {@link CookieServiceImpl} and a {@link CookieWebListener} the way the CDI container would, against mock
+ * servlet requests and responses.
+ *
+ * @author mochieng
+ */
+final class ServiceHarness {
+
+    private final List<HttpServletRequest> request
+            = new ArrayList<>(Collections.<HttpServletRequest>singletonList(null));
+    private final List<HttpServletResponse> response
+            = new ArrayList<>(Collections.<HttpServletResponse>singletonList(null));
+    private final ServletContext context;
+    private final List<Object> cookies;
+    private final CookieServiceImpl service;
+    private final CookieWebListener listener;
+
+    ServiceHarness(ServletContext context, List<Object> cookies) {
+        this.context = context;
+        this.cookies = cookies;
+        this.request.set(0, MockServlet.request(context, ""));
+        this.response.set(0, MockServlet.response());
+        try {
+            service = new CookieServiceImpl();
+            inject(service, "servletRequest", new MockInstance<>(request));
+            inject(service, "servletResponse", new MockInstance<>(response));
+            inject(service, "cookies", new MockInstance<>(cookies));
+            inject(service, "extension", new CookieExtension());
+
+            listener = new CookieWebListener();
+            inject(listener, "cookieService", service);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        final Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    CookieService service() {
+        return service;
+    }
+
+    ServletContext context() {
+        return context;
+    }
+
+    void setRequest(HttpServletRequest request) {
+        this.request.set(0, request);
+    }
+
+    void setResponse(HttpServletResponse response) {
+        this.response.set(0, response);
+    }
+
+    /**
+     * Accesses each cookie pojo, as its decoding interceptor would on the first call of a business method.
+     */
+    void access() {
+        for (Object cookie : cookies) {
+            service.decodeObjectCookie(cookie);
+        }
+    }
+
+    /**
+     * Runs a single request through the listener, from request initialization to request destruction, accessing each
+     * cookie pojo.
+     */
+    void request(HttpServletRequest request, HttpServletResponse response) {
+        request(request, response, null);
+    }
+
+    /**
+     * Runs a single request through the listener, from request initialization to request destruction, accessing each
+     * cookie pojo before running the page, if any.
+     */
+    void request(HttpServletRequest request, HttpServletResponse response, Runnable page) {
+        setRequest(request);
+        setResponse(response);
+        final ServletRequestEvent event = new ServletRequestEvent(context, request);
+        listener.requestInitialized(event);
+        access();
+        if (page != null) {
+            page.run();
+        }
+        listener.requestDestroyed(event);
+    }
+
+}
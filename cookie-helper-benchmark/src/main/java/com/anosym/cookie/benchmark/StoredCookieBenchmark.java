@@ -0,0 +1,102 @@
+package com.anosym.cookie.benchmark;
+
+import com.anosym.cookie.CookieConfiguration;
+import com.anosym.cookie.benchmark.model.StoredRecentlyViewedCookie;
+import com.anosym.cookie.codec.EncodedCookieFormat;
+import com.anosym.cookie.core.CookieEngine;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletContext;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading and writing a stored cookie through the engine, with each of the built-in cookie stores.
+ *
+ * The setup prints the length of the {@code Cookie} request header, which is the length of the token whatever the
+ * number of products, next to the length of the cookie value if it were sent to the browser.
+ *
+ * @author mochieng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoredCookieBenchmark {
+
+    private static final long FIRST_PRODUCT_ID = 4_000_000_000L;
+
+    @Param({"memory", "file"})
+    private String store;
+
+    @Param({"32", "512"})
+    private int products;
+
+    private CookieEngine engine;
+    private StoredRecentlyViewedCookie cookie;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        final Map<String, String> initParameters = new HashMap<>();
+        initParameters.put(CookieConfiguration.STORE, store);
+        final ServletContext context = MockServlet.context(initParameters);
+        engine = CookieEngine.of(context);
+        cookie = new StoredRecentlyViewedCookie();
+        final Random random = new Random(products);
+        long productId = FIRST_PRODUCT_ID;
+        for (int i = 0; i < products; i++) {
+            productId += 1 + random.nextInt(5000);
+            cookie.getProductIds().add(productId);
+        }
+        final List<String> written = new ArrayList<>();
+        engine.write(MockServlet.response(new ArrayList<Cookie>(), written), cookie);
+        final String header = Fixtures.cookieHeader(Collections.<Cookie>emptyList(), written, 0);
+        request = MockServlet.request(context, header);
+        response = MockServlet.discardingResponse();
+        if (!engine.read(request, StoredRecentlyViewedCookie.class).getProductIds().equals(cookie.getProductIds())) {
+            throw new IllegalStateException("Stored cookie not read back: " + header);
+        }
+        final String inline = EncodedCookieFormat.encode(CookieSchema.of(StoredRecentlyViewedCookie.class), cookie);
+        System.out.printf("%n%d product ids: Cookie header %d chars, inline value %d chars%n", products,
+                          header.length(), inline.length());
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.getConfiguration().destroy();
+    }
+
+    @Benchmark
+    public Object read() {
+        return engine.read(request, StoredRecentlyViewedCookie.class);
+    }
+
+    @Benchmark
+    public void write() {
+        engine.write(response, cookie);
+    }
+
+}
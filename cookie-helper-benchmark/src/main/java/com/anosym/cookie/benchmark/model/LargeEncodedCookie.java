@@ -0,0 +1,32 @@
+package com.anosym.cookie.benchmark.model;
+
+import com.anosym.cookie.annotation.Cookie;
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+/**
+ * An encoded cookie with sixteen fields of every supported type, accessed through its generated codec.
+ *
+ * @author mochieng
+ */
+@Cookie(encoded = true)
+public class LargeEncodedCookie {
+
+    int f00;
+    long f01;
+    boolean f02;
+    String f03;
+    Integer f04;
+    double f05;
+    String f06;
+    short f07;
+    char f08;
+    Long f09;
+    BigDecimal f10;
+    Calendar f11;
+    String f12;
+    float f13;
+    byte f14;
+    Boolean f15;
+
+}
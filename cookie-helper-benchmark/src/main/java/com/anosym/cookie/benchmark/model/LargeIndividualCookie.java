@@ -0,0 +1,49 @@
+package com.anosym.cookie.benchmark.model;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.Name;
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+/**
+ * A cookie with sixteen fields of every supported type, each written as an individual http cookie.
+ *
+ * @author mochieng
+ */
+@Cookie
+public class LargeIndividualCookie {
+
+    @Name("li.f00")
+    int f00;
+    @Name("li.f01")
+    long f01;
+    @Name("li.f02")
+    boolean f02;
+    @Name("li.f03")
+    String f03;
+    @Name("li.f04")
+    Integer f04;
+    @Name("li.f05")
+    double f05;
+    @Name("li.f06")
+    String f06;
+    @Name("li.f07")
+    short f07;
+    @Name("li.f08")
+    char f08;
+    @Name("li.f09")
+    Long f09;
+    @Name("li.f10")
+    BigDecimal f10;
+    @Name("li.f11")
+    Calendar f11;
+    @Name("li.f12")
+    String f12;
+    @Name("li.f13")
+    float f13;
+    @Name("li.f14")
+    byte f14;
+    @Name("li.f15")
+    Boolean f15;
+
+}
@@ -0,0 +1,64 @@
+package com.anosym.cookie.benchmark.model;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.Embeddable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.enterprise.context.RequestScoped;
+
+/**
+ * An encoded cookie of the recently viewed products of a browser: their sorted ids, and the last search.
+ *
+ * @author mochieng
+ */
+@Cookie(encoded = true)
+@RequestScoped
+public class RecentlyViewedCookie {
+
+    SortedSet<Long> productIds = new TreeSet<>();
+    List<Search> searches = new ArrayList<>();
+    int[] pageSizes;
+
+    public SortedSet<Long> getProductIds() {
+        return productIds;
+    }
+
+    public List<Search> getSearches() {
+        return searches;
+    }
+
+    public int[] getPageSizes() {
+        return pageSizes;
+    }
+
+    public void setPageSizes(int[] pageSizes) {
+        this.pageSizes = pageSizes;
+    }
+
+    @Embeddable
+    public static class Search {
+
+        String query;
+        int page;
+        Sort sort;
+
+        public Search() {
+        }
+
+        public Search(String query, int page, Sort sort) {
+            this.query = query;
+            this.page = page;
+            this.sort = sort;
+        }
+
+    }
+
+    public enum Sort {
+
+        RELEVANCE, PRICE, RATING
+
+    }
+
+}
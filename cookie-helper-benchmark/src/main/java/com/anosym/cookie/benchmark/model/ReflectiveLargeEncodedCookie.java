@@ -0,0 +1,33 @@
+package com.anosym.cookie.benchmark.model;
+
+import com.anosym.cookie.annotation.Cookie;
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+/**
+ * The same fields as {@link LargeEncodedCookie}, but private and without accessors, so that no codec is generated
+ * and the fields are accessed reflectively.
+ *
+ * @author mochieng
+ */
+@Cookie(encoded = true)
+public class ReflectiveLargeEncodedCookie {
+
+    private int f00;
+    private long f01;
+    private boolean f02;
+    private String f03;
+    private Integer f04;
+    private double f05;
+    private String f06;
+    private short f07;
+    private char f08;
+    private Long f09;
+    private BigDecimal f10;
+    private Calendar f11;
+    private String f12;
+    private float f13;
+    private byte f14;
+    private Boolean f15;
+
+}
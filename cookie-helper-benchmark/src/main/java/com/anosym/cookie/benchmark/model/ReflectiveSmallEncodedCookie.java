@@ -0,0 +1,19 @@
+package com.anosym.cookie.benchmark.model;
+
+import com.anosym.cookie.annotation.Cookie;
+
+/**
+ * The same fields as {@link SmallEncodedCookie}, but private and without accessors, so that no codec is generated and
+ * the fields are accessed reflectively.
+ *
+ * @author mochieng
+ */
+@Cookie(encoded = true)
+public class ReflectiveSmallEncodedCookie {
+
+    private int visits;
+    private long lastSeen;
+    private boolean admin;
+    private String name;
+
+}
@@ -0,0 +1,30 @@
+package com.anosym.cookie.benchmark.model;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.Protection;
+
+/**
+ * An signed encoded cookie of the account of a browser, trusted instead of looking the account up.
+ *
+ * @author mochieng
+ */
+@Cookie(encoded = true, protection = Protection.SIGNED)
+public class SignedAccountCookie {
+
+    long accountId;
+    int roles;
+    long expiresAt;
+    String tenant;
+
+    public void setAccount(long accountId, int roles, long expiresAt, String tenant) {
+        this.accountId = accountId;
+        this.roles = roles;
+        this.expiresAt = expiresAt;
+        this.tenant = tenant;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.anosym.cookie.benchmark.model;
+
+import com.anosym.cookie.annotation.Cookie;
+
+/**
+ * An encoded cookie with four fields, accessed through its generated codec.
+ *
+ * @author mochieng
+ */
+@Cookie(encoded = true)
+public class SmallEncodedCookie {
+
+    int visits;
+    long lastSeen;
+    boolean admin;
+    String name;
+
+}
@@ -0,0 +1,23 @@
+package com.anosym.cookie.benchmark.model;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.Name;
+
+/**
+ * A cookie with four fields, each written as an individual http cookie.
+ *
+ * @author mochieng
+ */
+@Cookie
+public class SmallIndividualCookie {
+
+    @Name("si.visits")
+    int visits;
+    @Name("si.lastSeen")
+    long lastSeen;
+    @Name("si.admin")
+    boolean admin;
+    @Name("si.name")
+    String name;
+
+}
@@ -0,0 +1,23 @@
+package com.anosym.cookie.benchmark.model;
+
+import com.anosym.cookie.annotation.Cookie;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.enterprise.context.RequestScoped;
+
+/**
+ * A stored cookie of the recently viewed products of a browser, of which only a token is sent to the browser.
+ *
+ * @author mochieng
+ */
+@Cookie(encoded = true, stored = true, maxAge = 3600)
+@RequestScoped
+public class StoredRecentlyViewedCookie {
+
+    SortedSet<Long> productIds = new TreeSet<>();
+
+    public SortedSet<Long> getProductIds() {
+        return productIds;
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.anosym.cookie.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.ServletRequestListener;
+
+/**
+ * Records the bytes allocated by the container thread of every request, from the first request listener to the last,
+ * hence including the request listeners and filters of the library.
+ *
+ * Must be registered before any other request listener.
+ *
+ * @author mochieng
+ */
+public class AllocationListener implements ServletRequestListener {
+
+    private static final com.sun.management.ThreadMXBean THREADS
+            = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final String START_ATTRIBUTE = AllocationListener.class.getName() + ".start";
+
+    private static final LongAdder REQUESTS = new LongAdder();
+    private static final LongAdder ALLOCATED_BYTES = new LongAdder();
+
+    @Override
+    public void requestInitialized(ServletRequestEvent sre) {
+        sre.getServletRequest().setAttribute(START_ATTRIBUTE, allocatedBytes());
+    }
+
+    @Override
+    public void requestDestroyed(ServletRequestEvent sre) {
+        final Long start = (Long) sre.getServletRequest().getAttribute(START_ATTRIBUTE);
+        if (start != null) {
+            ALLOCATED_BYTES.add(allocatedBytes() - start);
+            REQUESTS.increment();
+        }
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static void reset() {
+        REQUESTS.reset();
+        ALLOCATED_BYTES.reset();
+    }
+
+    /**
+     * The average bytes allocated per request since the last reset.
+     */
+    static long getAllocatedBytesPerRequest() {
+        final long requests = REQUESTS.sum();
+        return requests > 0 ? ALLOCATED_BYTES.sum() / requests : 0;
+    }
+
+}
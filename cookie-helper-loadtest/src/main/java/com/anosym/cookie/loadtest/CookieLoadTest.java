@@ -0,0 +1,77 @@
+package com.anosym.cookie.loadtest;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load tests the library within an embedded servlet container, with the library disabled, then enabled, for a number of
+ * rounds.
+ *
+ * Both the load and the server run in this JVM, whose JIT compiles the container, Weld and the http client while the
+ * first rounds are measured: on few cores, compilation takes a sizeable share of the CPU for tens of seconds, and the
+ * mode measured first appears several times slower. Only the last round, once compilation has settled, compares the
+ * library with the container alone.
+ *
+ * Options are {@code name=value} arguments: {@code threads} (8), {@code warmup} seconds (10), {@code duration} seconds
+ * (30), {@code rounds} (2) and {@code sessionRequests} (100), the number of requests of each browser session. Arguments
+ * starting with {@code com.anosym.cookie.} are passed to the web application as context parameters, see
+ * {@link com.anosym.cookie.CookieConfiguration}.
+ *
+ * @author mochieng
+ */
+public final class CookieLoadTest {
+
+    private CookieLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new LinkedHashMap<>();
+        final Map<String, String> initParameters = new LinkedHashMap<>();
+        for (String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected name=value, but was: " + arg);
+            }
+            final String name = arg.substring(0, separator);
+            final String value = arg.substring(separator + 1);
+            if (name.startsWith("com.anosym.cookie.")) {
+                initParameters.put(name, value);
+            } else {
+                options.put(name, value);
+            }
+        }
+        final int threads = option(options, "threads", 8);
+        final int warmup = option(options, "warmup", 10);
+        final int duration = option(options, "duration", 30);
+        final int rounds = option(options, "rounds", 2);
+        final int sessionRequests = option(options, "sessionRequests", 100);
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + options.keySet());
+        }
+
+        System.out.printf("%d threads, %ds warm-up, %ds measured, %d rounds, %d requests per session, %s%n", threads,
+                          warmup, duration, rounds, sessionRequests, initParameters);
+        System.out.printf("%-5s %-10s %12s %10s %10s %10s %10s %12s %8s%n", "round", "library", "req/s", "p50 us",
+                          "p99 us", "p99.9 us", "max us", "alloc B/req", "errors");
+        for (int round = 1; round <= rounds; round++) {
+            for (boolean libraryEnabled : new boolean[]{false, true}) {
+                final LoadResult result;
+                try (EmbeddedServer server = new EmbeddedServer(libraryEnabled, initParameters)) {
+                    final URL url = new URL("http", "localhost", server.getPort(), EmbeddedServer.PATH);
+                    result = new LoadGenerator(url, threads, sessionRequests).run(warmup * 1000L, duration * 1000L);
+                }
+                System.out.printf("%-5d %-10s %12.0f %10.1f %10.1f %10.1f %10.1f %12d %8d%n", round,
+                                  libraryEnabled ? "enabled" : "disabled", result.getThroughput(),
+                                  result.getLatency(50), result.getLatency(99), result.getLatency(99.9),
+                                  result.getLatency(100), result.getAllocatedBytesPerRequest(), result.getErrors());
+            }
+        }
+    }
+
+    private static int option(Map<String, String> options, String name, int defaultValue) {
+        final String value = options.remove(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.anosym.cookie.loadtest;
+
+import com.anosym.cookie.CookieFilter;
+import com.anosym.cookie.CookieInitializer;
+import com.anosym.cookie.CookieWebListener;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletContainerInitializer;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import org.eclipse.jetty.cdi.CdiDecoratingListener;
+import org.eclipse.jetty.cdi.CdiServletContainerInitializer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ListenerHolder;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.jboss.weld.environment.servlet.EnhancedListener;
+
+/**
+ * A Jetty server on a free localhost port, with Weld, serving the {@link VisitServlet}.
+ *
+ * With the library enabled, its initializer, request listener and filter are registered as the container would on
+ * deployment. Otherwise the cookie beans are plain session scoped beans, which are never read from nor written to
+ * cookies.
+ *
+ * @author mochieng
+ */
+final class EmbeddedServer implements AutoCloseable {
+
+    static final String PATH = "/visit";
+
+    private final Server server;
+
+    EmbeddedServer(final boolean libraryEnabled, final Map<String, String> initParameters) throws Exception {
+        server = new Server();
+        final ServerConnector connector = new ServerConnector(server);
+        connector.setHost("localhost");
+        connector.setPort(0);
+        server.addConnector(connector);
+
+        final ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        context.setContextPath("/");
+        for (Map.Entry<String, String> parameter : initParameters.entrySet()) {
+            context.setInitParameter(parameter.getKey(), parameter.getValue());
+        }
+        //the embedded context discovers neither initializers nor annotated listeners, these are registered as the
+        //container would on deployment. Weld decorates the servlets, filters and listeners through jetty-cdi.
+        context.setInitParameter(CdiServletContainerInitializer.CDI_INTEGRATION_ATTRIBUTE, CdiDecoratingListener.MODE);
+        context.addBean(new ServletContextHandler.Initializer(context, new CdiServletContainerInitializer()));
+        context.addBean(new ServletContextHandler.Initializer(context, new EnhancedListener()));
+        context.getServletHandler().addListener(new ListenerHolder(AllocationListener.class));
+        if (libraryEnabled) {
+            context.addBean(new ServletContextHandler.Initializer(context, new CookieInitializer()));
+            //after the Weld listener, which must activate the request context first, and deactivate it last.
+            context.addBean(new ServletContextHandler.Initializer(context, new ServletContainerInitializer() {
+
+                @Override
+                public void onStartup(Set<Class<?>> classes, ServletContext ctx) throws ServletException {
+                    ctx.addListener(CookieWebListener.class);
+                    ctx.addFilter(CookieFilter.class.getSimpleName(), CookieFilter.class)
+                            .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), false, "/*");
+                }
+            }));
+        }
+        context.addServlet(new ServletHolder(VisitServlet.class), PATH);
+        server.setHandler(context);
+        server.start();
+    }
+
+    int getPort() {
+        return ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+    }
+
+    @Override
+    public void close() throws Exception {
+        server.stop();
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.anosym.cookie.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives concurrent keep-alive http requests against a url, each thread a browser with its own cookies.
+ *
+ * Every browser starts a new session, without cookies, after the configured number of requests, such that first
+ * requests of sessions are part of the load. A request is an error unless the page reports the number of visits of the
+ * session so far, and any visits cookie written agrees with the page.
+ *
+ * @author mochieng
+ */
+final class LoadGenerator {
+
+    private static final String VISITS_COOKIE = "lt.visits";
+
+    private final URL url;
+    private final int threads;
+    private final int sessionRequests;
+
+    LoadGenerator(URL url, int threads, int sessionRequests) {
+        this.url = url;
+        this.threads = threads;
+        this.sessionRequests = sessionRequests;
+        //the connections of all the browsers are kept alive.
+        System.setProperty("http.maxConnections", String.valueOf(Math.max(5, threads)));
+    }
+
+    /**
+     * Runs the load for the warm-up period, then records the requests of the measured period.
+     */
+    LoadResult run(final long warmupMillis, final long durationMillis) throws InterruptedException {
+        final long start = System.nanoTime();
+        final long measureStart = start + warmupMillis * 1000000;
+        final long end = measureStart + durationMillis * 1000000;
+        final LongAdder errors = new LongAdder();
+        final List<Browser> browsers = new ArrayList<>();
+        final CountDownLatch finished = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            final Browser browser = new Browser(measureStart, end, errors, finished);
+            browsers.add(browser);
+            final Thread thread = new Thread(browser, "browser-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, measureStart - System.nanoTime()));
+        AllocationListener.reset();
+        finished.await();
+        final long allocatedBytes = AllocationListener.getAllocatedBytesPerRequest();
+        int requests = 0;
+        for (Browser browser : browsers) {
+            requests += browser.recorded;
+        }
+        final long[] latencies = new long[requests];
+        int offset = 0;
+        for (Browser browser : browsers) {
+            System.arraycopy(browser.latencies, 0, latencies, offset, browser.recorded);
+            offset += browser.recorded;
+        }
+        return new LoadResult(errors.sum(), end - measureStart, latencies, allocatedBytes);
+    }
+
+    private final class Browser implements Runnable {
+
+        private final long measureStart;
+        private final long end;
+        private final LongAdder errors;
+        private final CountDownLatch finished;
+        private final Map<String, String> cookies = new HashMap<>();
+        private final byte[] buffer = new byte[4096];
+        private long[] latencies = new long[1 << 16];
+        private int recorded;
+
+        Browser(long measureStart, long end, LongAdder errors, CountDownLatch finished) {
+            this.measureStart = measureStart;
+            this.end = end;
+            this.errors = errors;
+            this.finished = finished;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int sessionRequest = 0;
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    if (sessionRequest++ == sessionRequests) {
+                        cookies.clear();
+                        sessionRequest = 1;
+                    }
+                    final boolean ok = request(sessionRequest);
+                    final long latency = System.nanoTime() - now;
+                    if (now >= measureStart) {
+                        if (!ok) {
+                            errors.increment();
+                        }
+                        record(latency);
+                    }
+                }
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        /**
+         * Requests the page, which must report the visits of the session so far, as must its visits cookie if written.
+         */
+        private boolean request(int visits) {
+            try {
+                final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                if (!cookies.isEmpty()) {
+                    connection.setRequestProperty("Cookie", cookieHeader());
+                }
+                final int status = connection.getResponseCode();
+                int length = 0;
+                try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                    //read fully, such that the connection is kept alive.
+                    int read;
+                    while (in != null && (read = in.read(buffer, length, buffer.length - length)) > 0) {
+                        length += read;
+                    }
+                }
+                final List<String> setCookies = connection.getHeaderFields().get("Set-Cookie");
+                boolean visitsAgree = true;
+                if (setCookies != null) {
+                    for (String setCookie : setCookies) {
+                        if (setCookie.startsWith(VISITS_COOKIE + "=")) {
+                            visitsAgree = setCookie.startsWith(VISITS_COOKIE + "=" + visits + ";");
+                        }
+                        store(setCookie);
+                    }
+                }
+                final String body = new String(buffer, 0, length, StandardCharsets.US_ASCII);
+                return status == HttpURLConnection.HTTP_OK && visitsAgree && body.startsWith("visits=" + visits + ",");
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+
+        private void store(String setCookie) {
+            final int separator = setCookie.indexOf('=');
+            final int end = setCookie.indexOf(';');
+            final String value = setCookie.substring(separator + 1, end < 0 ? setCookie.length() : end);
+            final String name = setCookie.substring(0, separator).trim();
+            if (setCookie.toLowerCase().contains("max-age=0")) {
+                cookies.remove(name);
+            } else {
+                cookies.put(name, value);
+            }
+        }
+
+        private String cookieHeader() {
+            final StringBuilder header = new StringBuilder();
+            for (Map.Entry<String, String> cookie : cookies.entrySet()) {
+                if (header.length() > 0) {
+                    header.append("; ");
+                }
+                header.append(cookie.getKey()).append('=').append(cookie.getValue());
+            }
+            return header.toString();
+        }
+
+        private void record(long latency) {
+            if (recorded == latencies.length) {
+                latencies = Arrays.copyOf(latencies, recorded * 2);
+            }
+            latencies[recorded++] = latency;
+        }
+
+    }
+
+}
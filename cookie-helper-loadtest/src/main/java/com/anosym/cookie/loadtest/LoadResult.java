@@ -0,0 +1,57 @@
+package com.anosym.cookie.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of a load run: throughput, latency percentiles and allocations per request.
+ *
+ * @author mochieng
+ */
+final class LoadResult {
+
+    private final long requests;
+    private final long errors;
+    private final double throughput;
+    //sorted, in nanoseconds.
+    private final long[] latencies;
+    private final long allocatedBytesPerRequest;
+
+    LoadResult(long errors, long durationNanos, long[] latencies, long allocatedBytesPerRequest) {
+        this.requests = latencies.length;
+        this.errors = errors;
+        this.throughput = requests * 1e9 / durationNanos;
+        this.latencies = latencies.clone();
+        this.allocatedBytesPerRequest = allocatedBytesPerRequest;
+        Arrays.sort(this.latencies);
+    }
+
+    long getRequests() {
+        return requests;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    double getThroughput() {
+        return throughput;
+    }
+
+    long getAllocatedBytesPerRequest() {
+        return allocatedBytesPerRequest;
+    }
+
+    /**
+     * The latency at the percentile, in microseconds.
+     *
+     * @param percentile between 0 and 100
+     */
+    double getLatency(double percentile) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+        return latencies[Math.max(0, Math.min(latencies.length - 1, index))] / 1000d;
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.anosym.cookie.loadtest;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.loadtest.model.PreferencesCookie;
+import com.anosym.cookie.loadtest.model.VisitCookie;
+import java.io.IOException;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A page recording the visit of the browser in its cookies.
+ *
+ * @author mochieng
+ */
+public class VisitServlet extends HttpServlet {
+
+    private static final long serialVersionUID = -3847384738473l;
+
+    @Inject
+    @Cookie
+    private VisitCookie visit;
+    @Inject
+    @Cookie
+    private PreferencesCookie preferences;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final int visits = visit.visit(request.getHeader("Referer"));
+        final long pagesViewed = preferences.pageViewed();
+        response.setContentType("text/plain");
+        response.getWriter()
+                .append("visits=").append(String.valueOf(visits))
+                .append(", pages=").append(String.valueOf(pagesViewed))
+                .append(", language=").append(preferences.getLanguage())
+                .append('\n');
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.anosym.cookie.loadtest.model;
+
+import com.anosym.cookie.annotation.Cookie;
+import java.io.Serializable;
+import javax.enterprise.context.SessionScoped;
+
+/**
+ * The mostly static preferences of a browser, encoded into a single http cookie.
+ *
+ * @author mochieng
+ */
+@Cookie(encoded = true, maxAge = 86400, httpOnly = true)
+@SessionScoped
+public class PreferencesCookie implements Serializable {
+
+    private static final long serialVersionUID = -9283748374837l;
+
+    private String language = "en";
+    private String theme = "light";
+    private String timeZone = "Africa/Nairobi";
+    private int pageSize = 20;
+    private boolean compact;
+    private boolean notifications = true;
+    private boolean betaFeatures;
+    private long pagesViewed;
+
+    public long pageViewed() {
+        return ++pagesViewed;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.anosym.cookie.loadtest.model;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.MaxAge;
+import com.anosym.cookie.annotation.Name;
+import java.io.Serializable;
+import javax.enterprise.context.SessionScoped;
+
+/**
+ * The visits of a browser, each field written as an individual http cookie.
+ *
+ * @author mochieng
+ */
+@Cookie
+@SessionScoped
+public class VisitCookie implements Serializable {
+
+    private static final long serialVersionUID = -2394873948374l;
+
+    @Name("lt.visits")
+    @MaxAge(3600)
+    private int visits;
+    @Name("lt.lastVisit")
+    private long lastVisit;
+    @Name("lt.referrer")
+    private String referrer;
+
+    public int visit(String referrer) {
+        this.lastVisit = System.currentTimeMillis();
+        this.referrer = referrer;
+        return ++visits;
+    }
+
+}
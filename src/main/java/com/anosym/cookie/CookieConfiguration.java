@@ -0,0 +1,439 @@
+package com.anosym.cookie;
+
+import com.anosym.cookie.codec.DecodedCookieCache;
+import com.anosym.cookie.http.UrlPatterns;
+import com.anosym.cookie.security.CookieKeyRing;
+import com.anosym.cookie.store.CachingCookieStore;
+import com.anosym.cookie.store.CookieStore;
+import com.anosym.cookie.store.MappedFileCookieStore;
+import com.anosym.cookie.store.MemoryCookieStore;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.servlet.ServletContext;
+
+/**
+ * The cookie-helper settings of a web application.
+ *
+ * Each setting is read from the servlet context init parameter of the same name, falling back to the system property
+ * of that name, and otherwise to its default.
+ *
+ * <pre>
+ *  <code>
+ * &lt;context-param&gt;
+ *     &lt;param-name&gt;com.anosym.cookie.rawHeaderParsing&lt;/param-name&gt;
+ *     &lt;param-value&gt;true&lt;/param-value&gt;
+ * &lt;/context-param&gt;
+ * </code>
+ * </pre>
+ *
+ * @author mochieng
+ */
+public final class CookieConfiguration {
+
+    /**
+     * If true, the {@code Cookie} request headers are scanned directly for the registered cookies, instead of having
+     * the container parse every request cookie. Default is false.
+     */
+    public static final String RAW_HEADER_PARSING = "com.anosym.cookie.rawHeaderParsing";
+
+    /**
+     * If true, the cookie pojos are not decoded when the request is initialized. Instead, the raw cookie values are
+     * captured, and each pojo is decoded when it is first accessed within the request. Default is false.
+     *
+     * @deprecated ignored, a warning being logged if set: the cookie pojos are always decoded on first access, as until
+     * then, only their CDI client proxies are known, whose own fields are never read by the application.
+     */
+    @Deprecated
+    public static final String LAZY_DECODING = "com.anosym.cookie.lazyDecoding";
+
+    /**
+     * The approximate maximum memory footprint, in bytes, of the application wide cache of decoded encoded cookies
+     * (see {@link DecodedCookieCache}). Default is 0, in which case decoded cookies are not cached.
+     */
+    public static final String DECODE_CACHE_MAX_BYTES = "com.anosym.cookie.decodeCacheMaxBytes";
+
+    /**
+     * The number of encode and decode round trips of each cookie class on deployment, warming up the cookie paths
+     * before the first requests. Default is 1000, 0 disables the warm-up.
+     */
+    public static final String WARM_UP_ITERATIONS = "com.anosym.cookie.warmUpIterations";
+
+    /**
+     * A comma separated list of servlet url patterns, such as {@code /static/*,*.css,/health}, of the requests which
+     * bypass the cookie pojos entirely: their pojos are neither read nor written. Default is none.
+     */
+    public static final String EXCLUDED_PATHS = "com.anosym.cookie.excludedPaths";
+
+    /**
+     * The maximum size, in bytes, of a single cookie as kept by the browser: the length of its name, the {@code =} and
+     * its value. Larger cookies are handled by the {@link #COOKIE_OVERFLOW} policy. Default is 4096, the size browsers
+     * keep of a cookie; 0 disables the limit.
+     */
+    public static final String MAX_COOKIE_BYTES = "com.anosym.cookie.maxCookieBytes";
+
+    /**
+     * The maximum size, in bytes, of all the cookies written to a response, measured as {@link #MAX_COOKIE_BYTES}.
+     * Cookies past the limit are handled by the {@link #COOKIE_OVERFLOW} policy. Default is 0, no limit.
+     */
+    public static final String MAX_RESPONSE_COOKIE_BYTES = "com.anosym.cookie.maxResponseCookieBytes";
+
+    /**
+     * What becomes of a cookie over the size limits, one of the {@link OverflowPolicy} names. Default is
+     * {@code chunk}.
+     */
+    public static final String COOKIE_OVERFLOW = "com.anosym.cookie.cookieOverflow";
+
+    /**
+     * The {@link CookieStore} of {@link com.anosym.cookie.annotation.Cookie#stored() } cookies: {@code memory} for the
+     * {@link MemoryCookieStore}, {@code file} for the {@link MappedFileCookieStore}, or the class name of a store with
+     * a public default constructor. Default is the first store registered through {@link ServiceLoader}, if any,
+     * otherwise {@code memory}.
+     */
+    public static final String STORE = "com.anosym.cookie.store";
+
+    /**
+     * The approximate maximum size, in bytes, of the memory and file stores. Default is 64MB.
+     */
+    public static final String STORE_MAX_BYTES = "com.anosym.cookie.storeMaxBytes";
+
+    /**
+     * The path of the file of the file store. Default is a temporary file, which does not survive restarts.
+     */
+    public static final String STORE_FILE = "com.anosym.cookie.storeFile";
+
+    /**
+     * The size, in bytes, of the slots of the file store, which bounds the length of the values it stores. Default is
+     * 4096.
+     */
+    public static final String STORE_SLOT_BYTES = "com.anosym.cookie.storeSlotBytes";
+
+    /**
+     * The approximate maximum memory footprint, in bytes, of a {@link CachingCookieStore} in front of the file or an
+     * external store. Default is 0, in which case the store is not cached.
+     */
+    public static final String STORE_CACHE_MAX_BYTES = "com.anosym.cookie.storeCacheMaxBytes";
+
+    /**
+     * The time to live, in seconds, of the stored values of session cookies, which have no maximum age, since they were
+     * last read. Default is a day.
+     */
+    public static final String STORE_SESSION_TTL = "com.anosym.cookie.storeSessionTtl";
+
+    /**
+     * The keys of {@link com.anosym.cookie.annotation.Cookie#protection() protected} cookies, as a comma separated list
+     * of {@code id:secret} pairs, the current key first (see {@link CookieKeyRing}). Required by protected cookies.
+     * Better set as a system property, or a container managed init parameter, than within the application archive.
+     */
+    public static final String KEYS = "com.anosym.cookie.keys";
+
+    /**
+     * The approximate maximum memory footprint, in bytes, of the cache of the received protected values already
+     * verified, or decrypted, such that the same value sent on consecutive requests is only verified once. Default is
+     * 1MB, 0 disables the cache.
+     */
+    public static final String VERIFIED_CACHE_MAX_BYTES = "com.anosym.cookie.verifiedCacheMaxBytes";
+
+    private static final Logger LOG = Logger.getLogger(CookieConfiguration.class.getName());
+
+    private static final int DEFAULT_WARM_UP_ITERATIONS = 1000;
+    private static final int DEFAULT_MAX_COOKIE_BYTES = 4096;
+    private static final long DEFAULT_STORE_MAX_BYTES = 64L << 20;
+    private static final int DEFAULT_STORE_SLOT_BYTES = 4096;
+    private static final int DEFAULT_STORE_SESSION_TTL = 86400;
+    private static final long DEFAULT_VERIFIED_CACHE_MAX_BYTES = 1L << 20;
+
+    private static final String ATTRIBUTE = CookieConfiguration.class.getName();
+
+    private final boolean rawHeaderParsing;
+    private final DecodedCookieCache decodeCache;
+    private final int warmUpIterations;
+    private final UrlPatterns excludedPaths;
+    private final int maxCookieBytes;
+    private final int maxResponseCookieBytes;
+    private final OverflowPolicy cookieOverflow;
+    private final String store;
+    private final long storeMaxBytes;
+    private final String storeFile;
+    private final int storeSlotBytes;
+    private final long storeCacheMaxBytes;
+    private final int storeSessionTtl;
+    private final CookieKeyRing keyRing;
+    private final long verifiedCacheMaxBytes;
+    //Created on first access, as most applications have no stored cookies.
+    private volatile CookieStore cookieStore;
+
+    private CookieConfiguration(@Nonnull final ServletContext servletContext) {
+        this.rawHeaderParsing = Boolean.parseBoolean(getParameter(servletContext, RAW_HEADER_PARSING));
+        if (getParameter(servletContext, LAZY_DECODING) != null) {
+            LOG.log(Level.WARNING, "{0} is ignored, cookie pojos are always decoded on first access", LAZY_DECODING);
+        }
+        final String decodeCacheMaxBytes = getParameter(servletContext, DECODE_CACHE_MAX_BYTES);
+        final long maxBytes = decodeCacheMaxBytes != null ? Long.parseLong(decodeCacheMaxBytes.trim()) : 0;
+        this.decodeCache = maxBytes > 0 ? new DecodedCookieCache(maxBytes) : null;
+        final String iterations = getParameter(servletContext, WARM_UP_ITERATIONS);
+        this.warmUpIterations = iterations != null ? Integer.parseInt(iterations.trim()) : DEFAULT_WARM_UP_ITERATIONS;
+        final String excluded = getParameter(servletContext, EXCLUDED_PATHS);
+        this.excludedPaths = excluded != null ? UrlPatterns.parse(excluded) : null;
+        final String maxBytesPerCookie = getParameter(servletContext, MAX_COOKIE_BYTES);
+        this.maxCookieBytes = maxBytesPerCookie != null
+                ? Integer.parseInt(maxBytesPerCookie.trim()) : DEFAULT_MAX_COOKIE_BYTES;
+        final String maxBytesPerResponse = getParameter(servletContext, MAX_RESPONSE_COOKIE_BYTES);
+        this.maxResponseCookieBytes = maxBytesPerResponse != null ? Integer.parseInt(maxBytesPerResponse.trim()) : 0;
+        final String overflow = getParameter(servletContext, COOKIE_OVERFLOW);
+        this.cookieOverflow = overflow != null ? OverflowPolicy.of(overflow) : OverflowPolicy.CHUNK;
+        this.store = getParameter(servletContext, STORE);
+        final String maxStoreBytes = getParameter(servletContext, STORE_MAX_BYTES);
+        this.storeMaxBytes = maxStoreBytes != null ? Long.parseLong(maxStoreBytes.trim()) : DEFAULT_STORE_MAX_BYTES;
+        this.storeFile = getParameter(servletContext, STORE_FILE);
+        final String slotBytes = getParameter(servletContext, STORE_SLOT_BYTES);
+        this.storeSlotBytes = slotBytes != null ? Integer.parseInt(slotBytes.trim()) : DEFAULT_STORE_SLOT_BYTES;
+        final String cacheMaxBytes = getParameter(servletContext, STORE_CACHE_MAX_BYTES);
+        this.storeCacheMaxBytes = cacheMaxBytes != null ? Long.parseLong(cacheMaxBytes.trim()) : 0;
+        final String sessionTtl = getParameter(servletContext, STORE_SESSION_TTL);
+        this.storeSessionTtl = sessionTtl != null ? Integer.parseInt(sessionTtl.trim()) : DEFAULT_STORE_SESSION_TTL;
+        final String keys = getParameter(servletContext, KEYS);
+        this.keyRing = keys != null ? CookieKeyRing.parse(keys) : null;
+        final String verifiedMaxBytes = getParameter(servletContext, VERIFIED_CACHE_MAX_BYTES);
+        this.verifiedCacheMaxBytes = verifiedMaxBytes != null
+                ? Long.parseLong(verifiedMaxBytes.trim()) : DEFAULT_VERIFIED_CACHE_MAX_BYTES;
+    }
+
+    /**
+     * Returns the configuration of the web application, reading it on first access.
+     *
+     * @param servletContext
+     * @return
+     */
+    @Nonnull
+    public static CookieConfiguration of(@Nonnull final ServletContext servletContext) {
+        CookieConfiguration configuration = current(servletContext);
+        if (configuration == null) {
+            synchronized (CookieConfiguration.class) {
+                configuration = current(servletContext);
+                if (configuration == null) {
+                    configuration = new CookieConfiguration(servletContext);
+                    servletContext.setAttribute(ATTRIBUTE, configuration);
+                }
+            }
+        }
+        return configuration;
+    }
+
+    /**
+     * The configuration of the web application, or null if it has not been read.
+     *
+     * @param servletContext
+     * @return
+     */
+    @Nullable
+    public static CookieConfiguration current(@Nonnull final ServletContext servletContext) {
+        return (CookieConfiguration) servletContext.getAttribute(ATTRIBUTE);
+    }
+
+    @Nullable
+    private static String getParameter(@Nonnull final ServletContext servletContext, @Nonnull final String name) {
+        final String value = servletContext.getInitParameter(name);
+        return value != null ? value : System.getProperty(name);
+    }
+
+    public boolean isRawHeaderParsing() {
+        return rawHeaderParsing;
+    }
+
+    public int getWarmUpIterations() {
+        return warmUpIterations;
+    }
+
+    /**
+     * The maximum size of a single cookie, 0 if unlimited.
+     *
+     * @return
+     */
+    public int getMaxCookieBytes() {
+        return maxCookieBytes;
+    }
+
+    /**
+     * The maximum size of all the cookies of a response, 0 if unlimited.
+     *
+     * @return
+     */
+    public int getMaxResponseCookieBytes() {
+        return maxResponseCookieBytes;
+    }
+
+    @Nonnull
+    public OverflowPolicy getCookieOverflow() {
+        return cookieOverflow;
+    }
+
+    /**
+     * The url patterns of the requests bypassing the cookie pojos, or null if no request is excluded.
+     *
+     * @return
+     */
+    @Nullable
+    public UrlPatterns getExcludedPaths() {
+        return excludedPaths;
+    }
+
+    /**
+     * The decode cache of the web application, or null if decoded cookies are not cached.
+     *
+     * @return
+     */
+    @Nullable
+    public DecodedCookieCache getDecodeCache() {
+        return decodeCache;
+    }
+
+    /**
+     * The keys of the protected cookies.
+     *
+     * @return
+     * @throws IllegalStateException if no key is configured
+     */
+    @Nonnull
+    public CookieKeyRing getKeyRing() {
+        if (keyRing == null) {
+            throw new IllegalStateException("No cookie keys configured, see " + KEYS);
+        }
+        return keyRing;
+    }
+
+    /**
+     * The approximate maximum memory footprint of the cache of verified protected values, 0 if they are not cached.
+     *
+     * @return
+     */
+    public long getVerifiedCacheMaxBytes() {
+        return verifiedCacheMaxBytes;
+    }
+
+    /**
+     * The time to live, in seconds, of the stored values of session cookies.
+     *
+     * @return
+     */
+    public int getStoreSessionTtl() {
+        return storeSessionTtl;
+    }
+
+    /**
+     * The cookie store of the web application, creating it on first access.
+     *
+     * @return
+     * @throws IllegalStateException if the configured store cannot be created
+     */
+    @Nonnull
+    public CookieStore getStore() {
+        CookieStore result = cookieStore;
+        if (result == null) {
+            synchronized (this) {
+                result = cookieStore;
+                if (result == null) {
+                    result = createStore();
+                    cookieStore = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Nonnull
+    private CookieStore createStore() {
+        final String type = store != null ? store.trim() : null;
+        if (type == null) {
+            final Iterator<CookieStore> stores = ServiceLoader.load(CookieStore.class,
+                                                                    CookieConfiguration.class.getClassLoader())
+                    .iterator();
+            return stores.hasNext() ? cached(stores.next()) : new MemoryCookieStore(storeMaxBytes);
+        } else if ("memory".equals(type)) {
+            return new MemoryCookieStore(storeMaxBytes);
+        } else if ("file".equals(type)) {
+            try {
+                final Path file;
+                if (storeFile != null) {
+                    file = Paths.get(storeFile.trim());
+                } else {
+                    file = Files.createTempFile("cookie-store", ".dat");
+                    file.toFile().deleteOnExit();
+                }
+                return cached(new MappedFileCookieStore(file, storeMaxBytes, storeSlotBytes));
+            } catch (IOException ex) {
+                throw new IllegalStateException("Unable to open the cookie store file: " + storeFile, ex);
+            }
+        }
+        try {
+            final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            return cached((CookieStore) Class.forName(type, true, classLoader).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | ClassCastException ex) {
+            throw new IllegalStateException("Unable to create the cookie store: " + type, ex);
+        }
+    }
+
+    private CookieStore cached(final CookieStore cookieStore) {
+        return storeCacheMaxBytes > 0 ? new CachingCookieStore(cookieStore, storeCacheMaxBytes) : cookieStore;
+    }
+
+    /**
+     * Releases the resources of the web application: closes the cookie store, if it was created and is
+     * {@link Closeable}.
+     */
+    public void destroy() {
+        final CookieStore result = cookieStore;
+        if (result instanceof Closeable) {
+            try {
+                ((Closeable) result).close();
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Unable to close the cookie store", ex);
+            }
+        }
+    }
+
+    /**
+     * What becomes of a cookie over the size limits.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * The cookie is not written, and the browser keeps its previous value, as it would have dropped the cookie.
+         */
+        REJECT,
+        /**
+         * The text value of an individual {@code String} cookie is cut to the remaining size. Other cookies, whose
+         * values cannot be cut without corrupting them, are rejected.
+         */
+        TRUNCATE,
+        /**
+         * An encoded cookie is split into up to {@link com.anosym.cookie.schema.CookieSchema#MAX_CHUNKS} chunk cookies,
+         * {@code Name.0}, {@code Name.1} and so on, the cookie itself holding their count and checksum. The chunks are
+         * reassembled when received, and those no longer needed expired. Individual cookies are rejected.
+         *
+         * The chunks still count towards the size of the request headers, commonly limited to 8KB by servers.
+         */
+        CHUNK;
+
+        /**
+         * @param name the lower case name of the policy
+         * @return
+         * @throws IllegalArgumentException if there is no such policy
+         */
+        @Nonnull
+        public static OverflowPolicy of(@Nonnull final String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.anosym.cookie;
+
+import com.anosym.cookie.core.CookieExchange;
+import com.anosym.cookie.http.CommitAwareResponse;
+import java.io.IOException;
+import javax.inject.Inject;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Writes the cookies of the request just before the response is first committed, so that streamed responses need not
+ * be buffered for their cookies to be written.
+ *
+ * The cookies are written when the content written may fill the response buffer, or reach the content length, when the
+ * response is flushed, redirected or sent an error, or when the filter chain returns, whichever comes first. Cookie
+ * pojo changes made after that are not written, and are logged as a warning when the request is destroyed.
+ * Requests not passing through this filter still have their cookies written when the request is destroyed, provided
+ * the response is not committed by then.
+ *
+ * @author mochieng
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true, dispatcherTypes = {DispatcherType.REQUEST})
+public class CookieFilter implements Filter {
+
+    @Inject
+    private CookieService cookieService;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        final HttpServletRequest httpRequest = (HttpServletRequest) request;
+        if (CookieExchange.current(httpRequest) == null) {
+            //excluded by the listener, hence no cookies to write.
+            chain.doFilter(request, response);
+            return;
+        }
+        final CommitAwareResponse commitAwareResponse
+                = new CommitAwareResponse((HttpServletResponse) response, new CommitAwareResponse.Listener() {
+
+                    @Override
+                    public void beforeCommit(HttpServletResponse response) {
+                        cookieService.updateHttpCookie(httpRequest, response);
+                    }
+                });
+        try {
+            chain.doFilter(request, commitAwareResponse);
+        } finally {
+            commitAwareResponse.beforeCommit();
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.anosym.cookie;
+
+import com.anosym.cookie.annotation.Protection;
+import com.anosym.cookie.core.CookieEngine;
+import com.anosym.cookie.schema.CookieSchema;
+import com.anosym.cookie.schema.CookieSchemas;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletContainerInitializer;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+
+/**
+ * Discovers the {@link com.anosym.cookie.annotation.Cookie} classes of the web application on deployment.
+ *
+ * The schemas of all the indexed cookie classes are built and validated, such that an invalid cookie class, or two
+ * cookie classes sharing a cookie name, or protected cookie classes without keys, fail the deployment instead of the
+ * first request using them. The {@link CookieEngine} of the web application is then warmed up, as configured by
+ * {@link CookieConfiguration#WARM_UP_ITERATIONS}.
+ *
+ * @author mochieng
+ */
+public class CookieInitializer implements ServletContainerInitializer {
+
+    private static final Logger LOG = Logger.getLogger(CookieInitializer.class.getName());
+
+    @Override
+    public void onStartup(Set<Class<?>> classes, ServletContext servletContext) throws ServletException {
+        final long start = System.nanoTime();
+        final ClassLoader classLoader = servletContext.getClassLoader() != null
+                ? servletContext.getClassLoader() : Thread.currentThread().getContextClassLoader();
+        final List<CookieSchema> schemas;
+        try {
+            schemas = CookieSchemas.getIndexed(classLoader);
+        } catch (IllegalArgumentException ex) {
+            throw new ServletException("Invalid cookie class", ex);
+        }
+        final Map<String, Class<?>> cookieNames = new HashMap<>();
+        for (CookieSchema schema : schemas) {
+            for (String cookieName : schema.getCookieNames()) {
+                final Class<?> previous = cookieNames.put(cookieName, schema.getCookieClass());
+                if (previous != null) {
+                    throw new ServletException("Cookie name <" + cookieName + "> is used by both " + previous
+                            + " and " + schema.getCookieClass());
+                }
+            }
+        }
+        final CookieEngine engine = CookieEngine.of(servletContext);
+        for (CookieSchema schema : schemas) {
+            if (schema.getProtection() != Protection.NONE) {
+                try {
+                    engine.getConfiguration().getKeyRing();
+                } catch (IllegalStateException ex) {
+                    throw new ServletException("Protected cookie class " + schema.getCookieClass()
+                            + " requires the keys of " + CookieConfiguration.KEYS, ex);
+                }
+            }
+        }
+        try {
+            engine.warmUp(schemas, engine.getConfiguration().getWarmUpIterations());
+        } catch (IllegalArgumentException ex) {
+            throw new ServletException("Unable to encode or decode cookie class", ex);
+        }
+        LOG.log(Level.INFO, "Initialized {0} cookie classes in {1} ms",
+                new Object[]{schemas.size(), (System.nanoTime() - start) / 1000000});
+    }
+
+}
@@ -1,5 +1,8 @@
 package com.anosym.cookie;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 /**
  *
  * @author mochieng
@@ -11,8 +14,40 @@ public interface CookieService {
      */
     void updateHttpCookie();
 
+    /**
+     * Writes the http cookie(s) of the request to the response, unless already written for this request.
+     *
+     * @param request
+     * @param response the response to which the cookie headers are added, must not be committed
+     */
+    void updateHttpCookie(HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * If the request bypasses the cookie pojos entirely, as {@link com.anosym.cookie.core.CookieEngine#isExcluded(
+     * HttpServletRequest, java.util.Collection) } for the classes of the cookie pojos.
+     *
+     * @param request
+     * @return
+     */
+    boolean isExcluded(HttpServletRequest request);
+
     /**
      * Updates object cookie from http cookie(s) when request is initialized.
      */
     void updateObjectCookie();
+
+    /**
+     * Updates object cookie from http cookie(s) when the request is initialized, as {@link #updateObjectCookie() }.
+     *
+     * @param request the request of the container, rather than its CDI proxy, each call on which resolves the request
+     */
+    void updateObjectCookie(HttpServletRequest request);
+
+    /**
+     * Decodes the http cookie(s) of the cookie pojo, if their decoding was deferred until the pojo is first accessed
+     * within the current request. Otherwise does nothing.
+     *
+     * @param cookie the cookie pojo instance
+     */
+    void decodeObjectCookie(Object cookie);
 }
@@ -1,12 +1,16 @@
 package com.anosym.cookie;
 
-import java.io.Serializable;
+import com.anosym.cookie.core.CookieEngine;
+import com.anosym.cookie.core.CookieExchange;
+import com.anosym.cookie.metrics.CookieMetrics;
 import java.util.logging.Logger;
-import javax.enterprise.context.SessionScoped;
 import javax.inject.Inject;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
 import javax.servlet.ServletRequestEvent;
 import javax.servlet.ServletRequestListener;
 import javax.servlet.annotation.WebListener;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSessionEvent;
 import javax.servlet.http.HttpSessionListener;
 
@@ -15,35 +19,67 @@ import javax.servlet.http.HttpSessionListener;
  * @author mochieng
  */
 @WebListener
-@SessionScoped
-public class CookieWebListener implements ServletRequestListener, Serializable, HttpSessionListener {
+public class CookieWebListener implements ServletRequestListener, HttpSessionListener, ServletContextListener {
 
     private static final Logger LOG = Logger.getLogger(CookieWebListener.class.getName());
-
-    private static final long serialVersionUID = -12424424242l;
     @Inject
     private CookieService cookieService;
 
     @Override
     public void requestDestroyed(ServletRequestEvent sre) {
-        LOG.info("Called Request destroyed");
+        LOG.fine("Called Request destroyed");
+        if (sre.getServletRequest() instanceof HttpServletRequest) {
+            final CookieExchange exchange = CookieExchange.attached((HttpServletRequest) sre.getServletRequest());
+            if (exchange == null) {
+                //excluded.
+                return;
+            }
+            if (exchange.isEnded()) {
+                //already written, by the filter.
+                exchange.checkUnchanged();
+                return;
+            }
+        }
         cookieService.updateHttpCookie();
     }
 
     @Override
     public void requestInitialized(ServletRequestEvent sre) {
-        LOG.info("Called request initialized...");
-        cookieService.updateObjectCookie();
+        LOG.fine("Called request initialized...");
+        if (!(sre.getServletRequest() instanceof HttpServletRequest)) {
+            cookieService.updateObjectCookie();
+            return;
+        }
+        final HttpServletRequest request = (HttpServletRequest) sre.getServletRequest();
+        if (cookieService.isExcluded(request)) {
+            return;
+        }
+        cookieService.updateObjectCookie(request);
+    }
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        CookieMetrics.getInstance().register();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        CookieMetrics.getInstance().unregister();
+        final CookieConfiguration configuration = CookieConfiguration.current(sce.getServletContext());
+        if (configuration != null) {
+            configuration.destroy();
+        }
     }
 
     @Override
     public void sessionCreated(HttpSessionEvent se) {
-        LOG.info("Session created........");
+        LOG.fine("Session created........");
+        CookieEngine.of(se.getSession().getServletContext()).sessionCreated(se.getSession());
     }
 
     @Override
     public void sessionDestroyed(HttpSessionEvent se) {
-        LOG.info("Session destroyed........");
+        LOG.fine("Session destroyed........");
     }
 
 }
@@ -14,8 +14,11 @@ import org.atteo.classindex.IndexAnnotated;
  *
  * The pojo must have a default constructor.
  *
- * This version only accepts primitive types (and the primitive wrappers), String.class, Calendar.class and
- * BigDecimal.class
+ * This version accepts primitive types (and the primitive wrappers), String.class, Calendar.class, BigDecimal.class,
+ * and any type with a {@link com.anosym.cookie.codec.CookieConverter}: java.time types, UUID.class, primitive arrays
+ * and enums are converted out of the box. Lists, sets and collections of any of these types, and {@link Embeddable}
+ * value classes, are written as a whole into a single value: collections of integral values as packed varints, sorted
+ * ids as the differences of consecutive ids. Cookie pojos with fields of any other type fail the deployment.
  *
  * On a CDI environment, to get an instance of the cookie, simply do the following:
  *
@@ -26,6 +29,11 @@ import org.atteo.classindex.IndexAnnotated;
  * </code>
  * </pre>
  *
+ * The cookie service keeps no state between requests, the pojo is populated from the request cookies on every request.
+ * Declaring the pojo {@link javax.enterprise.context.RequestScoped} therefore keeps it out of the http session
+ * entirely. A {@link SessionScoped} pojo, shared by the concurrent requests of its session, is only populated from the
+ * cookies of the first request of the session, and is thereafter the state written to the cookies.
+ *
  * @author mochieng
  */
 @Qualifier
@@ -37,16 +45,42 @@ public @interface Cookie {
 
     /**
      * If true, all cookie variables with annotation will result into {@link IllegalArgumentException} on application
-     * startup. The entire cookie is encoded into Base64 and the simple name of the pojo used as the cookie-name.
+     * startup. The entire cookie is encoded into a compact, versioned binary form (see
+     * {@link com.anosym.cookie.codec.EncodedCookieFormat}) and the simple name of the pojo used as the cookie-name.
      *
-     * If this cookie is encoded, new attributes must be added alphabetically, otherwise unspecified behaviour would
-     * result.
+     * If the fields of an encoded cookie change, cookies written before the change are ignored, and the pojo retains
+     * its defaults until the cookie is rewritten. Encoded cookies of releases before the binary form, named after the
+     * class of the pojo or of its CDI proxy, are not read.
      *
      * @return
      */
     @Nonbinding
     boolean encoded() default false;
 
+    /**
+     * If true, the encoded value of the cookie is kept on the server, in the
+     * {@link com.anosym.cookie.store.CookieStore} of the web application, and only a short random token sent to the
+     * browser. The value expires from the store with the {@link #maxAge() }, or after a day for session cookies (see
+     * {@link com.anosym.cookie.CookieConfiguration#STORE_SESSION_TTL}).
+     *
+     * Requires the cookie to be {@link #encoded() }. A cookie whose token is no longer found in the store retains its
+     * defaults, and a value which cannot be stored is sent to the browser as is.
+     *
+     * @return
+     */
+    @Nonbinding
+    boolean stored() default false;
+
+    /**
+     * If the encoded value of the cookie is signed, or encrypted, such that the cookie can be trusted with what the
+     * client must not change. Requires the cookie to be {@link #encoded() }, and the keys of the web application to be
+     * configured (see {@link com.anosym.cookie.CookieConfiguration#KEYS}).
+     *
+     * @return
+     */
+    @Nonbinding
+    Protection protection() default Protection.NONE;
+
     /**
      * The maximum age of the cookie in seconds. Default is session.
      *
@@ -64,7 +98,7 @@ public @interface Cookie {
     boolean secure() default false;
 
     /**
-     * The domain for the cookie. If not specified, current hosts only.
+     * The domain for the cookie. If not specified, current host only.
      *
      * @return
      */
@@ -87,4 +121,21 @@ public @interface Cookie {
     @Nonbinding
     boolean httpOnly() default false;
 
+    /**
+     * If the cookie is sent with cross-site requests. Default is the browser default.
+     *
+     * @return
+     */
+    @Nonbinding
+    SameSite.Policy sameSite() default SameSite.Policy.UNSPECIFIED;
+
+    /**
+     * If true, the cookie is sent back on every response. Otherwise the cookie is only sent if its value differs from
+     * the value received with the request, as is required for cookies relying on a sliding {@link #maxAge() }.
+     *
+     * @return
+     */
+    @Nonbinding
+    boolean alwaysRefresh() default false;
+
 }
@@ -0,0 +1,20 @@
+package com.anosym.cookie.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a value class which may be the type of a {@link Cookie} field, or the element type of a collection field.
+ *
+ * The value is written as a whole: its non-static, non-transient fields, sorted by their names, each of a type
+ * supported by {@link Cookie} fields, including other embeddables. The class must have a default constructor, and may
+ * not contain itself.
+ *
+ * @author mochieng
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface Embeddable {
+}
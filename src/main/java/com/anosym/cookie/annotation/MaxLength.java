@@ -0,0 +1,22 @@
+package com.anosym.cookie.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the maximum number of characters of a {@code String} cookie field, bounding the worst case size of its
+ * cookie as estimated by the annotation processor.
+ *
+ * The length is not enforced at runtime, where the size of every written cookie is checked against the budget of the
+ * web application instead (see {@link com.anosym.cookie.CookieConfiguration#MAX_COOKIE_BYTES}).
+ *
+ * @author mochieng
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD})
+public @interface MaxLength {
+
+    int value();
+}
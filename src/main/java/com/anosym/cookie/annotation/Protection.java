@@ -0,0 +1,27 @@
+package com.anosym.cookie.annotation;
+
+/**
+ * How the value of an {@link Cookie#encoded() } cookie is protected from the browser, with the keys of the web
+ * application (see {@link com.anosym.cookie.CookieConfiguration#KEYS}). Received values which are not protected, or
+ * fail verification, are rejected as malformed, in which case the pojo retains its defaults.
+ *
+ * @author mochieng
+ */
+public enum Protection {
+
+    /**
+     * The encoded value is sent as is, and may be read and edited by the client.
+     */
+    NONE,
+    /**
+     * The encoded value is signed with an HMAC-SHA256 of the cookie name and value, hence may be read, but not edited,
+     * by the client.
+     */
+    SIGNED,
+    /**
+     * The encoded value is encrypted with AES-GCM, bound to the cookie name, hence may neither be read nor edited by
+     * the client.
+     */
+    ENCRYPTED
+
+}
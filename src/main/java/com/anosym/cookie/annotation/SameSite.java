@@ -0,0 +1,51 @@
+package com.anosym.cookie.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides {@link Cookie#sameSite() }
+ *
+ * @author mochieng
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SameSite {
+
+    Policy value();
+
+    /**
+     * The {@code SameSite} attribute of the cookie.
+     */
+    enum Policy {
+
+        /**
+         * No {@code SameSite} attribute is written, the browser default applies.
+         */
+        UNSPECIFIED(null),
+        STRICT("Strict"),
+        LAX("Lax"),
+        /**
+         * Browsers only accept this for {@link Cookie#secure() } cookies.
+         */
+        NONE("None");
+
+        private final String attributeValue;
+
+        private Policy(String attributeValue) {
+            this.attributeValue = attributeValue;
+        }
+
+        /**
+         * The value of the {@code SameSite} attribute, or null if the attribute is not written.
+         *
+         * @return
+         */
+        public String getAttributeValue() {
+            return attributeValue;
+        }
+
+    }
+}
@@ -0,0 +1,348 @@
+package com.anosym.cookie.annotation.processor;
+
+import com.anosym.cookie.codec.CookieCodec;
+import com.anosym.cookie.codec.CookieInput;
+import com.anosym.cookie.codec.CookieOutput;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a reflection-free {@link CookieCodec} for a cookie pojo.
+ *
+ * The generated codec is named after the cookie class, suffixed with {@code CookieCodec}, and placed in the same
+ * package so that package-private fields and accessors can be used directly. A codec is only generated if every cookie
+ * field is of a supported type and is accessible, either directly or through bean getters and setters. Otherwise the
+ * runtime falls back to reflective field access.
+ *
+ * @author mochieng
+ */
+final class CookieCodecGenerator {
+
+    static final String CODEC_SUFFIX = "CookieCodec";
+
+    //The runtime field types, to which generated codecs delegate the conversions not simply parsed.
+    private static final String RUNTIME_TYPE = "com.anosym.cookie.codec.FieldType";
+
+    private static final Comparator<VariableElement> FIELD_ORDER = new Comparator<VariableElement>() {
+
+        @Override
+        public int compare(VariableElement o1, VariableElement o2) {
+            return o1.getSimpleName().toString().compareTo(o2.getSimpleName().toString());
+        }
+    };
+
+    private final ProcessingEnvironment processingEnv;
+
+    CookieCodecGenerator(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+    }
+
+    /**
+     * Returns the cookie fields in schema order, that is the non-static, non-transient fields sorted by name.
+     *
+     * @param cookieClass
+     * @return
+     */
+    static List<VariableElement> getCookieFields(TypeElement cookieClass) {
+        final List<VariableElement> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(cookieClass.getEnclosedElements())) {
+            final Set<Modifier> modifiers = field.getModifiers();
+            if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                fields.add(field);
+            }
+        }
+        Collections.sort(fields, FIELD_ORDER);
+        return fields;
+    }
+
+    void generate(TypeElement cookieClass) {
+        if (!isAccessible(cookieClass)) {
+            note(cookieClass, "cookie class is not accessible from its package");
+            return;
+        }
+        final List<VariableElement> fields = getCookieFields(cookieClass);
+        final List<FieldAccess> accesses = new ArrayList<>();
+        for (VariableElement field : fields) {
+            final FieldType fieldType = FieldType.of(field.asType());
+            if (fieldType == null) {
+                note(cookieClass, "unsupported field type " + field.asType() + " of " + field.getSimpleName());
+                return;
+            }
+            final FieldAccess access = FieldAccess.of(processingEnv.getTypeUtils(), cookieClass, field, fieldType);
+            if (access == null) {
+                note(cookieClass, "field " + field.getSimpleName() + " is private and has no accessors");
+                return;
+            }
+            accesses.add(access);
+        }
+
+        final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(cookieClass);
+        final String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        final String codecName = getCodecSimpleName(cookieClass);
+        final String qualifiedCodecName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedCodecName, cookieClass).openWriter()) {
+            writer.write(render(cookieClass.getQualifiedName().toString(), packageName, codecName, accesses));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to generate cookie codec for: " + cookieClass, ex);
+        }
+    }
+
+    private void note(TypeElement cookieClass, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                                                 "No cookie codec generated, " + reason, cookieClass);
+    }
+
+    private static boolean isAccessible(TypeElement type) {
+        for (Element el = type; el.getKind() != ElementKind.PACKAGE; el = el.getEnclosingElement()) {
+            if (el.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            final TypeElement te = (TypeElement) el;
+            if (te.getNestingKind() == NestingKind.MEMBER && !te.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getCodecSimpleName(TypeElement cookieClass) {
+        final StringBuilder name = new StringBuilder(cookieClass.getSimpleName());
+        for (Element el = cookieClass.getEnclosingElement(); el.getKind() != ElementKind.PACKAGE;
+                el = el.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, el.getSimpleName());
+        }
+        return name.append(CODEC_SUFFIX).toString();
+    }
+
+    private static String render(String cookieType, String packageName, String codecName, List<FieldAccess> accesses) {
+        final StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("/**\n")
+                .append(" * Generated by the cookie annotation processor for {@link ").append(cookieType).append("}.\n")
+                .append(" * Do not edit.\n")
+                .append(" */\n")
+                .append("public final class ").append(codecName)
+                .append(" implements ").append(CookieCodec.class.getName()).append('<').append(cookieType)
+                .append("> {\n\n");
+
+        src.append("    @Override\n")
+                .append("    public Class<").append(cookieType).append("> getCookieType() {\n")
+                .append("        return ").append(cookieType).append(".class;\n")
+                .append("    }\n\n");
+
+        src.append("    @Override\n")
+                .append("    public String getValue(").append(cookieType).append(" cookie, int index) {\n")
+                .append("        switch (index) {\n");
+        for (int index = 0; index < accesses.size(); index++) {
+            final FieldAccess access = accesses.get(index);
+            src.append("            case ").append(index).append(":\n")
+                    .append("                return ").append(access.type.toText(access.read("cookie"))).append(";\n");
+        }
+        src.append("            default:\n")
+                .append("                throw new IndexOutOfBoundsException(\"No cookie field at index: \"")
+                .append(" + index);\n")
+                .append("        }\n")
+                .append("    }\n\n");
+
+        src.append("    @Override\n")
+                .append("    public void setValue(").append(cookieType).append(" cookie, int index, String value) {\n")
+                .append("        switch (index) {\n");
+        for (int index = 0; index < accesses.size(); index++) {
+            final FieldAccess access = accesses.get(index);
+            //as the reflective conversion, the text of a null reference sets the field to null.
+            final String fromText = access.type.fromText("value");
+            final String value = access.wrapper || access.type.isNullSafe()
+                    ? "\"null\".equals(value) ? null : " + fromText : fromText;
+            src.append("            case ").append(index).append(":\n")
+                    .append("                ").append(access.write("cookie", value)).append(";\n")
+                    .append("                break;\n");
+        }
+        src.append("            default:\n")
+                .append("                throw new IndexOutOfBoundsException(\"No cookie field at index: \"")
+                .append(" + index);\n")
+                .append("        }\n")
+                .append("    }\n\n");
+
+        src.append("    @Override\n")
+                .append("    public void write(").append(cookieType).append(" cookie, ")
+                .append(CookieOutput.class.getName()).append(" out) {\n");
+        for (int index = 0; index < accesses.size(); index++) {
+            final FieldAccess access = accesses.get(index);
+            if (access.wrapper) {
+                final String local = "value" + index;
+                src.append("        final ").append(access.type.typeName).append(' ').append(local).append(" = ")
+                        .append(access.read("cookie")).append(";\n")
+                        .append("        if (out.writePresence(").append(local).append(")) {\n")
+                        .append("            out.").append(access.type.writeMethod).append('(').append(local)
+                        .append(");\n")
+                        .append("        }\n");
+            } else {
+                src.append("        out.").append(access.type.writeMethod).append('(').append(access.read("cookie"))
+                        .append(");\n");
+            }
+        }
+        src.append("    }\n\n");
+
+        src.append("    @Override\n")
+                .append("    public void read(").append(cookieType).append(" cookie, ")
+                .append(CookieInput.class.getName()).append(" in) {\n");
+        for (final FieldAccess access : accesses) {
+            final String value = access.wrapper
+                    ? "in.readPresence() ? " + access.type.readExpression + " : null" : access.type.readExpression;
+            src.append("        ").append(access.write("cookie", value)).append(";\n");
+        }
+        src.append("    }\n\n");
+
+        src.append("}\n");
+        return src.toString();
+    }
+
+    /**
+     * The cookie field types supported by the generated codecs, and their text conversions. These are those of the
+     * runtime, either inlined or delegated to.
+     */
+    private enum FieldType {
+
+        STRING("java.lang.String", null, "%s", "writeString", "in.readString()"),
+        BIG_DECIMAL("java.math.BigDecimal", null, "new java.math.BigDecimal(%s)", "writeDecimal", "in.readDecimal()"),
+        CALENDAR("java.util.Calendar", null, "(java.util.Calendar) " + RUNTIME_TYPE + ".CALENDAR.fromText(%s)",
+                 "writeCalendar", "in.readCalendar()"),
+        BYTE("java.lang.Byte", TypeKind.BYTE, "Byte.parseByte(%s)", "writeVarInt", "(byte) in.readVarInt()"),
+        SHORT("java.lang.Short", TypeKind.SHORT, "Short.parseShort(%s)", "writeVarInt", "(short) in.readVarInt()"),
+        INT("java.lang.Integer", TypeKind.INT, "Integer.parseInt(%s)", "writeVarInt", "in.readVarInt()"),
+        LONG("java.lang.Long", TypeKind.LONG, "Long.parseLong(%s)", "writeVarLong", "in.readVarLong()"),
+        FLOAT("java.lang.Float", TypeKind.FLOAT, "Float.parseFloat(%s)", "writeFloat", "in.readFloat()"),
+        DOUBLE("java.lang.Double", TypeKind.DOUBLE, "Double.parseDouble(%s)", "writeDouble", "in.readDouble()"),
+        CHAR("java.lang.Character", TypeKind.CHAR, "(Character) " + RUNTIME_TYPE + ".CHAR.fromText(%s)", "writeChar",
+             "in.readChar()"),
+        BOOLEAN("java.lang.Boolean", TypeKind.BOOLEAN, "Boolean.parseBoolean(%s)", "writeBoolean", "in.readBoolean()");
+
+        private final String typeName;
+        private final TypeKind primitiveKind;
+        private final String parseFormat;
+        private final String writeMethod;
+        private final String readExpression;
+
+        private FieldType(String typeName, TypeKind primitiveKind, String parseFormat, String writeMethod,
+                          String readExpression) {
+            this.typeName = typeName;
+            this.primitiveKind = primitiveKind;
+            this.parseFormat = parseFormat;
+            this.writeMethod = writeMethod;
+            this.readExpression = readExpression;
+        }
+
+        static FieldType of(TypeMirror type) {
+            final String declaredName = type.getKind() == TypeKind.DECLARED
+                    ? ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString() : null;
+            for (FieldType fieldType : values()) {
+                if (type.getKind() == fieldType.primitiveKind || fieldType.typeName.equals(declaredName)) {
+                    return fieldType;
+                }
+            }
+            return null;
+        }
+
+        String toText(String expression) {
+            return this == CALENDAR ? RUNTIME_TYPE + ".CALENDAR.toText(" + expression + ")"
+                    : "String.valueOf(" + expression + ")";
+        }
+
+        String fromText(String expression) {
+            return String.format(parseFormat, expression);
+        }
+
+        /**
+         * If the binary form carries its own null marker.
+         */
+        boolean isNullSafe() {
+            return primitiveKind == null;
+        }
+
+    }
+
+    /**
+     * How the generated codec reads and writes a field, either directly or through its bean accessors.
+     */
+    private static final class FieldAccess {
+
+        private final FieldType type;
+        //true if the field is a primitive wrapper, which must be prefixed with a presence marker.
+        private final boolean wrapper;
+        private final String reader;
+        private final String writer;
+        private final boolean direct;
+
+        private FieldAccess(FieldType type, boolean wrapper, String reader, String writer, boolean direct) {
+            this.type = type;
+            this.wrapper = wrapper;
+            this.reader = reader;
+            this.writer = writer;
+            this.direct = direct;
+        }
+
+        static FieldAccess of(Types types, TypeElement cookieClass, VariableElement field, FieldType type) {
+            final String name = field.getSimpleName().toString();
+            final boolean wrapper = !type.isNullSafe() && !field.asType().getKind().isPrimitive();
+            if (!field.getModifiers().contains(Modifier.PRIVATE) && !field.getModifiers().contains(Modifier.FINAL)) {
+                return new FieldAccess(type, wrapper, name, name, true);
+            }
+            final String property = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            String getter = null;
+            String setter = null;
+            for (ExecutableElement method : ElementFilter.methodsIn(cookieClass.getEnclosedElements())) {
+                final Set<Modifier> modifiers = method.getModifiers();
+                if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+                    continue;
+                }
+                final String methodName = method.getSimpleName().toString();
+                if (method.getParameters().isEmpty()
+                        && (methodName.equals("get" + property)
+                        || (type.primitiveKind == TypeKind.BOOLEAN && methodName.equals("is" + property)))
+                        && types.isSameType(method.getReturnType(), field.asType())) {
+                    getter = methodName;
+                } else if (method.getParameters().size() == 1
+                        && methodName.equals("set" + property)
+                        && types.isSameType(method.getParameters().get(0).asType(), field.asType())) {
+                    setter = methodName;
+                }
+            }
+            if (getter == null || setter == null) {
+                return null;
+            }
+            return new FieldAccess(type, wrapper, getter, setter, false);
+        }
+
+        String read(String target) {
+            return direct ? target + "." + reader : target + "." + reader + "()";
+        }
+
+        String write(String target, String value) {
+            return direct ? target + "." + writer + " = " + value : target + "." + writer + "(" + value + ")";
+        }
+
+    }
+
+}
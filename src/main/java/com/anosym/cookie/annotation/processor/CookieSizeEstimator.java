@@ -0,0 +1,295 @@
+package com.anosym.cookie.annotation.processor;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.MaxLength;
+import com.anosym.cookie.annotation.Name;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Estimates the worst case size of the cookies of a cookie pojo, that is the length of the cookie name, the {@code =}
+ * and the longest value, and reports the cookies which may exceed the size budget.
+ *
+ * The budget defaults to the 4096 bytes browsers keep of a cookie, and is set with the processor option
+ * {@code -Acom.anosym.cookie.maxCookieBytes=...}. Cookies over the budget are reported as warnings, or as errors with
+ * {@code -Acom.anosym.cookie.failOnCookieSize=true}.
+ *
+ * Fields of types without a bounded size, such as strings without {@link MaxLength}, decimals, byte arrays and
+ * collections, make the size of their cookie unbounded, which is only noted.
+ *
+ * @author mochieng
+ */
+final class CookieSizeEstimator {
+
+    static final String MAX_COOKIE_BYTES_OPTION = "com.anosym.cookie.maxCookieBytes";
+    static final String FAIL_ON_COOKIE_SIZE_OPTION = "com.anosym.cookie.failOnCookieSize";
+
+    private static final int DEFAULT_MAX_COOKIE_BYTES = 4096;
+    private static final int UNBOUNDED = -1;
+    //The version byte and the schema fingerprint.
+    private static final int ENCODED_HEADER_BYTES = 5;
+    //The length of the token of a stored cookie.
+    private static final int TOKEN_LENGTH = 23;
+    //The separators, the longest key id and the HMAC-SHA256 of a signed value.
+    private static final int SIGNATURE_LENGTH = 2 + 16 + 43;
+    //The longest key id and its separator, followed by the IV and tag of an encrypted value.
+    private static final int ENCRYPTION_KEY_ID_LENGTH = 16 + 1;
+    private static final int ENCRYPTION_BYTES = 12 + 16;
+    private static final int NULL_TEXT_LENGTH = 4;
+    //The longest zone id assumed of a ZonedDateTime.
+    private static final int MAX_ZONE_ID_LENGTH = 64;
+
+    //The binary size, including the presence marker, and the text length of the built-in converter types.
+    private static final Map<String, int[]> CONVERTER_SIZES = ImmutableMap.<String, int[]>builder()
+            .put("java.time.Instant", new int[]{16, 37})
+            .put("java.time.LocalDate", new int[]{11, 16})
+            .put("java.time.LocalTime", new int[]{8, 18})
+            .put("java.time.LocalDateTime", new int[]{18, 35})
+            .put("java.time.OffsetDateTime", new int[]{21, 41})
+            .put("java.time.ZonedDateTime", new int[]{22 + MAX_ZONE_ID_LENGTH, 43 + MAX_ZONE_ID_LENGTH})
+            .put("java.time.Duration", new int[]{16, 40})
+            .put("java.util.UUID", new int[]{17, 36})
+            .build();
+
+    private final ProcessingEnvironment processingEnv;
+    private final int maxCookieBytes;
+    private final Diagnostic.Kind overflowKind;
+
+    /**
+     * @param processingEnv
+     * @throws IllegalArgumentException if the size budget option is not a number
+     */
+    CookieSizeEstimator(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+        final String maxBytes = processingEnv.getOptions().get(MAX_COOKIE_BYTES_OPTION);
+        try {
+            this.maxCookieBytes = maxBytes != null ? Integer.parseInt(maxBytes.trim()) : DEFAULT_MAX_COOKIE_BYTES;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + MAX_COOKIE_BYTES_OPTION + ": " + maxBytes, ex);
+        }
+        this.overflowKind = Boolean.parseBoolean(processingEnv.getOptions().get(FAIL_ON_COOKIE_SIZE_OPTION))
+                ? Diagnostic.Kind.ERROR : Diagnostic.Kind.WARNING;
+    }
+
+    void check(TypeElement cookieClass, Cookie cookie) {
+        final List<VariableElement> fields = CookieCodecGenerator.getCookieFields(cookieClass);
+        final List<String> unbounded = new ArrayList<>();
+        if (cookie.encoded()) {
+            int payload = ENCODED_HEADER_BYTES;
+            for (VariableElement field : fields) {
+                final int size = getBinarySize(field);
+                if (size == UNBOUNDED) {
+                    unbounded.add(field.getSimpleName().toString());
+                } else {
+                    payload += size;
+                }
+            }
+            final String name = cookieClass.getSimpleName().toString();
+            if (cookie.stored()) {
+                //the browser only keeps the token.
+                check(cookieClass, name, name.length() + 1 + TOKEN_LENGTH);
+            } else if (unbounded.isEmpty()) {
+                //unpadded base64.
+                switch (cookie.protection()) {
+                    case SIGNED:
+                        check(cookieClass, name, name.length() + 1 + (payload * 4 + 2) / 3 + SIGNATURE_LENGTH);
+                        break;
+                    case ENCRYPTED:
+                        check(cookieClass, name, name.length() + 1 + ENCRYPTION_KEY_ID_LENGTH
+                                + ((payload + ENCRYPTION_BYTES) * 4 + 2) / 3);
+                        break;
+                    default:
+                        check(cookieClass, name, name.length() + 1 + (payload * 4 + 2) / 3);
+                }
+            }
+        } else {
+            for (VariableElement field : fields) {
+                final int size = getTextLength(field);
+                final Name nameOverride = field.getAnnotation(Name.class);
+                final String name = nameOverride != null ? nameOverride.value() : field.getSimpleName().toString();
+                if (size == UNBOUNDED) {
+                    unbounded.add(field.getSimpleName().toString());
+                } else {
+                    check(field, name, name.length() + 1 + size);
+                }
+            }
+        }
+        if (!unbounded.isEmpty() && !cookie.stored()) {
+            processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.NOTE, "Size of cookie " + cookieClass.getSimpleName() + " is unbounded, due to "
+                    + Joiner.on(", ").join(unbounded) + " (declare the @MaxLength of String fields)", cookieClass);
+        }
+    }
+
+    private void check(Element element, String name, int size) {
+        if (size > maxCookieBytes) {
+            processingEnv.getMessager().printMessage(overflowKind, "Cookie " + name + " may reach " + size
+                    + " bytes, over the budget of " + maxCookieBytes + " bytes", element);
+        }
+    }
+
+    /**
+     * The largest binary form of the field within an encoded cookie, or {@link #UNBOUNDED}.
+     */
+    private int getBinarySize(VariableElement field) {
+        final TypeMirror type = field.asType();
+        if (type.getKind().isPrimitive()) {
+            return getBinarySize(type.getKind());
+        }
+        final PrimitiveType unboxed = unbox(type);
+        if (unboxed != null) {
+            //the presence marker.
+            return 1 + getBinarySize(unboxed.getKind());
+        }
+        final String typeName = getTypeName(type);
+        if ("java.lang.String".equals(typeName)) {
+            final MaxLength maxLength = field.getAnnotation(MaxLength.class);
+            if (maxLength == null) {
+                return UNBOUNDED;
+            }
+            //each char takes up to three bytes of UTF-8.
+            final int bytes = 3 * maxLength.value();
+            return getVarIntSize(bytes + 1) + bytes;
+        } else if (isCalendar(type)) {
+            return 1 + 10;
+        }
+        final int constants = getEnumConstants(type);
+        if (constants > 0) {
+            return 1 + getVarIntSize(constants - 1);
+        }
+        final int[] sizes = CONVERTER_SIZES.get(typeName);
+        return sizes != null ? sizes[0] : UNBOUNDED;
+    }
+
+    private static int getBinarySize(TypeKind kind) {
+        switch (kind) {
+            case BYTE:
+                return 2;
+            case SHORT:
+            case CHAR:
+                return 3;
+            case INT:
+                return 5;
+            case LONG:
+                return 10;
+            case FLOAT:
+                return 4;
+            case DOUBLE:
+                return 8;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * The longest text form of the field within its individual cookie, or {@link #UNBOUNDED}.
+     */
+    private int getTextLength(VariableElement field) {
+        final TypeMirror type = field.asType();
+        if (type.getKind().isPrimitive()) {
+            return getTextLength(type.getKind());
+        }
+        final PrimitiveType unboxed = unbox(type);
+        if (unboxed != null) {
+            return Math.max(NULL_TEXT_LENGTH, getTextLength(unboxed.getKind()));
+        }
+        final String typeName = getTypeName(type);
+        if ("java.lang.String".equals(typeName)) {
+            final MaxLength maxLength = field.getAnnotation(MaxLength.class);
+            return maxLength != null ? Math.max(NULL_TEXT_LENGTH, maxLength.value()) : UNBOUNDED;
+        } else if (isCalendar(type)) {
+            return 20;
+        }
+        final int constants = getEnumConstants(type);
+        if (constants > 0) {
+            //the ordinal.
+            return Math.max(NULL_TEXT_LENGTH, String.valueOf(constants - 1).length());
+        }
+        final int[] sizes = CONVERTER_SIZES.get(typeName);
+        return sizes != null ? Math.max(NULL_TEXT_LENGTH, sizes[1]) : UNBOUNDED;
+    }
+
+    private static int getTextLength(TypeKind kind) {
+        switch (kind) {
+            case BYTE:
+                return 4;
+            case SHORT:
+                return 6;
+            case INT:
+                return 11;
+            case LONG:
+                return 20;
+            case FLOAT:
+                return 15;
+            case DOUBLE:
+                return 24;
+            case CHAR:
+                return 1;
+            default:
+                return 5;
+        }
+    }
+
+    private PrimitiveType unbox(TypeMirror type) {
+        try {
+            return processingEnv.getTypeUtils().unboxedType(type);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private boolean isCalendar(TypeMirror type) {
+        final Types types = processingEnv.getTypeUtils();
+        final TypeElement calendar = processingEnv.getElementUtils().getTypeElement("java.util.Calendar");
+        return calendar != null && types.isAssignable(types.erasure(type), types.erasure(calendar.asType()));
+    }
+
+    /**
+     * The number of constants of the enum type, 0 if the type is not an enum.
+     */
+    private static int getEnumConstants(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return 0;
+        }
+        final Element element = ((DeclaredType) type).asElement();
+        if (element.getKind() != ElementKind.ENUM) {
+            return 0;
+        }
+        int constants = 0;
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.ENUM_CONSTANT) {
+                constants++;
+            }
+        }
+        //an enum without constants still takes a byte.
+        return Math.max(1, constants);
+    }
+
+    private static String getTypeName(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                ? ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString() : null;
+    }
+
+    private static int getVarIntSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+}
@@ -6,6 +6,8 @@ import com.anosym.cookie.annotation.HttpOnly;
 import com.anosym.cookie.annotation.MaxAge;
 import com.anosym.cookie.annotation.Name;
 import com.anosym.cookie.annotation.Path;
+import com.anosym.cookie.annotation.Protection;
+import com.anosym.cookie.annotation.SameSite;
 import com.anosym.cookie.annotation.Secure;
 import java.util.Set;
 import java.util.logging.Level;
@@ -13,6 +15,8 @@ import java.util.logging.Logger;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.TypeElement;
@@ -22,14 +26,23 @@ import javax.lang.model.element.TypeElement;
  * @author mochieng
  */
 @SupportedAnnotationTypes({"com.anosym.cookie.annotation.Cookie"})
+@SupportedOptions({CookieSizeEstimator.MAX_COOKIE_BYTES_OPTION, CookieSizeEstimator.FAIL_ON_COOKIE_SIZE_OPTION})
 public class CookieValidationProcessor extends AbstractProcessor {
 
     private static final Logger LOG = Logger.getLogger(CookieValidationProcessor.class.getName());
 
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         LOG.info("CookieValidationProcessor: initialized");
 
+        final CookieCodecGenerator codecGenerator = new CookieCodecGenerator(processingEnv);
+        final CookieSizeEstimator sizeEstimator = new CookieSizeEstimator(processingEnv);
+        boolean processed = false;
         for (Element el : roundEnv.getElementsAnnotatedWith(Cookie.class)) {
             if (el.getKind() == ElementKind.CLASS) {
                 Cookie cookie = el.getAnnotation(Cookie.class);
@@ -37,6 +50,12 @@ public class CookieValidationProcessor extends AbstractProcessor {
 
                 LOG.log(Level.INFO, "TypeElement: {0}", cookieClass);
 
+                if (cookie.stored() && !cookie.encoded()) {
+                    throw new IllegalArgumentException("Stored cookies must be encoded: " + cookieClass);
+                }
+                if (cookie.protection() != Protection.NONE && !cookie.encoded()) {
+                    throw new IllegalArgumentException("Protected cookies must be encoded: " + cookieClass);
+                }
                 if (cookie.encoded()) {
                     //check if the fields define any kind of cookie-annotations. Then abort.
                     for (Element ve : cookieClass.getEnclosedElements()) {
@@ -45,8 +64,10 @@ public class CookieValidationProcessor extends AbstractProcessor {
                                 || ve.getAnnotation(HttpOnly.class) != null
                                 || ve.getAnnotation(Name.class) != null
                                 || ve.getAnnotation(Path.class) != null
-                                || ve.getAnnotation(Secure.class) != null) {
-                            throw new IllegalArgumentException("Invalid variable annotations for an encoded cookie: " + ve.getSimpleName());
+                                || ve.getAnnotation(Secure.class) != null
+                                || ve.getAnnotation(SameSite.class) != null) {
+                            throw new IllegalArgumentException("Invalid variable annotations for an encoded cookie: "
+                                    + ve.getSimpleName());
                         }
                     }
                     //check for method and class annotations, only one property can be annotated.
@@ -60,7 +81,8 @@ public class CookieValidationProcessor extends AbstractProcessor {
                                 || ve.getAnnotation(HttpOnly.class) != null
                                 || ve.getAnnotation(Name.class) != null
                                 || ve.getAnnotation(Path.class) != null
-                                || ve.getAnnotation(Secure.class) != null) {
+                                || ve.getAnnotation(Secure.class) != null
+                                || ve.getAnnotation(SameSite.class) != null) {
                             if (ve.getKind() == ElementKind.FIELD) {
                                 isField = true;
                                 fieldEl = el;
@@ -70,16 +92,19 @@ public class CookieValidationProcessor extends AbstractProcessor {
                             }
                             if (isField && isMethod) {
                                 throw new IllegalArgumentException(
-                                        "Invalid variable annotations for cookie. Both field and method annotated=" + methodEl + ", " + fieldEl);
+                                        "Invalid variable annotations for cookie. Both field and method annotated="
+                                        + methodEl + ", " + fieldEl);
                             }
                         }
                     }
                 }
-                return true;
+                sizeEstimator.check(cookieClass, cookie);
+                codecGenerator.generate(cookieClass);
+                processed = true;
             }
-            throw new IllegalArgumentException(el.getSimpleName() + " is not applicable as  Cookie");
+            //otherwise the qualifier of an injection point, or of a producer.
         }
-        return false;
+        return processed;
     }
 
 }
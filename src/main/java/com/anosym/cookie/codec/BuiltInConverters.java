@@ -0,0 +1,383 @@
+package com.anosym.cookie.codec;
+
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.BaseEncoding;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import javax.annotation.Nonnull;
+
+/**
+ * The converters available without registration: {@code java.time} types, {@link UUID}, {@code byte[]} and enums.
+ *
+ * Date and time values are written in their ISO-8601 text form to individual cookies, and as varints of their epoch
+ * day, second or nano components to encoded cookies.
+ *
+ * @author mochieng
+ */
+final class BuiltInConverters {
+
+    private static final BaseEncoding BYTES_ENCODING = BaseEncoding.base64Url().omitPadding();
+
+    static final ImmutableMap<Class<?>, CookieConverter<?>> CONVERTERS
+            = ImmutableMap.<Class<?>, CookieConverter<?>>builder()
+            .put(Instant.class, new InstantConverter())
+            .put(LocalDate.class, new LocalDateConverter())
+            .put(LocalTime.class, new LocalTimeConverter())
+            .put(LocalDateTime.class, new LocalDateTimeConverter())
+            .put(OffsetDateTime.class, new OffsetDateTimeConverter())
+            .put(ZonedDateTime.class, new ZonedDateTimeConverter())
+            .put(Duration.class, new DurationConverter())
+            .put(UUID.class, new UUIDConverter())
+            .put(byte[].class, new ByteArrayConverter())
+            .build();
+
+    private BuiltInConverters() {
+    }
+
+    /**
+     * If the values of the field may be snapshot, and compared with later values: built in types, whose only mutable
+     * values ({@code Calendar}s and {@code byte[]}s) are copied. Values of other converter types, as are arrays,
+     * collections and embeddables, may be mutated in place, unnoticed.
+     */
+    static boolean isSnapshotable(final CookieFieldSchema field) {
+        final CookieConverter<Object> converter = field.getConverter();
+        return converter == null || CONVERTERS.containsValue(converter) || converter instanceof EnumConverter;
+    }
+
+    private static final class InstantConverter implements CookieConverter<Instant> {
+
+        @Override
+        public Class<Instant> getType() {
+            return Instant.class;
+        }
+
+        @Override
+        public String toText(Instant value) {
+            return value.toString();
+        }
+
+        @Override
+        public Instant fromText(String text) {
+            return Instant.parse(text);
+        }
+
+        @Override
+        public void write(CookieOutput out, Instant value) {
+            out.writeVarLong(value.getEpochSecond());
+            out.writeUnsignedVarInt(value.getNano());
+        }
+
+        @Override
+        public Instant read(CookieInput in) {
+            return Instant.ofEpochSecond(in.readVarLong(), in.readUnsignedVarInt());
+        }
+
+    }
+
+    private static final class LocalDateConverter implements CookieConverter<LocalDate> {
+
+        @Override
+        public Class<LocalDate> getType() {
+            return LocalDate.class;
+        }
+
+        @Override
+        public String toText(LocalDate value) {
+            return value.toString();
+        }
+
+        @Override
+        public LocalDate fromText(String text) {
+            return LocalDate.parse(text);
+        }
+
+        @Override
+        public void write(CookieOutput out, LocalDate value) {
+            out.writeVarLong(value.toEpochDay());
+        }
+
+        @Override
+        public LocalDate read(CookieInput in) {
+            return LocalDate.ofEpochDay(in.readVarLong());
+        }
+
+    }
+
+    private static final class LocalTimeConverter implements CookieConverter<LocalTime> {
+
+        @Override
+        public Class<LocalTime> getType() {
+            return LocalTime.class;
+        }
+
+        @Override
+        public String toText(LocalTime value) {
+            return value.toString();
+        }
+
+        @Override
+        public LocalTime fromText(String text) {
+            return LocalTime.parse(text);
+        }
+
+        @Override
+        public void write(CookieOutput out, LocalTime value) {
+            out.writeUnsignedVarLong(value.toNanoOfDay());
+        }
+
+        @Override
+        public LocalTime read(CookieInput in) {
+            return LocalTime.ofNanoOfDay(in.readUnsignedVarLong());
+        }
+
+    }
+
+    private static final class LocalDateTimeConverter implements CookieConverter<LocalDateTime> {
+
+        @Override
+        public Class<LocalDateTime> getType() {
+            return LocalDateTime.class;
+        }
+
+        @Override
+        public String toText(LocalDateTime value) {
+            return value.toString();
+        }
+
+        @Override
+        public LocalDateTime fromText(String text) {
+            return LocalDateTime.parse(text);
+        }
+
+        @Override
+        public void write(CookieOutput out, LocalDateTime value) {
+            writeLocalDateTime(out, value);
+        }
+
+        @Override
+        public LocalDateTime read(CookieInput in) {
+            return readLocalDateTime(in);
+        }
+
+    }
+
+    private static final class OffsetDateTimeConverter implements CookieConverter<OffsetDateTime> {
+
+        @Override
+        public Class<OffsetDateTime> getType() {
+            return OffsetDateTime.class;
+        }
+
+        @Override
+        public String toText(OffsetDateTime value) {
+            return value.toString();
+        }
+
+        @Override
+        public OffsetDateTime fromText(String text) {
+            return OffsetDateTime.parse(text);
+        }
+
+        @Override
+        public void write(CookieOutput out, OffsetDateTime value) {
+            writeLocalDateTime(out, value.toLocalDateTime());
+            out.writeVarInt(value.getOffset().getTotalSeconds());
+        }
+
+        @Override
+        public OffsetDateTime read(CookieInput in) {
+            final LocalDateTime dateTime = readLocalDateTime(in);
+            return OffsetDateTime.of(dateTime, ZoneOffset.ofTotalSeconds(in.readVarInt()));
+        }
+
+    }
+
+    private static final class ZonedDateTimeConverter implements CookieConverter<ZonedDateTime> {
+
+        @Override
+        public Class<ZonedDateTime> getType() {
+            return ZonedDateTime.class;
+        }
+
+        @Override
+        public String toText(ZonedDateTime value) {
+            return value.toString();
+        }
+
+        @Override
+        public ZonedDateTime fromText(String text) {
+            return ZonedDateTime.parse(text);
+        }
+
+        @Override
+        public void write(CookieOutput out, ZonedDateTime value) {
+            writeLocalDateTime(out, value.toLocalDateTime());
+            out.writeVarInt(value.getOffset().getTotalSeconds());
+            out.writeString(value.getZone().getId());
+        }
+
+        @Override
+        public ZonedDateTime read(CookieInput in) {
+            final LocalDateTime dateTime = readLocalDateTime(in);
+            final ZoneOffset offset = ZoneOffset.ofTotalSeconds(in.readVarInt());
+            return ZonedDateTime.ofLocal(dateTime, ZoneId.of(in.readString()), offset);
+        }
+
+    }
+
+    private static final class DurationConverter implements CookieConverter<Duration> {
+
+        @Override
+        public Class<Duration> getType() {
+            return Duration.class;
+        }
+
+        @Override
+        public String toText(Duration value) {
+            return value.toString();
+        }
+
+        @Override
+        public Duration fromText(String text) {
+            return Duration.parse(text);
+        }
+
+        @Override
+        public void write(CookieOutput out, Duration value) {
+            out.writeVarLong(value.getSeconds());
+            out.writeUnsignedVarInt(value.getNano());
+        }
+
+        @Override
+        public Duration read(CookieInput in) {
+            return Duration.ofSeconds(in.readVarLong(), in.readUnsignedVarInt());
+        }
+
+    }
+
+    private static final class UUIDConverter implements CookieConverter<UUID> {
+
+        @Override
+        public Class<UUID> getType() {
+            return UUID.class;
+        }
+
+        @Override
+        public String toText(UUID value) {
+            return value.toString();
+        }
+
+        @Override
+        public UUID fromText(String text) {
+            return UUID.fromString(text);
+        }
+
+        @Override
+        public void write(CookieOutput out, UUID value) {
+            out.writeFixedLong(value.getMostSignificantBits());
+            out.writeFixedLong(value.getLeastSignificantBits());
+        }
+
+        @Override
+        public UUID read(CookieInput in) {
+            return new UUID(in.readFixedLong(), in.readFixedLong());
+        }
+
+    }
+
+    private static final class ByteArrayConverter implements CookieConverter<byte[]> {
+
+        @Override
+        public Class<byte[]> getType() {
+            return byte[].class;
+        }
+
+        @Override
+        public String toText(byte[] value) {
+            return BYTES_ENCODING.encode(value);
+        }
+
+        @Override
+        public byte[] fromText(String text) {
+            return BYTES_ENCODING.decode(text);
+        }
+
+        @Override
+        public void write(CookieOutput out, byte[] value) {
+            out.writeByteArray(value);
+        }
+
+        @Override
+        public byte[] read(CookieInput in) {
+            return in.readByteArray();
+        }
+
+    }
+
+    /**
+     * Converts the constants of a single enum type by their ordinal.
+     */
+    static final class EnumConverter<E extends Enum<E>> implements CookieConverter<E> {
+
+        private final Class<E> type;
+        private final E[] constants;
+
+        EnumConverter(@Nonnull final Class<E> type) {
+            this.type = type;
+            this.constants = type.getEnumConstants();
+        }
+
+        @Override
+        public Class<E> getType() {
+            return type;
+        }
+
+        @Override
+        public String toText(E value) {
+            return Integer.toString(value.ordinal());
+        }
+
+        @Override
+        public E fromText(String text) {
+            return constant(Integer.parseInt(text));
+        }
+
+        @Override
+        public void write(CookieOutput out, E value) {
+            out.writeUnsignedVarInt(value.ordinal());
+        }
+
+        @Override
+        public E read(CookieInput in) {
+            return constant(in.readUnsignedVarInt());
+        }
+
+        private E constant(final int ordinal) {
+            if (ordinal < 0 || ordinal >= constants.length) {
+                throw new IllegalArgumentException("Unknown ordinal " + ordinal + " of " + type.getName());
+            }
+            return constants[ordinal];
+        }
+
+    }
+
+    private static void writeLocalDateTime(final CookieOutput out, final LocalDateTime value) {
+        out.writeVarLong(value.toLocalDate().toEpochDay());
+        out.writeUnsignedVarLong(value.toLocalTime().toNanoOfDay());
+    }
+
+    private static LocalDateTime readLocalDateTime(final CookieInput in) {
+        return LocalDateTime.of(LocalDate.ofEpochDay(in.readVarLong()),
+                                LocalTime.ofNanoOfDay(in.readUnsignedVarLong()));
+    }
+
+}
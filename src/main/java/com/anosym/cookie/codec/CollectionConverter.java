@@ -0,0 +1,188 @@
+package com.anosym.cookie.codec;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Converts collections of a single element type: {@code List}s, {@code Set}s, {@code SortedSet}s and
+ * {@code Collection}s, or any concrete collection class with a default constructor.
+ *
+ * Collections of {@code Integer}, {@code Long}, {@code Short}, {@code Byte} and {@code Character} are written as packed
+ * varints, ascending collections (as are sorted sets of ids) as the differences of consecutive elements, and may not
+ * contain nulls. Other elements are written one after the other, prefixed with their number.
+ *
+ * @author mochieng
+ */
+final class CollectionConverter extends StructuredConverter<Collection<Object>> {
+
+    private final Class<Collection<Object>> type;
+    private final ValueType elementType;
+    //Null if the type is an interface, whose instances are created by newCollection.
+    private final Constructor<? extends Collection<Object>> constructor;
+
+    @SuppressWarnings("unchecked")
+    private CollectionConverter(Class<?> type, ValueType elementType,
+                                Constructor<? extends Collection<Object>> constructor) {
+        this.type = (Class<Collection<Object>>) type;
+        this.elementType = elementType;
+        this.constructor = constructor;
+    }
+
+    /**
+     * Resolves the converter of a parameterized collection type.
+     *
+     * @param genericType
+     * @param classLoader
+     * @param embedding the embeddables enclosing the collection
+     * @return null if the type is not a parameterized collection type, or has no default constructor
+     * @throws IllegalArgumentException if the element type is not supported
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    static CollectionConverter of(@Nonnull final Type genericType, @Nullable final ClassLoader classLoader,
+                                  @Nonnull final Set<Class<?>> embedding) {
+        if (!(genericType instanceof ParameterizedType)) {
+            return null;
+        }
+        final ParameterizedType parameterizedType = (ParameterizedType) genericType;
+        final Class<?> type = (Class<?>) parameterizedType.getRawType();
+        if (!Collection.class.isAssignableFrom(type) || parameterizedType.getActualTypeArguments().length != 1) {
+            return null;
+        }
+        Constructor<? extends Collection<Object>> constructor = null;
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            if (type != List.class && type != Set.class && type != SortedSet.class && type != NavigableSet.class
+                    && type != Collection.class) {
+                return null;
+            }
+        } else {
+            try {
+                constructor = (Constructor<? extends Collection<Object>>) type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException | RuntimeException ex) {
+                return null;
+            }
+        }
+        final ValueType elementType = ValueType.of(parameterizedType.getActualTypeArguments()[0], classLoader,
+                                                   embedding);
+        return new CollectionConverter(type, elementType, constructor);
+    }
+
+    @Override
+    public Class<Collection<Object>> getType() {
+        return type;
+    }
+
+    @Override
+    public void write(CookieOutput out, Collection<Object> value) {
+        final FieldType fieldType = elementType.getFieldType();
+        if (fieldType == FieldType.LONG) {
+            final long[] values = new long[value.size()];
+            int length = 0;
+            for (Object element : value) {
+                values[length++] = (Long) checkNotNull(element);
+            }
+            out.writePackedLongs(values, length);
+        } else if (isPackedInt(fieldType)) {
+            final int[] values = new int[value.size()];
+            int length = 0;
+            for (Object element : value) {
+                values[length++] = fieldType == FieldType.CHAR
+                        ? (Character) checkNotNull(element) : ((Number) checkNotNull(element)).intValue();
+            }
+            out.writePackedInts(values, length);
+        } else {
+            out.writeUnsignedVarInt(value.size());
+            for (Object element : value) {
+                elementType.write(out, element);
+            }
+        }
+    }
+
+    @Override
+    public Collection<Object> read(CookieInput in) {
+        final FieldType fieldType = elementType.getFieldType();
+        if (fieldType == FieldType.LONG) {
+            final long[] values = in.readPackedLongs();
+            final Collection<Object> value = newCollection(values.length);
+            for (long element : values) {
+                value.add(element);
+            }
+            return value;
+        } else if (isPackedInt(fieldType)) {
+            final int[] values = in.readPackedInts();
+            final Collection<Object> value = newCollection(values.length);
+            for (int element : values) {
+                value.add(toElement(fieldType, element));
+            }
+            return value;
+        }
+        final int size = in.checkLength(in.readUnsignedVarInt());
+        final Collection<Object> value = newCollection(size);
+        for (int i = 0; i < size; i++) {
+            value.add(elementType.read(in));
+        }
+        return value;
+    }
+
+    @Override
+    String getSignature() {
+        return type.getName() + '<' + elementType.getSignature() + '>';
+    }
+
+    private Collection<Object> newCollection(final int size) {
+        if (constructor != null) {
+            try {
+                return constructor.newInstance();
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException ex) {
+                throw new IllegalStateException("Cannot create collection: " + type.getName(), ex);
+            }
+        }
+        final Class<?> collectionType = type;
+        if (collectionType == List.class || collectionType == Collection.class) {
+            return new ArrayList<>(size);
+        } else if (collectionType == Set.class) {
+            return new LinkedHashSet<>(Math.max(16, (int) (size / .75f) + 1));
+        }
+        return new TreeSet<>();
+    }
+
+    private static boolean isPackedInt(final FieldType fieldType) {
+        return fieldType == FieldType.INT || fieldType == FieldType.SHORT || fieldType == FieldType.BYTE
+                || fieldType == FieldType.CHAR;
+    }
+
+    private static Object toElement(final FieldType fieldType, final int value) {
+        switch (fieldType) {
+            case SHORT:
+                return (short) value;
+            case BYTE:
+                return (byte) value;
+            case CHAR:
+                return (char) value;
+            default:
+                return value;
+        }
+    }
+
+    private static Object checkNotNull(final Object element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Collections of integral cookie values may not contain nulls");
+        }
+        return element;
+    }
+
+}
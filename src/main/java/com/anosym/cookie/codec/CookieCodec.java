@@ -0,0 +1,62 @@
+package com.anosym.cookie.codec;
+
+import javax.annotation.Nonnull;
+import org.atteo.classindex.IndexSubclasses;
+
+/**
+ * Reads and writes the fields of a {@link com.anosym.cookie.annotation.Cookie} pojo without reflection.
+ *
+ * Implementations are generated by the cookie annotation processor for every cookie pojo whose fields are accessible
+ * either directly or through bean getters and setters, and are discovered at runtime through the class index. Fields
+ * are addressed by their index within the cookie schema, that is their position when sorted by name.
+ *
+ * @author mochieng
+ * @param <T> the cookie pojo type
+ */
+@IndexSubclasses
+public interface CookieCodec<T> {
+
+    /**
+     * The cookie pojo type this codec handles.
+     *
+     * @return
+     */
+    @Nonnull
+    Class<T> getCookieType();
+
+    /**
+     * Returns the value of the field at the specified index, as it is written to the http cookie.
+     *
+     * @param cookie
+     * @param index
+     * @return
+     */
+    @Nonnull
+    String getValue(@Nonnull T cookie, int index);
+
+    /**
+     * Parses the http cookie value and sets it on the field at the specified index.
+     *
+     * @param cookie
+     * @param index
+     * @param value
+     */
+    void setValue(@Nonnull T cookie, int index, @Nonnull String value);
+
+    /**
+     * Writes all the cookie fields, in index order, in the binary form of encoded cookies.
+     *
+     * @param cookie
+     * @param out
+     */
+    void write(@Nonnull T cookie, @Nonnull CookieOutput out);
+
+    /**
+     * Reads all the cookie fields, in index order, from the binary form of encoded cookies.
+     *
+     * @param cookie
+     * @param in
+     */
+    void read(@Nonnull T cookie, @Nonnull CookieInput in);
+
+}
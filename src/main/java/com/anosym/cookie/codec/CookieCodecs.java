@@ -0,0 +1,69 @@
+package com.anosym.cookie.codec;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.atteo.classindex.ClassIndex;
+
+/**
+ * Registry of the generated {@link CookieCodec}s, as indexed at compile time.
+ *
+ * @author mochieng
+ */
+public final class CookieCodecs {
+
+    private static final Logger LOG = Logger.getLogger(CookieCodecs.class.getName());
+
+    private static final LoadingCache<ClassLoader, Map<Class<?>, CookieCodec<?>>> CODECS = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(new CacheLoader<ClassLoader, Map<Class<?>, CookieCodec<?>>>() {
+
+                @Override
+                public Map<Class<?>, CookieCodec<?>> load(ClassLoader classLoader) throws Exception {
+                    return loadCodecs(classLoader);
+                }
+            });
+
+    private CookieCodecs() {
+    }
+
+    /**
+     * Returns the generated codec for the specified cookie class, or null if none was generated, in which case the
+     * cookie fields must be accessed reflectively.
+     *
+     * @param <T>
+     * @param cookieClass
+     * @return
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T> CookieCodec<T> forType(@Nonnull final Class<T> cookieClass) {
+        ClassLoader classLoader = cookieClass.getClassLoader();
+        if (classLoader == null) {
+            classLoader = ClassLoader.getSystemClassLoader();
+        }
+        return (CookieCodec<T>) CODECS.getUnchecked(classLoader).get(cookieClass);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Map<Class<?>, CookieCodec<?>> loadCodecs(final ClassLoader classLoader) {
+        final Map<Class<?>, CookieCodec<?>> codecs = new HashMap<>();
+        for (Class<? extends CookieCodec> codecClass : ClassIndex.getSubclasses(CookieCodec.class, classLoader)) {
+            try {
+                final CookieCodec<?> codec = codecClass.getDeclaredConstructor().newInstance();
+                codecs.put(codec.getCookieType(), codec);
+            } catch (ReflectiveOperationException ex) {
+                LOG.log(Level.WARNING, "Unable to instantiate cookie codec: " + codecClass, ex);
+            }
+        }
+        return ImmutableMap.copyOf(codecs);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.anosym.cookie.codec;
+
+import javax.annotation.Nonnull;
+import org.atteo.classindex.IndexSubclasses;
+
+/**
+ * Converts cookie field values of a single type, to and from the individual (text) and the encoded (binary) cookie
+ * forms.
+ *
+ * Converters are resolved once per cookie field, when the cookie schema is built. Applications register their own
+ * converters simply by implementing this interface: implementations are indexed at compile time, and must have a public
+ * default constructor. Alternatively, converters may be registered through
+ * {@link CookieConverters#register(CookieConverter) }. Application converters take precedence over the built-in
+ * converters (see {@link CookieConverters}), but not over the types of {@link FieldType}.
+ *
+ * Null values are handled by the cookie schema, converters only ever receive and return non-null values.
+ *
+ * @author mochieng
+ * @param <T> the converted type
+ */
+@IndexSubclasses
+public interface CookieConverter<T> {
+
+    /**
+     * The converted type. Fields of sub types of this type are converted as well.
+     *
+     * @return
+     */
+    @Nonnull
+    Class<T> getType();
+
+    @Nonnull
+    String toText(@Nonnull T value);
+
+    /**
+     * @param text
+     * @return
+     * @throws IllegalArgumentException if the text is malformed
+     */
+    @Nonnull
+    T fromText(@Nonnull String text);
+
+    void write(@Nonnull CookieOutput out, @Nonnull T value);
+
+    @Nonnull
+    T read(@Nonnull CookieInput in);
+
+}
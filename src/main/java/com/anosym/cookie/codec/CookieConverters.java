@@ -0,0 +1,186 @@
+package com.anosym.cookie.codec;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.anosym.cookie.annotation.Embeddable;
+import com.google.common.collect.ImmutableList;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.atteo.classindex.ClassIndex;
+
+/**
+ * Registry of the {@link CookieConverter}s, resolving the converter of a cookie field type.
+ *
+ * Converters are looked up in order: converters registered through {@link #register(CookieConverter) }, converters
+ * indexed at compile time, the built-in converters of {@code java.time} types, {@link java.util.UUID}, {@code byte[]}
+ * and the other primitive arrays, enums, which are converted by their ordinal, and finally the structured types:
+ * parameterized collections, and {@link Embeddable} classes. The element types of collections, and the field types of
+ * embeddables, are resolved as those of cookie fields.
+ *
+ * @author mochieng
+ */
+public final class CookieConverters {
+
+    private static final Logger LOG = Logger.getLogger(CookieConverters.class.getName());
+
+    private static final List<CookieConverter<?>> REGISTERED = new CopyOnWriteArrayList<>();
+
+    private static final LoadingCache<ClassLoader, List<CookieConverter<?>>> INDEXED = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(new CacheLoader<ClassLoader, List<CookieConverter<?>>>() {
+
+                @Override
+                public List<CookieConverter<?>> load(ClassLoader classLoader) throws Exception {
+                    return loadConverters(classLoader);
+                }
+            });
+
+    private CookieConverters() {
+    }
+
+    /**
+     * Registers a converter, taking precedence over all converters registered before it.
+     *
+     * Converters must be registered before the schemas of the cookies using them are built, typically on application
+     * startup.
+     *
+     * @param converter
+     */
+    public static void register(@Nonnull final CookieConverter<?> converter) {
+        REGISTERED.add(0, converter);
+    }
+
+    /**
+     * Returns the converter of the specified field type, or null if the type cannot be converted.
+     *
+     * @param type the field type
+     * @param classLoader the class loader of the cookie class, whose indexed converters are considered
+     * @return
+     */
+    @Nullable
+    public static CookieConverter<?> forType(@Nonnull final Class<?> type, @Nullable ClassLoader classLoader) {
+        return forGenericType(type, classLoader);
+    }
+
+    /**
+     * Returns the converter of the specified generic field type, or null if the type cannot be converted.
+     *
+     * @param genericType the field type, including its type arguments
+     * @param classLoader the class loader of the cookie class, whose indexed converters are considered
+     * @return
+     * @throws IllegalArgumentException if the type is a collection or an embeddable, whose elements or fields are not
+     * supported
+     */
+    @Nullable
+    public static CookieConverter<?> forGenericType(@Nonnull final Type genericType,
+                                                    @Nullable ClassLoader classLoader) {
+        return forGenericType(genericType, classLoader, Collections.<Class<?>>emptySet());
+    }
+
+    /**
+     * @param embedding the embeddables enclosing a value of the type
+     */
+    @Nullable
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static CookieConverter<?> forGenericType(@Nonnull final Type genericType, @Nullable ClassLoader classLoader,
+                                             @Nonnull final Set<Class<?>> embedding) {
+        final Class<?> type = getRawType(genericType);
+        if (type == null) {
+            return null;
+        }
+        CookieConverter<?> converter = find(REGISTERED, type);
+        if (converter != null) {
+            return converter;
+        }
+        if (classLoader == null) {
+            classLoader = ClassLoader.getSystemClassLoader();
+        }
+        converter = find(INDEXED.getUnchecked(classLoader), type);
+        if (converter != null) {
+            return converter;
+        }
+        converter = BuiltInConverters.CONVERTERS.get(type);
+        if (converter != null) {
+            return converter;
+        }
+        converter = PrimitiveArrayConverters.CONVERTERS.get(type);
+        if (converter != null) {
+            return converter;
+        }
+        if (type.isEnum()) {
+            return new BuiltInConverters.EnumConverter(type);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return CollectionConverter.of(genericType, classLoader, embedding);
+        }
+        if (type.isAnnotationPresent(Embeddable.class)) {
+            return new EmbeddableConverter(type, classLoader, embedding);
+        }
+        return null;
+    }
+
+    /**
+     * Describes the structure of the values of the converter, as identified by the fingerprint of encoded cookies: the
+     * element types of collections, and the fields of embeddables.
+     *
+     * @param converter
+     * @return the structure, or null if the values are opaque to the cookie schema
+     */
+    @Nullable
+    public static String getStructure(@Nonnull final CookieConverter<?> converter) {
+        return converter instanceof StructuredConverter ? ((StructuredConverter<?>) converter).getSignature() : null;
+    }
+
+    /**
+     * The class of the type, or of the parameterized type. Null if the type is a type variable, a wildcard or a generic
+     * array.
+     */
+    @Nullable
+    static Class<?> getRawType(@Nonnull final Type genericType) {
+        if (genericType instanceof Class) {
+            return (Class<?>) genericType;
+        } else if (genericType instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) genericType).getRawType();
+        }
+        return null;
+    }
+
+    @Nullable
+    private static CookieConverter<?> find(final List<CookieConverter<?>> converters, final Class<?> type) {
+        for (CookieConverter<?> converter : converters) {
+            if (converter.getType().isAssignableFrom(type)) {
+                return converter;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static List<CookieConverter<?>> loadConverters(final ClassLoader classLoader) {
+        final ImmutableList.Builder<CookieConverter<?>> converters = ImmutableList.builder();
+        for (Class<? extends CookieConverter> converterClass : ClassIndex.getSubclasses(CookieConverter.class,
+                                                                                          classLoader)) {
+            if (Modifier.isAbstract(converterClass.getModifiers())) {
+                continue;
+            }
+            try {
+                converters.add(converterClass.getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException ex) {
+                LOG.log(Level.WARNING, "Unable to instantiate cookie converter: " + converterClass, ex);
+            }
+        }
+        return converters.build();
+    }
+
+}
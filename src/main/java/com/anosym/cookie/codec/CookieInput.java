@@ -0,0 +1,236 @@
+package com.anosym.cookie.codec;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Calendar;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Reads cookie values written by {@link CookieOutput}.
+ *
+ * Reading past the end of the data, or reading malformed data, results into an {@link IllegalArgumentException}.
+ *
+ * @author mochieng
+ */
+public final class CookieInput {
+
+    //Cloned rather than created through Calendar.getInstance(), which resolves the default locale and time zone.
+    private static final Calendar CALENDAR = Calendar.getInstance();
+
+    private final byte[] data;
+    private final int limit;
+    private int position;
+
+    public CookieInput(@Nonnull byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    public CookieInput(@Nonnull byte[] data, int offset, int length) {
+        this.data = data;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Reads a single raw byte, as an unsigned value.
+     *
+     * @return
+     */
+    public int readByte() {
+        if (position >= limit) {
+            throw new IllegalArgumentException("Unexpected end of cookie data");
+        }
+        return data[position++] & 0xFF;
+    }
+
+    public int readFixedInt() {
+        return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+    }
+
+    public long readFixedLong() {
+        return ((long) readFixedInt() << 32) | (readFixedInt() & 0xFFFFFFFFL);
+    }
+
+    public int readUnsignedVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in cookie data");
+    }
+
+    public long readUnsignedVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            final int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in cookie data");
+    }
+
+    public int readVarInt() {
+        final int value = readUnsignedVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readVarLong() {
+        final long value = readUnsignedVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat(readFixedInt());
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readFixedLong());
+    }
+
+    public char readChar() {
+        return (char) readUnsignedVarInt();
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    /**
+     * Reads the presence marker of a nullable value.
+     *
+     * @return true if a value follows
+     */
+    public boolean readPresence() {
+        return readBoolean();
+    }
+
+    @Nullable
+    public String readString() {
+        final int length = readUnsignedVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > limit - position) {
+            throw new IllegalArgumentException("Unexpected end of cookie data");
+        }
+        final String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    @Nullable
+    public BigDecimal readDecimal() {
+        final String value = readString();
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    @Nullable
+    public Calendar readCalendar() {
+        if (!readPresence()) {
+            return null;
+        }
+        return newCalendar(readVarLong());
+    }
+
+    @Nullable
+    public byte[] readByteArray() {
+        final int length = readUnsignedVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > limit - position) {
+            throw new IllegalArgumentException("Unexpected end of cookie data");
+        }
+        final byte[] value = Arrays.copyOfRange(data, position, position + length);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Reads ints written by {@link CookieOutput#writePackedInts(int[], int) }.
+     *
+     * @return
+     */
+    @Nonnull
+    public int[] readPackedInts() {
+        final int header = readUnsignedVarInt();
+        final int[] values = new int[checkLength(header >>> 1)];
+        if ((header & 1) != 0) {
+            values[0] = readVarInt();
+            for (int i = 1; i < values.length; i++) {
+                values[i] = values[i - 1] + readUnsignedVarInt();
+            }
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readVarInt();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Reads longs written by {@link CookieOutput#writePackedLongs(long[], int) }.
+     *
+     * @return
+     */
+    @Nonnull
+    public long[] readPackedLongs() {
+        final int header = readUnsignedVarInt();
+        final long[] values = new long[checkLength(header >>> 1)];
+        if ((header & 1) != 0) {
+            values[0] = readVarLong();
+            for (int i = 1; i < values.length; i++) {
+                values[i] = values[i - 1] + readUnsignedVarLong();
+            }
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readVarLong();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Validates the number of elements of a sequence, each taking at least a byte, against the remaining data.
+     *
+     * @param length
+     * @return
+     */
+    public int checkLength(int length) {
+        if (length < 0 || length > limit - position) {
+            throw new IllegalArgumentException("Unexpected end of cookie data");
+        }
+        return length;
+    }
+
+    /**
+     * A calendar of the default time zone and locale, set to the specified time.
+     *
+     * @param millis
+     * @return
+     */
+    @Nonnull
+    static Calendar newCalendar(long millis) {
+        final Calendar cal = (Calendar) CALENDAR.clone();
+        cal.setTimeInMillis(millis);
+        return cal;
+    }
+
+    /**
+     * The number of bytes not yet read.
+     *
+     * @return
+     */
+    public int remaining() {
+        return limit - position;
+    }
+
+}
@@ -0,0 +1,310 @@
+package com.anosym.cookie.codec;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Calendar;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A growable byte buffer to which cookie values are written in the compact binary format of encoded cookies.
+ *
+ * Integral values are written as zigzag varints, so that small values of either sign take a single byte. Strings are
+ * written as UTF-8, prefixed with their length. Nullable values are prefixed with a presence marker.
+ *
+ * @author mochieng
+ */
+public final class CookieOutput {
+
+    private byte[] buffer;
+    private int size;
+
+    public CookieOutput() {
+        this(64);
+    }
+
+    public CookieOutput(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    /**
+     * Writes a single raw byte.
+     *
+     * @param b
+     */
+    public void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+    }
+
+    /**
+     * Writes the int as four big-endian bytes.
+     *
+     * @param value
+     */
+    public void writeFixedInt(int value) {
+        ensureCapacity(4);
+        buffer[size++] = (byte) (value >>> 24);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Writes the long as eight big-endian bytes.
+     *
+     * @param value
+     */
+    public void writeFixedLong(long value) {
+        writeFixedInt((int) (value >>> 32));
+        writeFixedInt((int) value);
+    }
+
+    public void writeUnsignedVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    public void writeUnsignedVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Writes the int as a zigzag encoded varint.
+     *
+     * @param value
+     */
+    public void writeVarInt(int value) {
+        writeUnsignedVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes the long as a zigzag encoded varint.
+     *
+     * @param value
+     */
+    public void writeVarLong(long value) {
+        writeUnsignedVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeFloat(float value) {
+        writeFixedInt(Float.floatToIntBits(value));
+    }
+
+    public void writeDouble(double value) {
+        writeFixedLong(Double.doubleToLongBits(value));
+    }
+
+    public void writeChar(char value) {
+        writeUnsignedVarInt(value);
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Writes the presence marker of a nullable value.
+     *
+     * @param value
+     * @return true if the value is not null, and must be written next
+     */
+    public boolean writePresence(@Nullable Object value) {
+        writeBoolean(value != null);
+        return value != null;
+    }
+
+    /**
+     * Writes the string as UTF-8, prefixed with its length plus one. A null string is written as a zero length.
+     *
+     * The string is encoded in place, unpaired surrogates being written as {@code ?}, as
+     * {@link String#getBytes(java.nio.charset.Charset) } does.
+     *
+     * @param value
+     */
+    public void writeString(@Nullable String value) {
+        if (value == null) {
+            writeUnsignedVarInt(0);
+            return;
+        }
+        final int length = value.length();
+        int utf8Length = length;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    utf8Length += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    utf8Length += 2;
+                }
+            } else if (c >= 0x80) {
+                utf8Length++;
+            }
+        }
+        writeUnsignedVarInt(utf8Length + 1);
+        ensureCapacity(utf8Length);
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[size++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xc0 | c >> 6);
+                buffer[size++] = (byte) (0x80 | c & 0x3f);
+            } else if (!Character.isSurrogate(c)) {
+                buffer[size++] = (byte) (0xe0 | c >> 12);
+                buffer[size++] = (byte) (0x80 | c >> 6 & 0x3f);
+                buffer[size++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[size++] = (byte) (0xf0 | codePoint >> 18);
+                buffer[size++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                buffer[size++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                buffer[size++] = (byte) (0x80 | codePoint & 0x3f);
+            } else {
+                buffer[size++] = '?';
+            }
+        }
+    }
+
+    public void writeDecimal(@Nullable BigDecimal value) {
+        writeString(value != null ? value.toString() : null);
+    }
+
+    public void writeCalendar(@Nullable Calendar value) {
+        if (writePresence(value)) {
+            writeVarLong(value.getTimeInMillis());
+        }
+    }
+
+    /**
+     * Writes the byte array prefixed with its length plus one. A null array is written as a zero length.
+     *
+     * @param value
+     */
+    public void writeByteArray(@Nullable byte[] value) {
+        if (value == null) {
+            writeUnsignedVarInt(0);
+            return;
+        }
+        writeUnsignedVarInt(value.length + 1);
+        writeBytes(value, 0, value.length);
+    }
+
+    /**
+     * Writes the ints as packed varints, prefixed with their number. Values in ascending order, as are sorted ids, are
+     * written as the differences to their predecessors, which mostly take a single byte each.
+     *
+     * @param values
+     * @param length the number of leading values to write
+     */
+    public void writePackedInts(@Nonnull int[] values, int length) {
+        final boolean ascending = isAscending(values, length);
+        writeUnsignedVarInt(length << 1 | (ascending ? 1 : 0));
+        if (ascending) {
+            writeVarInt(values[0]);
+            for (int i = 1; i < length; i++) {
+                //the difference of ascending ints is exact as an unsigned int.
+                writeUnsignedVarInt(values[i] - values[i - 1]);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                writeVarInt(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes the longs as packed varints, as {@link #writePackedInts(int[], int) } does.
+     *
+     * @param values
+     * @param length the number of leading values to write
+     */
+    public void writePackedLongs(@Nonnull long[] values, int length) {
+        final boolean ascending = isAscending(values, length);
+        writeUnsignedVarInt(length << 1 | (ascending ? 1 : 0));
+        if (ascending) {
+            writeVarLong(values[0]);
+            for (int i = 1; i < length; i++) {
+                writeUnsignedVarLong(values[i] - values[i - 1]);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                writeVarLong(values[i]);
+            }
+        }
+    }
+
+    public void writeBytes(@Nonnull byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    /**
+     * The number of bytes written so far.
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The backing buffer, valid up to {@link #size() }.
+     *
+     * @return
+     */
+    @Nonnull
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Discards everything written so far, retaining the buffer.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    private static boolean isAscending(final int[] values, final int length) {
+        if (length < 2) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            if (values[i] < values[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscending(final long[] values, final int length) {
+        if (length < 2) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            if (values[i] < values[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int length) {
+        if (size + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + length));
+        }
+    }
+
+}
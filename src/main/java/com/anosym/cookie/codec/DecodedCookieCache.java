@@ -0,0 +1,163 @@
+package com.anosym.cookie.codec;
+
+import com.anosym.cookie.metrics.CookieMetrics;
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+
+/**
+ * A bounded cache of decoded {@link com.anosym.cookie.annotation.Cookie#encoded() } cookies, mapping the cookie class
+ * and the raw cookie value to a snapshot of the decoded field values.
+ *
+ * Browsers send the same cookie value on consecutive requests, hence a hit simply copies the snapshot into the cookie
+ * pojo, instead of decoding the value again. Mutable field values ({@link Calendar}s and {@code byte[]}s) are copied
+ * on every hit. Cookie classes with fields converted by application converters, and with array, collection or
+ * embeddable fields, are never cached, since their values may be mutable.
+ *
+ * The cache is bounded by the approximate memory footprint of its entries, evicting the least recently used entries
+ * first, and may be shared by concurrent requests.
+ *
+ * @author mochieng
+ */
+public final class DecodedCookieCache {
+
+    //The approximate fixed cost of an entry: the cache entry, its key, and the snapshot array.
+    private static final int ENTRY_OVERHEAD = 96;
+    private static final int FIELD_OVERHEAD = 24;
+
+    private final Cache<Key, Object[]> snapshots;
+    private final ConcurrentMap<Class<?>, Boolean> cacheable = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxBytes the approximate maximum memory footprint of the cached snapshots
+     */
+    public DecodedCookieCache(final long maxBytes) {
+        this.snapshots = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(new Weigher<Key, Object[]>() {
+
+                    @Override
+                    public int weigh(Key key, Object[] snapshot) {
+                        return ENTRY_OVERHEAD + 2 * key.value.length() + FIELD_OVERHEAD * snapshot.length;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Decodes the cookie value into the fields of the cookie instance, from the cached snapshot of the value if any.
+     *
+     * @param schema
+     * @param cookieObject
+     * @param value
+     * @return false if the value was written for a different version of the cookie schema, and was ignored
+     * @throws IllegalArgumentException if the value is malformed
+     * @see EncodedCookieFormat#decode(CookieSchema, Object, String)
+     */
+    public boolean decode(@Nonnull final CookieSchema schema, @Nonnull final Object cookieObject,
+                          @Nonnull final String value) {
+        if (!isCacheable(schema)) {
+            return EncodedCookieFormat.decode(schema, cookieObject, value);
+        }
+        final Key key = new Key(schema.getCookieClass(), value);
+        final Object[] snapshot = snapshots.getIfPresent(key);
+        if (snapshot != null) {
+            CookieMetrics.getInstance().decodeCacheHit();
+            apply(schema.getFields(), snapshot, cookieObject);
+            return true;
+        }
+        CookieMetrics.getInstance().decodeCacheMiss();
+        if (!EncodedCookieFormat.decode(schema, cookieObject, value)) {
+            return false;
+        }
+        snapshots.put(key, snapshot(schema.getFields(), cookieObject));
+        return true;
+    }
+
+    @Nonnull
+    public CacheStats stats() {
+        return snapshots.stats();
+    }
+
+    public long size() {
+        return snapshots.size();
+    }
+
+    public void invalidateAll() {
+        snapshots.invalidateAll();
+    }
+
+    private boolean isCacheable(final CookieSchema schema) {
+        Boolean result = cacheable.get(schema.getCookieClass());
+        if (result == null) {
+            result = true;
+            for (CookieFieldSchema field : schema.getFields()) {
+                if (!BuiltInConverters.isSnapshotable(field)) {
+                    result = false;
+                }
+            }
+            cacheable.put(schema.getCookieClass(), result);
+        }
+        return result;
+    }
+
+    private static Object[] snapshot(final List<CookieFieldSchema> fields, final Object cookieObject) {
+        final Object[] snapshot = new Object[fields.size()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = copy(fields.get(i).get(cookieObject));
+        }
+        return snapshot;
+    }
+
+    private static void apply(final List<CookieFieldSchema> fields, final Object[] snapshot,
+                              final Object cookieObject) {
+        for (int i = 0; i < snapshot.length; i++) {
+            fields.get(i).set(cookieObject, copy(snapshot[i]));
+        }
+    }
+
+    static Object copy(final Object value) {
+        if (value instanceof Calendar) {
+            return ((Calendar) value).clone();
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+        return value;
+    }
+
+    private static final class Key {
+
+        private final Class<?> cookieClass;
+        private final String value;
+
+        Key(Class<?> cookieClass, String value) {
+            this.cookieClass = cookieClass;
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * cookieClass.hashCode() + value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return cookieClass == other.cookieClass && value.equals(other.value);
+        }
+
+    }
+
+}
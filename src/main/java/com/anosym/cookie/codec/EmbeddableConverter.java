@@ -0,0 +1,160 @@
+package com.anosym.cookie.codec;
+
+import com.anosym.cookie.annotation.Embeddable;
+import com.google.common.collect.ImmutableList;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Converts the values of an {@link Embeddable} class, writing its fields one after the other, sorted by their names.
+ *
+ * The fields and their types are resolved once, when the converter is created, and are accessed through method handles
+ * thereafter.
+ *
+ * @author mochieng
+ */
+final class EmbeddableConverter extends StructuredConverter<Object> {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private static final Comparator<Field> FIELD_ORDER = new Comparator<Field>() {
+
+        @Override
+        public int compare(Field o1, Field o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private final Class<Object> type;
+    private final MethodHandle constructor;
+    private final List<EmbeddedField> fields;
+    private final String signature;
+
+    /**
+     * @param type the embeddable class
+     * @param classLoader
+     * @param embedding the embeddables enclosing this one
+     * @throws IllegalArgumentException if the class is not a valid embeddable
+     */
+    @SuppressWarnings("unchecked")
+    EmbeddableConverter(@Nonnull final Class<?> type, @Nullable final ClassLoader classLoader,
+                        @Nonnull final Set<Class<?>> embedding) {
+        if (embedding.contains(type)) {
+            throw new IllegalArgumentException("Embeddable contains itself: " + type.getName());
+        }
+        final Set<Class<?>> enclosing = new HashSet<>(embedding);
+        enclosing.add(type);
+        this.type = (Class<Object>) type;
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            this.constructor = lookup.unreflectConstructor(accessible(type.getDeclaredConstructor()))
+                    .asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            throw new IllegalArgumentException("Embeddable has no accessible default constructor: " + type, ex);
+        }
+
+        final List<Field> declaredFields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            final int modifiers = field.getModifiers();
+            if (!field.isSynthetic() && !Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                declaredFields.add(field);
+            }
+        }
+        if (declaredFields.isEmpty()) {
+            throw new IllegalArgumentException("Embeddable has no fields: " + type.getName());
+        }
+        Collections.sort(declaredFields, FIELD_ORDER);
+        final ImmutableList.Builder<EmbeddedField> fieldsBuilder = ImmutableList.builder();
+        final StringBuilder structure = new StringBuilder(type.getName()).append('{');
+        for (Field field : declaredFields) {
+            final ValueType valueType;
+            try {
+                valueType = ValueType.of(field.getGenericType(), classLoader, enclosing);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unsupported embeddable field: " + field, ex);
+            }
+            try {
+                accessible(field);
+                fieldsBuilder.add(new EmbeddedField(valueType, lookup.unreflectGetter(field).asType(GETTER_TYPE),
+                                                    lookup.unreflectSetter(field).asType(SETTER_TYPE)));
+            } catch (IllegalAccessException ex) {
+                throw new IllegalArgumentException("Cannot access embeddable field: " + field, ex);
+            }
+            structure.append(field.getName()).append(':').append(valueType.getSignature()).append(';');
+        }
+        this.fields = fieldsBuilder.build();
+        this.signature = structure.append('}').toString();
+    }
+
+    @Override
+    public Class<Object> getType() {
+        return type;
+    }
+
+    @Override
+    public void write(CookieOutput out, Object value) {
+        try {
+            for (EmbeddedField field : fields) {
+                field.valueType.write(out, (Object) field.getter.invokeExact(value));
+            }
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Error reading embeddable: " + type.getName(), ex);
+        }
+    }
+
+    @Override
+    public Object read(CookieInput in) {
+        try {
+            final Object value = (Object) constructor.invokeExact();
+            for (EmbeddedField field : fields) {
+                field.setter.invokeExact(value, field.valueType.read(in));
+            }
+            return value;
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Error creating embeddable: " + type.getName(), ex);
+        }
+    }
+
+    @Override
+    String getSignature() {
+        return signature;
+    }
+
+    private static <T extends AccessibleObject> T accessible(final T member) {
+        member.setAccessible(true);
+        return member;
+    }
+
+    private static final class EmbeddedField {
+
+        private final ValueType valueType;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        EmbeddedField(ValueType valueType, MethodHandle getter, MethodHandle setter) {
+            this.valueType = valueType;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.anosym.cookie.codec;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The reusable buffers of a thread encoding cookie values: the binary payload, and its unpadded base64url text.
+ *
+ * Each thread encodes into its own buffers, which are only released when they grow past a retained capacity, such that
+ * encoding a cookie value in the steady state allocates nothing but the value itself. A converter encoding a cookie
+ * value while its own is being encoded gets buffers of its own.
+ *
+ * @author mochieng
+ */
+final class EncodeBuffer {
+
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .toCharArray();
+    private static final ThreadLocal<EncodeBuffer> BUFFERS = new ThreadLocal<EncodeBuffer>() {
+
+        @Override
+        protected EncodeBuffer initialValue() {
+            return new EncodeBuffer();
+        }
+    };
+
+    private final CookieOutput out = new CookieOutput(256);
+    private char[] text = new char[344];
+    private boolean inUse;
+
+    private EncodeBuffer() {
+    }
+
+    /**
+     * The buffers of the current thread, with an empty output, to be {@link #release() released} once the value is
+     * built.
+     */
+    @Nonnull
+    static EncodeBuffer acquire() {
+        final EncodeBuffer buffer = BUFFERS.get();
+        if (buffer.inUse) {
+            return new EncodeBuffer();
+        }
+        buffer.inUse = true;
+        buffer.out.reset();
+        return buffer;
+    }
+
+    void release() {
+        inUse = false;
+        if (out.buffer().length > MAX_RETAINED_CAPACITY || text.length > MAX_RETAINED_CAPACITY) {
+            BUFFERS.remove();
+        }
+    }
+
+    @Nonnull
+    CookieOutput getOutput() {
+        return out;
+    }
+
+    /**
+     * The cookie value of the payload written to the output, following the leading characters of the prefix.
+     *
+     * @param prefix the text of the leading payload bytes, null if none
+     * @param prefixLength the number of leading characters of the prefix
+     * @param offset the payload offset following the prefix
+     */
+    @Nonnull
+    String toValue(@Nullable final String prefix, final int prefixLength, final int offset) {
+        final int length = encode(prefix, prefixLength, offset);
+        return new String(text, 0, length);
+    }
+
+    /**
+     * Appends the cookie value of the payload written to the output to the target, returning the length appended.
+     */
+    int appendTo(@Nonnull final StringBuilder target) {
+        final int length = encode(null, 0, 0);
+        target.append(text, 0, length);
+        return length;
+    }
+
+    /**
+     * The unpadded base64url length of the bytes.
+     */
+    static int getEncodedLength(final int bytes) {
+        return (bytes * 4 + 2) / 3;
+    }
+
+    private int encode(final String prefix, final int prefixLength, final int offset) {
+        final int length = prefixLength + getEncodedLength(out.size() - offset);
+        if (text.length < length) {
+            text = new char[Math.max(length, text.length << 1)];
+        }
+        if (prefix != null) {
+            prefix.getChars(0, prefixLength, text, 0);
+        }
+        final byte[] bytes = out.buffer();
+        final int end = out.size();
+        int i = offset;
+        int c = prefixLength;
+        for (; i + 2 < end; i += 3) {
+            final int chunk = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff);
+            text[c++] = ALPHABET[chunk >>> 18];
+            text[c++] = ALPHABET[(chunk >>> 12) & 0x3f];
+            text[c++] = ALPHABET[(chunk >>> 6) & 0x3f];
+            text[c++] = ALPHABET[chunk & 0x3f];
+        }
+        if (end - i == 1) {
+            final int chunk = (bytes[i] & 0xff) << 16;
+            text[c++] = ALPHABET[chunk >>> 18];
+            text[c++] = ALPHABET[(chunk >>> 12) & 0x3f];
+        } else if (end - i == 2) {
+            final int chunk = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8;
+            text[c++] = ALPHABET[chunk >>> 18];
+            text[c++] = ALPHABET[(chunk >>> 12) & 0x3f];
+            text[c++] = ALPHABET[(chunk >>> 6) & 0x3f];
+        }
+        return c;
+    }
+
+}
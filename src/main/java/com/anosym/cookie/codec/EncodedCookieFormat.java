@@ -0,0 +1,128 @@
+package com.anosym.cookie.codec;
+
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+import com.google.common.io.BaseEncoding;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+
+/**
+ * The wire format of {@link com.anosym.cookie.annotation.Cookie#encoded() } cookies.
+ *
+ * The cookie value is the unpadded base64url encoding of a single binary payload: a version byte, followed by the
+ * four byte fingerprint of the cookie schema, followed by every cookie field in index order (see {@link FieldType} and
+ * {@link CookieConverter}). Cookies whose fingerprint does not match the current schema are ignored, since their fields
+ * can no longer be interpreted.
+ *
+ * The legacy format, a {@code ;} separated list of individually Base64 encoded {@code index=value} pairs, is not read.
+ * Its cookies were named after the class of the pojo, or of its CDI proxy, rather than its simple name, so they were
+ * never matched to their pojos, and are left to expire in the browser.
+ *
+ * @author mochieng
+ */
+public final class EncodedCookieFormat {
+
+    private static final Logger LOG = Logger.getLogger(EncodedCookieFormat.class.getName());
+
+    public static final int VERSION = 1;
+
+    static final int HEADER_LENGTH = 5;
+    private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+
+    private EncodedCookieFormat() {
+    }
+
+    /**
+     * Encodes all the fields of the cookie instance into a single cookie value. Apart from the value itself, nothing is
+     * allocated in the steady state: the payload is written to the reused buffers of the thread, and base64url encoded
+     * in place.
+     *
+     * @param schema
+     * @param cookieObject
+     * @return
+     */
+    @Nonnull
+    public static String encode(@Nonnull final CookieSchema schema, @Nonnull final Object cookieObject) {
+        final EncodeBuffer buffer = EncodeBuffer.acquire();
+        try {
+            write(schema, cookieObject, buffer.getOutput());
+            return buffer.toValue(null, 0, 0);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Encodes all the fields of the cookie instance into a single cookie value, as {@link #encode(CookieSchema,
+     * Object) } does, appending the value to the target instead of allocating it.
+     *
+     * @param schema
+     * @param cookieObject
+     * @param target
+     * @return the length of the value appended
+     */
+    public static int encode(@Nonnull final CookieSchema schema, @Nonnull final Object cookieObject,
+                             @Nonnull final StringBuilder target) {
+        final EncodeBuffer buffer = EncodeBuffer.acquire();
+        try {
+            write(schema, cookieObject, buffer.getOutput());
+            return buffer.appendTo(target);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static void write(final CookieSchema schema, final Object cookieObject, final CookieOutput out) {
+        writeHeader(schema, out);
+        final CookieCodec<Object> codec = schema.getCodec();
+        if (codec != null) {
+            codec.write(cookieObject, out);
+        } else {
+            for (CookieFieldSchema field : schema.getFields()) {
+                field.write(out, cookieObject);
+            }
+        }
+    }
+
+    /**
+     * Writes the header of the schema to the output.
+     */
+    static void writeHeader(@Nonnull final CookieSchema schema, @Nonnull final CookieOutput out) {
+        out.writeByte(VERSION);
+        out.writeFixedInt(schema.getFingerprint());
+    }
+
+    /**
+     * Decodes the cookie value into the fields of the cookie instance.
+     *
+     * @param schema
+     * @param cookieObject
+     * @param value
+     * @return false if the value was written for a different version of the cookie schema, and was ignored
+     * @throws IllegalArgumentException if the value is malformed
+     */
+    public static boolean decode(@Nonnull final CookieSchema schema, @Nonnull final Object cookieObject,
+                                 @Nonnull final String value) {
+        final byte[] data = ENCODING.decode(value);
+        if (data.length < HEADER_LENGTH || data[0] != VERSION) {
+            throw new IllegalArgumentException("Not an encoded cookie value of version " + VERSION);
+        }
+        final CookieInput in = new CookieInput(data);
+        in.readByte();
+        if (in.readFixedInt() != schema.getFingerprint()) {
+            LOG.log(Level.FINE, "Ignoring cookie {0} written for a different schema", schema.getName());
+            return false;
+        }
+        final CookieCodec<Object> codec = schema.getCodec();
+        if (codec != null) {
+            codec.read(cookieObject, in);
+        } else {
+            for (CookieFieldSchema field : schema.getFields()) {
+                field.read(in, cookieObject);
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.anosym.cookie.codec;
+
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+
+/**
+ * The binary segments of the fields of a long lived encoded cookie pojo, as last encoded, together with the field
+ * values they were encoded from.
+ *
+ * Encoding the pojo again only encodes the fields whose values changed since, the payload being assembled from the
+ * cached segments of the unchanged fields. Since base64 encodes every three bytes independently, the text of the
+ * payload up to the first changed field (rounded down to three bytes) is reused from the previous cookie value, and
+ * only the remaining payload is base64 encoded. If no field changed, the previous cookie value is returned as is.
+ * Cookies with many, mostly static fields thereby cost little more than reading their fields to write.
+ *
+ * Fields of arrays, collections, embeddables and application converter types are always encoded, since their values
+ * may be mutated in place. The segments may be shared by the concurrent requests of a pojo: each encoding replaces the
+ * segments atomically, the last one winning.
+ *
+ * @author mochieng
+ */
+public final class EncodedSegments {
+
+    private final CookieSchema schema;
+    private final boolean[] snapshotable;
+    private final AtomicReference<Segments> segments = new AtomicReference<>();
+
+    public EncodedSegments(@Nonnull final CookieSchema schema) {
+        if (!schema.isEncoded()) {
+            throw new IllegalArgumentException("Cookie is not encoded: " + schema.getCookieClass());
+        }
+        this.schema = schema;
+        final List<CookieFieldSchema> fields = schema.getFields();
+        this.snapshotable = new boolean[fields.size()];
+        for (int i = 0; i < snapshotable.length; i++) {
+            snapshotable[i] = BuiltInConverters.isSnapshotable(fields.get(i));
+        }
+    }
+
+    /**
+     * Encodes all the fields of the cookie instance into a single cookie value, as
+     * {@link EncodedCookieFormat#encode(CookieSchema, Object) } does, re-encoding only the fields changed since the
+     * previous encoding.
+     *
+     * @param cookieObject
+     * @return
+     */
+    @Nonnull
+    public String encode(@Nonnull final Object cookieObject) {
+        final Segments previous = segments.get();
+        final List<CookieFieldSchema> fields = schema.getFields();
+        Object[] values = null;
+        byte[][] encodedFields = null;
+        CookieOutput out = null;
+        //the payload offset of the first changed field.
+        int changedOffset = EncodedCookieFormat.HEADER_LENGTH;
+        for (int i = 0; i < snapshotable.length; i++) {
+            final CookieFieldSchema field = fields.get(i);
+            final Object value = field.get(cookieObject);
+            if (previous != null && snapshotable[i] && isUnchanged(previous.values[i], value)) {
+                if (values == null) {
+                    changedOffset += previous.encodedFields[i].length;
+                }
+                continue;
+            }
+            if (values == null) {
+                values = previous != null ? previous.values.clone() : new Object[snapshotable.length];
+                encodedFields = previous != null ? previous.encodedFields.clone() : new byte[snapshotable.length][];
+                out = new CookieOutput();
+            }
+            out.reset();
+            field.writeValue(out, value);
+            values[i] = DecodedCookieCache.copy(value);
+            encodedFields[i] = Arrays.copyOf(out.buffer(), out.size());
+        }
+        if (values == null) {
+            return previous.value;
+        }
+        final EncodeBuffer buffer = EncodeBuffer.acquire();
+        final String value;
+        try {
+            final CookieOutput payload = buffer.getOutput();
+            EncodedCookieFormat.writeHeader(schema, payload);
+            for (byte[] encodedField : encodedFields) {
+                payload.writeBytes(encodedField, 0, encodedField.length);
+            }
+            if (previous != null) {
+                //every three bytes are encoded into four characters, independently of the others.
+                final int unchangedBytes = changedOffset - changedOffset % 3;
+                value = buffer.toValue(previous.value, unchangedBytes / 3 * 4, unchangedBytes);
+            } else {
+                value = buffer.toValue(null, 0, 0);
+            }
+        } finally {
+            buffer.release();
+        }
+        segments.set(new Segments(values, encodedFields, value));
+        return value;
+    }
+
+    private static boolean isUnchanged(final Object previous, final Object value) {
+        if (previous instanceof byte[] && value instanceof byte[]) {
+            return Arrays.equals((byte[]) previous, (byte[]) value);
+        }
+        return Objects.equals(previous, value);
+    }
+
+    private static final class Segments {
+
+        private final Object[] values;
+        private final byte[][] encodedFields;
+        private final String value;
+
+        Segments(Object[] values, byte[][] encodedFields, String value) {
+            this.values = values;
+            this.encodedFields = encodedFields;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,329 @@
+package com.anosym.cookie.codec;
+
+import com.google.common.base.Strings;
+import java.math.BigDecimal;
+import java.util.Calendar;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The cookie field types, and their conversions to and from the individual (text) and the encoded (binary) cookie
+ * forms.
+ *
+ * The type of each cookie field is resolved once, when its schema is built. Primitives and their wrappers share a
+ * field type. Wrappers are nullable, and are prefixed with a presence marker in the binary form.
+ *
+ * @author mochieng
+ */
+public enum FieldType {
+
+    STRING(String.class, null) {
+
+                @Override
+                Object parse(String value) {
+                    return value;
+                }
+
+                @Override
+                void writeValue(CookieOutput out, Object value) {
+                    out.writeString((String) value);
+                }
+
+                @Override
+                Object readValue(CookieInput in) {
+                    return in.readString();
+                }
+
+            },
+    BIG_DECIMAL(BigDecimal.class, null) {
+
+                @Override
+                Object parse(String value) {
+                    return new BigDecimal(value);
+                }
+
+                @Override
+                void writeValue(CookieOutput out, Object value) {
+                    out.writeDecimal((BigDecimal) value);
+                }
+
+                @Override
+                Object readValue(CookieInput in) {
+                    return in.readDecimal();
+                }
+
+            },
+    CALENDAR(Calendar.class, null) {
+
+                @Override
+                Object parse(String value) {
+                    return CookieInput.newCalendar(Long.parseLong(value));
+                }
+
+                @Override
+                String format(Object value) {
+                    return String.valueOf(((Calendar) value).getTimeInMillis());
+                }
+
+                @Override
+                void writeValue(CookieOutput out, Object value) {
+                    out.writeCalendar((Calendar) value);
+                }
+
+                @Override
+                Object readValue(CookieInput in) {
+                    return in.readCalendar();
+                }
+
+            },
+    BYTE(Byte.class, byte.class) {
+
+                @Override
+                Object parse(String value) {
+                    return Byte.parseByte(value);
+                }
+
+                @Override
+                void writeValue(CookieOutput out, Object value) {
+                    out.writeVarInt((Byte) value);
+                }
+
+                @Override
+                Object readValue(CookieInput in) {
+                    return (byte) in.readVarInt();
+                }
+
+            },
+    SHORT(Short.class, short.class) {
+
+                @Override
+                Object parse(String value) {
+                    return Short.parseShort(value);
+                }
+
+                @Override
+                void writeValue(CookieOutput out, Object value) {
+                    out.writeVarInt((Short) value);
+                }
+
+                @Override
+                Object readValue(CookieInput in) {
+                    return (short) in.readVarInt();
+                }
+
+            },
+    INT(Integer.class, int.class) {
+
+                @Override
+                Object parse(String value) {
+                    return Integer.parseInt(value);
+                }
+
+                @Override
+                void writeValue(CookieOutput out, Object value) {
+                    out.writeVarInt((Integer) value);
+                }
+
+                @Override
+                Object readValue(CookieInput in) {
+                    return in.readVarInt();
+                }
+
+            },
+    LONG(Long.class, long.class) {
+
+                @Override
+                Object parse(String value) {
+                    return Long.parseLong(value);
+                }
+
+                @Override
+                void writeValue(CookieOutput out, Object value) {
+                    out.writeVarLong((Long) value);
+                }
+
+                @Override
+                Object readValue(CookieInput in) {
+                    return in.readVarLong();
+                }
+
+            },
+    FLOAT(Float.class, float.class) {
+
+                @Override
+                Object parse(String value) {
+                    return Float.parseFloat(value);
+                }
+
+                @Override
+                void writeValue(CookieOutput out, Object value) {
+                    out.writeFloat((Float) value);
+                }
+
+                @Override
+                Object readValue(CookieInput in) {
+                    return in.readFloat();
+                }
+
+            },
+    DOUBLE(Double.class, double.class) {
+
+                @Override
+                Object parse(String value) {
+                    return Double.parseDouble(value);
+                }
+
+                @Override
+                void writeValue(CookieOutput out, Object value) {
+                    out.writeDouble((Double) value);
+                }
+
+                @Override
+                Object readValue(CookieInput in) {
+                    return in.readDouble();
+                }
+
+            },
+    CHAR(Character.class, char.class) {
+
+                @Override
+                Object parse(String value) {
+                    final String trimmed = Strings.nullToEmpty(value).trim();
+                    return !trimmed.isEmpty() ? trimmed.charAt(0) : ' ';
+                }
+
+                @Override
+                void writeValue(CookieOutput out, Object value) {
+                    out.writeChar((Character) value);
+                }
+
+                @Override
+                Object readValue(CookieInput in) {
+                    return in.readChar();
+                }
+
+            },
+    BOOLEAN(Boolean.class, boolean.class) {
+
+                @Override
+                Object parse(String value) {
+                    return Boolean.valueOf(value);
+                }
+
+                @Override
+                void writeValue(CookieOutput out, Object value) {
+                    out.writeBoolean((Boolean) value);
+                }
+
+                @Override
+                Object readValue(CookieInput in) {
+                    return in.readBoolean();
+                }
+
+            };
+
+    private final Class<?> type;
+    private final Class<?> primitiveType;
+
+    private FieldType(Class<?> type, Class<?> primitiveType) {
+        this.type = type;
+        this.primitiveType = primitiveType;
+    }
+
+    /**
+     * Resolves the field type of the specified java type.
+     *
+     * @param type
+     * @return
+     * @throws IllegalArgumentException if the type is not supported as a cookie field
+     */
+    @Nonnull
+    public static FieldType of(@Nonnull Class<?> type) {
+        final FieldType fieldType = find(type);
+        if (fieldType == null) {
+            throw new IllegalArgumentException("Unsupported cookie variable type: " + type);
+        }
+        return fieldType;
+    }
+
+    /**
+     * Resolves the field type of the specified java type, or null if the type is not one of the field types, in which
+     * case it may still be converted by a {@link CookieConverter}.
+     *
+     * @param type
+     * @return
+     */
+    @Nullable
+    public static FieldType find(@Nonnull Class<?> type) {
+        for (FieldType fieldType : values()) {
+            if (fieldType.type.isAssignableFrom(type) || type == fieldType.primitiveType) {
+                return fieldType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the text form of the value, as written to an individual cookie.
+     *
+     * @param value
+     * @return
+     */
+    @Nonnull
+    public String toText(@Nullable Object value) {
+        return value != null ? format(value) : String.valueOf(value);
+    }
+
+    /**
+     * Parses the text form of a value.
+     *
+     * @param value
+     * @return
+     */
+    @Nonnull
+    public Object fromText(@Nonnull String value) {
+        return parse(value);
+    }
+
+    /**
+     * Writes the value in its binary form.
+     *
+     * @param out
+     * @param value
+     * @param nullable true if the value is not a primitive, and must be prefixed with a presence marker
+     */
+    public void write(@Nonnull CookieOutput out, @Nullable Object value, boolean nullable) {
+        if (this == STRING || this == BIG_DECIMAL || this == CALENDAR) {
+            //these carry their own null markers.
+            writeValue(out, value);
+        } else if (!nullable || out.writePresence(value)) {
+            writeValue(out, value);
+        }
+    }
+
+    /**
+     * Reads a value written by {@link #write(com.anosym.cookie.codec.CookieOutput, java.lang.Object, boolean) }.
+     *
+     * @param in
+     * @param nullable
+     * @return
+     */
+    @Nullable
+    public Object read(@Nonnull CookieInput in, boolean nullable) {
+        if (this == STRING || this == BIG_DECIMAL || this == CALENDAR) {
+            return readValue(in);
+        }
+        return !nullable || in.readPresence() ? readValue(in) : null;
+    }
+
+    abstract Object parse(String value);
+
+    String format(Object value) {
+        return String.valueOf(value);
+    }
+
+    abstract void writeValue(CookieOutput out, Object value);
+
+    abstract Object readValue(CookieInput in);
+
+}
@@ -0,0 +1,213 @@
+package com.anosym.cookie.codec;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * The converters of primitive arrays other than {@code byte[]}.
+ *
+ * Integral arrays are written as packed varints, ascending arrays (as are sorted ids) as the differences of consecutive
+ * values (see {@link CookieOutput#writePackedInts(int[], int) }). Boolean arrays are written as bits.
+ *
+ * @author mochieng
+ */
+final class PrimitiveArrayConverters {
+
+    static final ImmutableMap<Class<?>, CookieConverter<?>> CONVERTERS
+            = ImmutableMap.<Class<?>, CookieConverter<?>>builder()
+            .put(int[].class, new IntArrayConverter())
+            .put(long[].class, new LongArrayConverter())
+            .put(short[].class, new ShortArrayConverter())
+            .put(char[].class, new CharArrayConverter())
+            .put(float[].class, new FloatArrayConverter())
+            .put(double[].class, new DoubleArrayConverter())
+            .put(boolean[].class, new BooleanArrayConverter())
+            .build();
+
+    private PrimitiveArrayConverters() {
+    }
+
+    private static final class IntArrayConverter extends StructuredConverter<int[]> {
+
+        @Override
+        public Class<int[]> getType() {
+            return int[].class;
+        }
+
+        @Override
+        public void write(CookieOutput out, int[] value) {
+            out.writePackedInts(value, value.length);
+        }
+
+        @Override
+        public int[] read(CookieInput in) {
+            return in.readPackedInts();
+        }
+
+    }
+
+    private static final class LongArrayConverter extends StructuredConverter<long[]> {
+
+        @Override
+        public Class<long[]> getType() {
+            return long[].class;
+        }
+
+        @Override
+        public void write(CookieOutput out, long[] value) {
+            out.writePackedLongs(value, value.length);
+        }
+
+        @Override
+        public long[] read(CookieInput in) {
+            return in.readPackedLongs();
+        }
+
+    }
+
+    private static final class ShortArrayConverter extends StructuredConverter<short[]> {
+
+        @Override
+        public Class<short[]> getType() {
+            return short[].class;
+        }
+
+        @Override
+        public void write(CookieOutput out, short[] value) {
+            final int[] values = new int[value.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = value[i];
+            }
+            out.writePackedInts(values, values.length);
+        }
+
+        @Override
+        public short[] read(CookieInput in) {
+            final int[] values = in.readPackedInts();
+            final short[] value = new short[values.length];
+            for (int i = 0; i < value.length; i++) {
+                value[i] = (short) values[i];
+            }
+            return value;
+        }
+
+    }
+
+    private static final class CharArrayConverter extends StructuredConverter<char[]> {
+
+        @Override
+        public Class<char[]> getType() {
+            return char[].class;
+        }
+
+        @Override
+        public void write(CookieOutput out, char[] value) {
+            final int[] values = new int[value.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = value[i];
+            }
+            out.writePackedInts(values, values.length);
+        }
+
+        @Override
+        public char[] read(CookieInput in) {
+            final int[] values = in.readPackedInts();
+            final char[] value = new char[values.length];
+            for (int i = 0; i < value.length; i++) {
+                value[i] = (char) values[i];
+            }
+            return value;
+        }
+
+    }
+
+    private static final class FloatArrayConverter extends StructuredConverter<float[]> {
+
+        @Override
+        public Class<float[]> getType() {
+            return float[].class;
+        }
+
+        @Override
+        public void write(CookieOutput out, float[] value) {
+            out.writeUnsignedVarInt(value.length);
+            for (float element : value) {
+                out.writeFloat(element);
+            }
+        }
+
+        @Override
+        public float[] read(CookieInput in) {
+            final float[] value = new float[in.checkLength(in.readUnsignedVarInt())];
+            for (int i = 0; i < value.length; i++) {
+                value[i] = in.readFloat();
+            }
+            return value;
+        }
+
+    }
+
+    private static final class DoubleArrayConverter extends StructuredConverter<double[]> {
+
+        @Override
+        public Class<double[]> getType() {
+            return double[].class;
+        }
+
+        @Override
+        public void write(CookieOutput out, double[] value) {
+            out.writeUnsignedVarInt(value.length);
+            for (double element : value) {
+                out.writeDouble(element);
+            }
+        }
+
+        @Override
+        public double[] read(CookieInput in) {
+            final double[] value = new double[in.checkLength(in.readUnsignedVarInt())];
+            for (int i = 0; i < value.length; i++) {
+                value[i] = in.readDouble();
+            }
+            return value;
+        }
+
+    }
+
+    private static final class BooleanArrayConverter extends StructuredConverter<boolean[]> {
+
+        @Override
+        public Class<boolean[]> getType() {
+            return boolean[].class;
+        }
+
+        @Override
+        public void write(CookieOutput out, boolean[] value) {
+            out.writeUnsignedVarInt(value.length);
+            for (int i = 0; i < value.length; i += 8) {
+                int bits = 0;
+                for (int bit = 0; bit < 8 && i + bit < value.length; bit++) {
+                    if (value[i + bit]) {
+                        bits |= 1 << bit;
+                    }
+                }
+                out.writeByte(bits);
+            }
+        }
+
+        @Override
+        public boolean[] read(CookieInput in) {
+            final int length = in.readUnsignedVarInt();
+            //eight values to a byte.
+            in.checkLength((int) ((length + 7L) >>> 3));
+            final boolean[] value = new boolean[length];
+            for (int i = 0; i < length; i += 8) {
+                final int bits = in.readByte();
+                for (int bit = 0; bit < 8 && i + bit < length; bit++) {
+                    value[i + bit] = (bits & 1 << bit) != 0;
+                }
+            }
+            return value;
+        }
+
+    }
+
+}
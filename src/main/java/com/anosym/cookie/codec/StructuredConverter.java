@@ -0,0 +1,51 @@
+package com.anosym.cookie.codec;
+
+import com.google.common.io.BaseEncoding;
+import javax.annotation.Nonnull;
+
+/**
+ * The base of the converters of primitive arrays, collections and {@link com.anosym.cookie.annotation.Embeddable}s.
+ *
+ * Their text form, as written to individual cookies, is the unpadded base64url encoding of their binary form, as is the
+ * case with {@code byte[]}s. Their signature describes their structure, such that the fingerprint of an encoded cookie
+ * changes with the element types and the fields of its nested values.
+ *
+ * @author mochieng
+ * @param <T> the converted type
+ */
+abstract class StructuredConverter<T> implements CookieConverter<T> {
+
+    private static final BaseEncoding TEXT_ENCODING = BaseEncoding.base64Url().omitPadding();
+
+    @Override
+    public String toText(T value) {
+        final EncodeBuffer buffer = EncodeBuffer.acquire();
+        try {
+            write(buffer.getOutput(), value);
+            return buffer.toValue(null, 0, 0);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public T fromText(String text) {
+        final CookieInput in = new CookieInput(TEXT_ENCODING.decode(text));
+        final T value = read(in);
+        if (in.remaining() > 0) {
+            throw new IllegalArgumentException("Trailing data in cookie value of " + getType().getName());
+        }
+        return value;
+    }
+
+    /**
+     * Describes the structure of the converted values.
+     *
+     * @return
+     */
+    @Nonnull
+    String getSignature() {
+        return getType().getName();
+    }
+
+}
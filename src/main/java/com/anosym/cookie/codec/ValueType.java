@@ -0,0 +1,89 @@
+package com.anosym.cookie.codec;
+
+import java.lang.reflect.Type;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The resolved type of a nested value: an element of a collection, or a field of an embeddable.
+ *
+ * Values are written as {@link com.anosym.cookie.schema.CookieFieldSchema} writes cookie fields: the
+ * {@link FieldType}s in their binary form, and values of other types by their converter, prefixed with a presence
+ * marker. Every value but a primitive takes at least a byte.
+ *
+ * @author mochieng
+ */
+final class ValueType {
+
+    private final Class<?> type;
+    //Null if the value is converted by a converter.
+    private final FieldType fieldType;
+    private final CookieConverter<Object> converter;
+
+    private ValueType(Class<?> type, FieldType fieldType, CookieConverter<Object> converter) {
+        this.type = type;
+        this.fieldType = fieldType;
+        this.converter = converter;
+    }
+
+    /**
+     * Resolves the type of a nested value.
+     *
+     * @param genericType
+     * @param classLoader
+     * @param embedding the embeddables enclosing the value
+     * @return
+     * @throws IllegalArgumentException if the type is not supported as a nested value
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    static ValueType of(@Nonnull final Type genericType, @Nullable final ClassLoader classLoader,
+                        @Nonnull final Set<Class<?>> embedding) {
+        if (genericType instanceof Class) {
+            final FieldType fieldType = FieldType.find((Class<?>) genericType);
+            if (fieldType != null) {
+                return new ValueType((Class<?>) genericType, fieldType, null);
+            }
+        }
+        final CookieConverter<Object> converter
+                = (CookieConverter<Object>) CookieConverters.forGenericType(genericType, classLoader, embedding);
+        if (converter == null) {
+            throw new IllegalArgumentException("Unsupported cookie value type: " + genericType.getTypeName());
+        }
+        return new ValueType(CookieConverters.getRawType(genericType), null, converter);
+    }
+
+    /**
+     * The field type of the values, or null if the values are converted by a converter.
+     *
+     * @return
+     */
+    @Nullable
+    FieldType getFieldType() {
+        return fieldType;
+    }
+
+    void write(@Nonnull final CookieOutput out, @Nullable final Object value) {
+        if (fieldType != null) {
+            fieldType.write(out, value, !type.isPrimitive());
+        } else if (out.writePresence(value)) {
+            converter.write(out, value);
+        }
+    }
+
+    @Nullable
+    Object read(@Nonnull final CookieInput in) {
+        if (fieldType != null) {
+            return fieldType.read(in, !type.isPrimitive());
+        }
+        return in.readPresence() ? converter.read(in) : null;
+    }
+
+    @Nonnull
+    String getSignature() {
+        return converter instanceof StructuredConverter
+                ? ((StructuredConverter<?>) converter).getSignature() : type.getName();
+    }
+
+}
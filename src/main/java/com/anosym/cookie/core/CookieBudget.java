@@ -0,0 +1,116 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.CookieConfiguration;
+import com.anosym.cookie.codec.FieldType;
+import com.anosym.cookie.metrics.CookieMetrics;
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The size limits of the cookies written to a single response, applying the {@link CookieConfiguration#COOKIE_OVERFLOW}
+ * policy to the cookies over the limits.
+ *
+ * The size of a cookie is the length of its name, the {@code =} and its value, as counted by browsers. Cookies are
+ * charged to the response in the order they are written, so that the cookie crossing the response limit overflows.
+ *
+ * @author mochieng
+ */
+final class CookieBudget {
+
+    private static final Logger LOG = Logger.getLogger(CookieBudget.class.getName());
+
+    private final int maxCookieBytes;
+    private final CookieConfiguration.OverflowPolicy overflow;
+    //The bytes left to the response, Integer.MAX_VALUE if unlimited.
+    private int responseBytes;
+
+    CookieBudget(@Nonnull final CookieConfiguration configuration) {
+        this.maxCookieBytes = configuration.getMaxCookieBytes() > 0 ? configuration.getMaxCookieBytes()
+                : Integer.MAX_VALUE;
+        this.overflow = configuration.getCookieOverflow();
+        this.responseBytes = configuration.getMaxResponseCookieBytes() > 0 ? configuration.getMaxResponseCookieBytes()
+                : Integer.MAX_VALUE;
+    }
+
+    /**
+     * If the cookie of the value length, written on its own, is within the cookie and response limits of the
+     * configuration, such that it needs neither a budget of its own, nor chunking.
+     */
+    static boolean fits(@Nonnull final CookieConfiguration configuration, @Nonnull final String name,
+                        final int valueLength) {
+        final int size = name.length() + 1 + valueLength;
+        return (configuration.getMaxCookieBytes() <= 0 || size <= configuration.getMaxCookieBytes())
+                && (configuration.getMaxResponseCookieBytes() <= 0
+                    || size <= configuration.getMaxResponseCookieBytes());
+    }
+
+    /**
+     * If the encoded cookie is over the cookie limit, and is to be split into chunks.
+     */
+    boolean isChunked(@Nonnull final String name, @Nonnull final String value, @Nonnull final CookieSchema schema) {
+        return overflow == CookieConfiguration.OverflowPolicy.CHUNK && schema.isEncoded()
+                && name.length() + 1 + value.length() > maxCookieBytes;
+    }
+
+    /**
+     * Splits the encoded cookie into chunks, and charges the header and all the chunks to the response.
+     *
+     * @return the header, followed by the chunks, or null if the cookie needs too many chunks, or the chunks are over
+     * the response limit, in which case none must be written
+     */
+    @Nullable
+    String[] chargeChunks(@Nonnull final CookieSchema schema, @Nonnull final String value) {
+        final String[] chunks = CookieChunks.split(schema, value, maxCookieBytes);
+        int size = 0;
+        if (chunks != null) {
+            size = schema.getName().length() + 1 + chunks[0].length();
+            for (int i = 1; i < chunks.length; i++) {
+                size += schema.getChunkNames().get(i - 1).length() + 1 + chunks[i].length();
+            }
+            if (size <= responseBytes) {
+                responseBytes -= size;
+                return chunks;
+            }
+        }
+        final int cookieSize = schema.getName().length() + 1 + value.length();
+        CookieMetrics.getInstance().cookieOverflow(schema.getCookieClass(), cookieSize);
+        LOG.log(Level.FINE, "Cookie {0} of {1} bytes cannot be chunked within the limits, not written",
+                new Object[]{schema.getName(), cookieSize});
+        return null;
+    }
+
+    /**
+     * Charges the cookie to the response.
+     *
+     * @return the value to write, which may be truncated, or null if the cookie must not be written
+     */
+    @Nullable
+    String charge(@Nonnull final String name, @Nonnull final String value, @Nonnull final CookieSchema schema,
+                  @Nullable final CookieFieldSchema field) {
+        final int size = name.length() + 1 + value.length();
+        final int limit = Math.min(maxCookieBytes, responseBytes);
+        if (size <= limit) {
+            responseBytes -= size;
+            return value;
+        }
+        CookieMetrics.getInstance().cookieOverflow(schema.getCookieClass(), size);
+        final int valueLimit = limit - name.length() - 1;
+        if (overflow == CookieConfiguration.OverflowPolicy.TRUNCATE && field != null
+                && field.getFieldType() == FieldType.STRING && valueLimit > 0) {
+            //a surrogate pair is never split.
+            final int end = Character.isHighSurrogate(value.charAt(valueLimit - 1)) ? valueLimit - 1 : valueLimit;
+            LOG.log(Level.FINE, "Cookie {0} of {1} bytes truncated to {2} bytes",
+                    new Object[]{name, size, name.length() + 1 + end});
+            responseBytes -= name.length() + 1 + end;
+            return value.substring(0, end);
+        }
+        LOG.log(Level.FINE, "Cookie {0} of {1} bytes over the limit of {2} bytes, not written",
+                new Object[]{name, size, limit});
+        return null;
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Splits the encoded values over the cookie size limit into the {@link CookieSchema#getChunkNames() chunk cookies}
+ * {@code Name.0}, {@code Name.1} and so on, and reassembles them.
+ *
+ * The cookie itself then holds the header of the chunks: {@code !}, the number of chunks, {@code .} and the hex CRC32
+ * of the whole value, which cannot be mistaken for an encoded value, or a token. A value whose chunks are missing, or
+ * do not match the checksum, as when the browser dropped some of them, is rejected as malformed.
+ *
+ * @author mochieng
+ */
+final class CookieChunks {
+
+    private static final char HEADER_PREFIX = '!';
+
+    private CookieChunks() {
+    }
+
+    /**
+     * If the received value is the header of chunks.
+     */
+    static boolean isHeader(@Nullable final String value) {
+        return value != null && !value.isEmpty() && value.charAt(0) == HEADER_PREFIX;
+    }
+
+    /**
+     * The index of the chunk, if the cookie name is a chunk name, that is ends with a {@code .} and a chunk index,
+     * otherwise -1.
+     */
+    static int getIndex(@Nonnull final String name) {
+        final int length = name.length();
+        if (length < 3 || name.charAt(length - 2) != '.') {
+            return -1;
+        }
+        final int index = name.charAt(length - 1) - '0';
+        return index >= 0 && index < CookieSchema.MAX_CHUNKS ? index : -1;
+    }
+
+    /**
+     * Splits the encoded value into chunks within the cookie size limit.
+     *
+     * @return the header, followed by the chunks, or null if the value needs more than
+     * {@link CookieSchema#MAX_CHUNKS} chunks
+     */
+    @Nullable
+    static String[] split(@Nonnull final CookieSchema schema, @Nonnull final String value, final int maxCookieBytes) {
+        //the chunk names take a . and a single digit.
+        final int chunkLength = maxCookieBytes - schema.getName().length() - 3;
+        if (chunkLength <= 0) {
+            return null;
+        }
+        final int count = (value.length() + chunkLength - 1) / chunkLength;
+        if (count > CookieSchema.MAX_CHUNKS) {
+            return null;
+        }
+        final String[] chunks = new String[count + 1];
+        chunks[0] = HEADER_PREFIX + Integer.toString(count) + '.' + checksum(value);
+        for (int i = 0; i < count; i++) {
+            chunks[i + 1] = value.substring(i * chunkLength, Math.min(value.length(), (i + 1) * chunkLength));
+        }
+        return chunks;
+    }
+
+    /**
+     * Reassembles the value of the received chunks.
+     *
+     * @param header the received header
+     * @param chunks the received chunks by index, null if none was received
+     * @return
+     * @throws IllegalArgumentException if the header is malformed, a chunk is missing, or the value does not match the
+     * checksum
+     */
+    @Nonnull
+    static String assemble(@Nonnull final String header, @Nullable final String[] chunks) {
+        final int separator = header.indexOf('.');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid chunk header: " + header);
+        }
+        final int count = Integer.parseInt(header.substring(1, separator));
+        if (count <= 0 || count > CookieSchema.MAX_CHUNKS) {
+            throw new IllegalArgumentException("Invalid chunk count: " + header);
+        }
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            if (chunks == null || chunks[i] == null) {
+                throw new IllegalArgumentException("Missing chunk " + i + " of " + count);
+            }
+            length += chunks[i].length();
+        }
+        final StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < count; i++) {
+            value.append(chunks[i]);
+        }
+        final String assembled = value.toString();
+        if (!checksum(assembled).equals(header.substring(separator + 1))) {
+            throw new IllegalArgumentException("Chunks do not match the checksum: " + header);
+        }
+        return assembled;
+    }
+
+    /**
+     * The number of chunk cookies held by the browser, up to the last chunk received, which it keeps until they are
+     * expired.
+     */
+    static int getReceivedCount(@Nullable final String[] chunks) {
+        if (chunks != null) {
+            for (int i = chunks.length - 1; i >= 0; i--) {
+                if (chunks[i] != null) {
+                    return i + 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Nonnull
+    private static String checksum(final String value) {
+        final CRC32 crc = new CRC32();
+        for (int i = 0; i < value.length(); i++) {
+            //encoded values are ascii.
+            crc.update(value.charAt(i));
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+}
@@ -0,0 +1,499 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.CookieConfiguration;
+import com.anosym.cookie.annotation.Protection;
+import com.anosym.cookie.codec.CookieCodec;
+import com.anosym.cookie.codec.DecodedCookieCache;
+import com.anosym.cookie.codec.EncodedCookieFormat;
+import com.anosym.cookie.http.CookieHeaderParser;
+import com.anosym.cookie.http.CookiePathIndex;
+import com.anosym.cookie.http.SetCookieHeaderWriter;
+import com.anosym.cookie.http.UrlPatterns;
+import com.anosym.cookie.metrics.CookieMetrics;
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+import com.anosym.cookie.schema.CookieSchemas;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Reads {@link com.anosym.cookie.annotation.Cookie} pojos from requests, and writes them to responses, without any
+ * container integration.
+ *
+ * <pre>
+ *  <code>
+ * final CookieEngine engine = CookieEngine.of(request.getServletContext());
+ * final MyPojoCookie myCookie = engine.read(request, MyPojoCookie.class);
+ * ...
+ * engine.write(response, myCookie);
+ * </code>
+ * </pre>
+ *
+ * Container integrations track the cookie pojos of a request through a {@link CookieExchange} instead, so that only
+ * changed cookies are written back. Engines are thread safe, and are shared by all the requests of a web application.
+ *
+ * @author mochieng
+ */
+public final class CookieEngine {
+
+    private static final Logger LOG = Logger.getLogger(CookieEngine.class.getName());
+
+    private static final String ATTRIBUTE = CookieEngine.class.getName();
+    private static final String UPGRADE_HEADER = "Upgrade";
+    private static final String WEBSOCKET = "websocket";
+
+    private final CookieConfiguration configuration;
+    private final CookieOffload offload;
+    private final CookieProtection protection;
+    //Matches the registered cookie names, if raw header parsing is enabled.
+    private volatile CookieHeaderParser headerParser;
+    private volatile Set<String> headerParserNames = Collections.emptySet();
+    //The paths of the indexed cookies, built on first access.
+    private volatile CookiePathIndex pathIndex;
+
+    public CookieEngine(@Nonnull final CookieConfiguration configuration) {
+        this.configuration = configuration;
+        this.offload = new CookieOffload(configuration);
+        this.protection = new CookieProtection(configuration);
+    }
+
+    /**
+     * Returns the engine of the web application, creating it on first access.
+     *
+     * @param servletContext
+     * @return
+     */
+    @Nonnull
+    public static CookieEngine of(@Nonnull final ServletContext servletContext) {
+        CookieEngine engine = (CookieEngine) servletContext.getAttribute(ATTRIBUTE);
+        if (engine == null) {
+            synchronized (CookieEngine.class) {
+                engine = (CookieEngine) servletContext.getAttribute(ATTRIBUTE);
+                if (engine == null) {
+                    engine = new CookieEngine(CookieConfiguration.of(servletContext));
+                    servletContext.setAttribute(ATTRIBUTE, engine);
+                }
+            }
+        }
+        return engine;
+    }
+
+    @Nonnull
+    public CookieConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Creates a new instance of the cookie pojo, populated from the request cookies.
+     *
+     * @param <T>
+     * @param request
+     * @param cookieClass must have a default constructor
+     * @return
+     */
+    @Nonnull
+    public <T> T read(@Nonnull final HttpServletRequest request, @Nonnull final Class<T> cookieClass) {
+        final T cookieObject;
+        try {
+            cookieObject = cookieClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalArgumentException("Cookie pojo has no accessible default constructor: " + cookieClass, ex);
+        }
+        read(request, cookieObject);
+        return cookieObject;
+    }
+
+    /**
+     * Populates the cookie pojo from the request cookies. Fields whose cookies were not received retain their values.
+     *
+     * @param request
+     * @param cookieObject
+     */
+    public void read(@Nonnull final HttpServletRequest request, @Nonnull final Object cookieObject) {
+        final CookieExchange exchange = new CookieExchange(this, request, false);
+        exchange.add(cookieObject);
+        exchange.receive();
+    }
+
+    /**
+     * Writes all the cookies of the cookie pojo to the response. Cookies over the {@link
+     * CookieConfiguration#MAX_COOKIE_BYTES size limits} are handled by the overflow policy, the response limit
+     * applying to the cookies of the pojo. Chunks the browser may hold from earlier responses are not expired, the
+     * request being unknown.
+     *
+     * @param response
+     * @param cookieObject
+     */
+    public void write(@Nonnull final HttpServletResponse response, @Nonnull final Object cookieObject) {
+        final CookieSchema schema = CookieSchema.of(cookieObject.getClass());
+        final long start = System.nanoTime();
+        int bytes = 0;
+        int emitted = 0;
+        if (schema.isEncoded() && !schema.isStored() && schema.getProtection() == Protection.NONE) {
+            //encoded straight into the header, unless the value is over the limits.
+            final StringBuilder header = SetCookieHeaderWriter.start(schema.getName());
+            final int length = EncodedCookieFormat.encode(schema, cookieObject, header);
+            final int written;
+            if (CookieBudget.fits(configuration, schema.getName(), length)) {
+                CookieMetrics.getInstance().cookieWritten(schema.getCookieClass(), schema.getName().length() + 1
+                        + length);
+                written = SetCookieHeaderWriter.write(response, header, schema.getHeaderAttributes());
+            } else {
+                written = write(response, new CookieBudget(configuration), schema.getName(),
+                                header.substring(schema.getName().length() + 1), schema, null, 0);
+            }
+            if (written > 0) {
+                bytes += written;
+                emitted++;
+            }
+        } else if (schema.isEncoded()) {
+            final CookieBudget budget = new CookieBudget(configuration);
+            String value = EncodedCookieFormat.encode(schema, cookieObject);
+            if (schema.getProtection() != Protection.NONE) {
+                value = protection.protect(schema, value);
+            }
+            final int written = write(response, budget, schema.getName(),
+                                      schema.isStored() ? offload.store(schema, value) : value, schema, null, 0);
+            if (written > 0) {
+                bytes += written;
+                emitted++;
+            }
+        } else {
+            final CookieBudget budget = new CookieBudget(configuration);
+            for (CookieFieldSchema field : schema.getFields()) {
+                final int written = write(response, budget, field.getCookieName(),
+                                          getText(schema, field, cookieObject), schema, field, 0);
+                if (written > 0) {
+                    bytes += written;
+                    emitted++;
+                }
+            }
+        }
+        CookieMetrics.getInstance().encoded(schema.getCookieClass(), System.nanoTime() - start);
+        CookieMetrics.getInstance().responseWritten(bytes, emitted, schema.getCookieNames().size() - emitted);
+    }
+
+    /**
+     * If the request bypasses the cookie pojos entirely: its path is {@link CookieConfiguration#EXCLUDED_PATHS
+     * excluded}, it is a websocket upgrade, or none of the cookie classes has a path applying to its URI. The latter
+     * requires every cookie class to be indexed, the paths of the others being unknown.
+     *
+     * @param request
+     * @param cookieClasses the classes of the cookie pojos the request would track
+     * @return
+     */
+    public boolean isExcluded(@Nonnull final HttpServletRequest request,
+                              @Nonnull final Collection<Class<?>> cookieClasses) {
+        final String uri = request.getRequestURI();
+        final UrlPatterns excludedPaths = configuration.getExcludedPaths();
+        if (excludedPaths != null && excludedPaths.matches(uri, request.getContextPath().length())) {
+            return true;
+        }
+        if (WEBSOCKET.equalsIgnoreCase(request.getHeader(UPGRADE_HEADER))) {
+            return true;
+        }
+        final CookiePathIndex index = getPathIndex();
+        return index.match(uri).isEmpty() && index.isIndexed(cookieClasses);
+    }
+
+    /**
+     * Starts tracking the cookie pojos of the request: the request cookies are captured, and the exchange is attached
+     * to the request.
+     *
+     * The pojos are the beans of the request, typically their client proxies: each is populated from the request
+     * cookies when it is first accessed, through {@link CookieExchange#decode(Object) }, and only the pojos accessed
+     * are written back, but for the {@link CookieSchema#isAlwaysRefresh() always refreshed} pojos, whose received
+     * cookies are sent back as they are. {@link CookieSchema#isSessionScoped() Session scoped} pojos, shared by the
+     * concurrent requests of their session, are only decoded once per session. The cookies of the pojos whose paths do
+     * not apply to the request URI are not sent by the browser, hence not read: these pojos are only written if changed
+     * within the request.
+     *
+     * @param request
+     * @param cookieObjects the cookie pojos of the request
+     * @return
+     */
+    @Nonnull
+    public CookieExchange begin(@Nonnull final HttpServletRequest request, @Nonnull final Iterable<?> cookieObjects) {
+        final CookieExchange exchange = new CookieExchange(this, request, true);
+        final CookiePathIndex index = getPathIndex();
+        final Set<Class<?>> applicable = index.match(request.getRequestURI());
+        for (Object cookieObject : cookieObjects) {
+            final Class<?> cookieClass = CookieSchema.of(cookieObject.getClass()).getCookieClass();
+            exchange.add(cookieObject, applicable.contains(cookieClass) || !index.isIndexed(cookieClass));
+        }
+        request.setAttribute(CookieExchange.ATTRIBUTE, exchange);
+        exchange.receive();
+        return exchange;
+    }
+
+    /**
+     * Warms up the engine for the cookie classes ahead of the first requests: the header parser is built for their
+     * cookie names, and the cookies of a default instance of each class are encoded and decoded the specified number
+     * of times. Classes without a default constructor are only registered with the header parser.
+     *
+     * Neither the metrics nor the decode cache record the warm-up.
+     *
+     * @param schemas
+     * @param iterations
+     * @throws IllegalArgumentException if a default instance of a cookie class cannot be encoded, or decoded
+     */
+    public void warmUp(@Nonnull final Collection<CookieSchema> schemas, final int iterations) {
+        final Set<String> names = new HashSet<>();
+        for (CookieSchema schema : schemas) {
+            names.addAll(schema.getCookieNames());
+            names.addAll(schema.getChunkNames());
+        }
+        getHeaderParser(names);
+        for (CookieSchema schema : schemas) {
+            final Object cookieObject;
+            try {
+                cookieObject = schema.getCookieClass().getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException ex) {
+                LOG.log(Level.FINE, "Cookie class has no accessible default constructor: {0}",
+                        schema.getCookieClass());
+                continue;
+            }
+            for (int i = 0; i < iterations; i++) {
+                if (schema.isEncoded()) {
+                    EncodedCookieFormat.decode(schema, cookieObject, EncodedCookieFormat.encode(schema, cookieObject));
+                } else {
+                    for (CookieFieldSchema field : schema.getFields()) {
+                        setText(schema, field, getText(schema, field, cookieObject), cookieObject);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Prepares a new http session for its session scoped cookie pojos, ahead of its concurrent requests.
+     *
+     * @param session
+     */
+    public void sessionCreated(@Nonnull final HttpSession session) {
+        CookieSessionState.create(session);
+    }
+
+    @Nonnull
+    CookieOffload getOffload() {
+        return offload;
+    }
+
+    @Nonnull
+    CookieProtection getProtection() {
+        return protection;
+    }
+
+    /**
+     * Returns the path index of the indexed cookies.
+     */
+    @Nonnull
+    CookiePathIndex getPathIndex() {
+        CookiePathIndex index = pathIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = pathIndex;
+                if (index == null) {
+                    index = new CookiePathIndex(CookieSchemas.getIndexed(
+                            Thread.currentThread().getContextClassLoader()));
+                    pathIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns a parser of at least the specified cookie names, and the names and chunk names of all the indexed
+     * cookies.
+     */
+    @Nonnull
+    CookieHeaderParser getHeaderParser(@Nonnull final Set<String> names) {
+        CookieHeaderParser parser = headerParser;
+        if (parser == null || !headerParserNames.containsAll(names)) {
+            synchronized (this) {
+                parser = headerParser;
+                if (parser == null || !headerParserNames.containsAll(names)) {
+                    final Set<String> parserNames = new HashSet<>(headerParserNames);
+                    for (CookieSchema schema : CookieSchemas.getIndexed(
+                            Thread.currentThread().getContextClassLoader())) {
+                        parserNames.addAll(schema.getCookieNames());
+                        parserNames.addAll(schema.getChunkNames());
+                    }
+                    parserNames.addAll(names);
+                    parser = new CookieHeaderParser(parserNames);
+                    headerParserNames = ImmutableSet.copyOf(parserNames);
+                    headerParser = parser;
+                }
+            }
+        }
+        return parser;
+    }
+
+    /**
+     * Decodes the received value of the cookie into the cookie pojo. Malformed values are logged and ignored, in which
+     * case the pojo retains its values.
+     */
+    void decode(@Nonnull final CookieValue cookieValue, @Nonnull final Object cookieObject) {
+        final CookieSchema schema = cookieValue.schema;
+        final long start = System.nanoTime();
+        try {
+            if (schema.isEncoded()) {
+                String value = schema.isStored() ? offload.load(cookieValue) : cookieValue.receivedValue;
+                if (value == null) {
+                    //expired, evicted or replaced, the pojo retains its values.
+                    LOG.log(Level.FINE, "Stored cookie not found: {0}", cookieValue.name);
+                    CookieMetrics.getInstance().storeMiss();
+                    return;
+                }
+                if (schema.getProtection() != Protection.NONE) {
+                    value = protection.load(cookieValue, value);
+                }
+                final DecodedCookieCache decodeCache = configuration.getDecodeCache();
+                if (decodeCache != null) {
+                    decodeCache.decode(schema, cookieObject, value);
+                } else {
+                    EncodedCookieFormat.decode(schema, cookieObject, value);
+                }
+            } else {
+                setText(schema, cookieValue.field, cookieValue.receivedValue, cookieObject);
+            }
+            CookieMetrics.getInstance().decoded(schema.getCookieClass(), 1, System.nanoTime() - start);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            //malformed or tampered cookies must not fail the request, the pojo retains its values.
+            LOG.log(Level.FINE, "Unable to decode cookie: " + cookieValue.name, ex);
+            CookieMetrics.getInstance().decodeFailed(schema.getCookieClass(), ex);
+        }
+    }
+
+    @Nonnull
+    String getText(final CookieSchema schema, final CookieFieldSchema field, final Object cookieObject) {
+        final CookieCodec<Object> codec = schema.getCodec();
+        if (codec != null) {
+            return codec.getValue(cookieObject, field.getIndex());
+        }
+        return field.getText(cookieObject);
+    }
+
+    private void setText(final CookieSchema schema, final CookieFieldSchema field, final String value,
+                         final Object cookieObject) {
+        final CookieCodec<Object> codec = schema.getCodec();
+        if (codec != null) {
+            codec.setValue(cookieObject, field.getIndex(), value);
+        } else {
+            field.setText(cookieObject, value);
+        }
+    }
+
+    /**
+     * Writes the cookie charged to the budget, split into chunks if the encoded value is over the cookie limit, and
+     * expires the chunks received with the request which are no longer written. The expired chunks are not charged.
+     *
+     * @param receivedChunks the number of chunks held by the browser
+     * @return the length of the {@code Set-Cookie} headers written, 0 if the cookie was not written
+     */
+    int write(@Nonnull final HttpServletResponse response, @Nonnull final CookieBudget budget,
+              @Nonnull final String name, @Nonnull final String value, @Nonnull final CookieSchema schema,
+              @Nullable final CookieFieldSchema field, final int receivedChunks) {
+        int bytes = 0;
+        int chunks = 0;
+        if (budget.isChunked(name, value, schema)) {
+            final String[] charged = budget.chargeChunks(schema, value);
+            if (charged == null) {
+                return 0;
+            }
+            bytes += writeCookie(response, name, charged[0], schema, null);
+            for (int i = 1; i < charged.length; i++) {
+                bytes += writeCookie(response, schema.getChunkNames().get(i - 1), charged[i], schema, null);
+            }
+            chunks = charged.length - 1;
+        } else {
+            final String charged = budget.charge(name, value, schema, field);
+            if (charged == null) {
+                return 0;
+            }
+            bytes += writeCookie(response, name, charged, schema, field);
+        }
+        for (int i = chunks; i < receivedChunks; i++) {
+            bytes += SetCookieHeaderWriter.write(response, schema.getChunkNames().get(i), "",
+                                                 schema.getExpiryHeaderAttributes());
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the {@code Set-Cookie} header of the cookie, returning its length.
+     */
+    int writeCookie(@Nonnull final HttpServletResponse response, @Nonnull final String name,
+                    @Nonnull final String value, @Nonnull final CookieSchema schema, final CookieFieldSchema field) {
+        final String attributes = field != null ? field.getHeaderAttributes() : schema.getHeaderAttributes();
+        CookieMetrics.getInstance().cookieWritten(schema.getCookieClass(), name.length() + 1 + value.length());
+        if (SetCookieHeaderWriter.isValidValue(value)) {
+            return SetCookieHeaderWriter.write(response, name, value, attributes);
+        }
+        //values which need quoting or escaping are left to the container, which cannot write SameSite.
+        final javax.servlet.http.Cookie httpCookie = toHttpCookie(name, value, schema, field);
+        response.addCookie(httpCookie);
+        return getHeaderLength(httpCookie);
+    }
+
+    @Nonnull
+    private static javax.servlet.http.Cookie toHttpCookie(final String name, final String value,
+                                                          final CookieSchema schema, final CookieFieldSchema field) {
+        final javax.servlet.http.Cookie httpCookie = new javax.servlet.http.Cookie(name, value);
+        if (field != null) {
+            if (field.getDomain() != null) {
+                httpCookie.setDomain(field.getDomain());
+            }
+            httpCookie.setHttpOnly(field.isHttpOnly());
+            httpCookie.setMaxAge(field.getMaxAge());
+            httpCookie.setPath(Strings.emptyToNull(field.getPath()));
+            httpCookie.setSecure(field.isSecure());
+        } else {
+            if (!Strings.isNullOrEmpty(schema.getDomain())) {
+                httpCookie.setDomain(schema.getDomain());
+            }
+            httpCookie.setHttpOnly(schema.isHttpOnly());
+            httpCookie.setMaxAge(schema.getMaxAge());
+            httpCookie.setPath(Strings.emptyToNull(schema.getPath()));
+            httpCookie.setSecure(schema.isSecure());
+        }
+        return httpCookie;
+    }
+
+    /**
+     * The approximate length of the {@code Set-Cookie} header the container writes for the cookie.
+     */
+    private static int getHeaderLength(final javax.servlet.http.Cookie cookie) {
+        int length = cookie.getName().length() + 1 + cookie.getValue().length();
+        if (cookie.getDomain() != null) {
+            length += "; Domain=".length() + cookie.getDomain().length();
+        }
+        if (cookie.getPath() != null) {
+            length += "; Path=".length() + cookie.getPath().length();
+        }
+        if (cookie.getMaxAge() >= 0) {
+            length += "; Max-Age=".length() + String.valueOf(cookie.getMaxAge()).length();
+        }
+        if (cookie.getSecure()) {
+            length += "; Secure".length();
+        }
+        if (cookie.isHttpOnly()) {
+            length += "; HttpOnly".length();
+        }
+        return length;
+    }
+
+}
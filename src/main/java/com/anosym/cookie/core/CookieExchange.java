@@ -0,0 +1,456 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.annotation.Protection;
+import com.anosym.cookie.codec.EncodedCookieFormat;
+import com.anosym.cookie.http.CookieHeaderParser;
+import com.anosym.cookie.metrics.CookieMetrics;
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The cookie pojos of a single request, from the request cookies to the response.
+ *
+ * An exchange is attached to its request, as a request attribute, from {@link CookieEngine#begin(HttpServletRequest,
+ * Iterable) }, and is discarded with the request. Only the cookies whose values changed within the request are written
+ * back, by {@link #end(HttpServletResponse) }. The pojos accessed after that are checked when the request is destroyed,
+ * by {@link #checkUnchanged() }, their changes being lost.
+ *
+ * The pojos of a request are its CDI beans, tracked through their client proxies, whose own fields are never set. The
+ * instance behind a proxy is only known once the pojo is accessed, through the decoding interceptor, which passes it
+ * to {@link #decode(Object) }: the pojo is then decoded, and only the pojos accessed within the request are encoded.
+ * The received cookies of {@link CookieSchema#isAlwaysRefresh() always refreshed} pojos never accessed are sent back
+ * as they were received, their maximum age, and the time to live of their stored value, sliding all the same. The
+ * cookies of the pojos whose paths do not apply to the request URI are not sent by the browser: these pojos are only
+ * written if changed since their first access.
+ *
+ * An exchange is confined to the thread of its request, and works on its own received and encoded values, the schemas
+ * being immutable. The pojos of {@link CookieSchema#isSessionScoped() session scoped} cookies are however shared by the
+ * concurrent requests of their session: they are only decoded from the cookies of the first request of the session,
+ * as described by {@link CookieSessionState}.
+ *
+ * @author mochieng
+ */
+public final class CookieExchange {
+
+    private static final Logger LOG = Logger.getLogger(CookieExchange.class.getName());
+
+    static final String ATTRIBUTE = CookieExchange.class.getName();
+
+    private final CookieEngine engine;
+    private final HttpServletRequest request;
+    //If the pojos are the beans of the request, decoded on first access, whose session scoped pojos are shared within
+    //the session.
+    private final boolean beans;
+    //by http cookie name.
+    private final Map<String, CookieValue> cookies = new LinkedHashMap<>();
+    //the cookie pojos, and their schemas. The beans accessed within the request are replaced by their instance.
+    private final Map<Object, CookieSchema> cookieObjects = new LinkedHashMap<>();
+    //The instances of the beans accessed within the request.
+    private final Set<Object> accessed = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    //The received cookies not yet decoded, deferred until their pojo is first accessed if the pojos are beans.
+    private final Map<CookieSchema, List<CookieValue>> pendingDecodes = new HashMap<>();
+    //The schemas of the pojos whose cookies the browser does not send, and their texts as of their first access, null
+    //until then.
+    private Map<CookieSchema, List<String>> unsent;
+    //The received encoded cookies holding the header of chunks, reassembled once all the cookies are received.
+    private List<CookieValue> chunked;
+    //Set once the cookies are written, possibly from the thread of an asynchronous request.
+    private volatile boolean ended;
+    //The texts of the pojos accessed after the cookies were written, as of their first access, by schema.
+    private Map<CookieSchema, List<String>> lateAccesses;
+
+    CookieExchange(@Nonnull final CookieEngine engine, @Nonnull final HttpServletRequest request, final boolean beans) {
+        this.engine = engine;
+        this.request = request;
+        this.beans = beans;
+    }
+
+    /**
+     * The exchange attached to the request, or null if none was begun, or it has already ended.
+     *
+     * @param request
+     * @return
+     */
+    @Nullable
+    public static CookieExchange current(@Nonnull final HttpServletRequest request) {
+        final CookieExchange exchange = attached(request);
+        return exchange != null && !exchange.ended ? exchange : null;
+    }
+
+    /**
+     * The exchange attached to the request, whether or not it has ended, or null if none was begun.
+     *
+     * @param request
+     * @return
+     */
+    @Nullable
+    public static CookieExchange attached(@Nonnull final HttpServletRequest request) {
+        return (CookieExchange) request.getAttribute(ATTRIBUTE);
+    }
+
+    /**
+     * If the cookies of the tracked pojos were already written.
+     *
+     * @return
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    void add(@Nonnull final Object cookieObject) {
+        add(cookieObject, true);
+    }
+
+    /**
+     * @param sent if the browser sends the cookies of the pojo with the request, that is their paths apply to its URI
+     */
+    void add(@Nonnull final Object cookieObject, final boolean sent) {
+        final CookieSchema schema = CookieSchema.of(cookieObject.getClass());
+        cookieObjects.put(cookieObject, schema);
+        if (!sent) {
+            if (unsent == null) {
+                unsent = new HashMap<>();
+            }
+            unsent.put(schema, null);
+        }
+        if (schema.isEncoded()) {
+            add(new CookieValue(schema.getName(), schema, null, cookieObject));
+        } else {
+            for (CookieFieldSchema field : schema.getFields()) {
+                add(new CookieValue(field.getCookieName(), schema, field, cookieObject));
+            }
+        }
+    }
+
+    private void add(@Nonnull final CookieValue cookieValue) {
+        cookies.put(cookieValue.name, cookieValue);
+    }
+
+    /**
+     * Captures the request cookies of the tracked pojos, decoding them unless the pojos are beans.
+     */
+    void receive() {
+        if (engine.getConfiguration().isRawHeaderParsing()) {
+            final CookieHeaderParser parser = engine.getHeaderParser(cookies.keySet());
+            parser.parse(request.getHeaders(CookieHeaderParser.COOKIE_HEADER), new CookieHeaderParser.Handler() {
+
+                @Override
+                public void cookie(String name, String value) {
+                    receive(name, value);
+                }
+            });
+        } else {
+            final javax.servlet.http.Cookie[] requestCookies = request.getCookies();
+            if (requestCookies != null) {
+                for (javax.servlet.http.Cookie cookie : requestCookies) {
+                    receive(cookie.getName(), cookie.getValue());
+                }
+            }
+        }
+        if (chunked != null) {
+            for (CookieValue cookieValue : chunked) {
+                assemble(cookieValue);
+            }
+        }
+        if (!beans && !pendingDecodes.isEmpty()) {
+            for (Map.Entry<Object, CookieSchema> entry : cookieObjects.entrySet()) {
+                decode(entry.getValue(), entry.getKey());
+            }
+        }
+    }
+
+    private void receive(final String name, final String value) {
+        final CookieValue cookieValue = cookies.get(name);
+        if (cookieValue != null) {
+            if (isUnsent(cookieValue.schema)) {
+                //a cookie of the same name, but of another path.
+                return;
+            }
+            cookieValue.receivedValue = value;
+            List<CookieValue> pending = pendingDecodes.get(cookieValue.schema);
+            if (pending == null) {
+                pending = new ArrayList<>();
+                pendingDecodes.put(cookieValue.schema, pending);
+            }
+            pending.add(cookieValue);
+            if (cookieValue.field == null && CookieChunks.isHeader(value)) {
+                if (chunked == null) {
+                    chunked = new ArrayList<>();
+                }
+                chunked.add(cookieValue);
+            }
+        } else {
+            receiveChunk(name, value);
+        }
+    }
+
+    private void receiveChunk(final String name, final String value) {
+        final int index = CookieChunks.getIndex(name);
+        if (index < 0) {
+            return;
+        }
+        final CookieValue cookieValue = cookies.get(name.substring(0, name.length() - 2));
+        if (cookieValue != null && cookieValue.field == null && !isUnsent(cookieValue.schema)) {
+            if (cookieValue.receivedChunks == null) {
+                cookieValue.receivedChunks = new String[CookieSchema.MAX_CHUNKS];
+            }
+            cookieValue.receivedChunks[index] = value;
+        }
+    }
+
+    /**
+     * Replaces the received header of chunks with the value of the chunks. Chunks which cannot be reassembled are
+     * dropped, as a malformed cookie, in which case the pojo retains its values.
+     */
+    private void assemble(final CookieValue cookieValue) {
+        try {
+            cookieValue.receivedValue = CookieChunks.assemble(cookieValue.receivedValue, cookieValue.receivedChunks);
+        } catch (IllegalArgumentException ex) {
+            LOG.log(Level.FINE, "Unable to reassemble the chunks of cookie: " + cookieValue.name, ex);
+            CookieMetrics.getInstance().decodeFailed(cookieValue.schema.getCookieClass(), ex);
+            cookieValue.receivedValue = null;
+            final List<CookieValue> pending = pendingDecodes.get(cookieValue.schema);
+            pending.remove(cookieValue);
+            if (pending.isEmpty()) {
+                pendingDecodes.remove(cookieValue.schema);
+            }
+        }
+    }
+
+    /**
+     * Records the access to the cookie pojo, which is then encoded at the end of the request, and decodes its received
+     * cookies on its first access. Once the exchange has ended, also records the text of the pojo at its first access,
+     * for {@link #checkUnchanged() }.
+     *
+     * @param cookieObject the pojo instance, which may be the target instance of the tracked (proxy) instance
+     */
+    public void decode(@Nonnull final Object cookieObject) {
+        final boolean first = accessed.add(cookieObject);
+        if (!first && pendingDecodes.isEmpty() && !ended) {
+            return;
+        }
+        final CookieSchema schema = CookieSchema.of(cookieObject.getClass());
+        if (first) {
+            final Object tracked = getCookieObject(schema);
+            if (tracked != null && tracked != cookieObject) {
+                cookieObjects.remove(tracked);
+                cookieObjects.put(cookieObject, schema);
+            }
+            if (isUnsent(schema)) {
+                unsent.put(schema, getTexts(schema, cookieObject));
+            }
+        }
+        decode(schema, cookieObject);
+        if (ended) {
+            accessedAfterEnd(schema);
+        }
+    }
+
+    private void accessedAfterEnd(final CookieSchema schema) {
+        if (lateAccesses == null) {
+            lateAccesses = new HashMap<>();
+        } else if (lateAccesses.containsKey(schema)) {
+            return;
+        }
+        //recorded before reading the texts, since reading them may access the pojo again.
+        lateAccesses.put(schema, null);
+        final Object obj = getCookieObject(schema);
+        if (obj != null) {
+            lateAccesses.put(schema, getTexts(schema, obj));
+        }
+    }
+
+    /**
+     * Logs a warning for each tracked pojo changed after its cookies were written, its changes being lost. Only the
+     * pojos accessed after {@link #end(HttpServletResponse) } are checked.
+     */
+    public void checkUnchanged() {
+        if (lateAccesses == null) {
+            return;
+        }
+        for (Map.Entry<CookieSchema, List<String>> entry : lateAccesses.entrySet()) {
+            final Object obj = getCookieObject(entry.getKey());
+            if (entry.getValue() != null && !entry.getValue().equals(getTexts(entry.getKey(), obj))) {
+                LOG.log(Level.WARNING, "Cookie pojo {0} changed after its cookies were written, changes lost for: {1}",
+                        new Object[]{entry.getKey().getCookieClass().getName(), request.getRequestURI()});
+            }
+        }
+    }
+
+    private boolean isUnsent(final CookieSchema schema) {
+        return unsent != null && unsent.containsKey(schema);
+    }
+
+    @Nullable
+    private Object getCookieObject(final CookieSchema schema) {
+        for (Map.Entry<Object, CookieSchema> entry : cookieObjects.entrySet()) {
+            if (entry.getValue() == schema) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private List<String> getTexts(final CookieSchema schema, final Object obj) {
+        final List<String> texts = new ArrayList<>();
+        if (schema.isEncoded()) {
+            texts.add(EncodedCookieFormat.encode(schema, obj));
+        } else {
+            for (CookieFieldSchema field : schema.getFields()) {
+                texts.add(engine.getText(schema, field, obj));
+            }
+        }
+        return texts;
+    }
+
+    private void decode(final CookieSchema schema, final Object cookieObject) {
+        //removed before decoding, since decoding may access the pojo again.
+        final List<CookieValue> pending = pendingDecodes.remove(schema);
+        if (pending == null) {
+            return;
+        }
+        final CookieSessionState sessionState = getSessionState(schema);
+        if (sessionState != null && sessionState.seed(schema) == CookieSessionState.Seeding.SEEDED) {
+            return;
+        }
+        boolean decoded = false;
+        try {
+            for (CookieValue cookieValue : pending) {
+                engine.decode(cookieValue, cookieObject);
+            }
+            decoded = true;
+        } finally {
+            if (sessionState != null) {
+                if (decoded) {
+                    sessionState.seeded(schema);
+                } else {
+                    sessionState.release(schema);
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private CookieSessionState getSessionState(final CookieSchema schema) {
+        return beans && schema.isSessionScoped() ? CookieSessionState.of(request) : null;
+    }
+
+    /**
+     * Writes the changed cookies of the tracked pojos to the response, and ends this exchange. Does nothing if the
+     * exchange has already ended. Cookies over the size limits are handled by the
+     * {@link com.anosym.cookie.CookieConfiguration#COOKIE_OVERFLOW overflow policy}, and the chunks received with the
+     * request which are no longer needed are expired.
+     *
+     * @param response must not be committed
+     */
+    public void end(@Nonnull final HttpServletResponse response) {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        if (response.isCommitted()) {
+            LOG.log(Level.WARNING, "Response already committed, cookies not written for: {0}", request.getRequestURI());
+            return;
+        }
+        encode();
+        final CookieBudget budget = new CookieBudget(engine.getConfiguration());
+        int bytes = 0;
+        int emitted = 0;
+        int skipped = 0;
+        for (CookieValue cv : cookies.values()) {
+            final int written = cv.value != null && cv.isModified()
+                    ? engine.write(response, budget, cv.name, cv.value, cv.schema, cv.field,
+                                   CookieChunks.getReceivedCount(cv.receivedChunks)) : 0;
+            if (written > 0) {
+                bytes += written;
+                emitted++;
+            } else {
+                //pending decode or unchanged, hence not written, or over the size limits.
+                skipped++;
+            }
+        }
+        CookieMetrics.getInstance().responseWritten(bytes, emitted, skipped);
+    }
+
+    /**
+     * Sends the received cookies of an always refreshed pojo, never accessed within the request, back as they were
+     * received, such that their maximum age slides all the same. Stored values are refreshed under their token.
+     */
+    private void refresh(final CookieSchema schema) {
+        if (schema.isEncoded()) {
+            refresh(cookies.get(schema.getName()));
+        } else {
+            for (CookieFieldSchema field : schema.getFields()) {
+                refresh(cookies.get(field.getCookieName()));
+            }
+        }
+    }
+
+    private void refresh(final CookieValue cookieValue) {
+        if (cookieValue.receivedValue == null) {
+            //not received, or its chunks could not be reassembled.
+            return;
+        }
+        if (cookieValue.schema.isStored()) {
+            final String payload = engine.getOffload().load(cookieValue);
+            cookieValue.value = payload != null ? engine.getOffload().store(cookieValue, payload) : null;
+        } else {
+            cookieValue.value = cookieValue.receivedValue;
+        }
+    }
+
+    private void encode() {
+        for (Map.Entry<Object, CookieSchema> entry : cookieObjects.entrySet()) {
+            final CookieSchema schema = entry.getValue();
+            final Object obj = entry.getKey();
+            if (pendingDecodes.containsKey(schema) || (beans && !accessed.contains(obj))) {
+                //never accessed within this request, hence unchanged.
+                if (schema.isAlwaysRefresh()) {
+                    refresh(schema);
+                }
+                continue;
+            }
+            if (isUnsent(schema) && getTexts(schema, obj).equals(unsent.get(schema))) {
+                //unchanged, its cookies held by the browser being unknown.
+                continue;
+            }
+            final CookieSessionState sessionState = getSessionState(schema);
+            final long start = System.nanoTime();
+            if (schema.isEncoded()) {
+                //the pojos of a session outlive the request, hence only their changed fields are encoded again.
+                String value = sessionState != null
+                        ? sessionState.getEncodedSegments(schema).encode(obj) : EncodedCookieFormat.encode(schema, obj);
+                final CookieValue cookieValue = cookies.get(schema.getName());
+                if (schema.getProtection() != Protection.NONE) {
+                    final String received = schema.isStored()
+                            ? engine.getOffload().load(cookieValue) : cookieValue.receivedValue;
+                    value = engine.getProtection().protect(cookieValue, received, value);
+                }
+                cookieValue.value = schema.isStored() ? engine.getOffload().store(cookieValue, value) : value;
+            } else {
+                for (CookieFieldSchema field : schema.getFields()) {
+                    cookies.get(field.getCookieName()).value = engine.getText(schema, field, obj);
+                }
+            }
+            if (sessionState != null) {
+                sessionState.written(schema);
+            }
+            CookieMetrics.getInstance().encoded(schema.getCookieClass(), System.nanoTime() - start);
+        }
+    }
+
+}
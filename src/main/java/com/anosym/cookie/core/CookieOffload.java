@@ -0,0 +1,146 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.CookieConfiguration;
+import com.anosym.cookie.schema.CookieSchema;
+import com.google.common.io.BaseEncoding;
+import java.security.SecureRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Swaps the encoded values of {@link CookieSchema#isStored() stored} cookies for the tokens sent to the browser.
+ *
+ * A token is {@code ~} followed by 128 random bits in unpadded base64url, 23 characters which cannot be mistaken for
+ * an encoded value. Received values which are not tokens, written before the cookie was stored, are decoded as they
+ * are.
+ *
+ * The values read are touched, extending their time to live from the last request reading them, rather than from the
+ * request storing them: the browser keeps sending a session cookie, or a cookie whose maximum age is refreshed, for
+ * as long as it is active. A changed value is put under a new token, and the token received with the request removed:
+ * concurrent requests still sending the removed token find no value, and their pojo retains its defaults. Values the
+ * store refuses, or fails to take, are sent to the browser as they are.
+ *
+ * @author mochieng
+ */
+final class CookieOffload {
+
+    private static final Logger LOG = Logger.getLogger(CookieOffload.class.getName());
+
+    private static final char TOKEN_PREFIX = '~';
+    private static final int TOKEN_BYTES = 16;
+    private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final CookieConfiguration configuration;
+
+    CookieOffload(@Nonnull final CookieConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * The encoded value of the received stored cookie, loaded from the store if a token was received, in which case the
+     * time to live of the token is extended.
+     *
+     * @return null if the token is not found in the store
+     */
+    @Nullable
+    String load(@Nonnull final CookieValue cookieValue) {
+        if (!cookieValue.payloadLoaded) {
+            final String receivedValue = cookieValue.receivedValue;
+            cookieValue.receivedPayload = isToken(receivedValue) ? get(receivedValue) : receivedValue;
+            cookieValue.payloadLoaded = true;
+            if (isToken(receivedValue) && cookieValue.receivedPayload != null) {
+                touch(receivedValue, cookieValue.receivedPayload, cookieValue.schema);
+            }
+        }
+        return cookieValue.receivedPayload;
+    }
+
+    /**
+     * The value to send to the browser for the encoded value of the stored cookie: the received token if the value did
+     * not change, otherwise a new token.
+     */
+    @Nonnull
+    String store(@Nonnull final CookieValue cookieValue, @Nonnull final String payload) {
+        final CookieSchema schema = cookieValue.schema;
+        final String receivedValue = cookieValue.receivedValue;
+        if (isToken(receivedValue) && payload.equals(load(cookieValue))) {
+            //touched when loaded, but an unchanged value sent again with its full maximum age is stored for as long.
+            if (!schema.isAlwaysRefresh() || put(receivedValue, payload, schema)) {
+                return receivedValue;
+            }
+            return payload;
+        }
+        final String token = newToken();
+        if (!put(token, payload, schema)) {
+            return payload;
+        }
+        if (isToken(receivedValue)) {
+            remove(receivedValue);
+        }
+        return token;
+    }
+
+    /**
+     * The value to send to the browser for the encoded value of the stored cookie, a new token unless the value cannot
+     * be stored.
+     */
+    @Nonnull
+    String store(@Nonnull final CookieSchema schema, @Nonnull final String payload) {
+        final String token = newToken();
+        return put(token, payload, schema) ? token : payload;
+    }
+
+    private static boolean isToken(@Nullable final String value) {
+        return value != null && !value.isEmpty() && value.charAt(0) == TOKEN_PREFIX;
+    }
+
+    @Nonnull
+    private static String newToken() {
+        final byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        return TOKEN_PREFIX + ENCODING.encode(bytes);
+    }
+
+    private int getTtl(final CookieSchema schema) {
+        return schema.getMaxAge() > 0 ? schema.getMaxAge() : configuration.getStoreSessionTtl();
+    }
+
+    @Nullable
+    private String get(final String token) {
+        try {
+            return configuration.getStore().get(token);
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Unable to read from the cookie store", ex);
+            return null;
+        }
+    }
+
+    private boolean put(final String token, final String payload, final CookieSchema schema) {
+        try {
+            return configuration.getStore().put(token, payload, getTtl(schema));
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Unable to write to the cookie store", ex);
+            return false;
+        }
+    }
+
+    private void touch(final String token, final String payload, final CookieSchema schema) {
+        try {
+            configuration.getStore().touch(token, payload, getTtl(schema));
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Unable to touch a value of the cookie store", ex);
+        }
+    }
+
+    private void remove(final String token) {
+        try {
+            configuration.getStore().remove(token);
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Unable to remove from the cookie store", ex);
+        }
+    }
+
+}
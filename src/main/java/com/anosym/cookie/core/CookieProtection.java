@@ -0,0 +1,136 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.CookieConfiguration;
+import com.anosym.cookie.annotation.Protection;
+import com.anosym.cookie.schema.CookieSchema;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Signs or encrypts the encoded values of {@link CookieSchema#getProtection() protected} cookies with the
+ * {@link com.anosym.cookie.security.CookieKeyRing} of the web application, and verifies or decrypts the received
+ * values.
+ *
+ * Received values already verified are kept in a bounded cache, by cookie class, such that the same value sent on
+ * consecutive requests is only verified once. An unchanged value is sent back as it was received: encrypted values,
+ * whose IVs are random, would otherwise change on every response.
+ *
+ * @author mochieng
+ */
+final class CookieProtection {
+
+    //The approximate fixed cost of an entry: the cache entry, its key, and the strings.
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final CookieConfiguration configuration;
+    //By cookie class and received value, null if verified values are not cached.
+    private final Cache<Key, String> verified;
+
+    CookieProtection(@Nonnull final CookieConfiguration configuration) {
+        this.configuration = configuration;
+        this.verified = configuration.getVerifiedCacheMaxBytes() > 0 ? CacheBuilder.newBuilder()
+                .maximumWeight(configuration.getVerifiedCacheMaxBytes())
+                .weigher(new Weigher<Key, String>() {
+
+                    @Override
+                    public int weigh(Key key, String value) {
+                        return ENTRY_OVERHEAD + 2 * (key.value.length() + value.length());
+                    }
+                })
+                .build() : null;
+    }
+
+    /**
+     * The encoded value of the received protected cookie, verified or decrypted.
+     *
+     * @param received the received value, or the value loaded from the store
+     * @throws IllegalArgumentException if the value is not protected with any of the keys, or has been tampered with
+     */
+    @Nonnull
+    String load(@Nonnull final CookieValue cookieValue, @Nonnull final String received) {
+        if (cookieValue.verifiedValue == null) {
+            cookieValue.verifiedValue = unprotect(cookieValue.schema, received);
+        }
+        return cookieValue.verifiedValue;
+    }
+
+    /**
+     * The protected value to send to the browser for the encoded value of the cookie: the received value if the
+     * encoded value did not change, otherwise the newly protected value.
+     *
+     * @param received the received value, or the value loaded from the store, null if none was received
+     */
+    @Nonnull
+    String protect(@Nonnull final CookieValue cookieValue, @Nullable final String received,
+                   @Nonnull final String value) {
+        if (received != null) {
+            try {
+                if (value.equals(load(cookieValue, received))) {
+                    return received;
+                }
+            } catch (IllegalArgumentException ex) {
+                //tampered with, hence replaced.
+            }
+        }
+        return protect(cookieValue.schema, value);
+    }
+
+    /**
+     * Signs or encrypts the encoded value of the cookie with the current key.
+     */
+    @Nonnull
+    String protect(@Nonnull final CookieSchema schema, @Nonnull final String value) {
+        if (schema.getProtection() == Protection.ENCRYPTED) {
+            return configuration.getKeyRing().encrypt(schema.getName(), value);
+        }
+        return configuration.getKeyRing().sign(schema.getName(), value);
+    }
+
+    @Nonnull
+    private String unprotect(final CookieSchema schema, final String received) {
+        final Key key = verified != null ? new Key(schema.getCookieClass(), received) : null;
+        if (key != null) {
+            final String value = verified.getIfPresent(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        final String value = schema.getProtection() == Protection.ENCRYPTED
+                ? configuration.getKeyRing().decrypt(schema.getName(), received)
+                : configuration.getKeyRing().verify(schema.getName(), received);
+        if (key != null) {
+            verified.put(key, value);
+        }
+        return value;
+    }
+
+    private static final class Key {
+
+        private final Class<?> cookieClass;
+        private final String value;
+
+        Key(Class<?> cookieClass, String value) {
+            this.cookieClass = cookieClass;
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * cookieClass.hashCode() + value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return cookieClass == other.cookieClass && value.equals(other.value);
+        }
+
+    }
+
+}
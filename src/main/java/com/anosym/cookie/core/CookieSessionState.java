@@ -0,0 +1,185 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.codec.EncodedSegments;
+import com.anosym.cookie.schema.CookieSchema;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Tracks which {@link CookieSchema#isSessionScoped() session scoped} cookie pojos of an http session have been seeded
+ * from the request cookies.
+ *
+ * A session scoped pojo is shared by all the concurrent requests of its session. It is decoded from the cookies of the
+ * first request which accesses it, and is thereafter the authoritative state of its cookies: the cookies received by
+ * later requests were written from the pojo by an earlier response (possibly one still in flight), hence are never
+ * decoded into it again, which would otherwise undo the changes of concurrent requests. Each request writes the cookies
+ * whose value, as encoded from the pojo at the end of the request, differs from the value it received, such that the
+ * browser converges on the state of the pojo, the last response to arrive winning.
+ *
+ * The state is kept in the http session, as a single attribute. Requests which access a pojo while another request of
+ * the session seeds it block until the seeding completes. Seedings in progress are not part of the serialized state:
+ * a session passivated or replicated meanwhile restores the pojo as not yet seeded.
+ *
+ * @author mochieng
+ */
+final class CookieSessionState implements Serializable {
+
+    private static final long serialVersionUID = -8324736482736483l;
+
+    private static final String ATTRIBUTE = CookieSessionState.class.getName();
+
+    enum Seeding {
+
+        /**
+         * The calling request must decode its cookies into the pojo, then call {@link #seeded(CookieSchema)}.
+         */
+        SEED,
+        /**
+         * The pojo is seeded, the received cookies must not be decoded into it.
+         */
+        SEEDED
+
+    }
+
+    //by cookie class name, always Boolean.TRUE.
+    private final ConcurrentMap<String, Boolean> seeded = new ConcurrentHashMap<>();
+    //The seedings in progress, by cookie class name, released once the seeding completes or fails.
+    private final transient ConcurrentMap<String, CountDownLatch> seeding = new ConcurrentHashMap<>();
+    //The encoded segments of the encoded pojos, by cookie class name. Not replicated with the session.
+    private transient volatile ConcurrentMap<String, EncodedSegments> encodedSegments;
+
+    /**
+     * Creates the state of the session, as the session is created.
+     */
+    static void create(@Nonnull final HttpSession session) {
+        session.setAttribute(ATTRIBUTE, new CookieSessionState());
+    }
+
+    /**
+     * The state of the session of the request, or null if the request has no session.
+     *
+     * Unless the state was created with the session, concurrent first requests of a session may each create their
+     * state, the last one set being retained, in which case their pojos may be seeded more than once.
+     */
+    @Nullable
+    static CookieSessionState of(@Nonnull final HttpServletRequest request) {
+        final HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        CookieSessionState state = (CookieSessionState) session.getAttribute(ATTRIBUTE);
+        if (state == null) {
+            state = new CookieSessionState();
+            session.setAttribute(ATTRIBUTE, state);
+        }
+        return state;
+    }
+
+    /**
+     * Claims the seeding of the pojo of the schema, waiting for any concurrent seeding to complete.
+     */
+    @Nonnull
+    Seeding seed(@Nonnull final CookieSchema schema) {
+        final String key = schema.getCookieClass().getName();
+        while (!seeded.containsKey(key)) {
+            final CountDownLatch claim = new CountDownLatch(1);
+            final CountDownLatch current = seeding.putIfAbsent(key, claim);
+            if (current == null) {
+                if (!seeded.containsKey(key)) {
+                    return Seeding.SEED;
+                }
+                //seeded by another request in between.
+                complete(key, claim);
+                break;
+            }
+            //released once seeded, or once the seeding request failed, in which case the pojo is claimed again.
+            Uninterruptibles.awaitUninterruptibly(current);
+        }
+        return Seeding.SEEDED;
+    }
+
+    /**
+     * Marks the claimed pojo of the schema as seeded.
+     */
+    void seeded(@Nonnull final CookieSchema schema) {
+        final String key = schema.getCookieClass().getName();
+        seeded.put(key, Boolean.TRUE);
+        complete(key, seeding.get(key));
+    }
+
+    /**
+     * Marks the pojo of the schema as seeded once its cookies are written, unless another request is seeding it.
+     */
+    void written(@Nonnull final CookieSchema schema) {
+        final String key = schema.getCookieClass().getName();
+        if (seeded.containsKey(key)) {
+            return;
+        }
+        final CountDownLatch claim = new CountDownLatch(1);
+        if (seeding.putIfAbsent(key, claim) == null) {
+            seeded.putIfAbsent(key, Boolean.TRUE);
+            complete(key, claim);
+        }
+    }
+
+    private void complete(final String key, @Nullable final CountDownLatch claim) {
+        if (claim != null) {
+            seeding.remove(key, claim);
+            claim.countDown();
+        }
+    }
+
+    /**
+     * The encoded segments of the encoded pojo of the schema, created on first access.
+     */
+    @Nonnull
+    EncodedSegments getEncodedSegments(@Nonnull final CookieSchema schema) {
+        ConcurrentMap<String, EncodedSegments> segmentsByClass = encodedSegments;
+        if (segmentsByClass == null) {
+            //racing requests may each create the map, losing the segments of the others once.
+            segmentsByClass = new ConcurrentHashMap<>();
+            encodedSegments = segmentsByClass;
+        }
+        final String key = schema.getCookieClass().getName();
+        EncodedSegments segments = segmentsByClass.get(key);
+        if (segments == null) {
+            segments = new EncodedSegments(schema);
+            final EncodedSegments existing = segmentsByClass.putIfAbsent(key, segments);
+            if (existing != null) {
+                segments = existing;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Releases the claimed seeding of the pojo of the schema, after the seeding failed.
+     */
+    void release(@Nonnull final CookieSchema schema) {
+        final String key = schema.getCookieClass().getName();
+        complete(key, seeding.get(key));
+    }
+
+    /**
+     * Restores the seeded pojos only, without the seedings in progress when the session was serialized, including
+     * the {@code Boolean.FALSE} markers of the seedings serialized by earlier releases.
+     */
+    private Object readResolve() {
+        final CookieSessionState state = new CookieSessionState();
+        for (Map.Entry<String, Boolean> entry : seeded.entrySet()) {
+            if (entry.getValue()) {
+                state.seeded.put(entry.getKey(), Boolean.TRUE);
+            }
+        }
+        return state;
+    }
+
+}
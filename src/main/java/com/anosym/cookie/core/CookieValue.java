@@ -0,0 +1,43 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+
+/**
+ * A single http cookie of a cookie pojo, within a request.
+ *
+ * @author mochieng
+ */
+final class CookieValue {
+
+    //The field cookie name, if this is not encoded, otherwise the simple class name.
+    final String name;
+    final CookieSchema schema;
+    //The field backing this cookie, null if the cookie is encoded.
+    final CookieFieldSchema field;
+    //The actual object
+    final Object cookieInstance;
+    //The raw value received with the request, null if the browser did not send this cookie.
+    String receivedValue;
+    //The chunks received with an encoded cookie by index, null if none was received.
+    String[] receivedChunks;
+    //The encoded value of a stored cookie, loaded from the cookie store if the received value is a token.
+    String receivedPayload;
+    boolean payloadLoaded;
+    //The encoded value of a protected cookie, verified or decrypted from the received value or payload.
+    String verifiedValue;
+    //The value encoded from the pojo at the end of the request.
+    String value;
+
+    CookieValue(String name, CookieSchema schema, CookieFieldSchema field, Object cookieInstance) {
+        this.name = name;
+        this.schema = schema;
+        this.field = field;
+        this.cookieInstance = cookieInstance;
+    }
+
+    boolean isModified() {
+        return schema.isAlwaysRefresh() || !value.equals(receivedValue);
+    }
+
+}
@@ -0,0 +1,265 @@
+package com.anosym.cookie.http;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import javax.annotation.Nonnull;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * A response which notifies its {@link Listener} once, just before the response is committed: before the content
+ * written to its output stream or writer may fill the response buffer, or reach the content length, before it is
+ * flushed or closed, and before {@link #flushBuffer() }, {@link #sendError(int) } and {@link #sendRedirect(String) }.
+ *
+ * Characters written to the writer are counted at the maximum number of bytes they may encode to, such that the
+ * listener is notified before the buffer of the wrapped response may overflow. Once notified the response detaches:
+ * the output stream and writer obtained afterwards are those of the wrapped response, and the ones obtained before only
+ * check a flag before delegating, so that large responses stream without further overhead.
+ *
+ * @author mochieng
+ */
+public final class CommitAwareResponse extends HttpServletResponseWrapper {
+
+    /**
+     * Notified before the response is first committed.
+     */
+    public interface Listener {
+
+        /**
+         * @param response the wrapped response, to which headers may still be added
+         */
+        void beforeCommit(@Nonnull HttpServletResponse response);
+
+    }
+
+    private final Listener listener;
+    //Asynchronous processing may write from another thread while the filter chain returns.
+    private volatile boolean notified;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+    //The bytes written to the buffer of the wrapped response since it was last reset, at most.
+    private long written;
+    //The content length set, -1 if none.
+    private long contentLength = -1;
+
+    public CommitAwareResponse(@Nonnull final HttpServletResponse response, @Nonnull final Listener listener) {
+        super(response);
+        this.listener = listener;
+    }
+
+    /**
+     * Notifies the listener, unless already notified.
+     */
+    public void beforeCommit() {
+        if (!notified) {
+            synchronized (this) {
+                if (!notified) {
+                    final HttpServletResponse response = (HttpServletResponse) getResponse();
+                    if (!response.isCommitted()) {
+                        listener.beforeCommit(response);
+                    }
+                    notified = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifies the listener if writing the bytes may commit the response.
+     */
+    private void beforeWrite(final long bytes) {
+        written += bytes;
+        if (written >= getBufferSize() || (contentLength >= 0 && written >= contentLength)) {
+            beforeCommit();
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (notified) {
+            return super.getOutputStream();
+        }
+        if (outputStream == null) {
+            outputStream = new CommitAwareOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (notified) {
+            return super.getWriter();
+        }
+        if (writer == null) {
+            final PrintWriter delegate = super.getWriter();
+            final int bytesPerChar = getBytesPerChar(getCharacterEncoding());
+            writer = new PrintWriter(new CommitAwareWriter(delegate, bytesPerChar)) {
+
+                @Override
+                public boolean checkError() {
+                    return super.checkError() || delegate.checkError();
+                }
+            };
+        }
+        return writer;
+    }
+
+    private static int getBytesPerChar(final String encoding) {
+        try {
+            return (int) Math.ceil(Charset.forName(encoding).newEncoder().maxBytesPerChar());
+        } catch (IllegalArgumentException | UnsupportedOperationException ex) {
+            //unknown to the JVM, as many bytes as any encoding.
+            return 4;
+        }
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        contentLength = len;
+        super.setContentLength(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        contentLength = len;
+        super.setContentLengthLong(len);
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        written = 0;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        written = 0;
+        contentLength = -1;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        beforeCommit();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        beforeCommit();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        beforeCommit();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        beforeCommit();
+        super.sendRedirect(location);
+    }
+
+    private final class CommitAwareOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        CommitAwareOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!notified) {
+                beforeWrite(1);
+            }
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!notified) {
+                beforeWrite(len);
+            }
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            beforeCommit();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            beforeCommit();
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+
+    }
+
+    private final class CommitAwareWriter extends Writer {
+
+        private final Writer delegate;
+        private final int bytesPerChar;
+
+        CommitAwareWriter(Writer delegate, int bytesPerChar) {
+            this.delegate = delegate;
+            this.bytesPerChar = bytesPerChar;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (!notified) {
+                beforeWrite(bytesPerChar);
+            }
+            delegate.write(c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (!notified) {
+                beforeWrite((long) len * bytesPerChar);
+            }
+            delegate.write(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            if (!notified) {
+                beforeWrite((long) len * bytesPerChar);
+            }
+            delegate.write(str, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            beforeCommit();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            beforeCommit();
+            delegate.close();
+        }
+
+    }
+
+}
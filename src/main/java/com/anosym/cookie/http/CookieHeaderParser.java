@@ -0,0 +1,139 @@
+package com.anosym.cookie.http;
+
+import java.util.Collection;
+import java.util.Enumeration;
+import javax.annotation.Nonnull;
+
+/**
+ * Scans raw {@code Cookie} request headers for a fixed set of cookie names.
+ *
+ * Unlike {@link javax.servlet.http.HttpServletRequest#getCookies() }, which materializes every request cookie, only the
+ * values of the registered cookies are extracted. The names of all other cookies are matched in place against a
+ * precomputed hash table, without allocating.
+ *
+ * Instances are immutable and may be shared.
+ *
+ * @author mochieng
+ */
+public final class CookieHeaderParser {
+
+    public static final String COOKIE_HEADER = "Cookie";
+
+    /**
+     * Receives the registered cookies found in the header.
+     */
+    public interface Handler {
+
+        /**
+         * @param name the registered name, as passed to {@link CookieHeaderParser#CookieHeaderParser(Collection) }
+         * @param value the raw cookie value, without any surrounding quotes
+         */
+        void cookie(@Nonnull String name, @Nonnull String value);
+
+    }
+
+    //Open addressing table of the registered names, by the hash of their characters.
+    private final String[] table;
+    private final int mask;
+
+    public CookieHeaderParser(@Nonnull final Collection<String> names) {
+        int capacity = 4;
+        while (capacity < names.size() * 2) {
+            capacity <<= 1;
+        }
+        this.table = new String[capacity];
+        this.mask = capacity - 1;
+        for (String name : names) {
+            int slot = name.hashCode() & mask;
+            while (table[slot] != null && !table[slot].equals(name)) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = name;
+        }
+    }
+
+    /**
+     * Parses all the {@code Cookie} headers of the request.
+     *
+     * @param headers
+     * @param handler
+     */
+    public void parse(@Nonnull final Enumeration<String> headers, @Nonnull final Handler handler) {
+        while (headers.hasMoreElements()) {
+            parse(headers.nextElement(), handler);
+        }
+    }
+
+    /**
+     * Parses a single {@code Cookie} header value, of the form {@code name1=value1; name2=value2}.
+     *
+     * @param header
+     * @param handler
+     */
+    public void parse(@Nonnull final String header, @Nonnull final Handler handler) {
+        final int length = header.length();
+        int i = 0;
+        while (i < length) {
+            //skip separators and leading whitespace.
+            char c = header.charAt(i);
+            if (c == ';' || c == ' ' || c == '\t' || c == ',') {
+                i++;
+                continue;
+            }
+            final int nameStart = i;
+            while (i < length && (c = header.charAt(i)) != '=' && c != ';') {
+                i++;
+            }
+            int nameEnd = i;
+            while (nameEnd > nameStart && isWhitespace(header.charAt(nameEnd - 1))) {
+                nameEnd--;
+            }
+            if (i == length || c != '=') {
+                //a cookie without a value.
+                continue;
+            }
+            int valueStart = ++i;
+            while (i < length && header.charAt(i) != ';') {
+                i++;
+            }
+            final String name = lookup(header, nameStart, nameEnd);
+            if (name == null) {
+                continue;
+            }
+            int valueEnd = i;
+            while (valueStart < valueEnd && isWhitespace(header.charAt(valueStart))) {
+                valueStart++;
+            }
+            while (valueEnd > valueStart && isWhitespace(header.charAt(valueEnd - 1))) {
+                valueEnd--;
+            }
+            if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"' && header.charAt(valueEnd - 1) == '"') {
+                valueStart++;
+                valueEnd--;
+            }
+            handler.cookie(name, header.substring(valueStart, valueEnd));
+        }
+    }
+
+    private String lookup(final String header, final int start, final int end) {
+        final int length = end - start;
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + header.charAt(i);
+        }
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            final String name = table[slot];
+            if (name == null) {
+                return null;
+            }
+            if (name.length() == length && header.regionMatches(start, name, 0, length)) {
+                return name;
+            }
+        }
+    }
+
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t';
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.anosym.cookie.http;
+
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+
+/**
+ * Finds the cookie classes whose cookie paths apply to a request URI, as a browser matches the paths of the cookies it
+ * sends (RFC 6265, section 5.1.4): the URI equals the path, or starts with the path followed by a {@code /}, or with a
+ * path ending in {@code /}.
+ *
+ * The declared paths are kept in a character trie, walked once along the URI without allocating. Each path of the trie
+ * holds the classes of all the paths it matches, so that the deepest path matching the URI yields the result. Cookies
+ * without a path (which default to the path of the request first setting them) apply to every URI.
+ *
+ * Instances are immutable and may be shared.
+ *
+ * @author mochieng
+ */
+public final class CookiePathIndex {
+
+    private final Set<Class<?>> indexed;
+    //The classes of the cookies applying to every URI.
+    private final Set<Class<?>> everywhere;
+    private final Node root;
+
+    public CookiePathIndex(@Nonnull final Collection<CookieSchema> schemas) {
+        final ImmutableSet.Builder<Class<?>> indexedBuilder = ImmutableSet.builder();
+        final Set<Class<?>> everywhereBuilder = new HashSet<>();
+        final Map<String, Set<Class<?>>> byPath = new LinkedHashMap<>();
+        for (CookieSchema schema : schemas) {
+            indexedBuilder.add(schema.getCookieClass());
+            final List<String> paths = new ArrayList<>();
+            if (schema.isEncoded()) {
+                paths.add(schema.getPath());
+            } else {
+                for (CookieFieldSchema field : schema.getFields()) {
+                    paths.add(field.getPath());
+                }
+            }
+            for (String path : paths) {
+                if (!path.startsWith("/") || path.equals("/")) {
+                    everywhereBuilder.add(schema.getCookieClass());
+                } else {
+                    Set<Class<?>> classes = byPath.get(path);
+                    if (classes == null) {
+                        classes = new HashSet<>();
+                        byPath.put(path, classes);
+                    }
+                    classes.add(schema.getCookieClass());
+                }
+            }
+        }
+        this.indexed = indexedBuilder.build();
+        this.everywhere = ImmutableSet.copyOf(everywhereBuilder);
+
+        final Builder rootBuilder = new Builder();
+        for (String path : byPath.keySet()) {
+            final ImmutableSet.Builder<Class<?>> matching = ImmutableSet.<Class<?>>builder().addAll(everywhere);
+            for (Map.Entry<String, Set<Class<?>>> e : byPath.entrySet()) {
+                if (matches(e.getKey(), path)) {
+                    matching.addAll(e.getValue());
+                }
+            }
+            rootBuilder.add(path, 0, matching.build());
+        }
+        this.root = rootBuilder.build();
+    }
+
+    /**
+     * If no cookie class is known to this index.
+     *
+     * @return
+     */
+    public boolean isEmpty() {
+        return indexed.isEmpty();
+    }
+
+    /**
+     * If the cookie class is known to this index. Classes which are not apply to every URI.
+     *
+     * @param cookieClass
+     * @return
+     */
+    public boolean isIndexed(@Nonnull final Class<?> cookieClass) {
+        return indexed.contains(cookieClass);
+    }
+
+    /**
+     * If all the cookie classes are known to this index.
+     *
+     * @param cookieClasses
+     * @return
+     */
+    public boolean isIndexed(@Nonnull final Collection<Class<?>> cookieClasses) {
+        return indexed.containsAll(cookieClasses);
+    }
+
+    /**
+     * The indexed cookie classes whose paths apply to the request URI.
+     *
+     * @param uri the path of the request URI, including the context path
+     * @return
+     */
+    @Nonnull
+    public Set<Class<?>> match(@Nonnull final String uri) {
+        Set<Class<?>> result = everywhere;
+        Node node = root;
+        final int length = uri.length();
+        for (int i = 0; node != null; i++) {
+            if (node.classes != null && (i == length || uri.charAt(i) == '/' || uri.charAt(i - 1) == '/')) {
+                result = node.classes;
+            }
+            if (i == length) {
+                break;
+            }
+            node = node.child(uri.charAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * If the cookie path matches the request path.
+     */
+    private static boolean matches(final String cookiePath, final String requestPath) {
+        if (!requestPath.startsWith(cookiePath)) {
+            return false;
+        }
+        return requestPath.length() == cookiePath.length() || cookiePath.endsWith("/")
+                || requestPath.charAt(cookiePath.length()) == '/';
+    }
+
+    private static final class Node {
+
+        //Sorted, for a binary search.
+        private final char[] keys;
+        private final Node[] children;
+        //The classes matching the path ending at this node, null if no path ends here.
+        private final Set<Class<?>> classes;
+
+        Node(char[] keys, Node[] children, Set<Class<?>> classes) {
+            this.keys = keys;
+            this.children = children;
+            this.classes = classes;
+        }
+
+        Node child(final char key) {
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (keys[mid] < key) {
+                    low = mid + 1;
+                } else if (keys[mid] > key) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+    }
+
+    private static final class Builder {
+
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+        private Set<Class<?>> classes;
+
+        void add(final String path, final int index, final Set<Class<?>> pathClasses) {
+            if (index == path.length()) {
+                classes = pathClasses;
+                return;
+            }
+            Builder child = children.get(path.charAt(index));
+            if (child == null) {
+                child = new Builder();
+                children.put(path.charAt(index), child);
+            }
+            child.add(path, index + 1, pathClasses);
+        }
+
+        Node build() {
+            final char[] keys = new char[children.size()];
+            final Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder> e : children.entrySet()) {
+                keys[i] = e.getKey();
+                nodes[i++] = e.getValue().build();
+            }
+            return new Node(keys, nodes, classes);
+        }
+
+    }
+
+}
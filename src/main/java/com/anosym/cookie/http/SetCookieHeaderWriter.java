@@ -0,0 +1,139 @@
+package com.anosym.cookie.http;
+
+import com.anosym.cookie.annotation.SameSite;
+import com.google.common.base.Strings;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Writes {@code Set-Cookie} response headers directly, instead of through {@link javax.servlet.http.Cookie}s serialized
+ * by the container.
+ *
+ * The attributes of a cookie are static per cookie class or field, hence they are rendered once into a suffix (see
+ * {@link #renderAttributes(String, String, int, boolean, boolean, SameSite.Policy) }), and each header is built by
+ * appending only the name and the value into a per-thread buffer. Attributes are always written in the same order.
+ *
+ * @author mochieng
+ */
+public final class SetCookieHeaderWriter {
+
+    public static final String SET_COOKIE_HEADER = "Set-Cookie";
+
+    //Buffers grown beyond this are not retained by the thread.
+    private static final int MAX_RETAINED_CAPACITY = 8192;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    private SetCookieHeaderWriter() {
+    }
+
+    /**
+     * Renders the attributes of a cookie, in the form {@code ; Path=..; Domain=..; Max-Age=..; Secure; HttpOnly;
+     * SameSite=..}.
+     *
+     * @param path the path, omitted if empty
+     * @param domain the domain, omitted if empty, in which case the cookie is sent to the current host only
+     * @param maxAge the maximum age in seconds, omitted if negative, in which case the cookie lasts for the session
+     * @param secure
+     * @param httpOnly
+     * @param sameSite
+     * @return
+     */
+    @Nonnull
+    public static String renderAttributes(@Nullable final String path, @Nullable final String domain, final int maxAge,
+                                          final boolean secure, final boolean httpOnly,
+                                          @Nonnull final SameSite.Policy sameSite) {
+        final StringBuilder attributes = new StringBuilder();
+        if (!Strings.isNullOrEmpty(path)) {
+            attributes.append("; Path=").append(path);
+        }
+        if (!Strings.isNullOrEmpty(domain)) {
+            attributes.append("; Domain=").append(domain);
+        }
+        if (maxAge >= 0) {
+            attributes.append("; Max-Age=").append(maxAge);
+        }
+        if (secure) {
+            attributes.append("; Secure");
+        }
+        if (httpOnly) {
+            attributes.append("; HttpOnly");
+        }
+        if (sameSite.getAttributeValue() != null) {
+            attributes.append("; SameSite=").append(sameSite.getAttributeValue());
+        }
+        return attributes.toString();
+    }
+
+    /**
+     * Adds a {@code Set-Cookie} header to the response.
+     *
+     * @param response
+     * @param name
+     * @param value the cookie value, must be {@link #isValidValue(String) valid}
+     * @param attributes the rendered attributes of the cookie
+     * @return the length of the header value
+     */
+    public static int write(@Nonnull final HttpServletResponse response, @Nonnull final String name,
+                            @Nonnull final String value, @Nonnull final String attributes) {
+        return write(response, start(name).append(value), attributes);
+    }
+
+    /**
+     * Starts a {@code Set-Cookie} header in the per-thread buffer, with the cookie name and {@code =}, to which the
+     * value is appended in place, before the header is {@link #write(HttpServletResponse, StringBuilder, String)
+     * written}. The header is thereby the only string allocated for the cookie.
+     *
+     * @param name
+     * @return the buffer, holding the name and {@code =}
+     */
+    @Nonnull
+    public static StringBuilder start(@Nonnull final String name) {
+        final StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return buffer.append(name).append('=');
+    }
+
+    /**
+     * Adds the {@code Set-Cookie} header {@link #start(String) started} in the per-thread buffer to the response.
+     *
+     * @param response
+     * @param header the buffer, holding the name, {@code =} and a {@link #isValidValue(String) valid} value
+     * @param attributes the rendered attributes of the cookie
+     * @return the length of the header value
+     */
+    public static int write(@Nonnull final HttpServletResponse response, @Nonnull final StringBuilder header,
+                            @Nonnull final String attributes) {
+        header.append(attributes);
+        final int length = header.length();
+        response.addHeader(SET_COOKIE_HEADER, header.toString());
+        if (header.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return length;
+    }
+
+    /**
+     * True if the value consists of cookie-octets only, as defined by RFC 6265, and can be written without quoting.
+     *
+     * @param value
+     * @return
+     */
+    public static boolean isValidValue(@Nonnull final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < 0x21 || c > 0x7e || c == '"' || c == ',' || c == ';' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.anosym.cookie.http;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+/**
+ * A set of servlet url patterns, as mapped in {@code web.xml}: exact paths such as {@code /health}, path prefixes such
+ * as {@code /static/*}, and extensions such as {@code *.css}. {@code /*} matches every path.
+ *
+ * Paths are matched in place, within the request URI, without allocating. Instances are immutable and may be shared.
+ *
+ * @author mochieng
+ */
+public final class UrlPatterns {
+
+    private final List<String> exact;
+    //Without the trailing /*, hence empty for /*.
+    private final List<String> prefixes;
+    //Without the leading *, hence starting with the dot.
+    private final List<String> extensions;
+
+    private UrlPatterns(List<String> exact, List<String> prefixes, List<String> extensions) {
+        this.exact = exact;
+        this.prefixes = prefixes;
+        this.extensions = extensions;
+    }
+
+    /**
+     * Parses a comma separated list of url patterns.
+     *
+     * @param patterns
+     * @return
+     * @throws IllegalArgumentException if a pattern is neither an exact path, a path prefix, nor an extension
+     */
+    @Nonnull
+    public static UrlPatterns parse(@Nonnull final String patterns) {
+        final ImmutableList.Builder<String> exact = ImmutableList.builder();
+        final ImmutableList.Builder<String> prefixes = ImmutableList.builder();
+        final ImmutableList.Builder<String> extensions = ImmutableList.builder();
+        for (String pattern : Splitter.on(',').trimResults().omitEmptyStrings().split(patterns)) {
+            if (pattern.startsWith("*.") && pattern.indexOf('/') < 0) {
+                extensions.add(pattern.substring(1));
+            } else if (!pattern.startsWith("/") || pattern.indexOf('*') != pattern.lastIndexOf('*')) {
+                throw new IllegalArgumentException("Invalid url pattern: " + pattern);
+            } else if (pattern.endsWith("/*")) {
+                prefixes.add(pattern.substring(0, pattern.length() - 2));
+            } else if (pattern.indexOf('*') >= 0) {
+                throw new IllegalArgumentException("Invalid url pattern: " + pattern);
+            } else {
+                exact.add(pattern);
+            }
+        }
+        return new UrlPatterns(exact.build(), prefixes.build(), extensions.build());
+    }
+
+    /**
+     * If the path of the request URI, following the context path, matches any of the patterns.
+     *
+     * @param uri the path of the request URI
+     * @param offset the length of the context path
+     * @return
+     */
+    public boolean matches(@Nonnull final String uri, final int offset) {
+        final int length = uri.length() - offset;
+        for (String prefix : prefixes) {
+            if (uri.startsWith(prefix, offset)
+                    && (length == prefix.length() || uri.charAt(offset + prefix.length()) == '/')) {
+                return true;
+            }
+        }
+        for (String extension : extensions) {
+            if (uri.endsWith(extension) && uri.lastIndexOf('/') < uri.length() - extension.length()) {
+                return true;
+            }
+        }
+        for (String path : exact) {
+            if (length == path.length() && uri.startsWith(path, offset)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
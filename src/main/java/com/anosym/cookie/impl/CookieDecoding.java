@@ -0,0 +1,31 @@
+package com.anosym.cookie.impl;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.enterprise.util.AnnotationLiteral;
+import javax.interceptor.InterceptorBinding;
+
+/**
+ * Binds the {@link CookieDecodingInterceptor} to cookie pojos.
+ *
+ * This binding is added to every {@link com.anosym.cookie.annotation.Cookie} pojo by the {@link CookieExtension}, and
+ * need not be declared.
+ *
+ * @author mochieng
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface CookieDecoding {
+
+    final class Literal extends AnnotationLiteral<CookieDecoding> implements CookieDecoding {
+
+        private static final long serialVersionUID = -3847384738473l;
+
+        public static final Literal INSTANCE = new Literal();
+
+    }
+
+}
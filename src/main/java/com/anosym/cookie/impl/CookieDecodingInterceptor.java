@@ -0,0 +1,32 @@
+package com.anosym.cookie.impl;
+
+import com.anosym.cookie.CookieService;
+import java.io.Serializable;
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+/**
+ * Decodes the deferred http cookie(s) of a cookie pojo when it is first accessed within a request.
+ *
+ * @author mochieng
+ */
+@Interceptor
+@CookieDecoding
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class CookieDecodingInterceptor implements Serializable {
+
+    private static final long serialVersionUID = -2837483748374l;
+
+    @Inject
+    private CookieService cookieService;
+
+    @AroundInvoke
+    public Object decode(InvocationContext ic) throws Exception {
+        cookieService.decodeObjectCookie(ic.getTarget());
+        return ic.proceed();
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.anosym.cookie.impl;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.schema.CookieSchema;
+import com.google.common.collect.ImmutableSet;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AnnotatedConstructor;
+import javax.enterprise.inject.spi.AnnotatedField;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import javax.enterprise.inject.spi.WithAnnotations;
+
+/**
+ * Binds the {@link CookieDecodingInterceptor} to every {@link Cookie} pojo, and builds the {@link CookieSchema} of
+ * every cookie pojo on deployment, so that unsupported cookie fields fail the deployment rather than a request. The
+ * classes of the cookie pojos are kept, for
+ * {@link CookieServiceImpl#isExcluded(javax.servlet.http.HttpServletRequest) }.
+ *
+ * @author mochieng
+ */
+public class CookieExtension implements Extension {
+
+    private final List<Throwable> definitionErrors = new ArrayList<>();
+    //Possibly added by concurrent deployment threads.
+    private final Set<Class<?>> cookieClasses = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+
+    <X> void bindCookieDecoding(@Observes @WithAnnotations(Cookie.class) final ProcessAnnotatedType<X> pat) {
+        final AnnotatedType<X> type = pat.getAnnotatedType();
+        if (type.isAnnotationPresent(Cookie.class) && !type.isAnnotationPresent(CookieDecoding.class)) {
+            try {
+                cookieClasses.add(CookieSchema.of(type.getJavaClass()).getCookieClass());
+            } catch (IllegalArgumentException ex) {
+                definitionErrors.add(ex);
+            }
+            pat.setAnnotatedType(new CookieDecodingAnnotatedType<>(type));
+        }
+    }
+
+    /**
+     * The classes of the cookie pojos of the deployment.
+     *
+     * @return
+     */
+    @Nonnull
+    public Set<Class<?>> getCookieClasses() {
+        return Collections.unmodifiableSet(cookieClasses);
+    }
+
+    void reportDefinitionErrors(@Observes final AfterBeanDiscovery abd) {
+        for (Throwable error : definitionErrors) {
+            abd.addDefinitionError(error);
+        }
+        definitionErrors.clear();
+    }
+
+    private static final class CookieDecodingAnnotatedType<X> implements AnnotatedType<X> {
+
+        private final AnnotatedType<X> delegate;
+        private final Set<Annotation> annotations;
+
+        CookieDecodingAnnotatedType(AnnotatedType<X> delegate) {
+            this.delegate = delegate;
+            this.annotations = ImmutableSet.<Annotation>builder()
+                    .addAll(delegate.getAnnotations())
+                    .add(CookieDecoding.Literal.INSTANCE)
+                    .build();
+        }
+
+        @Override
+        public Class<X> getJavaClass() {
+            return delegate.getJavaClass();
+        }
+
+        @Override
+        public Set<AnnotatedConstructor<X>> getConstructors() {
+            return delegate.getConstructors();
+        }
+
+        @Override
+        public Set<AnnotatedMethod<? super X>> getMethods() {
+            return delegate.getMethods();
+        }
+
+        @Override
+        public Set<AnnotatedField<? super X>> getFields() {
+            return delegate.getFields();
+        }
+
+        @Override
+        public Type getBaseType() {
+            return delegate.getBaseType();
+        }
+
+        @Override
+        public Set<Type> getTypeClosure() {
+            return delegate.getTypeClosure();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends Annotation> T getAnnotation(Class<T> annotationType) {
+            if (annotationType == CookieDecoding.class) {
+                return (T) CookieDecoding.Literal.INSTANCE;
+            }
+            return delegate.getAnnotation(annotationType);
+        }
+
+        @Override
+        public Set<Annotation> getAnnotations() {
+            return annotations;
+        }
+
+        @Override
+        public boolean isAnnotationPresent(Class<? extends Annotation> annotationType) {
+            return annotationType == CookieDecoding.class || delegate.isAnnotationPresent(annotationType);
+        }
+
+    }
+
+}
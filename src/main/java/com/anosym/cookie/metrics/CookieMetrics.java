@@ -0,0 +1,255 @@
+package com.anosym.cookie.metrics;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Measures cookie processing, and exposes the measurements as the {@code com.anosym.cookie:type=CookieMetrics} MBean
+ * and to any {@link CookieMetricsSink} registered through {@link ServiceLoader}.
+ *
+ * All recording is lock-free, using striped counters, and is always enabled.
+ *
+ * @author mochieng
+ */
+public final class CookieMetrics implements CookieMetricsMXBean {
+
+    private static final Logger LOG = Logger.getLogger(CookieMetrics.class.getName());
+
+    private static final String OBJECT_NAME = "com.anosym.cookie:type=CookieMetrics";
+
+    private static final CookieMetrics INSTANCE = new CookieMetrics();
+
+    private final LongAdder cookiesParsed = new LongAdder();
+    private final LongAdder cookiesEmitted = new LongAdder();
+    private final LongAdder cookiesSkipped = new LongAdder();
+    private final LongAdder decodeCacheHits = new LongAdder();
+    private final LongAdder decodeCacheMisses = new LongAdder();
+    private final LongAdder storeMisses = new LongAdder();
+    private final LongAdder cookieOverflows = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> decodeFailures = new ConcurrentHashMap<>();
+    private final Histogram setCookieBytes = new Histogram();
+    private final ConcurrentMap<Class<?>, Histogram> decodeLatencies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, Histogram> encodeLatencies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, Histogram> cookieBytes = new ConcurrentHashMap<>();
+    private final List<CookieMetricsSink> sinks;
+    private ObjectName registeredName;
+
+    private CookieMetrics() {
+        this.sinks = ImmutableList.copyOf(ServiceLoader.load(CookieMetricsSink.class,
+                                                             CookieMetrics.class.getClassLoader()));
+    }
+
+    @Nonnull
+    public static CookieMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the MBean with the platform MBean server, if not yet registered.
+     */
+    public synchronized void register() {
+        if (registeredName != null) {
+            return;
+        }
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            //another application within the same server may have registered its own metrics.
+            for (int instance = 1; server.isRegistered(name); instance++) {
+                name = new ObjectName(OBJECT_NAME + ",instance=" + instance);
+            }
+            server.registerMBean(this, name);
+            registeredName = name;
+        } catch (InstanceAlreadyExistsException ex) {
+            LOG.log(Level.FINE, "Cookie metrics already registered", ex);
+        } catch (JMException ex) {
+            LOG.log(Level.WARNING, "Unable to register cookie metrics", ex);
+        }
+    }
+
+    /**
+     * Unregisters the MBean, if registered.
+     */
+    public synchronized void unregister() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException ex) {
+            LOG.log(Level.FINE, "Unable to unregister cookie metrics", ex);
+        }
+        registeredName = null;
+    }
+
+    public void decoded(@Nonnull final Class<?> cookieClass, final int cookies, final long nanos) {
+        cookiesParsed.add(cookies);
+        histogram(decodeLatencies, cookieClass).record(nanos);
+        for (CookieMetricsSink sink : sinks) {
+            sink.decoded(cookieClass, nanos);
+        }
+    }
+
+    public void encoded(@Nonnull final Class<?> cookieClass, final long nanos) {
+        histogram(encodeLatencies, cookieClass).record(nanos);
+        for (CookieMetricsSink sink : sinks) {
+            sink.encoded(cookieClass, nanos);
+        }
+    }
+
+    public void decodeFailed(@Nonnull final Class<?> cookieClass, @Nonnull final Throwable failure) {
+        final String type = failure.getClass().getSimpleName();
+        LongAdder failures = decodeFailures.get(type);
+        if (failures == null) {
+            failures = decodeFailures.computeIfAbsent(type, k -> new LongAdder());
+        }
+        failures.increment();
+        for (CookieMetricsSink sink : sinks) {
+            sink.decodeFailed(cookieClass, failure);
+        }
+    }
+
+    public void decodeCacheHit() {
+        decodeCacheHits.increment();
+    }
+
+    public void decodeCacheMiss() {
+        decodeCacheMisses.increment();
+    }
+
+    public void storeMiss() {
+        storeMisses.increment();
+    }
+
+    public void cookieWritten(@Nonnull final Class<?> cookieClass, final int bytes) {
+        histogram(cookieBytes, cookieClass).record(bytes);
+        for (CookieMetricsSink sink : sinks) {
+            sink.cookieWritten(cookieClass, bytes);
+        }
+    }
+
+    public void cookieOverflow(@Nonnull final Class<?> cookieClass, final int bytes) {
+        cookieOverflows.increment();
+        for (CookieMetricsSink sink : sinks) {
+            sink.cookieOverflow(cookieClass, bytes);
+        }
+    }
+
+    public void responseWritten(final int bytes, final int emitted, final int skipped) {
+        setCookieBytes.record(bytes);
+        cookiesEmitted.add(emitted);
+        cookiesSkipped.add(skipped);
+        for (CookieMetricsSink sink : sinks) {
+            sink.responseWritten(bytes, emitted, skipped);
+        }
+    }
+
+    private static Histogram histogram(final ConcurrentMap<Class<?>, Histogram> histograms,
+                                       final Class<?> cookieClass) {
+        final Histogram histogram = histograms.get(cookieClass);
+        return histogram != null ? histogram : histograms.computeIfAbsent(cookieClass, k -> new Histogram());
+    }
+
+    private static Map<String, HistogramSnapshot> snapshot(final ConcurrentMap<Class<?>, Histogram> histograms) {
+        final ImmutableMap.Builder<String, HistogramSnapshot> snapshots = ImmutableMap.builder();
+        for (Map.Entry<Class<?>, Histogram> e : histograms.entrySet()) {
+            snapshots.put(e.getKey().getName(), e.getValue().snapshot());
+        }
+        return snapshots.build();
+    }
+
+    @Override
+    public long getCookiesParsed() {
+        return cookiesParsed.sum();
+    }
+
+    @Override
+    public long getCookiesEmitted() {
+        return cookiesEmitted.sum();
+    }
+
+    @Override
+    public long getCookiesSkipped() {
+        return cookiesSkipped.sum();
+    }
+
+    @Override
+    public long getDecodeCacheHits() {
+        return decodeCacheHits.sum();
+    }
+
+    @Override
+    public long getDecodeCacheMisses() {
+        return decodeCacheMisses.sum();
+    }
+
+    @Override
+    public long getStoreMisses() {
+        return storeMisses.sum();
+    }
+
+    @Override
+    public long getCookieOverflows() {
+        return cookieOverflows.sum();
+    }
+
+    @Override
+    public Map<String, Long> getDecodeFailures() {
+        final ImmutableMap.Builder<String, Long> failures = ImmutableMap.builder();
+        for (Map.Entry<String, LongAdder> e : decodeFailures.entrySet()) {
+            failures.put(e.getKey(), e.getValue().sum());
+        }
+        return failures.build();
+    }
+
+    @Override
+    public HistogramSnapshot getSetCookieBytes() {
+        return setCookieBytes.snapshot();
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getDecodeLatencies() {
+        return snapshot(decodeLatencies);
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getEncodeLatencies() {
+        return snapshot(encodeLatencies);
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getCookieBytes() {
+        return snapshot(cookieBytes);
+    }
+
+    @Override
+    public void reset() {
+        cookiesParsed.reset();
+        cookiesEmitted.reset();
+        cookiesSkipped.reset();
+        decodeCacheHits.reset();
+        decodeCacheMisses.reset();
+        storeMisses.reset();
+        cookieOverflows.reset();
+        decodeFailures.clear();
+        setCookieBytes.reset();
+        decodeLatencies.clear();
+        encodeLatencies.clear();
+        cookieBytes.clear();
+    }
+
+}
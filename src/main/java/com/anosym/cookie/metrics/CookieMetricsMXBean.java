@@ -0,0 +1,101 @@
+package com.anosym.cookie.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the {@link CookieMetrics}. Latencies are in nanoseconds.
+ *
+ * @author mochieng
+ */
+public interface CookieMetricsMXBean {
+
+    /**
+     * The number of http cookies received and decoded into their pojos.
+     *
+     * @return
+     */
+    long getCookiesParsed();
+
+    /**
+     * The number of http cookies written to responses.
+     *
+     * @return
+     */
+    long getCookiesEmitted();
+
+    /**
+     * The number of http cookies not written to responses, since they were unchanged.
+     *
+     * @return
+     */
+    long getCookiesSkipped();
+
+    /**
+     * The number of encoded cookies decoded from the decode cache.
+     *
+     * @return
+     */
+    long getDecodeCacheHits();
+
+    /**
+     * The number of encoded cookies looked up in, but not found in, the decode cache.
+     *
+     * @return
+     */
+    long getDecodeCacheMisses();
+
+    /**
+     * The number of received stored cookies whose token was not found in the cookie store.
+     *
+     * @return
+     */
+    long getStoreMisses();
+
+    /**
+     * The number of cookies over the size limits, rejected or truncated.
+     *
+     * @return
+     */
+    long getCookieOverflows();
+
+    /**
+     * The decode failures, by the simple name of their exception.
+     *
+     * @return
+     */
+    Map<String, Long> getDecodeFailures();
+
+    /**
+     * The size of the {@code Set-Cookie} headers per response.
+     *
+     * @return
+     */
+    HistogramSnapshot getSetCookieBytes();
+
+    /**
+     * The decode latencies, by cookie class.
+     *
+     * @return
+     */
+    Map<String, HistogramSnapshot> getDecodeLatencies();
+
+    /**
+     * The encode latencies, by cookie class.
+     *
+     * @return
+     */
+    Map<String, HistogramSnapshot> getEncodeLatencies();
+
+    /**
+     * The sizes of the written cookies, their name, {@code =} and value, by cookie class.
+     *
+     * @return
+     */
+    Map<String, HistogramSnapshot> getCookieBytes();
+
+    /**
+     * Resets all counters and histograms.
+     */
+    void reset();
+
+}
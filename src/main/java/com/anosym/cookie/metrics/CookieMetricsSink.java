@@ -0,0 +1,70 @@
+package com.anosym.cookie.metrics;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Receives the cookie processing measurements, for forwarding to an external metrics system.
+ *
+ * Implementations are discovered through {@link java.util.ServiceLoader}, and are called on the request threads, so
+ * they must be thread-safe and cheap.
+ *
+ * @author mochieng
+ */
+public interface CookieMetricsSink {
+
+    /**
+     * A cookie pojo was decoded from its http cookie(s).
+     *
+     * @param cookieClass
+     * @param nanos
+     */
+    default void decoded(@Nonnull Class<?> cookieClass, long nanos) {
+    }
+
+    /**
+     * A cookie pojo was encoded into its http cookie(s).
+     *
+     * @param cookieClass
+     * @param nanos
+     */
+    default void encoded(@Nonnull Class<?> cookieClass, long nanos) {
+    }
+
+    /**
+     * A cookie pojo could not be decoded from its http cookie(s), and retained its previous values.
+     *
+     * @param cookieClass
+     * @param failure
+     */
+    default void decodeFailed(@Nonnull Class<?> cookieClass, @Nonnull Throwable failure) {
+    }
+
+    /**
+     * A cookie was written.
+     *
+     * @param cookieClass
+     * @param bytes the size of its name, {@code =} and value
+     */
+    default void cookieWritten(@Nonnull Class<?> cookieClass, int bytes) {
+    }
+
+    /**
+     * A cookie was over the size limits, and was rejected or truncated.
+     *
+     * @param cookieClass
+     * @param bytes the size of its name, {@code =} and value
+     */
+    default void cookieOverflow(@Nonnull Class<?> cookieClass, int bytes) {
+    }
+
+    /**
+     * The cookies of a response were written.
+     *
+     * @param setCookieBytes the approximate size of the {@code Set-Cookie} headers
+     * @param emitted the number of cookies written
+     * @param skipped the number of cookies not written, since they were unchanged
+     */
+    default void responseWritten(int setCookieBytes, int emitted, int skipped) {
+    }
+
+}
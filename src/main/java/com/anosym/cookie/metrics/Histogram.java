@@ -0,0 +1,79 @@
+package com.anosym.cookie.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, with power-of-two buckets.
+ *
+ * Recording is a handful of striped counter increments, cheap enough for the request path. Percentiles are estimated
+ * as the upper bound of the bucket they fall into.
+ *
+ * @author mochieng
+ */
+public final class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    //bucket i counts the values v with 2^(i-1) <= v < 2^i, bucket 0 counts zero.
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        final long v = Math.max(0, value);
+        buckets[BUCKETS - Long.numberOfLeadingZeros(v)].increment();
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Returns a point-in-time view of this histogram. Concurrent recordings may or may not be included.
+     *
+     * @return
+     */
+    public HistogramSnapshot snapshot() {
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        return new HistogramSnapshot(total,
+                                     total > 0 ? (double) sum.sum() / total : 0,
+                                     percentile(counts, total, 0.50),
+                                     percentile(counts, total, 0.99),
+                                     percentile(counts, total, 0.999),
+                                     max.get());
+    }
+
+    private static long percentile(long[] counts, long total, double percentile) {
+        final long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return i == 0 ? 0 : (i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1);
+            }
+        }
+        return 0;
+    }
+
+}
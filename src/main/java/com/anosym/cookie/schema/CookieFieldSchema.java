@@ -0,0 +1,441 @@
+package com.anosym.cookie.schema;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.Domain;
+import com.anosym.cookie.annotation.HttpOnly;
+import com.anosym.cookie.annotation.MaxAge;
+import com.anosym.cookie.annotation.Name;
+import com.anosym.cookie.annotation.Path;
+import com.anosym.cookie.annotation.SameSite;
+import com.anosym.cookie.annotation.Secure;
+import com.anosym.cookie.codec.CookieConverter;
+import com.anosym.cookie.codec.CookieConverters;
+import com.anosym.cookie.codec.CookieInput;
+import com.anosym.cookie.codec.CookieOutput;
+import com.anosym.cookie.codec.FieldType;
+import com.anosym.cookie.http.SetCookieHeaderWriter;
+import com.google.common.base.Strings;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The immutable, resolved description of a single {@link Cookie} pojo field.
+ *
+ * Cookie attributes are resolved against the defaults of the declaring {@link Cookie}, and the field accessors and the
+ * field type (or the {@link CookieConverter} of the field) are bound once, so that reading and writing a field requires
+ * no further reflection nor type lookups. {@code int}, {@code long}, {@code double} and {@code boolean} fields are read
+ * and written without boxing. Serialized field schemas resolve back to the shared instance of the declaring
+ * {@link CookieSchema}.
+ *
+ * @author mochieng
+ */
+public final class CookieFieldSchema implements Serializable {
+
+    private static final long serialVersionUID = -2983748372934823l;
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    //The text form of null values.
+    private static final String NULL_TEXT = "null";
+
+    private final Class<?> cookieClass;
+    private final int index;
+    private final String fieldName;
+    private final Class<?> type;
+    //Null if the field is converted by a converter.
+    private final FieldType fieldType;
+    private final transient CookieConverter<Object> converter;
+    //Identifies the field type, including the element types of collections and the fields of embeddables.
+    private final String signature;
+    //The individual cookie name, as overriden by {@link Name}, otherwise the field name.
+    private final String cookieName;
+    private final int maxAge;
+    private final String path;
+    //Null if the cookie should default to the current host.
+    private final String domain;
+    private final boolean secure;
+    private final boolean httpOnly;
+    private final SameSite.Policy sameSite;
+    //The rendered Set-Cookie attributes.
+    private final String headerAttributes;
+    private final transient MethodHandle getter;
+    private final transient MethodHandle setter;
+    //Unboxed accessors, if the field is an int, long, double or boolean.
+    private final transient MethodHandle primitiveGetter;
+    private final transient MethodHandle primitiveSetter;
+
+    @SuppressWarnings("unchecked")
+    CookieFieldSchema(@Nonnull final Class<?> cookieClass, final int index, @Nonnull final Field field,
+                      @Nonnull final Cookie cookie) {
+        this.cookieClass = cookieClass;
+        this.index = index;
+        this.fieldName = field.getName();
+        this.type = field.getType();
+        this.fieldType = FieldType.find(type);
+        try {
+            this.converter = fieldType == null ? (CookieConverter<Object>) CookieConverters
+                    .forGenericType(field.getGenericType(), cookieClass.getClassLoader()) : null;
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unsupported cookie variable type: " + type + " of " + field, ex);
+        }
+        if (fieldType == null && converter == null) {
+            throw new IllegalArgumentException("Unsupported cookie variable type: " + type + " of " + field);
+        }
+        final String structure = converter != null ? CookieConverters.getStructure(converter) : null;
+        this.signature = structure != null ? structure : type.getName();
+
+        final Name name = field.getAnnotation(Name.class);
+        final MaxAge maxAgeOverride = field.getAnnotation(MaxAge.class);
+        final Path pathOverride = field.getAnnotation(Path.class);
+        final Domain domainOverride = field.getAnnotation(Domain.class);
+        this.cookieName = name != null ? name.value() : fieldName;
+        this.maxAge = maxAgeOverride != null ? maxAgeOverride.value() : cookie.maxAge();
+        this.path = pathOverride != null ? pathOverride.value() : cookie.path();
+        this.domain = domainOverride != null
+                ? domainOverride.value() : Strings.emptyToNull(cookie.domain());
+        this.secure = field.isAnnotationPresent(Secure.class) || cookie.secure();
+        this.httpOnly = field.isAnnotationPresent(HttpOnly.class) || cookie.httpOnly();
+        final SameSite sameSiteOverride = field.getAnnotation(SameSite.class);
+        this.sameSite = sameSiteOverride != null ? sameSiteOverride.value() : cookie.sameSite();
+        this.headerAttributes = SetCookieHeaderWriter.renderAttributes(path, domain, maxAge, secure, httpOnly,
+                                                                       sameSite);
+
+        try {
+            field.setAccessible(true);
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+            this.setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+            if (type == int.class || type == long.class || type == double.class || type == boolean.class) {
+                this.primitiveGetter = lookup.unreflectGetter(field).asType(MethodType.methodType(type, Object.class));
+                this.primitiveSetter = lookup.unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, type));
+            } else {
+                this.primitiveGetter = null;
+                this.primitiveSetter = null;
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalArgumentException("Cannot access cookie field: " + field, ex);
+        }
+    }
+
+    /**
+     * The position of this field within the encoded cookie.
+     *
+     * @return
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Nonnull
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    @Nonnull
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Identifies the field type within the fingerprint of the schema: the type name, or the structure of collection and
+     * embeddable types (see {@link CookieConverters#getStructure(CookieConverter) }).
+     *
+     * @return
+     */
+    @Nonnull
+    public String getSignature() {
+        return signature;
+    }
+
+    /**
+     * The field type, or null if the field is converted by {@link #getConverter() }.
+     *
+     * @return
+     */
+    @Nullable
+    public FieldType getFieldType() {
+        return fieldType;
+    }
+
+    /**
+     * The converter of the field, or null if the field is one of the {@link FieldType}s.
+     *
+     * @return
+     */
+    @Nullable
+    public CookieConverter<Object> getConverter() {
+        return converter;
+    }
+
+    @Nonnull
+    public String getCookieName() {
+        return cookieName;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    @Nonnull
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * The domain of the individual cookie, or null if the cookie should default to the current host.
+     *
+     * @return
+     */
+    @Nullable
+    public String getDomain() {
+        return domain;
+    }
+
+    public boolean isSecure() {
+        return secure;
+    }
+
+    public boolean isHttpOnly() {
+        return httpOnly;
+    }
+
+    @Nonnull
+    public SameSite.Policy getSameSite() {
+        return sameSite;
+    }
+
+    /**
+     * The {@code Set-Cookie} attributes of the individual cookie, as rendered by
+     * {@link SetCookieHeaderWriter#renderAttributes(String, String, int, boolean, boolean, SameSite.Policy) }.
+     *
+     * @return
+     */
+    @Nonnull
+    public String getHeaderAttributes() {
+        return headerAttributes;
+    }
+
+    /**
+     * Reads the value of this field from the cookie instance.
+     *
+     * @param cookieObject
+     * @return
+     */
+    @Nullable
+    public Object get(@Nonnull final Object cookieObject) {
+        try {
+            return (Object) getter.invokeExact(cookieObject);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Error reading cookie field: " + fieldName, ex);
+        }
+    }
+
+    /**
+     * Sets the value of this field on the cookie instance.
+     *
+     * @param cookieObject
+     * @param value
+     */
+    public void set(@Nonnull final Object cookieObject, @Nullable final Object value) {
+        try {
+            setter.invokeExact(cookieObject, value);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Error setting cookie field: " + fieldName, ex);
+        }
+    }
+
+    /**
+     * Returns the text form of the value of this field, as written to an individual cookie.
+     *
+     * @param cookieObject
+     * @return
+     */
+    @Nonnull
+    public String getText(@Nonnull final Object cookieObject) {
+        try {
+            if (type == int.class) {
+                return Integer.toString((int) primitiveGetter.invokeExact(cookieObject));
+            } else if (type == long.class) {
+                return Long.toString((long) primitiveGetter.invokeExact(cookieObject));
+            } else if (type == double.class) {
+                return Double.toString((double) primitiveGetter.invokeExact(cookieObject));
+            } else if (type == boolean.class) {
+                return Boolean.toString((boolean) primitiveGetter.invokeExact(cookieObject));
+            }
+            final Object value = (Object) getter.invokeExact(cookieObject);
+            if (fieldType != null) {
+                return fieldType.toText(value);
+            }
+            return value != null ? converter.toText(value) : NULL_TEXT;
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Error reading cookie field: " + fieldName, ex);
+        }
+    }
+
+    /**
+     * Sets this field from its text form, as returned by {@link #getText(Object) }. The text {@code null} sets a
+     * non-primitive field to null.
+     *
+     * @param cookieObject
+     * @param text
+     * @throws IllegalArgumentException if the text is malformed
+     */
+    public void setText(@Nonnull final Object cookieObject, @Nonnull final String text) {
+        try {
+            if (type == int.class) {
+                primitiveSetter.invokeExact(cookieObject, Integer.parseInt(text));
+            } else if (type == long.class) {
+                primitiveSetter.invokeExact(cookieObject, Long.parseLong(text));
+            } else if (type == double.class) {
+                primitiveSetter.invokeExact(cookieObject, Double.parseDouble(text));
+            } else if (type == boolean.class) {
+                primitiveSetter.invokeExact(cookieObject, Boolean.parseBoolean(text));
+            } else if (!type.isPrimitive() && NULL_TEXT.equals(text)) {
+                setter.invokeExact(cookieObject, (Object) null);
+            } else if (fieldType != null) {
+                setter.invokeExact(cookieObject, fieldType.fromText(text));
+            } else {
+                setter.invokeExact(cookieObject, convertFromText(text));
+            }
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Error setting cookie field: " + fieldName, ex);
+        }
+    }
+
+    /**
+     * Writes the value of this field in its binary form.
+     *
+     * @param out
+     * @param cookieObject
+     */
+    public void write(@Nonnull final CookieOutput out, @Nonnull final Object cookieObject) {
+        try {
+            if (type == int.class) {
+                out.writeVarInt((int) primitiveGetter.invokeExact(cookieObject));
+            } else if (type == long.class) {
+                out.writeVarLong((long) primitiveGetter.invokeExact(cookieObject));
+            } else if (type == double.class) {
+                out.writeDouble((double) primitiveGetter.invokeExact(cookieObject));
+            } else if (type == boolean.class) {
+                out.writeBoolean((boolean) primitiveGetter.invokeExact(cookieObject));
+            } else if (fieldType != null) {
+                fieldType.write(out, (Object) getter.invokeExact(cookieObject), !type.isPrimitive());
+            } else {
+                final Object value = (Object) getter.invokeExact(cookieObject);
+                if (out.writePresence(value)) {
+                    converter.write(out, value);
+                }
+            }
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Error reading cookie field: " + fieldName, ex);
+        }
+    }
+
+    /**
+     * Writes the value, as read from this field, in its binary form.
+     *
+     * @param out
+     * @param value
+     */
+    public void writeValue(@Nonnull final CookieOutput out, @Nullable final Object value) {
+        if (fieldType != null) {
+            fieldType.write(out, value, !type.isPrimitive());
+        } else if (out.writePresence(value)) {
+            converter.write(out, value);
+        }
+    }
+
+    /**
+     * Reads this field from its binary form, as written by {@link #write(CookieOutput, Object) }.
+     *
+     * @param in
+     * @param cookieObject
+     * @throws IllegalArgumentException if the data is malformed
+     */
+    public void read(@Nonnull final CookieInput in, @Nonnull final Object cookieObject) {
+        try {
+            if (type == int.class) {
+                primitiveSetter.invokeExact(cookieObject, in.readVarInt());
+            } else if (type == long.class) {
+                primitiveSetter.invokeExact(cookieObject, in.readVarLong());
+            } else if (type == double.class) {
+                primitiveSetter.invokeExact(cookieObject, in.readDouble());
+            } else if (type == boolean.class) {
+                primitiveSetter.invokeExact(cookieObject, in.readBoolean());
+            } else if (fieldType != null) {
+                setter.invokeExact(cookieObject, fieldType.read(in, !type.isPrimitive()));
+            } else {
+                setter.invokeExact(cookieObject, in.readPresence() ? convertRead(in) : null);
+            }
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Error setting cookie field: " + fieldName, ex);
+        }
+    }
+
+    private Object convertFromText(final String text) {
+        try {
+            return converter.fromText(text);
+        } catch (IllegalArgumentException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Malformed value of cookie field: " + fieldName, ex);
+        }
+    }
+
+    private Object convertRead(final CookieInput in) {
+        try {
+            return converter.read(in);
+        } catch (IllegalArgumentException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Malformed value of cookie field: " + fieldName, ex);
+        }
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return new SerializedForm(cookieClass, index);
+    }
+
+    private static final class SerializedForm implements Serializable {
+
+        private static final long serialVersionUID = -7364628374628734l;
+        private final Class<?> cookieClass;
+        private final int index;
+
+        SerializedForm(Class<?> cookieClass, int index) {
+            this.cookieClass = cookieClass;
+            this.index = index;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            return CookieSchema.of(cookieClass).getFields().get(index);
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return "CookieFieldSchema{" + "index=" + index + ", fieldName=" + fieldName + ", cookieName=" + cookieName
+                + '}';
+    }
+
+}
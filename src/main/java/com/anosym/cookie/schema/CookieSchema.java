@@ -0,0 +1,414 @@
+package com.anosym.cookie.schema;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.Domain;
+import com.anosym.cookie.annotation.HttpOnly;
+import com.anosym.cookie.annotation.MaxAge;
+import com.anosym.cookie.annotation.Name;
+import com.anosym.cookie.annotation.Path;
+import com.anosym.cookie.annotation.Protection;
+import com.anosym.cookie.annotation.SameSite;
+import com.anosym.cookie.annotation.Secure;
+import com.anosym.cookie.codec.CookieCodec;
+import com.anosym.cookie.codec.CookieCodecs;
+import com.anosym.cookie.http.SetCookieHeaderWriter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.collect.ImmutableMap;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The immutable, resolved description of a {@link Cookie} pojo.
+ *
+ * A schema is built once per cookie class and shared for the lifetime of the class loader, so that the per-request
+ * encode and decode paths never have to reflect on the cookie class again. Serialized schemas resolve back to the
+ * shared instance of the cookie class.
+ *
+ * @author mochieng
+ */
+public final class CookieSchema implements Serializable {
+
+    private static final long serialVersionUID = -4388729183745532l;
+
+    //Matched by name, such that schemas can be built without CDI.
+    private static final String SESSION_SCOPED = "javax.enterprise.context.SessionScoped";
+
+    /**
+     * The largest number of chunk cookies an encoded cookie is split into, when it is over the cookie size limit.
+     */
+    public static final int MAX_CHUNKS = 8;
+
+    private static final ConcurrentMap<Class<?>, CookieSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+    private static final Comparator<Field> FIELD_ORDER = new Comparator<Field>() {
+
+        @Override
+        public int compare(Field o1, Field o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private final Class<?> cookieClass;
+    private final boolean encoded;
+    //The cookie name, if this cookie is encoded. Otherwise each field defines its own name.
+    private final String name;
+    private final int maxAge;
+    private final boolean secure;
+    private final String domain;
+    private final String path;
+    private final boolean httpOnly;
+    private final SameSite.Policy sameSite;
+    //The rendered Set-Cookie attributes, if this cookie is encoded.
+    private final String headerAttributes;
+    //The rendered Set-Cookie attributes expiring the encoded cookie, or its chunks.
+    private final String expiryHeaderAttributes;
+    private final boolean alwaysRefresh;
+    //If the value is kept in the cookie store, and the browser sent a token.
+    private final boolean stored;
+    //If the value is signed or encrypted, with the keys of the web application.
+    private final Protection protection;
+    //If a single instance of the pojo is shared by the concurrent requests of a session.
+    private final boolean sessionScoped;
+    //Fields by index, sorted by their names.
+    private final List<CookieFieldSchema> fields;
+    private final ImmutableMap<String, CookieFieldSchema> fieldsByCookieName;
+    //The names of the http cookies of this schema.
+    private final List<String> cookieNames;
+    //The names of the chunk cookies, if this cookie is encoded.
+    private final List<String> chunkNames;
+    //Identifies the field names and types, as written into encoded cookies.
+    private final int fingerprint;
+    //The generated codec, if any. Otherwise fields are accessed through their reflective accessors.
+    private final CookieCodec<Object> codec;
+
+    @SuppressWarnings("unchecked")
+    private CookieSchema(@Nonnull final Class<?> cookieClass, @Nonnull final Cookie cookie) {
+        this.cookieClass = cookieClass;
+        this.encoded = cookie.encoded();
+        this.name = cookieClass.getSimpleName();
+        this.maxAge = cookie.maxAge();
+        this.secure = cookie.secure();
+        this.domain = cookie.domain();
+        this.path = cookie.path();
+        this.httpOnly = cookie.httpOnly();
+        this.sameSite = cookie.sameSite();
+        this.headerAttributes = SetCookieHeaderWriter.renderAttributes(path, domain, maxAge, secure, httpOnly,
+                                                                       sameSite);
+        this.expiryHeaderAttributes = SetCookieHeaderWriter.renderAttributes(path, domain, 0, secure, httpOnly,
+                                                                             sameSite);
+        this.alwaysRefresh = cookie.alwaysRefresh();
+        this.stored = cookie.stored();
+        if (stored && !encoded) {
+            throw new IllegalArgumentException("Stored cookies must be encoded: " + cookieClass);
+        }
+        this.protection = cookie.protection();
+        if (protection != Protection.NONE && !encoded) {
+            throw new IllegalArgumentException("Protected cookies must be encoded: " + cookieClass);
+        }
+        this.sessionScoped = isSessionScoped(cookieClass);
+
+        final List<Field> cookieFields = new ArrayList<>();
+        for (Field field : cookieClass.getDeclaredFields()) {
+            final int modifiers = field.getModifiers();
+            if (!field.isSynthetic() && !Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                cookieFields.add(field);
+            }
+        }
+        final Field[] sorted = cookieFields.toArray(new Field[cookieFields.size()]);
+        Arrays.sort(sorted, FIELD_ORDER);
+
+        final ImmutableList.Builder<CookieFieldSchema> fieldsBuilder = ImmutableList.builder();
+        final ImmutableMap.Builder<String, CookieFieldSchema> byNameBuilder = ImmutableMap.builder();
+        final Hasher hasher = Hashing.murmur3_32().newHasher();
+        for (int index = 0; index < sorted.length; index++) {
+            if (encoded && hasCookieAttributes(sorted[index])) {
+                throw new IllegalArgumentException("Invalid variable annotations for an encoded cookie: "
+                        + sorted[index]);
+            }
+            final CookieFieldSchema fieldSchema = new CookieFieldSchema(cookieClass, index, sorted[index], cookie);
+            fieldsBuilder.add(fieldSchema);
+            hasher.putString(fieldSchema.getFieldName(), StandardCharsets.UTF_8)
+                    .putString(fieldSchema.getSignature(), StandardCharsets.UTF_8);
+            if (!encoded) {
+                byNameBuilder.put(fieldSchema.getCookieName(), fieldSchema);
+            }
+        }
+        this.fields = fieldsBuilder.build();
+        this.fieldsByCookieName = byNameBuilder.build();
+        this.cookieNames = encoded ? ImmutableList.of(name) : fieldsByCookieName.keySet().asList();
+        final ImmutableList.Builder<String> chunkNamesBuilder = ImmutableList.builder();
+        for (int chunk = 0; encoded && chunk < MAX_CHUNKS; chunk++) {
+            chunkNamesBuilder.add(name + '.' + chunk);
+        }
+        this.chunkNames = chunkNamesBuilder.build();
+        this.fingerprint = hasher.hash().asInt();
+        this.codec = (CookieCodec<Object>) CookieCodecs.forType(cookieClass);
+    }
+
+    /**
+     * Returns the schema of the specified cookie class, building and caching it on first access.
+     *
+     * The class (or one of its super classes, as is the case with container proxies) must be annotated with
+     * {@link Cookie}.
+     *
+     * @param type
+     * @return
+     */
+    @Nonnull
+    public static CookieSchema of(@Nonnull final Class<?> type) {
+        CookieSchema schema = SCHEMAS.get(type);
+        if (schema == null) {
+            final Class<?> cookieClass = findCookieClass(type);
+            schema = SCHEMAS.get(cookieClass);
+            if (schema == null) {
+                schema = new CookieSchema(cookieClass, cookieClass.getAnnotation(Cookie.class));
+                final CookieSchema existing = SCHEMAS.putIfAbsent(cookieClass, schema);
+                if (existing != null) {
+                    schema = existing;
+                }
+            }
+            if (cookieClass != type) {
+                SCHEMAS.putIfAbsent(type, schema);
+            }
+        }
+        return schema;
+    }
+
+    private static boolean isSessionScoped(@Nonnull final Class<?> cookieClass) {
+        for (Annotation annotation : cookieClass.getAnnotations()) {
+            if (annotation.annotationType().getName().equals(SESSION_SCOPED)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasCookieAttributes(@Nonnull final Field field) {
+        return field.isAnnotationPresent(Domain.class)
+                || field.isAnnotationPresent(MaxAge.class)
+                || field.isAnnotationPresent(HttpOnly.class)
+                || field.isAnnotationPresent(Name.class)
+                || field.isAnnotationPresent(Path.class)
+                || field.isAnnotationPresent(Secure.class)
+                || field.isAnnotationPresent(SameSite.class);
+    }
+
+    private static Class<?> findCookieClass(@Nonnull final Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            if (c.isAnnotationPresent(Cookie.class)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException(type + " is not applicable as Cookie");
+    }
+
+    @Nonnull
+    public Class<?> getCookieClass() {
+        return cookieClass;
+    }
+
+    public boolean isEncoded() {
+        return encoded;
+    }
+
+    /**
+     * The name of the cookie if encoded.
+     *
+     * @return
+     */
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    public boolean isSecure() {
+        return secure;
+    }
+
+    @Nonnull
+    public String getDomain() {
+        return domain;
+    }
+
+    @Nonnull
+    public String getPath() {
+        return path;
+    }
+
+    public boolean isHttpOnly() {
+        return httpOnly;
+    }
+
+    @Nonnull
+    public SameSite.Policy getSameSite() {
+        return sameSite;
+    }
+
+    /**
+     * The {@code Set-Cookie} attributes of the encoded cookie, as rendered by
+     * {@link SetCookieHeaderWriter#renderAttributes(String, String, int, boolean, boolean, SameSite.Policy) }.
+     *
+     * @return
+     */
+    @Nonnull
+    public String getHeaderAttributes() {
+        return headerAttributes;
+    }
+
+    /**
+     * The {@code Set-Cookie} attributes of the encoded cookie with a {@code Max-Age} of 0, which expire the cookie, or
+     * its chunks.
+     *
+     * @return
+     */
+    @Nonnull
+    public String getExpiryHeaderAttributes() {
+        return expiryHeaderAttributes;
+    }
+
+    /**
+     * If the cookie must be sent on every response, even if it has not changed.
+     *
+     * @return
+     */
+    public boolean isAlwaysRefresh() {
+        return alwaysRefresh;
+    }
+
+    /**
+     * If the encoded value of the cookie is kept in the cookie store, and only its token sent to the browser.
+     *
+     * @return
+     */
+    public boolean isStored() {
+        return stored;
+    }
+
+    /**
+     * How the encoded value of the cookie is protected from the browser.
+     *
+     * @return
+     */
+    @Nonnull
+    public Protection getProtection() {
+        return protection;
+    }
+
+    /**
+     * If the cookie class is {@link javax.enterprise.context.SessionScoped}, whose instance is shared by all the
+     * requests of a session.
+     *
+     * @return
+     */
+    public boolean isSessionScoped() {
+        return sessionScoped;
+    }
+
+    /**
+     * The cookie fields, sorted by their names. The index of each field is its position in this list.
+     *
+     * @return
+     */
+    @Nonnull
+    public List<CookieFieldSchema> getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the field for the individual cookie name, or null if this schema does not define such a cookie, or this
+     * cookie is encoded.
+     *
+     * @param cookieName
+     * @return
+     */
+    @Nullable
+    public CookieFieldSchema getFieldByCookieName(@Nonnull final String cookieName) {
+        return fieldsByCookieName.get(cookieName);
+    }
+
+    /**
+     * The names of the http cookies defined by this schema. That is, the cookie name if encoded, otherwise the cookie
+     * names of the individual fields.
+     *
+     * @return
+     */
+    @Nonnull
+    public List<String> getCookieNames() {
+        return cookieNames;
+    }
+
+    /**
+     * The names of the {@link #MAX_CHUNKS} chunk cookies an encoded cookie over the size limit is split into, that is
+     * the cookie name followed by {@code .0}, {@code .1} and so on. Empty if this cookie is not encoded.
+     *
+     * @return
+     */
+    @Nonnull
+    public List<String> getChunkNames() {
+        return chunkNames;
+    }
+
+    /**
+     * The fingerprint of the field names and types, which identifies the version of this schema within encoded
+     * cookies.
+     *
+     * @return
+     */
+    public int getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * The codec generated for this cookie at compile time, or null if the fields must be accessed reflectively.
+     *
+     * @return
+     */
+    @Nullable
+    public CookieCodec<Object> getCodec() {
+        return codec;
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return new SerializedForm(cookieClass);
+    }
+
+    private static final class SerializedForm implements Serializable {
+
+        private static final long serialVersionUID = -8374738293847123l;
+        private final Class<?> cookieClass;
+
+        SerializedForm(Class<?> cookieClass) {
+            this.cookieClass = cookieClass;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            return CookieSchema.of(cookieClass);
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return "CookieSchema{" + "cookieClass=" + cookieClass.getName() + ", encoded=" + encoded + ", fields=" + fields
+                + '}';
+    }
+
+}
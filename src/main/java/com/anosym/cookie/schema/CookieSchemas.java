@@ -0,0 +1,56 @@
+package com.anosym.cookie.schema;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.List;
+import javax.annotation.Nonnull;
+import org.atteo.classindex.ClassIndex;
+
+/**
+ * The schemas of all the {@link Cookie} pojos of a class loader, as indexed at compile time.
+ *
+ * @author mochieng
+ */
+public final class CookieSchemas {
+
+    private static final LoadingCache<ClassLoader, List<CookieSchema>> INDEXED = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(new CacheLoader<ClassLoader, List<CookieSchema>>() {
+
+                @Override
+                public List<CookieSchema> load(ClassLoader classLoader) throws Exception {
+                    final ImmutableList.Builder<CookieSchema> schemas = ImmutableList.builder();
+                    for (Class<?> cookieClass : ClassIndex.getAnnotated(Cookie.class, classLoader)) {
+                        if (!cookieClass.isAnnotation()) {
+                            schemas.add(CookieSchema.of(cookieClass));
+                        }
+                    }
+                    return schemas.build();
+                }
+            });
+
+    private CookieSchemas() {
+    }
+
+    /**
+     * Returns the schemas of all the cookie classes indexed within the class loader.
+     *
+     * @param classLoader
+     * @return
+     * @throws IllegalArgumentException if an indexed cookie class is invalid
+     */
+    @Nonnull
+    public static List<CookieSchema> getIndexed(@Nonnull final ClassLoader classLoader) {
+        try {
+            return INDEXED.getUnchecked(classLoader);
+        } catch (UncheckedExecutionException ex) {
+            throw Throwables.propagate(ex.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,332 @@
+package com.anosym.cookie.security;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.BaseEncoding;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The keys signing and encrypting the {@link com.anosym.cookie.annotation.Protection protected} cookies of a web
+ * application.
+ *
+ * The keys are given as a comma separated list of {@code id:secret} pairs, the secrets in base64 of at least 16
+ * bytes. The first key protects the values written, while the others only verify the values received: keys are
+ * rotated by prepending the new key, and dropping the oldest once the cookies it protected have expired. Each value
+ * carries the id of its key, of up to 16 letters, digits, {@code _} or {@code -}.
+ *
+ * <ul>
+ * <li>A signed value is the value, {@code .}, the key id, {@code .} and the unpadded base64url HMAC-SHA256 of the
+ * cookie name, {@code =}, the value, {@code .} and the key id.</li>
+ * <li>An encrypted value is the key id, {@code .} and the unpadded base64url of a random 96 bit IV, followed by the
+ * AES-GCM encryption of the decoded base64url value and its 128 bit tag, authenticating the cookie name.</li>
+ * </ul>
+ *
+ * The signing and encryption keys are derived from each secret with HMAC-SHA256, such that they are never the same.
+ * Random IVs allow about 2^32 encryptions per key, beyond which the key must be rotated.
+ *
+ * Instances are immutable and may be shared. Each thread reuses its own {@link Mac} and {@link Cipher} instances and
+ * buffers, as their creation costs more than the operation itself.
+ *
+ * @author mochieng
+ */
+public final class CookieKeyRing {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+    private static final int MIN_SECRET_BYTES = 16;
+    private static final int MAX_KEY_ID_LENGTH = 16;
+    private static final int MAC_BYTES = 32;
+    private static final int CIPHER_KEY_BYTES = 16;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+    private static final CharMatcher KEY_ID = CharMatcher.inRange('a', 'z').or(CharMatcher.inRange('A', 'Z'))
+            .or(CharMatcher.inRange('0', '9')).or(CharMatcher.anyOf("_-"));
+
+    //The current key first.
+    private final List<Key> keys;
+    private final Map<String, Key> keysById;
+    private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+
+        @Override
+        protected Worker initialValue() {
+            return new Worker(keys.size());
+        }
+    };
+
+    private CookieKeyRing(List<Key> keys, Map<String, Key> keysById) {
+        this.keys = keys;
+        this.keysById = keysById;
+    }
+
+    /**
+     * Parses a comma separated list of {@code id:secret} keys, the current key first.
+     *
+     * @param keys
+     * @return
+     * @throws IllegalArgumentException if there is no key, or a key is malformed, has a secret shorter than 16 bytes,
+     * or reuses the id of another key
+     */
+    @Nonnull
+    public static CookieKeyRing parse(@Nonnull final String keys) {
+        final ImmutableList.Builder<Key> keyList = ImmutableList.builder();
+        final Map<String, Key> keysById = new HashMap<>();
+        for (String entry : Splitter.on(',').trimResults().omitEmptyStrings().split(keys)) {
+            final int separator = entry.indexOf(':');
+            //the secret is never part of the message.
+            final String id = separator > 0 ? entry.substring(0, separator).trim() : "";
+            if (id.isEmpty() || id.length() > MAX_KEY_ID_LENGTH || !KEY_ID.matchesAllOf(id)) {
+                throw new IllegalArgumentException("Invalid cookie key id: " + id);
+            }
+            final byte[] secret = decodeSecret(entry.substring(separator + 1).trim());
+            if (secret == null || secret.length < MIN_SECRET_BYTES) {
+                throw new IllegalArgumentException("Invalid cookie key secret, of key: " + id);
+            }
+            final Key key = new Key(keysById.size(), id, secret);
+            if (keysById.put(id, key) != null) {
+                throw new IllegalArgumentException("Duplicate cookie key id: " + id);
+            }
+            keyList.add(key);
+        }
+        if (keysById.isEmpty()) {
+            throw new IllegalArgumentException("No cookie key");
+        }
+        return new CookieKeyRing(keyList.build(), ImmutableMap.copyOf(keysById));
+    }
+
+    /**
+     * Signs the value with the current key.
+     *
+     * @param name the cookie name
+     * @param value
+     * @return
+     */
+    @Nonnull
+    public String sign(@Nonnull final String name, @Nonnull final String value) {
+        final Key key = keys.get(0);
+        final String signed = value + '.' + key.id + '.';
+        final byte[] tag = workers.get().mac(key, name, signed, signed.length() - 1);
+        return signed + ENCODING.encode(tag);
+    }
+
+    /**
+     * Verifies the signed value, with the key it was signed with.
+     *
+     * @param name the cookie name
+     * @param signed
+     * @return the value which was signed
+     * @throws IllegalArgumentException if the value is not signed with any of the keys, or has been tampered with
+     */
+    @Nonnull
+    public String verify(@Nonnull final String name, @Nonnull final String signed) {
+        final int tagStart = signed.lastIndexOf('.');
+        final int idStart = tagStart > 0 ? signed.lastIndexOf('.', tagStart - 1) : -1;
+        if (idStart < 0) {
+            throw new IllegalArgumentException("Unsigned cookie value");
+        }
+        final Key key = getKey(signed.substring(idStart + 1, tagStart));
+        final byte[] tag = ENCODING.decode(signed.substring(tagStart + 1));
+        final byte[] expected = workers.get().mac(key, name, signed, tagStart);
+        if (!MessageDigest.isEqual(expected, tag)) {
+            throw new IllegalArgumentException("Invalid cookie signature");
+        }
+        return signed.substring(0, idStart);
+    }
+
+    /**
+     * Encrypts the unpadded base64url value with the current key.
+     *
+     * @param name the cookie name
+     * @param value
+     * @return
+     * @throws IllegalArgumentException if the value is not unpadded base64url
+     */
+    @Nonnull
+    public String encrypt(@Nonnull final String name, @Nonnull final String value) {
+        final Key key = keys.get(0);
+        final byte[] plain = ENCODING.decode(value);
+        final Worker worker = workers.get();
+        try {
+            final Cipher cipher = worker.getCipher();
+            worker.random.nextBytes(worker.iv);
+            cipher.init(Cipher.ENCRYPT_MODE, key.cipherKey, new GCMParameterSpec(TAG_BITS, worker.iv));
+            cipher.updateAAD(worker.buffer, 0, worker.ascii(name, name.length(), 0));
+            final byte[] out = worker.output(IV_BYTES + cipher.getOutputSize(plain.length));
+            System.arraycopy(worker.iv, 0, out, 0, IV_BYTES);
+            final int length = cipher.doFinal(plain, 0, plain.length, out, IV_BYTES);
+            return key.id + '.' + ENCODING.encode(out, 0, IV_BYTES + length);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Unable to encrypt cookie: " + name, ex);
+        }
+    }
+
+    /**
+     * Decrypts the encrypted value, with the key it was encrypted with.
+     *
+     * @param name the cookie name
+     * @param encrypted
+     * @return the unpadded base64url value which was encrypted
+     * @throws IllegalArgumentException if the value is not encrypted with any of the keys, or has been tampered with
+     */
+    @Nonnull
+    public String decrypt(@Nonnull final String name, @Nonnull final String encrypted) {
+        final int separator = encrypted.indexOf('.');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Unencrypted cookie value");
+        }
+        final Key key = getKey(encrypted.substring(0, separator));
+        final byte[] bytes = ENCODING.decode(encrypted.substring(separator + 1));
+        if (bytes.length < IV_BYTES + TAG_BITS / 8) {
+            throw new IllegalArgumentException("Truncated cookie value");
+        }
+        final Worker worker = workers.get();
+        try {
+            final Cipher cipher = worker.getCipher();
+            cipher.init(Cipher.DECRYPT_MODE, key.cipherKey, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_BYTES));
+            cipher.updateAAD(worker.buffer, 0, worker.ascii(name, name.length(), 0));
+            final byte[] out = worker.output(cipher.getOutputSize(bytes.length - IV_BYTES));
+            final int length = cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES, out, 0);
+            return ENCODING.encode(out, 0, length);
+        } catch (AEADBadTagException ex) {
+            throw new IllegalArgumentException("Invalid cookie encryption", ex);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Unable to decrypt cookie: " + name, ex);
+        }
+    }
+
+    @Nonnull
+    private Key getKey(final String id) {
+        final Key key = keysById.get(id);
+        if (key == null) {
+            throw new IllegalArgumentException("Unknown cookie key: " + id);
+        }
+        return key;
+    }
+
+    private static byte[] decodeSecret(final String secret) {
+        final String unpadded = CharMatcher.is('=').trimTrailingFrom(secret);
+        try {
+            return BaseEncoding.base64().omitPadding().decode(unpadded);
+        } catch (IllegalArgumentException ex) {
+            //may be url safe.
+        }
+        try {
+            return ENCODING.decode(unpadded);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static byte[] derive(final byte[] secret, final String label) {
+        try {
+            final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+            return mac.doFinal(label.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Unable to derive the cookie keys", ex);
+        }
+    }
+
+    private static final class Key {
+
+        private final int index;
+        private final String id;
+        private final SecretKeySpec macKey;
+        private final SecretKeySpec cipherKey;
+
+        Key(int index, String id, byte[] secret) {
+            this.index = index;
+            this.id = id;
+            this.macKey = new SecretKeySpec(derive(secret, "com.anosym.cookie.mac"), MAC_ALGORITHM);
+            this.cipherKey = new SecretKeySpec(Arrays.copyOf(derive(secret, "com.anosym.cookie.cipher"),
+                                                             CIPHER_KEY_BYTES), "AES");
+        }
+
+    }
+
+    /**
+     * The crypto instances and buffers of a thread.
+     */
+    private static final class Worker {
+
+        //By key index, initialized with their key on first use.
+        private final Mac[] macs;
+        private final byte[] tag = new byte[MAC_BYTES];
+        private final byte[] iv = new byte[IV_BYTES];
+        private final SecureRandom random = new SecureRandom();
+        private Cipher cipher;
+        private byte[] buffer = new byte[256];
+        private byte[] out = new byte[256];
+
+        Worker(int keys) {
+            this.macs = new Mac[keys];
+        }
+
+        /**
+         * The HMAC of the cookie name, {@code =} and the specified length of the text, into the reused tag buffer.
+         */
+        byte[] mac(final Key key, final String name, final String text, final int length) {
+            try {
+                Mac mac = macs[key.index];
+                if (mac == null) {
+                    mac = Mac.getInstance(MAC_ALGORITHM);
+                    mac.init(key.macKey);
+                    macs[key.index] = mac;
+                }
+                int end = ascii(name, name.length(), 0);
+                buffer[end++] = '=';
+                end = ascii(text, length, end);
+                mac.update(buffer, 0, end);
+                mac.doFinal(tag, 0);
+                return tag;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("Unable to sign cookie: " + name, ex);
+            }
+        }
+
+        /**
+         * Copies the specified length of the text into the buffer at the offset, leaving room for one more byte, and
+         * returns the end offset. Cookie names and values are ascii.
+         */
+        int ascii(final String text, final int length, final int offset) {
+            if (buffer.length <= offset + length) {
+                buffer = Arrays.copyOf(buffer, Math.max(offset + length + 1, 2 * buffer.length));
+            }
+            for (int i = 0; i < length; i++) {
+                buffer[offset + i] = (byte) text.charAt(i);
+            }
+            return offset + length;
+        }
+
+        byte[] output(final int length) {
+            if (out.length < length) {
+                out = new byte[Math.max(length, 2 * out.length)];
+            }
+            return out;
+        }
+
+        Cipher getCipher() throws GeneralSecurityException {
+            if (cipher == null) {
+                cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+            }
+            return cipher;
+        }
+
+    }
+
+}
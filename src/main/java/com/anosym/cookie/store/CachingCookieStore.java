@@ -0,0 +1,83 @@
+package com.anosym.cookie.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A read-through and write-through {@link MemoryCookieStore} in front of a slower store, such as an external one.
+ *
+ * The values of a token never change, hence cached values are never stale: tokens removed from the store by another
+ * node may only still be found in the cache, which is harmless since the browser no longer sends them. Values read
+ * from the store are cached for a few minutes, values put or touched for their time to live: the cached expiry then
+ * follows the expiry in the store, which is only touched once the cached value is past half its time to live.
+ *
+ * @author mochieng
+ */
+public final class CachingCookieStore implements CookieStore, Closeable {
+
+    private static final int READ_THROUGH_TTL_SECONDS = (int) TimeUnit.MINUTES.toSeconds(5);
+
+    private final CookieStore store;
+    private final MemoryCookieStore cache;
+
+    /**
+     * @param store
+     * @param maxBytes the approximate maximum memory footprint of the cached values
+     */
+    public CachingCookieStore(@Nonnull final CookieStore store, final long maxBytes) {
+        this.store = store;
+        this.cache = new MemoryCookieStore(maxBytes);
+    }
+
+    @Nullable
+    @Override
+    public String get(@Nonnull final String token) {
+        String value = cache.get(token);
+        if (value == null) {
+            value = store.get(token);
+            if (value != null) {
+                cache.put(token, value, READ_THROUGH_TTL_SECONDS);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public boolean put(@Nonnull final String token, @Nonnull final String value, final int ttlSeconds) {
+        if (!store.put(token, value, ttlSeconds)) {
+            cache.remove(token);
+            return false;
+        }
+        cache.put(token, value, ttlSeconds);
+        return true;
+    }
+
+    @Override
+    public void remove(@Nonnull final String token) {
+        cache.remove(token);
+        store.remove(token);
+    }
+
+    @Override
+    public boolean touch(@Nonnull final String token, @Nonnull final String value, final int ttlSeconds) {
+        if (cache.touch(token, value, ttlSeconds)) {
+            return store.touch(token, value, ttlSeconds);
+        }
+        if (cache.get(token) == null && store.touch(token, value, ttlSeconds)) {
+            cache.put(token, value, ttlSeconds);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (store instanceof Closeable) {
+            ((Closeable) store).close();
+        }
+    }
+
+}
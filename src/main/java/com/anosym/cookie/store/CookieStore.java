@@ -0,0 +1,60 @@
+package com.anosym.cookie.store;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the values of {@link com.anosym.cookie.annotation.Cookie#stored() } cookies on the server, by the token sent
+ * to the browser in their stead.
+ *
+ * The built-in stores are the in-memory {@link MemoryCookieStore}, the default, and the {@link MappedFileCookieStore}.
+ * External stores are registered through {@link java.util.ServiceLoader}, or named by the
+ * {@link com.anosym.cookie.CookieConfiguration#STORE} setting, and must have a public default constructor. Stores
+ * which are {@link java.io.Closeable} are closed with the web application.
+ *
+ * Stores are called on the request threads, hence must be thread-safe. The values of a token never change: a changed
+ * cookie value is put under a new token, and the replaced token removed. The values read are {@link #touch(String,
+ * String, int) touched}, such that the values of active browsers do not expire. Failures of a store are logged, and
+ * the cookie treated as not found, or written into the browser cookie as is.
+ *
+ * @author mochieng
+ */
+public interface CookieStore {
+
+    /**
+     * The value of the token, or null if the token is unknown, or its value expired.
+     *
+     * @param token
+     * @return
+     */
+    @Nullable
+    String get(@Nonnull String token);
+
+    /**
+     * Puts the value of the token, which expires after the specified time.
+     *
+     * @param token
+     * @param value
+     * @param ttlSeconds
+     * @return false if the value was not stored, for instance as it is too large, in which case the value is written
+     * into the browser cookie as is
+     */
+    boolean put(@Nonnull String token, @Nonnull String value, int ttlSeconds);
+
+    void remove(@Nonnull String token);
+
+    /**
+     * Extends the time to live of the value of the token, just read, to the specified time. Stores which know the
+     * expiry of their values only write again the values past half their time to live, the default puts the value
+     * again.
+     *
+     * @param token
+     * @param value the value of the token
+     * @param ttlSeconds
+     * @return true if the time to live was extended, false if it was not yet due, or the token is unknown
+     */
+    default boolean touch(@Nonnull String token, @Nonnull String value, int ttlSeconds) {
+        return put(token, value, ttlSeconds);
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.anosym.cookie.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link CookieStore} in a memory mapped file, outside the heap, whose values survive restarts of the web
+ * application.
+ *
+ * The file is a set associative table of fixed size slots: each token hashes to a bucket of eight slots, and its value
+ * is put into the slot of the same token, or a free or expired slot, or else the slot expiring first. Values which do
+ * not fit into a slot are not stored. Each bucket is locked while it is accessed. Touching a value only rewrites its
+ * expiry time.
+ *
+ * The file starts with a header describing its layout. A file of a different layout is cleared when it is opened.
+ *
+ * @author mochieng
+ */
+public final class MappedFileCookieStore implements CookieStore, Closeable {
+
+    private static final int MAGIC = 0x436b5331;
+    private static final int HEADER_LENGTH = 16;
+    private static final int WAYS = 8;
+    private static final int MAX_LOCKS = 256;
+    //The slot layout: the expiry time, 0 if the slot is free, the token length, the value length, the token and value.
+    private static final int EXPIRES_AT = 0;
+    private static final int TOKEN_LENGTH = 8;
+    private static final int VALUE_LENGTH = 10;
+    private static final int SLOT_DATA = 14;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slotBytes;
+    private final int buckets;
+    private final Object[] locks;
+
+    /**
+     * Opens the store file, creating it if it does not exist.
+     *
+     * @param file
+     * @param maxBytes the size of the file
+     * @param slotBytes the size of each slot, which bounds the length of the tokens and values stored
+     * @throws IOException
+     * @throws IllegalArgumentException if the file is too small for a bucket of slots of the size, or larger than 2GB
+     */
+    public MappedFileCookieStore(@Nonnull final Path file, final long maxBytes, final int slotBytes)
+            throws IOException {
+        if (slotBytes <= SLOT_DATA) {
+            throw new IllegalArgumentException("Slots must be larger than " + SLOT_DATA + " bytes: " + slotBytes);
+        }
+        final long bucketBytes = (long) WAYS * slotBytes;
+        final long bucketCount = (maxBytes - HEADER_LENGTH) / bucketBytes;
+        if (bucketCount < 1 || HEADER_LENGTH + bucketCount * bucketBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported cookie store size: " + maxBytes);
+        }
+        this.slotBytes = slotBytes;
+        this.buckets = (int) bucketCount;
+        this.locks = new Object[Math.min(MAX_LOCKS, buckets)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        try {
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_LENGTH + buckets * bucketBytes);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != slotBytes || buffer.getInt(8) != buckets) {
+            clear();
+        }
+    }
+
+    private void clear() {
+        final byte[] zeros = new byte[slotBytes];
+        final ByteBuffer view = buffer.duplicate();
+        view.position(HEADER_LENGTH);
+        while (view.remaining() >= zeros.length) {
+            view.put(zeros);
+        }
+        buffer.putInt(4, slotBytes);
+        buffer.putInt(8, buckets);
+        buffer.putInt(0, MAGIC);
+    }
+
+    @Nullable
+    @Override
+    public String get(@Nonnull final String token) {
+        final byte[] key = token.getBytes(StandardCharsets.UTF_8);
+        final int bucket = bucket(token);
+        synchronized (lock(bucket)) {
+            final ByteBuffer view = buffer.duplicate();
+            final int slot = find(view, bucket, key, System.currentTimeMillis());
+            if (slot < 0) {
+                return null;
+            }
+            final byte[] value = new byte[view.getInt(slot + VALUE_LENGTH)];
+            view.position(slot + SLOT_DATA + key.length);
+            view.get(value);
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public boolean put(@Nonnull final String token, @Nonnull final String value, final int ttlSeconds) {
+        final byte[] key = token.getBytes(StandardCharsets.UTF_8);
+        final byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        if (key.length > Short.MAX_VALUE || SLOT_DATA + key.length + data.length > slotBytes) {
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+        final int bucket = bucket(token);
+        synchronized (lock(bucket)) {
+            final ByteBuffer view = buffer.duplicate();
+            int slot = find(view, bucket, key, now);
+            if (slot < 0) {
+                slot = victim(view, bucket, now);
+            }
+            view.putLong(slot + EXPIRES_AT, 0);
+            view.putShort(slot + TOKEN_LENGTH, (short) key.length);
+            view.putInt(slot + VALUE_LENGTH, data.length);
+            view.position(slot + SLOT_DATA);
+            view.put(key);
+            view.put(data);
+            //written last, such that a torn write leaves the slot free.
+            view.putLong(slot + EXPIRES_AT, now + ttlSeconds * 1000L);
+        }
+        return true;
+    }
+
+    @Override
+    public void remove(@Nonnull final String token) {
+        final byte[] key = token.getBytes(StandardCharsets.UTF_8);
+        final int bucket = bucket(token);
+        synchronized (lock(bucket)) {
+            final ByteBuffer view = buffer.duplicate();
+            final int slot = find(view, bucket, key, System.currentTimeMillis());
+            if (slot >= 0) {
+                view.putLong(slot + EXPIRES_AT, 0);
+            }
+        }
+    }
+
+    @Override
+    public boolean touch(@Nonnull final String token, @Nonnull final String value, final int ttlSeconds) {
+        final byte[] key = token.getBytes(StandardCharsets.UTF_8);
+        final long now = System.currentTimeMillis();
+        final int bucket = bucket(token);
+        synchronized (lock(bucket)) {
+            final ByteBuffer view = buffer.duplicate();
+            final int slot = find(view, bucket, key, now);
+            if (slot < 0 || view.getLong(slot + EXPIRES_AT) - now > ttlSeconds * 500L) {
+                return false;
+            }
+            view.putLong(slot + EXPIRES_AT, now + ttlSeconds * 1000L);
+        }
+        return true;
+    }
+
+    /**
+     * The offset of the live slot of the token within the bucket, or -1.
+     */
+    private int find(final ByteBuffer view, final int bucket, final byte[] key, final long now) {
+        final byte[] candidate = new byte[key.length];
+        for (int way = 0; way < WAYS; way++) {
+            final int slot = slot(bucket, way);
+            if (view.getLong(slot + EXPIRES_AT) > now && view.getShort(slot + TOKEN_LENGTH) == key.length) {
+                view.position(slot + SLOT_DATA);
+                view.get(candidate);
+                if (Arrays.equals(candidate, key)) {
+                    return slot;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The offset of the first free or expired slot of the bucket, otherwise of the slot expiring first.
+     */
+    private int victim(final ByteBuffer view, final int bucket, final long now) {
+        int victim = slot(bucket, 0);
+        long victimExpiresAt = Long.MAX_VALUE;
+        for (int way = 0; way < WAYS; way++) {
+            final int slot = slot(bucket, way);
+            final long expiresAt = view.getLong(slot + EXPIRES_AT);
+            if (expiresAt <= now) {
+                return slot;
+            }
+            if (expiresAt < victimExpiresAt) {
+                victim = slot;
+                victimExpiresAt = expiresAt;
+            }
+        }
+        return victim;
+    }
+
+    private int bucket(final String token) {
+        return (token.hashCode() & Integer.MAX_VALUE) % buckets;
+    }
+
+    private int slot(final int bucket, final int way) {
+        return HEADER_LENGTH + (bucket * WAYS + way) * slotBytes;
+    }
+
+    private Object lock(final int bucket) {
+        return locks[bucket % locks.length];
+    }
+
+    /**
+     * Writes the mapped file to the storage device, and closes the file.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.anosym.cookie.store;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link CookieStore} in the heap of the web application, bounded by the approximate memory footprint of its
+ * entries, evicting the least recently used entries first.
+ *
+ * Values are lost with the application, and are not shared by the nodes of a cluster, hence stored cookies are only
+ * found on the node which wrote them, unless sessions are sticky.
+ *
+ * @author mochieng
+ */
+public final class MemoryCookieStore implements CookieStore {
+
+    //The approximate fixed cost of an entry: the cache entry, and the entry of this store.
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final Cache<String, Entry> entries;
+
+    /**
+     * @param maxBytes the approximate maximum memory footprint of the entries
+     */
+    public MemoryCookieStore(final long maxBytes) {
+        this.entries = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(new Weigher<String, Entry>() {
+
+                    @Override
+                    public int weigh(String token, Entry entry) {
+                        return ENTRY_OVERHEAD + 2 * (token.length() + entry.value.length());
+                    }
+                })
+                .build();
+    }
+
+    @Nullable
+    @Override
+    public String get(@Nonnull final String token) {
+        final Entry entry = entries.getIfPresent(token);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.invalidate(token);
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public boolean put(@Nonnull final String token, @Nonnull final String value, final int ttlSeconds) {
+        entries.put(token, new Entry(value, System.currentTimeMillis() + ttlSeconds * 1000L));
+        return true;
+    }
+
+    @Override
+    public void remove(@Nonnull final String token) {
+        entries.invalidate(token);
+    }
+
+    @Override
+    public boolean touch(@Nonnull final String token, @Nonnull final String value, final int ttlSeconds) {
+        final Entry entry = entries.getIfPresent(token);
+        final long now = System.currentTimeMillis();
+        if (entry == null || entry.expiresAt <= now || entry.expiresAt - now > ttlSeconds * 500L) {
+            return false;
+        }
+        entries.put(token, new Entry(entry.value, now + ttlSeconds * 1000L));
+        return true;
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+
+        private final String value;
+        private final long expiresAt;
+
+        Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
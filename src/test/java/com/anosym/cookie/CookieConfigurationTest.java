@@ -0,0 +1,103 @@
+package com.anosym.cookie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * The configuration of a web application, read once, warning of the settings which are ignored.
+ *
+ * @author mochieng
+ */
+public class CookieConfigurationTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void isNotReadByCurrent() {
+        final ServletContext context = MockServlet.context();
+        assertNull(CookieConfiguration.current(context));
+        final CookieConfiguration configuration = CookieConfiguration.of(context);
+        assertSame(configuration, CookieConfiguration.current(context));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void warnsThatLazyDecodingIsIgnored() {
+        final Logger log = Logger.getLogger(CookieConfiguration.class.getName());
+        final List<LogRecord> warnings = new ArrayList<>();
+        final Handler handler = new Handler() {
+
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getLevel() == Level.WARNING) {
+                    warnings.add(record);
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        log.addHandler(handler);
+        try {
+            CookieConfiguration.of(MockServlet.context());
+            assertEquals(0, warnings.size());
+            CookieConfiguration.of(MockServlet.context(Collections.singletonMap(CookieConfiguration.LAZY_DECODING,
+                                                                                "true")));
+            assertEquals(1, warnings.size());
+        } finally {
+            log.removeHandler(handler);
+        }
+    }
+
+    @Test
+    public void isReadOnceByConcurrentCallers() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int run = 0; run < 100; run++) {
+                final ServletContext context = MockServlet.context();
+                final CountDownLatch start = new CountDownLatch(1);
+                final List<Future<CookieConfiguration>> configurations = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    configurations.add(executor.submit(new Callable<CookieConfiguration>() {
+
+                        @Override
+                        public CookieConfiguration call() throws Exception {
+                            start.await();
+                            return CookieConfiguration.of(context);
+                        }
+                    }));
+                }
+                start.countDown();
+                final CookieConfiguration first = configurations.get(0).get();
+                for (Future<CookieConfiguration> configuration : configurations) {
+                    assertSame(first, configuration.get());
+                }
+                assertSame(first, CookieConfiguration.current(context));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.anosym.cookie;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.ServletContext;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Minimal servlet request, response, session and context stand-ins for tests, backed by dynamic proxies.
+ *
+ * Only the methods used by cookie-helper are implemented, everything else returns the default value of its return type.
+ *
+ * @author mochieng
+ */
+public final class MockServlet {
+
+    private MockServlet() {
+    }
+
+    public static ServletContext context(final Map<String, String> initParameters) {
+        final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        return proxy(ServletContext.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getInitParameter":
+                        return initParameters.get((String) args[0]);
+                    case "getAttribute":
+                        return attributes.get((String) args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    case "removeAttribute":
+                        attributes.remove((String) args[0]);
+                        return null;
+                    default:
+                        return defaultValue(method);
+                }
+            }
+        });
+    }
+
+    public static ServletContext context() {
+        return context(Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * A session whose attributes may be accessed concurrently.
+     */
+    public static HttpSession session(final ServletContext context) {
+        final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        return proxy(HttpSession.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getServletContext":
+                        return context;
+                    case "getAttribute":
+                        return attributes.get((String) args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    case "removeAttribute":
+                        attributes.remove((String) args[0]);
+                        return null;
+                    default:
+                        return defaultValue(method);
+                }
+            }
+        });
+    }
+
+    /**
+     * A request of the URI, carrying the {@code Cookie} header, if any, from which its container parsed cookies are
+     * derived.
+     */
+    public static HttpServletRequest request(final ServletContext context, final String uri,
+                                             final String cookieHeader) {
+        return request(context, uri, cookieHeader, null);
+    }
+
+    /**
+     * A request of the session, as {@link #request(ServletContext, String, String) }.
+     */
+    public static HttpServletRequest request(final ServletContext context, final String uri, final String cookieHeader,
+                                             final HttpSession session) {
+        final Cookie[] cookies = parse(cookieHeader);
+        final Map<String, Object> attributes = new HashMap<>();
+        return proxy(HttpServletRequest.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getServletContext":
+                        return context;
+                    case "getAttribute":
+                        return attributes.get((String) args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    case "removeAttribute":
+                        attributes.remove((String) args[0]);
+                        return null;
+                    case "getCookies":
+                        return cookies.length > 0 ? cookies.clone() : null;
+                    case "getHeader":
+                        return "Cookie".equalsIgnoreCase((String) args[0]) ? cookieHeader : null;
+                    case "getHeaders":
+                        return "Cookie".equalsIgnoreCase((String) args[0]) && cookieHeader != null
+                                ? Collections.enumeration(Collections.singletonList(cookieHeader))
+                                : Collections.emptyEnumeration();
+                    case "getRequestURI":
+                        return uri;
+                    case "getContextPath":
+                        return "";
+                    case "getSession":
+                        return session;
+                    default:
+                        return defaultValue(method);
+                }
+            }
+        });
+    }
+
+    /**
+     * A response recording the {@code Set-Cookie} headers added to it, and the cookies added to it as their headers.
+     */
+    public static HttpServletResponse response(final List<String> setCookieHeaders) {
+        return proxy(HttpServletResponse.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "addCookie":
+                        final Cookie cookie = (Cookie) args[0];
+                        setCookieHeaders.add(cookie.getName() + "=" + cookie.getValue());
+                        return null;
+                    case "addHeader":
+                        if ("Set-Cookie".equalsIgnoreCase((String) args[0])) {
+                            setCookieHeaders.add((String) args[1]);
+                        }
+                        return null;
+                    default:
+                        return defaultValue(method);
+                }
+            }
+        });
+    }
+
+    /**
+     * The {@code Cookie} header a browser sends back for the {@code Set-Cookie} headers, ignoring their attributes, and
+     * dropping the expired cookies.
+     */
+    public static String toCookieHeader(final List<String> setCookieHeaders) {
+        final Map<String, String> cookies = new java.util.LinkedHashMap<>();
+        for (String header : setCookieHeaders) {
+            final String pair = header.split(";", 2)[0];
+            final int separator = pair.indexOf('=');
+            if (header.contains("Max-Age=0")) {
+                cookies.remove(pair.substring(0, separator));
+            } else {
+                cookies.put(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        final StringBuilder cookieHeader = new StringBuilder();
+        for (Map.Entry<String, String> cookie : cookies.entrySet()) {
+            if (cookieHeader.length() > 0) {
+                cookieHeader.append("; ");
+            }
+            cookieHeader.append(cookie.getKey()).append('=').append(cookie.getValue());
+        }
+        return cookieHeader.toString();
+    }
+
+    private static Cookie[] parse(final String cookieHeader) {
+        final List<Cookie> cookies = new ArrayList<>();
+        if (cookieHeader != null) {
+            for (String pair : cookieHeader.split(";")) {
+                final int separator = pair.indexOf('=');
+                if (separator > 0) {
+                    cookies.add(new Cookie(pair.substring(0, separator).trim(), pair.substring(separator + 1).trim()));
+                }
+            }
+        }
+        return cookies.toArray(new Cookie[cookies.size()]);
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(MockServlet.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object defaultValue(Method method) {
+        final Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+}
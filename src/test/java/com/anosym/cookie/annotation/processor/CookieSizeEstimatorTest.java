@@ -0,0 +1,178 @@
+package com.anosym.cookie.annotation.processor;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.google.common.base.Joiner;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import javax.annotation.Nonnull;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.atteo.classindex.ClassIndex;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The worst case cookie sizes reported by the processor: plain, signed, encrypted and stored encoded cookies, and
+ * individual cookies, are reported as warnings once over the budget, or as errors if the build is to fail.
+ *
+ * @author mochieng
+ */
+public class CookieSizeEstimatorTest {
+
+    //The header, an int and a long.
+    private static final int PAYLOAD = 5 + 5 + 10;
+    private static final String FIELDS = "int visits; long at;";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reportsEncodedCookiesOverTheBudget() throws IOException {
+        final String source = cookie("Visits", "encoded = true", FIELDS);
+        final int size = "Visits".length() + 1 + (PAYLOAD * 4 + 2) / 3;
+        assertReportedOver(source, "Visits", size);
+    }
+
+    @Test
+    public void reportsSignedCookiesOverTheBudget() throws IOException {
+        final String source = cookie("Visits", "encoded = true, protection = Protection.SIGNED", FIELDS);
+        //the separators, the longest key id and the HMAC-SHA256.
+        final int size = "Visits".length() + 1 + (PAYLOAD * 4 + 2) / 3 + 2 + 16 + 43;
+        assertReportedOver(source, "Visits", size);
+    }
+
+    @Test
+    public void reportsEncryptedCookiesOverTheBudget() throws IOException {
+        final String source = cookie("Visits", "encoded = true, protection = Protection.ENCRYPTED", FIELDS);
+        //the longest key id and its separator, then the IV and tag encrypted with the payload.
+        final int size = "Visits".length() + 1 + 16 + 1 + ((PAYLOAD + 12 + 16) * 4 + 2) / 3;
+        assertReportedOver(source, "Visits", size);
+    }
+
+    @Test
+    public void reportsTheTokenOfStoredCookies() throws IOException {
+        //the fields are kept on the server, however large.
+        final String source = cookie("Visits", "encoded = true, stored = true", FIELDS + " String name;");
+        final int size = "Visits".length() + 1 + 23;
+        assertReportedOver(source, "Visits", size);
+    }
+
+    @Test
+    public void reportsIndividualCookiesOverTheBudget() throws IOException {
+        final String source = cookie("Visits", "", "@MaxLength(100) String name; int visits;");
+        assertReportedOver(source, "name", "name".length() + 1 + 100);
+    }
+
+    @Test
+    public void notesUnboundedCookies() throws IOException {
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(cookie("Visits", "encoded = true",
+                                                                                      FIELDS + " String name;"), 10);
+        assertReported(Diagnostic.Kind.NOTE, "Size of cookie Visits is unbounded, due to name", diagnostics);
+    }
+
+    @Test
+    public void failsOnCookieSizeIfRequired() throws IOException {
+        final String source = cookie("Visits", "encoded = true", FIELDS);
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(compile(source, diagnostics, "-A" + CookieSizeEstimator.MAX_COOKIE_BYTES_OPTION + "=10",
+                            "-A" + CookieSizeEstimator.FAIL_ON_COOKIE_SIZE_OPTION + "=true"));
+        assertReported(Diagnostic.Kind.ERROR, "Cookie Visits may reach ", diagnostics.getDiagnostics());
+    }
+
+    /**
+     * The cookie of the size is within the budget of its size, and reported once the budget is a byte short.
+     */
+    private void assertReportedOver(final String source, final String name, final int size) throws IOException {
+        assertTrue(compile(source, size).isEmpty());
+        assertReported(Diagnostic.Kind.WARNING, "Cookie " + name + " may reach " + size + " bytes, over the budget of "
+                       + (size - 1) + " bytes", compile(source, size - 1));
+    }
+
+    private static void assertReported(final Diagnostic.Kind kind, final String message,
+                                       final List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        assertEquals(diagnostics.toString(), 1, diagnostics.size());
+        assertEquals(kind, diagnostics.get(0).getKind());
+        final String reported = diagnostics.get(0).getMessage(Locale.ROOT);
+        assertTrue(reported, reported.startsWith(message));
+    }
+
+    private static String cookie(final String name, final String attributes, final String fields) {
+        return "package sizes;\n"
+                + "import com.anosym.cookie.annotation.*;\n"
+                + "@Cookie(" + attributes + ")\n"
+                + "public class " + name + " { " + fields + " }\n";
+    }
+
+    /**
+     * The diagnostics of processing the source with the budget.
+     */
+    private List<Diagnostic<? extends JavaFileObject>> compile(final String source, final int maxCookieBytes)
+            throws IOException {
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(diagnostics.getDiagnostics().toString(),
+                   compile(source, diagnostics, "-A" + CookieSizeEstimator.MAX_COOKIE_BYTES_OPTION + "="
+                           + maxCookieBytes));
+        return diagnostics.getDiagnostics();
+    }
+
+    private boolean compile(final String source, final DiagnosticCollector<JavaFileObject> diagnostics,
+                            final String... processorOptions) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final File output = folder.newFolder();
+        final List<String> options = new ArrayList<>(Arrays.asList(
+                "-proc:only", "-classpath", getClasspath(), "-s", output.getPath(), "-d", output.getPath()));
+        options.addAll(Arrays.asList(processorOptions));
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null,
+                                                                   Collections.singletonList(new Source(source)));
+        task.setProcessors(Collections.singletonList(new CookieValidationProcessor()));
+        return task.call();
+    }
+
+    /**
+     * The annotations of the cookie, and the types they refer to.
+     */
+    private static String getClasspath() {
+        final List<String> classpath = new ArrayList<>();
+        for (Class<?> type : Arrays.asList(Cookie.class, ClassIndex.class, Nonnull.class, Joiner.class)) {
+            try {
+                classpath.add(new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+            } catch (URISyntaxException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return Joiner.on(File.pathSeparator).join(classpath);
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String content;
+
+        Source(String content) {
+            super(URI.create("string:///sizes/Visits.java"), Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.anosym.cookie.codec;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.Embeddable;
+import com.anosym.cookie.schema.CookieSchema;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The snapshots of decoded values: a hit restores the values of a full decode, copying their mutable values, while
+ * cookies whose values may be mutated in place, and values of other schema versions, are never cached.
+ *
+ * @author mochieng
+ */
+public class DecodedCookieCacheTest {
+
+    private final DecodedCookieCache cache = new DecodedCookieCache(1 << 20);
+
+    @Test
+    public void restoresTheValuesOfAFullDecode() {
+        final CookieSchema schema = CookieSchema.of(CachedCookie.class);
+        final String value = EncodedCookieFormat.encode(schema, CachedCookie.sample());
+        final CachedCookie decoded = new CachedCookie();
+        assertTrue(EncodedCookieFormat.decode(schema, decoded, value));
+
+        final CachedCookie missed = new CachedCookie();
+        assertTrue(cache.decode(schema, missed, value));
+        assertEquals(0, cache.stats().hitCount());
+        assertEquals(1, cache.size());
+        decoded.assertEqualTo(missed);
+
+        final CachedCookie hit = new CachedCookie();
+        assertTrue(cache.decode(schema, hit, value));
+        assertEquals(1, cache.stats().hitCount());
+        decoded.assertEqualTo(hit);
+    }
+
+    @Test
+    public void copiesMutableValuesOnEveryHit() {
+        final CookieSchema schema = CookieSchema.of(CachedCookie.class);
+        final String value = EncodedCookieFormat.encode(schema, CachedCookie.sample());
+        final CachedCookie missed = new CachedCookie();
+        cache.decode(schema, missed, value);
+        missed.calendar.add(Calendar.DAY_OF_MONTH, 1);
+        missed.bytes[0]++;
+
+        final CachedCookie hit = new CachedCookie();
+        cache.decode(schema, hit, value);
+        CachedCookie.sample().assertEqualTo(hit);
+        hit.calendar.add(Calendar.DAY_OF_MONTH, 1);
+        hit.bytes[0]++;
+
+        final CachedCookie nextHit = new CachedCookie();
+        cache.decode(schema, nextHit, value);
+        assertEquals(2, cache.stats().hitCount());
+        assertNotSame(hit.calendar, nextHit.calendar);
+        assertNotSame(hit.bytes, nextHit.bytes);
+        CachedCookie.sample().assertEqualTo(nextHit);
+    }
+
+    @Test
+    public void bypassesCookiesOfMutableValues() {
+        final ConvertedCookie converted = new ConvertedCookie();
+        converted.amount = new Amount(42);
+        assertBypassed(converted, new ConvertedCookie());
+        final CollectionCookie collection = new CollectionCookie();
+        collection.ids = Arrays.asList(1L, 2L);
+        assertBypassed(collection, new CollectionCookie());
+        final EmbeddingCookie embedding = new EmbeddingCookie();
+        embedding.area = new Area();
+        embedding.area.width = 3;
+        assertBypassed(embedding, new EmbeddingCookie());
+    }
+
+    @Test
+    public void doesNotCacheValuesOfOtherSchemas() {
+        final CookieSchema schema = CookieSchema.of(CachedCookie.class);
+        final ConvertedCookie other = new ConvertedCookie();
+        other.amount = new Amount(42);
+        final String value = EncodedCookieFormat.encode(CookieSchema.of(ConvertedCookie.class), other);
+        final CachedCookie decoded = new CachedCookie();
+        assertFalse(cache.decode(schema, decoded, value));
+        assertFalse(cache.decode(schema, decoded, value));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.stats().hitCount());
+        new CachedCookie().assertEqualTo(decoded);
+    }
+
+    private void assertBypassed(final Object cookie, final Object decoded) {
+        final CookieSchema schema = CookieSchema.of(cookie.getClass());
+        final String value = EncodedCookieFormat.encode(schema, cookie);
+        assertTrue(cache.decode(schema, decoded, value));
+        assertTrue(cache.decode(schema, decoded, value));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.stats().requestCount());
+        assertEquals(value, EncodedCookieFormat.encode(schema, decoded));
+    }
+
+    @Cookie(encoded = true)
+    public static class CachedCookie {
+
+        int visits;
+        String name;
+        Calendar calendar;
+        byte[] bytes;
+        Instant seen;
+        TimeUnit unit;
+
+        static CachedCookie sample() {
+            final CachedCookie cookie = new CachedCookie();
+            cookie.visits = 42;
+            cookie.name = "caf\u00e9";
+            cookie.calendar = Calendar.getInstance();
+            cookie.calendar.setTimeInMillis(1_500_000_000_123L);
+            cookie.bytes = new byte[]{0, -1, 127};
+            cookie.seen = Instant.ofEpochSecond(1_500_000_000L, 456);
+            cookie.unit = TimeUnit.HOURS;
+            return cookie;
+        }
+
+        void assertEqualTo(final CachedCookie other) {
+            assertEquals(visits, other.visits);
+            assertEquals(name, other.name);
+            assertEquals(calendar != null ? calendar.getTimeInMillis() : null,
+                         other.calendar != null ? other.calendar.getTimeInMillis() : null);
+            assertArrayEquals(bytes, other.bytes);
+            assertEquals(seen, other.seen);
+            assertEquals(unit, other.unit);
+        }
+
+    }
+
+    @Cookie(encoded = true)
+    public static class ConvertedCookie {
+
+        int visits;
+        Amount amount;
+
+    }
+
+    @Cookie(encoded = true)
+    public static class CollectionCookie {
+
+        int visits;
+        List<Long> ids;
+
+    }
+
+    @Cookie(encoded = true)
+    public static class EmbeddingCookie {
+
+        int visits;
+        Area area;
+
+    }
+
+    @Embeddable
+    public static class Area {
+
+        int width;
+
+    }
+
+    /**
+     * A mutable value, converted by an application converter.
+     */
+    public static class Amount {
+
+        long cents;
+
+        Amount(long cents) {
+            this.cents = cents;
+        }
+
+    }
+
+    public static class AmountConverter implements CookieConverter<Amount> {
+
+        @Nonnull
+        @Override
+        public Class<Amount> getType() {
+            return Amount.class;
+        }
+
+        @Nonnull
+        @Override
+        public String toText(@Nonnull Amount value) {
+            return Long.toString(value.cents);
+        }
+
+        @Nonnull
+        @Override
+        public Amount fromText(@Nonnull String text) {
+            return new Amount(Long.parseLong(text));
+        }
+
+        @Override
+        public void write(@Nonnull CookieOutput out, @Nonnull Amount value) {
+            out.writeVarLong(value.cents);
+        }
+
+        @Nonnull
+        @Override
+        public Amount read(@Nonnull CookieInput in) {
+            return new Amount(in.readVarLong());
+        }
+
+    }
+
+}
@@ -0,0 +1,310 @@
+package com.anosym.cookie.codec;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.Embeddable;
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+import com.google.common.io.BaseEncoding;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Round trips of encoded cookies through their generated codecs and reflectively, and the values which are rejected.
+ *
+ * @author mochieng
+ */
+public class EncodedCookieFormatTest {
+
+    @Test
+    public void roundTripsEveryFieldType() {
+        final AllTypesCookie cookie = AllTypesCookie.sample();
+        final AllTypesCookie decoded = new AllTypesCookie();
+        assertTrue(EncodedCookieFormat.decode(CookieSchema.of(AllTypesCookie.class), decoded,
+                                              EncodedCookieFormat.encode(CookieSchema.of(AllTypesCookie.class),
+                                                                         cookie)));
+        cookie.assertEqualTo(decoded);
+    }
+
+    @Test
+    public void roundTripsNulls() {
+        final AllTypesCookie cookie = new AllTypesCookie();
+        final AllTypesCookie decoded = AllTypesCookie.sample();
+        final CookieSchema schema = CookieSchema.of(AllTypesCookie.class);
+        assertTrue(EncodedCookieFormat.decode(schema, decoded, EncodedCookieFormat.encode(schema, cookie)));
+        cookie.assertEqualTo(decoded);
+    }
+
+    @Test
+    public void roundTripsThroughGeneratedCodecs() {
+        final CookieSchema schema = CookieSchema.of(SimpleTypesCookie.class);
+        assertNotNull(schema.getCodec());
+        final SimpleTypesCookie cookie = SimpleTypesCookie.sample();
+        final SimpleTypesCookie decoded = new SimpleTypesCookie();
+        assertTrue(EncodedCookieFormat.decode(schema, decoded, EncodedCookieFormat.encode(schema, cookie)));
+        cookie.assertEqualTo(decoded);
+        final SimpleTypesCookie empty = new SimpleTypesCookie();
+        assertTrue(EncodedCookieFormat.decode(schema, decoded, EncodedCookieFormat.encode(schema, empty)));
+        empty.assertEqualTo(decoded);
+    }
+
+    @Test
+    public void roundTripsTextThroughGeneratedCodecs() {
+        final CookieSchema schema = CookieSchema.of(SimpleTypesCookie.class);
+        final SimpleTypesCookie cookie = SimpleTypesCookie.sample();
+        final SimpleTypesCookie decoded = new SimpleTypesCookie();
+        for (CookieFieldSchema field : schema.getFields()) {
+            schema.getCodec().setValue(decoded, field.getIndex(), schema.getCodec().getValue(cookie, field.getIndex()));
+        }
+        cookie.assertEqualTo(decoded);
+    }
+
+    @Test
+    public void accessesStructuredFieldsReflectively() {
+        assertNull(CookieSchema.of(AllTypesCookie.class).getCodec());
+        assertNull(CookieSchema.of(ReflectiveCookie.class).getCodec());
+    }
+
+    @Test
+    public void roundTripsReflectively() {
+        final ReflectiveCookie cookie = new ReflectiveCookie(42, "caf\u00e9 \ud83c\udf6a", Arrays.asList(3L, 1L, 2L));
+        final ReflectiveCookie decoded = new ReflectiveCookie(0, null, null);
+        final CookieSchema schema = CookieSchema.of(ReflectiveCookie.class);
+        assertTrue(EncodedCookieFormat.decode(schema, decoded, EncodedCookieFormat.encode(schema, cookie)));
+        assertEquals(42, decoded.visits);
+        assertEquals("caf\u00e9 \ud83c\udf6a", decoded.name);
+        assertEquals(Arrays.asList(3L, 1L, 2L), decoded.ids);
+    }
+
+    @Test
+    public void appendsTheEncodedValue() {
+        final AllTypesCookie cookie = AllTypesCookie.sample();
+        final CookieSchema schema = CookieSchema.of(AllTypesCookie.class);
+        final StringBuilder target = new StringBuilder("name=");
+        final int length = EncodedCookieFormat.encode(schema, cookie, target);
+        assertEquals("name=" + EncodedCookieFormat.encode(schema, cookie), target.toString());
+        assertEquals(target.length() - "name=".length(), length);
+    }
+
+    @Test
+    public void ignoresValuesOfOtherSchemas() {
+        final ReflectiveCookie other = new ReflectiveCookie(7, "other", null);
+        final AllTypesCookie decoded = AllTypesCookie.sample();
+        assertFalse(EncodedCookieFormat.decode(CookieSchema.of(AllTypesCookie.class), decoded,
+                                               EncodedCookieFormat.encode(CookieSchema.of(ReflectiveCookie.class),
+                                                                          other)));
+        AllTypesCookie.sample().assertEqualTo(decoded);
+    }
+
+    @Test
+    public void rejectsMalformedValues() {
+        final CookieSchema schema = CookieSchema.of(AllTypesCookie.class);
+        final String value = EncodedCookieFormat.encode(schema, AllTypesCookie.sample());
+        assertRejected(schema, "not base64 !");
+        assertRejected(schema, value.substring(0, 4));
+        assertRejected(schema, value.substring(0, value.length() - 8));
+        //another version.
+        assertRejected(schema, "B" + value.substring(1));
+    }
+
+    @Test
+    public void rejectsLegacyValues() {
+        final String legacy = BaseEncoding.base64().encode("0=42".getBytes(StandardCharsets.UTF_8)) + ";"
+                + BaseEncoding.base64().encode("1=name".getBytes(StandardCharsets.UTF_8));
+        assertRejected(CookieSchema.of(ReflectiveCookie.class), legacy);
+    }
+
+    private static void assertRejected(final CookieSchema schema, final String value) {
+        try {
+            EncodedCookieFormat.decode(schema, new AllTypesCookie(), value);
+            fail("Decoded malformed value: " + value);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            //expected.
+        }
+    }
+
+    @Cookie(encoded = true)
+    public static class AllTypesCookie {
+
+        int anInt;
+        long aLong;
+        short aShort;
+        byte aByte;
+        float aFloat;
+        double aDouble;
+        char aChar;
+        boolean aBoolean;
+        Integer boxedInt;
+        Long boxedLong;
+        Character boxedChar;
+        Boolean boxedBoolean;
+        String text;
+        BigDecimal decimal;
+        Calendar calendar;
+        int[] ints;
+        long[] longs;
+        byte[] bytes;
+        List<String> names;
+        SortedSet<Long> ids;
+        List<Point> points;
+        Point point;
+
+        static AllTypesCookie sample() {
+            final AllTypesCookie cookie = new AllTypesCookie();
+            cookie.anInt = -1_000_000;
+            cookie.aLong = Long.MAX_VALUE;
+            cookie.aShort = Short.MIN_VALUE;
+            cookie.aByte = -3;
+            cookie.aFloat = 1.5f;
+            cookie.aDouble = -Math.PI;
+            cookie.aChar = '\u00e9';
+            cookie.aBoolean = true;
+            cookie.boxedInt = 0;
+            cookie.boxedLong = -1L;
+            cookie.boxedChar = 'x';
+            cookie.boxedBoolean = false;
+            cookie.text = "caf\u00e9 \ud83c\udf6a; = \"";
+            cookie.decimal = new BigDecimal("-12345.678900");
+            cookie.calendar = Calendar.getInstance();
+            cookie.calendar.setTimeInMillis(1_500_000_000_123L);
+            cookie.ints = new int[]{1, -2, Integer.MAX_VALUE};
+            cookie.longs = new long[]{Long.MIN_VALUE, 0};
+            cookie.bytes = new byte[]{0, -1, 127};
+            cookie.names = new ArrayList<>(Arrays.asList("a", null, ""));
+            cookie.ids = new TreeSet<>(Arrays.asList(3L, 1L, 2L));
+            cookie.points = new ArrayList<>(Arrays.asList(new Point(1, "one"), new Point(-2, null)));
+            cookie.point = new Point(5, "five");
+            return cookie;
+        }
+
+        void assertEqualTo(final AllTypesCookie other) {
+            assertEquals(anInt, other.anInt);
+            assertEquals(aLong, other.aLong);
+            assertEquals(aShort, other.aShort);
+            assertEquals(aByte, other.aByte);
+            assertEquals(aFloat, other.aFloat, 0);
+            assertEquals(aDouble, other.aDouble, 0);
+            assertEquals(aChar, other.aChar);
+            assertEquals(aBoolean, other.aBoolean);
+            assertEquals(boxedInt, other.boxedInt);
+            assertEquals(boxedLong, other.boxedLong);
+            assertEquals(boxedChar, other.boxedChar);
+            assertEquals(boxedBoolean, other.boxedBoolean);
+            assertEquals(text, other.text);
+            assertEquals(decimal, other.decimal);
+            assertEquals(calendar != null ? calendar.getTimeInMillis() : null,
+                         other.calendar != null ? other.calendar.getTimeInMillis() : null);
+            assertArrayEquals(ints, other.ints);
+            assertArrayEquals(longs, other.longs);
+            assertArrayEquals(bytes, other.bytes);
+            assertEquals(names, other.names);
+            assertEquals(ids, other.ids);
+            assertEquals(points, other.points);
+            assertEquals(point, other.point);
+        }
+
+    }
+
+    @Cookie(encoded = true)
+    public static class SimpleTypesCookie {
+
+        int anInt;
+        long aLong;
+        char aChar;
+        Integer boxedInt;
+        Character boxedChar;
+        String text;
+        BigDecimal decimal;
+        Calendar calendar;
+
+        static SimpleTypesCookie sample() {
+            final SimpleTypesCookie cookie = new SimpleTypesCookie();
+            cookie.anInt = Integer.MIN_VALUE;
+            cookie.aLong = 1L << 40;
+            cookie.aChar = '\u00e9';
+            cookie.boxedInt = -1;
+            cookie.boxedChar = 'x';
+            cookie.text = "caf\u00e9";
+            cookie.decimal = new BigDecimal("0.10");
+            cookie.calendar = Calendar.getInstance();
+            cookie.calendar.setTimeInMillis(1_500_000_000_123L);
+            return cookie;
+        }
+
+        void assertEqualTo(final SimpleTypesCookie other) {
+            assertEquals(anInt, other.anInt);
+            assertEquals(aLong, other.aLong);
+            assertEquals(aChar, other.aChar);
+            assertEquals(boxedInt, other.boxedInt);
+            assertEquals(boxedChar, other.boxedChar);
+            assertEquals(text, other.text);
+            assertEquals(decimal, other.decimal);
+            assertEquals(calendar != null ? calendar.getTimeInMillis() : null,
+                         other.calendar != null ? other.calendar.getTimeInMillis() : null);
+        }
+
+    }
+
+    @Cookie(encoded = true)
+    public static class ReflectiveCookie {
+
+        private int visits;
+        private String name;
+        private List<Long> ids;
+
+        public ReflectiveCookie() {
+        }
+
+        ReflectiveCookie(int visits, String name, List<Long> ids) {
+            this.visits = visits;
+            this.name = name;
+            this.ids = ids;
+        }
+
+    }
+
+    @Embeddable
+    public static class Point {
+
+        int x;
+        String label;
+
+        public Point() {
+        }
+
+        Point(int x, String label) {
+            this.x = x;
+            this.label = label;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Point)) {
+                return false;
+            }
+            final Point other = (Point) obj;
+            return x == other.x && (label == null ? other.label == null : label.equals(other.label));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * x + (label != null ? label.hashCode() : 0);
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.anosym.cookie.codec;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Encoding a pojo again through its segments, after random changes of its fields, including changes in place and
+ * changes of the encoded length: the value is always the value encoded from scratch.
+ *
+ * @author mochieng
+ */
+public class EncodedSegmentsTest {
+
+    private static final int FIELDS = 7;
+    private static final long SEED = 20161017L;
+
+    private final CookieSchema schema = CookieSchema.of(SegmentedCookie.class);
+    private final Random random = new Random(SEED);
+
+    @Test
+    public void encodesAsEncodedCookieFormat() {
+        final EncodedSegments segments = new EncodedSegments(schema);
+        final SegmentedCookie cookie = new SegmentedCookie();
+        assertEncoded(segments, cookie);
+        for (int i = 0; i < 2000; i++) {
+            final int changes = 1 + random.nextInt(3);
+            for (int change = 0; change < changes; change++) {
+                mutate(cookie, random.nextInt(FIELDS));
+            }
+            assertEncoded(segments, cookie);
+        }
+    }
+
+    @Test
+    public void encodesChangesOfTheFirstAndLastFields() {
+        final EncodedSegments segments = new EncodedSegments(schema);
+        final SegmentedCookie cookie = new SegmentedCookie();
+        assertEquals("account", schema.getFields().get(0).getFieldName());
+        assertEquals("zone", schema.getFields().get(FIELDS - 1).getFieldName());
+        for (int i = 0; i < 200; i++) {
+            mutate(cookie, 0);
+            assertEncoded(segments, cookie);
+            mutate(cookie, FIELDS - 1);
+            assertEncoded(segments, cookie);
+        }
+    }
+
+    @Test
+    public void encodesChangesOfTheValueLength() {
+        final EncodedSegments segments = new EncodedSegments(schema);
+        final SegmentedCookie cookie = new SegmentedCookie();
+        cookie.zone = "zone";
+        //every length modulo three of the payload, before the last field.
+        for (int length = 0; length < 12; length++) {
+            cookie.account = text(length);
+            assertEncoded(segments, cookie);
+            cookie.zone = text(length % 4);
+            assertEncoded(segments, cookie);
+        }
+        for (int length = 12; length >= 0; length--) {
+            cookie.account = text(length);
+            assertEncoded(segments, cookie);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCookiesNotEncoded() {
+        new EncodedSegments(CookieSchema.of(IndividualCookie.class));
+    }
+
+    private void assertEncoded(final EncodedSegments segments, final SegmentedCookie cookie) {
+        assertEquals(EncodedCookieFormat.encode(schema, cookie), segments.encode(cookie));
+    }
+
+    private void mutate(final SegmentedCookie cookie, final int field) {
+        switch (field) {
+            case 0:
+                cookie.account = random.nextInt(8) == 0 ? null : text(random.nextInt(20));
+                break;
+            case 1:
+                cookie.balance = random.nextBoolean() ? random.nextInt(100) : random.nextInt();
+                break;
+            case 2:
+                if (cookie.bytes != null && cookie.bytes.length > 0 && random.nextBoolean()) {
+                    //in place.
+                    cookie.bytes[random.nextInt(cookie.bytes.length)]++;
+                } else {
+                    cookie.bytes = new byte[random.nextInt(6)];
+                    random.nextBytes(cookie.bytes);
+                }
+                break;
+            case 3:
+                if (cookie.calendar != null && random.nextBoolean()) {
+                    //in place.
+                    cookie.calendar.add(Calendar.SECOND, 1 + random.nextInt(1000));
+                } else {
+                    cookie.calendar = Calendar.getInstance();
+                    cookie.calendar.setTimeInMillis(random.nextLong() >>> 24);
+                }
+                break;
+            case 4:
+                if (cookie.names == null) {
+                    cookie.names = new ArrayList<>();
+                }
+                //in place.
+                if (cookie.names.isEmpty() || random.nextBoolean()) {
+                    cookie.names.add(text(random.nextInt(5)));
+                } else {
+                    cookie.names.remove(0);
+                }
+                break;
+            case 5:
+                cookie.visits = random.nextBoolean() ? cookie.visits + 1 : random.nextLong();
+                break;
+            case 6:
+                cookie.zone = random.nextInt(8) == 0 ? null : text(random.nextInt(20));
+                break;
+            default:
+                throw new IllegalArgumentException("No such field: " + field);
+        }
+    }
+
+    private String text(final int length) {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(random.nextInt(16) == 0 ? '\u00e9' : (char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    @Cookie(encoded = true)
+    public static class SegmentedCookie {
+
+        String account;
+        int balance;
+        byte[] bytes;
+        Calendar calendar;
+        List<String> names;
+        long visits;
+        String zone;
+
+    }
+
+    @Cookie
+    public static class IndividualCookie {
+
+        String name;
+
+    }
+
+}
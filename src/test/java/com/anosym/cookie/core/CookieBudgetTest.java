@@ -0,0 +1,170 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.CookieConfiguration;
+import com.anosym.cookie.MockServlet;
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The overflow policies of the cookies over the cookie or the response limits: cookies are rejected, the text of
+ * string cookies truncated, never within a surrogate pair, and encoded cookies chunked, all within the response limit.
+ *
+ * @author mochieng
+ */
+public class CookieBudgetTest {
+
+    private static final CookieSchema INDIVIDUAL = CookieSchema.of(IndividualCookie.class);
+    private static final CookieFieldSchema COUNT = INDIVIDUAL.getFields().get(0);
+    private static final CookieFieldSchema TEXT = INDIVIDUAL.getFields().get(1);
+    private static final CookieSchema ENCODED = CookieSchema.of(EncodedCookie.class);
+
+    @Test
+    public void rejectsCookiesOverTheLimit() {
+        final CookieBudget budget = budget(20, 0, "reject");
+        //text= and 15 characters.
+        assertEquals(value(15), budget.charge("text", value(15), INDIVIDUAL, TEXT));
+        assertNull(budget.charge("text", value(16), INDIVIDUAL, TEXT));
+        assertNull(budget.charge("count", "12345678901234567", INDIVIDUAL, COUNT));
+        assertFalse(budget.isChunked(ENCODED.getName(), value(100), ENCODED));
+        assertNull(budget.charge(ENCODED.getName(), value(100), ENCODED, null));
+    }
+
+    @Test
+    public void truncatesTheTextOfStringCookies() {
+        final CookieBudget budget = budget(20, 0, "truncate");
+        assertEquals(value(15), budget.charge("text", value(40), INDIVIDUAL, TEXT));
+        //neither numbers nor encoded values can be cut.
+        assertNull(budget.charge("count", "12345678901234567", INDIVIDUAL, COUNT));
+        assertNull(budget.charge(ENCODED.getName(), value(100), ENCODED, null));
+    }
+
+    @Test
+    public void neverTruncatesWithinASurrogatePair() {
+        final String cookie = "\ud83c\udf6a";
+        //the pair at the limit: its high surrogate is the last character kept.
+        final String atLimit = value(14) + cookie + value(4);
+        assertEquals(value(14), budget(20, 0, "truncate").charge("text", atLimit, INDIVIDUAL, TEXT));
+        //the pair before the limit is kept whole.
+        final String beforeLimit = value(13) + cookie + value(4);
+        assertEquals(value(13) + cookie, budget(20, 0, "truncate").charge("text", beforeLimit, INDIVIDUAL, TEXT));
+        //the pair past the limit is dropped whole.
+        final String pastLimit = value(15) + cookie;
+        assertEquals(value(15), budget(20, 0, "truncate").charge("text", pastLimit, INDIVIDUAL, TEXT));
+    }
+
+    @Test
+    public void chargesCookiesToTheResponseLimit() {
+        final CookieBudget budget = budget(0, 30, "reject");
+        assertEquals(value(10), budget.charge("text", value(10), INDIVIDUAL, TEXT));
+        assertEquals("12345678", budget.charge("count", "12345678", INDIVIDUAL, COUNT));
+        //1 byte left, not even for the name.
+        assertNull(budget.charge("count", "1", INDIVIDUAL, COUNT));
+
+        final CookieBudget truncating = budget(0, 30, "truncate");
+        assertEquals("12345678", truncating.charge("count", "12345678", INDIVIDUAL, COUNT));
+        //the cookie crossing the response limit is cut to the bytes left.
+        assertEquals(value(11), truncating.charge("text", value(40), INDIVIDUAL, TEXT));
+        assertNull(truncating.charge("text", "x", INDIVIDUAL, TEXT));
+    }
+
+    @Test
+    public void chunksEncodedCookiesOverTheLimit() {
+        final CookieBudget budget = budget(50, 0, "chunk");
+        assertFalse(budget.isChunked(ENCODED.getName(), value(30), ENCODED));
+        assertFalse(budget.isChunked("text", value(100), INDIVIDUAL));
+        assertNull(budget.charge("text", value(100), INDIVIDUAL, TEXT));
+        assertTrue(budget.isChunked(ENCODED.getName(), value(100), ENCODED));
+        final String[] chunks = budget.chargeChunks(ENCODED, value(100));
+        assertNotNull(chunks);
+        assertEquals(value(100), CookieChunks.assemble(chunks[0], received(chunks)));
+        //too many chunks.
+        assertNull(budget.chargeChunks(ENCODED, value(50 * CookieSchema.MAX_CHUNKS)));
+    }
+
+    @Test
+    public void chargesAllTheChunksToTheResponseLimit() {
+        final String[] chunks = CookieChunks.split(ENCODED, value(100), 50);
+        int size = ENCODED.getName().length() + 1 + chunks[0].length();
+        for (int i = 1; i < chunks.length; i++) {
+            size += ENCODED.getChunkNames().get(i - 1).length() + 1 + chunks[i].length();
+        }
+        assertNull(budget(50, size - 1, "chunk").chargeChunks(ENCODED, value(100)));
+        final CookieBudget budget = budget(50, size + 7, "chunk");
+        assertNotNull(budget.chargeChunks(ENCODED, value(100)));
+        assertEquals("1", budget.charge("count", "1", INDIVIDUAL, COUNT));
+        assertNull(budget.charge("count", "1", INDIVIDUAL, COUNT));
+    }
+
+    @Test
+    public void writesChunksAndExpiresThoseNoLongerNeeded() {
+        final CookieConfiguration configuration = configuration(50, 0, "chunk");
+        final CookieEngine engine = new CookieEngine(configuration);
+        final List<String> headers = new ArrayList<>();
+        engine.write(MockServlet.response(headers), new CookieBudget(configuration), ENCODED.getName(), value(100),
+                     ENCODED, null, 5);
+        //the header, 3 chunks, and the 2 chunks of the previous value expired.
+        assertEquals(6, headers.size());
+        assertTrue(headers.get(0), headers.get(0).startsWith(ENCODED.getName() + "=!3."));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(headers.get(i + 1), headers.get(i + 1).startsWith(ENCODED.getName() + "." + i + "="));
+        }
+        assertTrue(headers.get(4), headers.get(4).startsWith(ENCODED.getName() + ".3=;"));
+        assertTrue(headers.get(5), headers.get(5).startsWith(ENCODED.getName() + ".4=;"));
+    }
+
+    private static CookieBudget budget(final int maxCookieBytes, final int maxResponseCookieBytes,
+                                       final String overflow) {
+        return new CookieBudget(configuration(maxCookieBytes, maxResponseCookieBytes, overflow));
+    }
+
+    private static CookieConfiguration configuration(final int maxCookieBytes, final int maxResponseCookieBytes,
+                                                     final String overflow) {
+        final Map<String, String> parameters = new HashMap<>();
+        parameters.put(CookieConfiguration.MAX_COOKIE_BYTES, Integer.toString(maxCookieBytes));
+        parameters.put(CookieConfiguration.MAX_RESPONSE_COOKIE_BYTES, Integer.toString(maxResponseCookieBytes));
+        parameters.put(CookieConfiguration.COOKIE_OVERFLOW, overflow);
+        return CookieConfiguration.of(MockServlet.context(parameters));
+    }
+
+    private static String[] received(final String[] chunks) {
+        final String[] received = new String[CookieSchema.MAX_CHUNKS];
+        System.arraycopy(chunks, 1, received, 0, chunks.length - 1);
+        return received;
+    }
+
+    private static String value(final int length) {
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + i % 26);
+        }
+        return new String(chars);
+    }
+
+    @Cookie
+    public static class IndividualCookie {
+
+        int count;
+        String text;
+
+    }
+
+    @Cookie(encoded = true)
+    public static class EncodedCookie {
+
+        String text;
+
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.schema.CookieSchema;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Splitting encoded values into chunk cookies, and reassembling only the chunks matching the checksum of the header.
+ *
+ * @author mochieng
+ */
+public class CookieChunksTest {
+
+    private static final CookieSchema SCHEMA = CookieSchema.of(LargeCookie.class);
+    //The chunks of which take 37 characters, besides their name.
+    private static final int MAX_COOKIE_BYTES = 50;
+
+    @Test
+    public void reassemblesTheSplitValue() {
+        final String value = value(100);
+        final String[] chunks = CookieChunks.split(SCHEMA, value, MAX_COOKIE_BYTES);
+        assertEquals(4, chunks.length);
+        assertTrue(CookieChunks.isHeader(chunks[0]));
+        assertTrue(chunks[0].startsWith("!3."));
+        for (int i = 1; i < chunks.length; i++) {
+            assertTrue((SCHEMA.getName() + ".0=" + chunks[i]).length() <= MAX_COOKIE_BYTES);
+        }
+        assertEquals(value, CookieChunks.assemble(chunks[0], received(chunks)));
+    }
+
+    @Test
+    public void rejectsAChangedChunk() {
+        final String[] chunks = CookieChunks.split(SCHEMA, value(100), MAX_COOKIE_BYTES);
+        chunks[2] = 'x' + chunks[2].substring(1);
+        assertRejected(chunks[0], received(chunks));
+    }
+
+    @Test
+    public void rejectsReorderedChunks() {
+        final String[] chunks = CookieChunks.split(SCHEMA, value(100), MAX_COOKIE_BYTES);
+        final String first = chunks[1];
+        chunks[1] = chunks[2];
+        chunks[2] = first;
+        assertRejected(chunks[0], received(chunks));
+    }
+
+    @Test
+    public void rejectsChunksOfAnotherValue() {
+        final String[] chunks = CookieChunks.split(SCHEMA, value(100), MAX_COOKIE_BYTES);
+        final String[] otherChunks = CookieChunks.split(SCHEMA, value(101), MAX_COOKIE_BYTES);
+        assertRejected(otherChunks[0], received(chunks));
+    }
+
+    @Test
+    public void rejectsMissingChunks() {
+        final String[] chunks = CookieChunks.split(SCHEMA, value(100), MAX_COOKIE_BYTES);
+        final String[] received = received(chunks);
+        received[1] = null;
+        assertRejected(chunks[0], received);
+        assertRejected(chunks[0], null);
+    }
+
+    @Test
+    public void rejectsMalformedHeaders() {
+        final String[] received = received(CookieChunks.split(SCHEMA, value(100), MAX_COOKIE_BYTES));
+        assertRejected("!3", received);
+        assertRejected("!0.0", received);
+        assertRejected("!9.0", received);
+        assertRejected("!x.0", received);
+    }
+
+    @Test
+    public void doesNotSplitBeyondTheMaximumChunks() {
+        final int chunkLength = MAX_COOKIE_BYTES - SCHEMA.getName().length() - 3;
+        assertEquals(CookieSchema.MAX_CHUNKS + 1,
+                     CookieChunks.split(SCHEMA, value(chunkLength * CookieSchema.MAX_CHUNKS), MAX_COOKIE_BYTES).length);
+        assertNull(CookieChunks.split(SCHEMA, value(chunkLength * CookieSchema.MAX_CHUNKS + 1), MAX_COOKIE_BYTES));
+        assertNull(CookieChunks.split(SCHEMA, value(10), SCHEMA.getName().length() + 3));
+    }
+
+    @Test
+    public void parsesChunkIndexes() {
+        assertEquals(0, CookieChunks.getIndex("LargeCookie.0"));
+        assertEquals(7, CookieChunks.getIndex("LargeCookie.7"));
+        assertEquals(-1, CookieChunks.getIndex("LargeCookie.8"));
+        assertEquals(-1, CookieChunks.getIndex("LargeCookie.x"));
+        assertEquals(-1, CookieChunks.getIndex("LargeCookie0"));
+        assertEquals(-1, CookieChunks.getIndex(".0"));
+    }
+
+    @Test
+    public void countsChunksUpToTheLastReceived() {
+        assertEquals(0, CookieChunks.getReceivedCount(null));
+        final String[] received = new String[CookieSchema.MAX_CHUNKS];
+        assertEquals(0, CookieChunks.getReceivedCount(received));
+        received[2] = "c";
+        assertEquals(3, CookieChunks.getReceivedCount(received));
+    }
+
+    private static void assertRejected(final String header, final String[] received) {
+        try {
+            CookieChunks.assemble(header, received);
+            fail("Assembled: " + header);
+        } catch (IllegalArgumentException ex) {
+            //expected.
+        }
+    }
+
+    /**
+     * The chunks by index, as received, from the split value.
+     */
+    private static String[] received(final String[] chunks) {
+        final String[] received = new String[CookieSchema.MAX_CHUNKS];
+        System.arraycopy(chunks, 1, received, 0, chunks.length - 1);
+        return received;
+    }
+
+    private static String value(final int length) {
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + i % 26);
+        }
+        return new String(chars);
+    }
+
+    @Cookie(encoded = true)
+    public static class LargeCookie {
+
+        String text;
+
+    }
+
+}
@@ -0,0 +1,239 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.MockServlet;
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.store.CookieStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The exchange of the beans of a request: only the instances accessed are decoded and written, and once written, the
+ * exchange stays attached to its request, reporting the pojos changed afterwards. The pojos whose paths do not apply to
+ * the request are only written if changed, and the received cookies of always refreshed pojos never accessed are sent
+ * back as they were received.
+ *
+ * @author mochieng
+ */
+public class CookieExchangeTest {
+
+    private static final Logger LOG = Logger.getLogger(CookieExchange.class.getName());
+
+    private final List<LogRecord> warnings = new ArrayList<>();
+    private final Handler handler = new Handler() {
+
+        @Override
+        public void publish(LogRecord record) {
+            if (record.getLevel() == Level.WARNING) {
+                warnings.add(record);
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+    private final ServletContext context = MockServlet.context();
+    private final List<String> setCookieHeaders = new ArrayList<>();
+
+    @Before
+    public void addHandler() {
+        LOG.addHandler(handler);
+    }
+
+    @After
+    public void removeHandler() {
+        LOG.removeHandler(handler);
+    }
+
+    @Test
+    public void remainsAttachedOnceEnded() {
+        final HttpServletRequest request = MockServlet.request(context, "/", "visits=3");
+        final VisitsCookie visits = new VisitsCookie();
+        final CookieExchange exchange = begin(request, visits);
+        assertSame(exchange, CookieExchange.current(request));
+        exchange.decode(visits);
+        assertEquals(3, visits.visits);
+        visits.visits++;
+        exchange.end(MockServlet.response(setCookieHeaders));
+        assertEquals(Collections.singletonList("visits=4"), names(setCookieHeaders));
+        assertNull(CookieExchange.current(request));
+        assertSame(exchange, CookieExchange.attached(request));
+        assertTrue(exchange.isEnded());
+        exchange.end(MockServlet.response(setCookieHeaders));
+        assertEquals(1, setCookieHeaders.size());
+    }
+
+    @Test
+    public void warnsOfChangesAfterEnd() {
+        final HttpServletRequest request = MockServlet.request(context, "/", "visits=3");
+        final VisitsCookie visits = new VisitsCookie();
+        final CookieExchange exchange = begin(request, visits);
+        exchange.end(MockServlet.response(setCookieHeaders));
+        exchange.decode(visits);
+        assertEquals(3, visits.visits);
+        visits.visits++;
+        exchange.checkUnchanged();
+        assertEquals(1, warnings.size());
+        assertTrue(setCookieHeaders.isEmpty());
+    }
+
+    @Test
+    public void doesNotWarnOfAccessesAfterEnd() {
+        final HttpServletRequest request = MockServlet.request(context, "/", "visits=3");
+        final VisitsCookie visits = new VisitsCookie();
+        final CookieExchange exchange = begin(request, visits);
+        exchange.decode(visits);
+        exchange.end(MockServlet.response(setCookieHeaders));
+        exchange.decode(visits);
+        exchange.checkUnchanged();
+        assertTrue(warnings.isEmpty());
+    }
+
+    @Test
+    public void encodesTheAccessedInstanceBehindTheTrackedProxy() {
+        final HttpServletRequest request = MockServlet.request(context, "/", "visits=3");
+        final VisitsCookie proxy = new VisitsCookie();
+        final VisitsCookie instance = new VisitsCookie();
+        final CookieExchange exchange = begin(request, proxy);
+        exchange.decode(instance);
+        assertEquals(3, instance.visits);
+        assertEquals(0, proxy.visits);
+        instance.visits++;
+        exchange.end(MockServlet.response(setCookieHeaders));
+        assertEquals(Collections.singletonList("visits=4"), names(setCookieHeaders));
+    }
+
+    @Test
+    public void doesNotWritePojosNeverAccessed() {
+        final HttpServletRequest request = MockServlet.request(context, "/", "visits=3");
+        final CookieExchange exchange = begin(request, new VisitsCookie());
+        exchange.end(MockServlet.response(setCookieHeaders));
+        assertTrue(setCookieHeaders.isEmpty());
+    }
+
+    @Test
+    public void refreshesAlwaysRefreshedPojosNeverAccessed() {
+        final HttpServletRequest request = MockServlet.request(context, "/", "seen=7");
+        final CookieExchange exchange = begin(request, new SeenCookie());
+        exchange.end(MockServlet.response(setCookieHeaders));
+        assertEquals(1, setCookieHeaders.size());
+        assertTrue(setCookieHeaders.get(0), setCookieHeaders.get(0).startsWith("seen=7;"));
+        assertTrue(setCookieHeaders.get(0), setCookieHeaders.get(0).contains("Max-Age=600"));
+
+        //nothing to send back without a received cookie.
+        setCookieHeaders.clear();
+        begin(MockServlet.request(context, "/", "visits=3"), new SeenCookie()).end(
+                MockServlet.response(setCookieHeaders));
+        assertTrue(setCookieHeaders.isEmpty());
+    }
+
+    @Test
+    public void refreshesTheReceivedValueOfEncodedPojosNeverAccessed() {
+        final HttpServletRequest request = MockServlet.request(context, "/", "EncodedSeenCookie=received");
+        begin(request, new EncodedSeenCookie()).end(MockServlet.response(setCookieHeaders));
+        assertEquals(Collections.singletonList("EncodedSeenCookie=received"), names(setCookieHeaders));
+    }
+
+    @Test
+    public void refreshesTheTokenOfStoredPojosNeverAccessed() {
+        final CookieStore store = CookieEngine.of(context).getConfiguration().getStore();
+        store.put("~token", "stored value", 600);
+        final HttpServletRequest request = MockServlet.request(context, "/", "StoredSeenCookie=~token");
+        begin(request, new StoredSeenCookie()).end(MockServlet.response(setCookieHeaders));
+        assertEquals(Collections.singletonList("StoredSeenCookie=~token"), names(setCookieHeaders));
+        assertEquals("stored value", store.get("~token"));
+
+        //a token no longer found is not sent back.
+        setCookieHeaders.clear();
+        store.remove("~token");
+        begin(MockServlet.request(context, "/", "StoredSeenCookie=~token"), new StoredSeenCookie()).end(
+                MockServlet.response(setCookieHeaders));
+        assertTrue(setCookieHeaders.isEmpty());
+    }
+
+    @Test
+    public void writesPojosOfOtherPathsOnlyIfChanged() {
+        //a cookie of the same name, of a path applying to the request.
+        final HttpServletRequest request = MockServlet.request(context, "/home", "items=5");
+        final CartCookie cart = new CartCookie();
+        final CookieExchange exchange = begin(request, cart);
+        exchange.decode(cart);
+        assertEquals(0, cart.items);
+        exchange.end(MockServlet.response(setCookieHeaders));
+        assertTrue(setCookieHeaders.isEmpty());
+
+        final CartCookie changedCart = new CartCookie();
+        final CookieExchange changing = begin(MockServlet.request(context, "/home", "items=5"), changedCart);
+        changing.decode(changedCart);
+        changedCart.items++;
+        changing.end(MockServlet.response(setCookieHeaders));
+        assertEquals(Collections.singletonList("items=1"), names(setCookieHeaders));
+    }
+
+    private CookieExchange begin(final HttpServletRequest request, final Object cookieObject) {
+        return CookieEngine.of(context).begin(request, Collections.singletonList(cookieObject));
+    }
+
+    private static List<String> names(final List<String> setCookieHeaders) {
+        final List<String> pairs = new ArrayList<>();
+        for (String header : setCookieHeaders) {
+            pairs.add(header.split(";", 2)[0]);
+        }
+        return pairs;
+    }
+
+    @Cookie
+    public static class VisitsCookie {
+
+        int visits;
+
+    }
+
+    @Cookie(alwaysRefresh = true, maxAge = 600)
+    public static class SeenCookie {
+
+        int seen;
+
+    }
+
+    @Cookie(alwaysRefresh = true, maxAge = 600, encoded = true)
+    public static class EncodedSeenCookie {
+
+        int seen;
+
+    }
+
+    @Cookie(alwaysRefresh = true, maxAge = 600, encoded = true, stored = true)
+    public static class StoredSeenCookie {
+
+        int seen;
+
+    }
+
+    @Cookie(path = "/cart")
+    public static class CartCookie {
+
+        int items;
+
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.schema.CookieSchema;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * The seeding of session scoped pojos: claimed by a single request, awaited by the others, and never serialized while
+ * in progress.
+ *
+ * @author mochieng
+ */
+public class CookieSessionStateTest {
+
+    private static final CookieSchema SCHEMA = CookieSchema.of(SessionCookie.class);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void seedsOnce() {
+        final CookieSessionState state = new CookieSessionState();
+        assertEquals(CookieSessionState.Seeding.SEED, state.seed(SCHEMA));
+        state.seeded(SCHEMA);
+        assertEquals(CookieSessionState.Seeding.SEEDED, state.seed(SCHEMA));
+    }
+
+    @Test
+    public void awaitsConcurrentSeeding() throws Exception {
+        final CookieSessionState state = new CookieSessionState();
+        assertEquals(CookieSessionState.Seeding.SEED, state.seed(SCHEMA));
+        final Future<CookieSessionState.Seeding> waiting = seedAsync(state);
+        assertBlocked(waiting);
+        state.seeded(SCHEMA);
+        assertEquals(CookieSessionState.Seeding.SEEDED, waiting.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void reclaimsReleasedSeeding() throws Exception {
+        final CookieSessionState state = new CookieSessionState();
+        assertEquals(CookieSessionState.Seeding.SEED, state.seed(SCHEMA));
+        final Future<CookieSessionState.Seeding> waiting = seedAsync(state);
+        assertBlocked(waiting);
+        state.release(SCHEMA);
+        assertEquals(CookieSessionState.Seeding.SEED, waiting.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void writtenPojosAreSeeded() {
+        final CookieSessionState state = new CookieSessionState();
+        state.written(SCHEMA);
+        assertEquals(CookieSessionState.Seeding.SEEDED, state.seed(SCHEMA));
+    }
+
+    @Test
+    public void writtenPojosBeingSeededAreNotSeeded() throws Exception {
+        final CookieSessionState state = new CookieSessionState();
+        assertEquals(CookieSessionState.Seeding.SEED, state.seed(SCHEMA));
+        state.written(SCHEMA);
+        state.release(SCHEMA);
+        assertEquals(CookieSessionState.Seeding.SEED, state.seed(SCHEMA));
+    }
+
+    @Test
+    public void doesNotSerializeSeedingsInProgress() throws Exception {
+        final CookieSessionState state = new CookieSessionState();
+        assertEquals(CookieSessionState.Seeding.SEED, state.seed(SCHEMA));
+        final CookieSessionState restored = copy(state);
+        assertEquals(CookieSessionState.Seeding.SEED, seedAsync(restored).get(10, TimeUnit.SECONDS));
+        restored.seeded(SCHEMA);
+        assertEquals(CookieSessionState.Seeding.SEEDED, copy(restored).seed(SCHEMA));
+    }
+
+    private Future<CookieSessionState.Seeding> seedAsync(final CookieSessionState state) {
+        return executor.submit(new Callable<CookieSessionState.Seeding>() {
+
+            @Override
+            public CookieSessionState.Seeding call() throws Exception {
+                return state.seed(SCHEMA);
+            }
+        });
+    }
+
+    private static void assertBlocked(final Future<?> future) throws Exception {
+        try {
+            future.get(100, TimeUnit.MILLISECONDS);
+            fail("Not waiting for the concurrent seeding");
+        } catch (TimeoutException ex) {
+            //expected.
+        }
+    }
+
+    private static CookieSessionState copy(final CookieSessionState state) throws IOException, ClassNotFoundException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(state);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (CookieSessionState) in.readObject();
+        }
+    }
+
+    @Cookie
+    public static class SessionCookie {
+
+        int visits;
+
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.MockServlet;
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.codec.EncodedCookieFormat;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The cookies written back at the end of a request: only those whose values changed from the received values, or
+ * which are always refreshed.
+ *
+ * @author mochieng
+ */
+public class CookieValueTest {
+
+    private final ServletContext context = MockServlet.context();
+    private final List<String> setCookieHeaders = new ArrayList<>();
+
+    @Test
+    public void doesNotWriteUnchangedValues() {
+        final VisitsCookie visits = new VisitsCookie();
+        final CookieExchange exchange = begin("visits=3; name=home", visits);
+        exchange.decode(visits);
+        visits.visits = 4;
+        visits.visits = 3;
+        exchange.end(MockServlet.response(setCookieHeaders));
+        assertTrue(setCookieHeaders.isEmpty());
+    }
+
+    @Test
+    public void writesOnlyTheChangedValues() {
+        final VisitsCookie visits = new VisitsCookie();
+        final CookieExchange exchange = begin("visits=3; name=home", visits);
+        exchange.decode(visits);
+        visits.visits++;
+        exchange.end(MockServlet.response(setCookieHeaders));
+        assertEquals(Collections.singletonList("visits=4"), names(setCookieHeaders));
+    }
+
+    @Test
+    public void writesValuesNotReceived() {
+        final VisitsCookie visits = new VisitsCookie();
+        final CookieExchange exchange = begin("name=home", visits);
+        exchange.decode(visits);
+        exchange.end(MockServlet.response(setCookieHeaders));
+        assertEquals(Collections.singletonList("visits=0"), names(setCookieHeaders));
+    }
+
+    @Test
+    public void doesNotWriteUnchangedEncodedValues() {
+        final CookieSchema schema = CookieSchema.of(EncodedVisitsCookie.class);
+        final EncodedVisitsCookie received = new EncodedVisitsCookie();
+        received.visits = 3;
+        final String value = EncodedCookieFormat.encode(schema, received);
+        final EncodedVisitsCookie visits = new EncodedVisitsCookie();
+        final CookieExchange exchange = begin(schema.getName() + "=" + value, visits);
+        exchange.decode(visits);
+        assertEquals(3, visits.visits);
+        exchange.end(MockServlet.response(setCookieHeaders));
+        assertTrue(setCookieHeaders.isEmpty());
+
+        final EncodedVisitsCookie changed = new EncodedVisitsCookie();
+        final CookieExchange changing = begin(schema.getName() + "=" + value, changed);
+        changing.decode(changed);
+        changed.visits++;
+        changing.end(MockServlet.response(setCookieHeaders));
+        assertEquals(1, setCookieHeaders.size());
+        assertTrue(setCookieHeaders.get(0), setCookieHeaders.get(0).startsWith(schema.getName() + "="));
+    }
+
+    @Test
+    public void alwaysWritesAlwaysRefreshedValues() {
+        final RefreshedCookie refreshed = new RefreshedCookie();
+        final CookieExchange exchange = begin("seen=7; name=home", refreshed);
+        exchange.decode(refreshed);
+        assertEquals(7, refreshed.seen);
+        exchange.end(MockServlet.response(setCookieHeaders));
+        assertEquals(Collections.singletonList("seen=7"), names(setCookieHeaders));
+    }
+
+    private CookieExchange begin(final String cookieHeader, final Object cookieObject) {
+        return CookieEngine.of(context).begin(MockServlet.request(context, "/", cookieHeader),
+                                              Collections.singletonList(cookieObject));
+    }
+
+    private static List<String> names(final List<String> setCookieHeaders) {
+        final List<String> pairs = new ArrayList<>();
+        for (String header : setCookieHeaders) {
+            pairs.add(header.split(";", 2)[0]);
+        }
+        return pairs;
+    }
+
+    @Cookie
+    public static class VisitsCookie {
+
+        int visits;
+        String name;
+
+    }
+
+    @Cookie(encoded = true)
+    public static class EncodedVisitsCookie {
+
+        int visits;
+
+    }
+
+    @Cookie(alwaysRefresh = true, maxAge = 600)
+    public static class RefreshedCookie {
+
+        int seen;
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.MockServlet;
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.codec.EncodedCookieFormat;
+import com.anosym.cookie.schema.CookieSchema;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The steady state encoding of encoded cookies allocates no more than the cookie value itself, and writing a cookie no
+ * more than its {@code Set-Cookie} header, the encode buffers being reused.
+ *
+ * The allocations are those of the current thread, as counted by the JVM, averaged over many encodings once warmed up.
+ * Skipped on JVMs which do not count them.
+ *
+ * @author mochieng
+ */
+public class EncodeAllocationTest {
+
+    private static final int WARM_UP_ITERATIONS = 50_000;
+    private static final int ITERATIONS = 100_000;
+    private static final String TEXT = "vvvvvvvvvvvvvvvvvvvvvvvvvvvvvvvv";
+
+    private com.sun.management.ThreadMXBean threads;
+    private final long threadId = Thread.currentThread().getId();
+    //Keeps the results reachable, such that they are not optimized away.
+    private Object sink;
+
+    @Before
+    public void enableAllocationCounting() {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void encodesSmallCookiesWithoutAllocating() {
+        check(new SmallCookie());
+    }
+
+    @Test
+    public void encodesLargeCookiesWithoutAllocating() {
+        check(new LargeCookie());
+    }
+
+    private void check(final Object cookie) {
+        final CookieSchema schema = CookieSchema.of(cookie.getClass());
+        final CookieEngine engine = CookieEngine.of(MockServlet.context());
+        final HttpServletResponse response = new HttpServletResponseWrapper(
+                MockServlet.response(new ArrayList<String>())) {
+
+            @Override
+            public void addHeader(String name, String value) {
+                sink = value;
+            }
+        };
+        final String value = EncodedCookieFormat.encode(schema, cookie);
+        final List<String> headers = new ArrayList<>();
+        engine.write(MockServlet.response(headers), cookie);
+        final char[] chars = headers.get(0).toCharArray();
+
+        final long valueString = measure(new Runnable() {
+
+            @Override
+            public void run() {
+                sink = new String(chars, 0, value.length());
+            }
+        });
+        final long headerString = measure(new Runnable() {
+
+            @Override
+            public void run() {
+                sink = new String(chars, 0, chars.length);
+            }
+        });
+        final long encode = measure(new Runnable() {
+
+            @Override
+            public void run() {
+                sink = EncodedCookieFormat.encode(schema, cookie);
+            }
+        });
+        final long write = measure(new Runnable() {
+
+            @Override
+            public void run() {
+                engine.write(response, cookie);
+            }
+        });
+        assertTrue("Encoding allocates " + encode + " B/op, beyond the value string of " + valueString + " B",
+                   encode <= valueString);
+        assertTrue("Writing allocates " + write + " B/op, beyond the header string of " + headerString + " B",
+                   write <= headerString);
+    }
+
+    /**
+     * The bytes allocated per run, once warmed up, rounded to the nearest byte.
+     */
+    private long measure(final Runnable operation) {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            operation.run();
+        }
+        final long start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        final long allocated = threads.getThreadAllocatedBytes(threadId) - start;
+        return Math.round((double) allocated / ITERATIONS);
+    }
+
+    @Cookie(encoded = true)
+    public static class SmallCookie {
+
+        int visits = 42;
+        long lastSeen = 1_700_000_000_000L;
+        boolean admin = true;
+        String name = TEXT;
+
+    }
+
+    @Cookie(encoded = true)
+    public static class LargeCookie {
+
+        int f00 = 42;
+        long f01 = 1_700_000_000_000L;
+        boolean f02 = true;
+        String f03 = TEXT;
+        Integer f04 = 7;
+        double f05 = 3.25;
+        String f06 = TEXT;
+        short f07 = 12;
+        char f08 = 'c';
+        Long f09 = 99L;
+        BigDecimal f10 = new BigDecimal("12.50");
+        Calendar f11 = Calendar.getInstance();
+        String f12 = TEXT;
+        float f13 = 1.5f;
+        byte f14 = 3;
+        Boolean f15 = Boolean.FALSE;
+
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.anosym.cookie.core;
+
+import com.anosym.cookie.MockServlet;
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.Name;
+import com.anosym.cookie.codec.EncodedCookieFormat;
+import com.anosym.cookie.schema.CookieFieldSchema;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.context.SessionScoped;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Concurrent requests of a single browser session against shared, session scoped cookie pojos: no request loses the
+ * changes of another.
+ *
+ * Each thread is a browser tab, owning one counter of each pojo, which it increments once per request. Requests carry
+ * the cookies of a shared cookie jar, as last written by any response, hence mostly values which concurrent requests
+ * have since changed. Every counter must end up as its seed plus the number of requests of its thread, every written
+ * cookie must be well formed, and the cookie jar must converge on the pojos.
+ *
+ * @author mochieng
+ */
+public class SessionConcurrencyTest {
+
+    private static final int SEED = 1000;
+    private static final int THREADS = 4;
+    private static final int REQUESTS = 5000;
+
+    private ServletContext context;
+    private CookieEngine engine;
+    private HttpSession session;
+    //The browser cookies, by name.
+    private final Map<String, String> cookieJar = new ConcurrentHashMap<>();
+    //The session beans.
+    private final SessionCounterCookie counters = new SessionCounterCookie();
+    private final EncodedSessionCounterCookie encodedCounters = new EncodedSessionCounterCookie();
+    private final List<Object> beans = Arrays.<Object>asList(counters, encodedCounters);
+
+    @Test
+    public void losesNoUpdates() throws Exception {
+        context = MockServlet.context();
+        engine = CookieEngine.of(context);
+        session = MockServlet.session(context);
+
+        //a previous visit of the browser left cookies with seeded counters.
+        final SessionCounterCookie previous = new SessionCounterCookie();
+        final EncodedSessionCounterCookie encodedPrevious = new EncodedSessionCounterCookie();
+        for (int counter = 0; counter < 4; counter++) {
+            increment(previous, counter, SEED);
+            increment(encodedPrevious, counter, SEED);
+        }
+        final List<String> setCookieHeaders = new ArrayList<>();
+        engine.write(MockServlet.response(setCookieHeaders), previous);
+        engine.write(MockServlet.response(setCookieHeaders), encodedPrevious);
+        store(setCookieHeaders);
+
+        //the container creates the session, then its requests race to seed the pojos.
+        engine.sessionCreated(session);
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<?>> tabs = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                final int counter = thread;
+                tabs.add(executor.submit(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            startSignal.await();
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        for (int i = 0; i < REQUESTS; i++) {
+                            request(counter);
+                        }
+                    }
+                }));
+            }
+            startSignal.countDown();
+            for (Future<?> tab : tabs) {
+                tab.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int counter = 0; counter < THREADS; counter++) {
+            assertEquals("counter " + counter, SEED + REQUESTS, get(counters, counter));
+            assertEquals("encoded counter " + counter, SEED + REQUESTS, get(encodedCounters, counter));
+        }
+        //the next request writes the pojos over any cookies of responses which arrived out of order.
+        request(-1);
+        final HttpServletRequest request = MockServlet.request(context, "/", cookieHeader());
+        final SessionCounterCookie received = engine.read(request, SessionCounterCookie.class);
+        final EncodedSessionCounterCookie encodedReceived = engine.read(request, EncodedSessionCounterCookie.class);
+        for (int counter = 0; counter < 4; counter++) {
+            assertEquals("cookie of counter " + counter, get(counters, counter), get(received, counter));
+            assertEquals("encoded cookie of counter " + counter, get(encodedCounters, counter),
+                         get(encodedReceived, counter));
+        }
+    }
+
+    /**
+     * A request of the session, incrementing the specified counter, if any.
+     */
+    private void request(final int counter) {
+        final HttpServletRequest request = MockServlet.request(context, "/", cookieHeader(), session);
+        final CookieExchange exchange = engine.begin(request, beans);
+        for (Object bean : beans) {
+            //as the interceptor does on first access.
+            exchange.decode(bean);
+        }
+        if (counter >= 0) {
+            increment(counters, counter, 1);
+            increment(encodedCounters, counter, 1);
+        }
+        final List<String> setCookieHeaders = new ArrayList<>();
+        exchange.end(MockServlet.response(setCookieHeaders));
+        store(setCookieHeaders);
+    }
+
+    private void store(final List<String> setCookieHeaders) {
+        final CookieSchema encodedSchema = CookieSchema.of(EncodedSessionCounterCookie.class);
+        for (String header : setCookieHeaders) {
+            final int separator = header.indexOf('=');
+            final int end = header.indexOf(';');
+            final String name = header.substring(0, separator);
+            final String value = header.substring(separator + 1, end < 0 ? header.length() : end);
+            if (name.equals(encodedSchema.getName())) {
+                assertTrue("Malformed encoded cookie: " + header,
+                           EncodedCookieFormat.decode(encodedSchema, new EncodedSessionCounterCookie(), value));
+            } else {
+                Integer.parseInt(value);
+            }
+            cookieJar.put(name, value);
+        }
+    }
+
+    private String cookieHeader() {
+        final StringBuilder header = new StringBuilder();
+        for (Map.Entry<String, String> cookie : cookieJar.entrySet()) {
+            if (header.length() > 0) {
+                header.append("; ");
+            }
+            header.append(cookie.getKey()).append('=').append(cookie.getValue());
+        }
+        return header.toString();
+    }
+
+    private static void increment(final Object cookie, final int counter, final int delta) {
+        final CookieFieldSchema field = CookieSchema.of(cookie.getClass()).getFields().get(counter);
+        field.set(cookie, (Integer) field.get(cookie) + delta);
+    }
+
+    private static int get(final Object cookie, final int counter) {
+        return (Integer) CookieSchema.of(cookie.getClass()).getFields().get(counter).get(cookie);
+    }
+
+    @Cookie
+    @SessionScoped
+    public static class SessionCounterCookie {
+
+        @Name("sc.c0")
+        int c0;
+        @Name("sc.c1")
+        int c1;
+        @Name("sc.c2")
+        int c2;
+        @Name("sc.c3")
+        int c3;
+
+    }
+
+    @Cookie(encoded = true)
+    @SessionScoped
+    public static class EncodedSessionCounterCookie {
+
+        int c0;
+        int c1;
+        int c2;
+        int c3;
+
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.anosym.cookie.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The listener is notified only when the response may be committed, not on the first write.
+ *
+ * @author mochieng
+ */
+public class CommitAwareResponseTest {
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final StringWriter text = new StringWriter();
+    private int bufferSize = 100;
+    private String characterEncoding = "UTF-8";
+    private int notifications;
+
+    @Test
+    public void notifiesBeforeTheBufferIsFilled() throws IOException {
+        final CommitAwareResponse response = response();
+        response.getOutputStream().write(new byte[60]);
+        response.getOutputStream().write(new byte[39]);
+        assertEquals(0, notifications);
+        response.getOutputStream().write(1);
+        assertEquals(1, notifications);
+        response.getOutputStream().write(new byte[500]);
+        assertEquals(1, notifications);
+        assertEquals(600, body.size());
+    }
+
+    @Test
+    public void countsCharactersAtTheirMaximumEncodedLength() throws IOException {
+        final CommitAwareResponse response = response();
+        final PrintWriter writer = response.getWriter();
+        writer.print(repeat(33));
+        assertEquals(0, notifications);
+        writer.print('x');
+        assertEquals(1, notifications);
+        writer.flush();
+        assertEquals(repeat(34), text.toString());
+    }
+
+    @Test
+    public void countsSingleByteCharacters() throws IOException {
+        characterEncoding = "ISO-8859-1";
+        final PrintWriter writer = response().getWriter();
+        writer.print(repeat(99));
+        assertEquals(0, notifications);
+        writer.print('x');
+        assertEquals(1, notifications);
+    }
+
+    @Test
+    public void notifiesBeforeTheContentLengthIsReached() throws IOException {
+        final CommitAwareResponse response = response();
+        response.setContentLength(10);
+        response.getOutputStream().write(new byte[9]);
+        assertEquals(0, notifications);
+        response.getOutputStream().write(1);
+        assertEquals(1, notifications);
+    }
+
+    @Test
+    public void notifiesOnTheFirstWriteIfUnbuffered() throws IOException {
+        bufferSize = 0;
+        response().getOutputStream().write(1);
+        assertEquals(1, notifications);
+    }
+
+    @Test
+    public void restartsCountingWhenTheBufferIsReset() throws IOException {
+        final CommitAwareResponse response = response();
+        response.getOutputStream().write(new byte[90]);
+        response.resetBuffer();
+        response.getOutputStream().write(new byte[90]);
+        assertEquals(0, notifications);
+        response.reset();
+        response.getOutputStream().write(new byte[90]);
+        assertEquals(0, notifications);
+    }
+
+    @Test
+    public void notifiesOnFlush() throws IOException {
+        final CommitAwareResponse response = response();
+        response.getOutputStream().write(1);
+        assertEquals(0, notifications);
+        response.getOutputStream().flush();
+        assertEquals(1, notifications);
+        response.flushBuffer();
+        assertEquals(1, notifications);
+    }
+
+    @Test
+    public void notifiesOnClose() throws IOException {
+        final CommitAwareResponse response = response();
+        response.getWriter().close();
+        assertEquals(1, notifications);
+    }
+
+    @Test
+    public void notifiesOnRedirectAndError() throws IOException {
+        response().sendRedirect("/login");
+        assertEquals(1, notifications);
+        response().sendError(404);
+        assertEquals(2, notifications);
+    }
+
+    private static String repeat(final int count) {
+        final StringBuilder chars = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            chars.append('x');
+        }
+        return chars.toString();
+    }
+
+    private CommitAwareResponse response() {
+        final ServletOutputStream outputStream = new ServletOutputStream() {
+
+            @Override
+            public void write(int b) throws IOException {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+        final PrintWriter writer = new PrintWriter(text);
+        final HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{HttpServletResponse.class}, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getOutputStream":
+                        return outputStream;
+                    case "getWriter":
+                        return writer;
+                    case "getBufferSize":
+                        return bufferSize;
+                    case "getCharacterEncoding":
+                        return characterEncoding;
+                    case "isCommitted":
+                        return false;
+                    default:
+                        return null;
+                }
+            }
+        });
+        return new CommitAwareResponse(response, new CommitAwareResponse.Listener() {
+
+            @Override
+            public void beforeCommit(HttpServletResponse response) {
+                notifications++;
+            }
+        });
+    }
+
+}
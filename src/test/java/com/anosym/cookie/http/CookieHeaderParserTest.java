@@ -0,0 +1,88 @@
+package com.anosym.cookie.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Extraction of the registered cookies from raw {@code Cookie} headers.
+ *
+ * @author mochieng
+ */
+public class CookieHeaderParserTest {
+
+    private final CookieHeaderParser parser = new CookieHeaderParser(Arrays.asList("a", "Visits", "Visits.0", "b"));
+
+    @Test
+    public void extractsOnlyTheRegisteredCookies() {
+        assertEquals(Arrays.asList("Visits=AQ", "a=1"), parse("_ga=GA1.2.3; Visits=AQ; tracking=x; a=1"));
+    }
+
+    @Test
+    public void matchesWholeNames() {
+        assertEquals(Arrays.asList("Visits.0=x"), parse("Visit=1; Visitss=2; isits=3; aa=4; Visits.0=x; Visits.1=y"));
+    }
+
+    @Test
+    public void trimsWhitespaceAndQuotes() {
+        assertEquals(Arrays.asList("a=1", "b=two words", "Visits="),
+                     parse("  a = 1 ;\tb=\"two words\" ;Visits=\"\""));
+    }
+
+    @Test
+    public void keepsEmptyValues() {
+        assertEquals(Arrays.asList("a=", "b="), parse("a=; b="));
+    }
+
+    @Test
+    public void skipsCookiesWithoutValues() {
+        assertEquals(Arrays.asList("b=2"), parse("a; Visits; b=2; trailing"));
+    }
+
+    @Test
+    public void keepsSeparatorsWithinValues() {
+        assertEquals(Arrays.asList("a=x=y", "b=2"), parse("a=x=y; b=2"));
+    }
+
+    @Test
+    public void parsesEveryHeader() {
+        final List<String> cookies = new ArrayList<>();
+        parser.parse(Collections.enumeration(Arrays.asList("a=1", "c=3; b=2")), collector(cookies));
+        assertEquals(Arrays.asList("a=1", "b=2"), cookies);
+    }
+
+    @Test
+    public void matchesAnyNumberOfNames() {
+        final List<String> names = new ArrayList<>();
+        final StringBuilder header = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            names.add("cookie" + i);
+            header.append("other").append(i).append("=x; cookie").append(i).append('=').append(i).append("; ");
+        }
+        final List<String> cookies = new ArrayList<>();
+        new CookieHeaderParser(names).parse(header.toString(), collector(cookies));
+        assertEquals(1000, cookies.size());
+        assertEquals("cookie999=999", cookies.get(999));
+    }
+
+    private List<String> parse(final String header) {
+        final List<String> cookies = new ArrayList<>();
+        parser.parse(header, collector(cookies));
+        return cookies;
+    }
+
+    private static CookieHeaderParser.Handler collector(final List<String> cookies) {
+        return new CookieHeaderParser.Handler() {
+
+            @Override
+            public void cookie(String name, String value) {
+                cookies.add(name + "=" + value);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.anosym.cookie.http;
+
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.schema.CookieSchema;
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The cookie classes whose paths apply to a request URI, as a browser matches them.
+ *
+ * @author mochieng
+ */
+public class CookiePathIndexTest {
+
+    private final CookiePathIndex index = new CookiePathIndex(Arrays.asList(
+            CookieSchema.of(GlobalCookie.class), CookieSchema.of(ShopCookie.class), CookieSchema.of(CartCookie.class)));
+
+    @Test
+    public void appliesCookiesWithoutAPathEverywhere() {
+        assertEquals(ImmutableSet.of(GlobalCookie.class), index.match("/"));
+        assertEquals(ImmutableSet.of(GlobalCookie.class), index.match("/account/settings"));
+    }
+
+    @Test
+    public void matchesThePathAndItsSubpaths() {
+        assertEquals(ImmutableSet.of(GlobalCookie.class, ShopCookie.class), index.match("/shop"));
+        assertEquals(ImmutableSet.of(GlobalCookie.class, ShopCookie.class), index.match("/shop/"));
+        assertEquals(ImmutableSet.of(GlobalCookie.class, ShopCookie.class), index.match("/shop/items/1"));
+    }
+
+    @Test
+    public void doesNotMatchPathsSharingAPrefix() {
+        assertEquals(ImmutableSet.of(GlobalCookie.class), index.match("/shopping"));
+        assertEquals(ImmutableSet.of(GlobalCookie.class), index.match("/sho"));
+    }
+
+    @Test
+    public void matchesPathsEndingWithASlashAsPrefixes() {
+        assertEquals(ImmutableSet.of(GlobalCookie.class, ShopCookie.class), index.match("/shop/cart"));
+        assertEquals(ImmutableSet.of(GlobalCookie.class, ShopCookie.class, CartCookie.class),
+                     index.match("/shop/cart/"));
+        assertEquals(ImmutableSet.of(GlobalCookie.class, ShopCookie.class, CartCookie.class),
+                     index.match("/shop/cart/items"));
+    }
+
+    @Test
+    public void matchesNothingWithoutCookiesApplyingEverywhere() {
+        final CookiePathIndex shopIndex = new CookiePathIndex(Collections.singletonList(
+                CookieSchema.of(ShopCookie.class)));
+        assertTrue(shopIndex.match("/").isEmpty());
+        assertEquals(ImmutableSet.of(ShopCookie.class), shopIndex.match("/shop/items"));
+    }
+
+    @Test
+    public void knowsTheIndexedClasses() {
+        assertTrue(index.isIndexed(ShopCookie.class));
+        assertFalse(index.isIndexed(String.class));
+        assertTrue(index.isIndexed(Arrays.<Class<?>>asList(ShopCookie.class, CartCookie.class)));
+        assertFalse(index.isIndexed(Arrays.<Class<?>>asList(ShopCookie.class, String.class)));
+    }
+
+    @Cookie(encoded = true)
+    public static class GlobalCookie {
+
+        int visits;
+
+    }
+
+    @Cookie(encoded = true, path = "/shop")
+    public static class ShopCookie {
+
+        int items;
+
+    }
+
+    @Cookie(encoded = true, path = "/shop/cart/")
+    public static class CartCookie {
+
+        int total;
+
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.anosym.cookie.http;
+
+import com.anosym.cookie.MockServlet;
+import com.anosym.cookie.annotation.Cookie;
+import com.anosym.cookie.annotation.SameSite;
+import com.anosym.cookie.schema.CookieSchema;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The {@code Set-Cookie} headers written: the attributes in their fixed order, each only if set, and the values which
+ * can be written without quoting.
+ *
+ * @author mochieng
+ */
+public class SetCookieHeaderWriterTest {
+
+    @Test
+    public void rendersTheAttributesInOrder() {
+        assertEquals("; Path=/cart; Domain=example.com; Max-Age=600; Secure; HttpOnly; SameSite=Strict",
+                     SetCookieHeaderWriter.renderAttributes("/cart", "example.com", 600, true, true,
+                                                            SameSite.Policy.STRICT));
+        assertEquals("; Path=/; Max-Age=0; SameSite=Lax",
+                     SetCookieHeaderWriter.renderAttributes("/", null, 0, false, false, SameSite.Policy.LAX));
+    }
+
+    @Test
+    public void omitsTheAttributesNotSet() {
+        assertEquals("", SetCookieHeaderWriter.renderAttributes(null, null, -1, false, false,
+                                                                SameSite.Policy.UNSPECIFIED));
+        assertEquals("", SetCookieHeaderWriter.renderAttributes("", "", -1, false, false,
+                                                                SameSite.Policy.UNSPECIFIED));
+        assertEquals("; HttpOnly", SetCookieHeaderWriter.renderAttributes(null, null, -1, false, true,
+                                                                          SameSite.Policy.UNSPECIFIED));
+    }
+
+    @Test
+    public void writesSameSiteNoneAsDeclared() {
+        //written as declared, even though browsers drop the cookie without Secure.
+        assertEquals("; SameSite=None", SetCookieHeaderWriter.renderAttributes(null, null, -1, false, false,
+                                                                               SameSite.Policy.NONE));
+        assertEquals("; Secure; SameSite=None", SetCookieHeaderWriter.renderAttributes(null, null, -1, true, false,
+                                                                                       SameSite.Policy.NONE));
+    }
+
+    @Test
+    public void writesTheAttributesOfTheCookieClass() {
+        final List<String> headers = new ArrayList<>();
+        final CookieSchema schema = CookieSchema.of(AttributedCookie.class);
+        final int length = SetCookieHeaderWriter.write(MockServlet.response(headers), "visits", "42",
+                                                       schema.getHeaderAttributes());
+        final String header = "visits=42; Path=/cart; Domain=example.com; Max-Age=3600; Secure; HttpOnly;"
+                + " SameSite=None";
+        assertEquals(Collections.singletonList(header), headers);
+        assertEquals(header.length(), length);
+        assertEquals("; Path=/cart; Domain=example.com; Max-Age=0; Secure; HttpOnly; SameSite=None",
+                     schema.getExpiryHeaderAttributes());
+    }
+
+    @Test
+    public void writesTheHeaderStartedInPlace() {
+        final List<String> headers = new ArrayList<>();
+        final StringBuilder header = SetCookieHeaderWriter.start("visits");
+        assertEquals("visits=", header.toString());
+        header.append(42);
+        SetCookieHeaderWriter.write(MockServlet.response(headers), header, "; Max-Age=600");
+        assertEquals(Collections.singletonList("visits=42; Max-Age=600"), headers);
+    }
+
+    @Test
+    public void acceptsCookieOctetsOnly() {
+        assertTrue(SetCookieHeaderWriter.isValidValue(""));
+        assertTrue(SetCookieHeaderWriter.isValidValue("AZaz09!#$%&'()*+-./:<=>?@[]^_`{|}~"));
+        for (char c : new char[]{' ', '"', ',', ';', '\\', '\t', '\n', '\u0000', '\u007f', '\u00e9'}) {
+            assertFalse(Integer.toHexString(c), SetCookieHeaderWriter.isValidValue("a" + c + "b"));
+        }
+        assertFalse(SetCookieHeaderWriter.isValidValue("\ud83c\udf6a"));
+    }
+
+    @Cookie(path = "/cart", domain = "example.com", maxAge = 3600, secure = true, httpOnly = true,
+            sameSite = SameSite.Policy.NONE)
+    public static class AttributedCookie {
+
+        int visits;
+
+    }
+
+}
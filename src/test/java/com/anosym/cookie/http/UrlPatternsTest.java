@@ -0,0 +1,64 @@
+package com.anosym.cookie.http;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Servlet url patterns matched against the path of request URIs, following their context path.
+ *
+ * @author mochieng
+ */
+public class UrlPatternsTest {
+
+    private final UrlPatterns patterns = UrlPatterns.parse("/health, /static/*, *.css");
+
+    @Test
+    public void matchesExactPaths() {
+        assertTrue(patterns.matches("/health", 0));
+        assertFalse(patterns.matches("/health/live", 0));
+        assertFalse(patterns.matches("/healthy", 0));
+    }
+
+    @Test
+    public void matchesPathPrefixes() {
+        assertTrue(patterns.matches("/static", 0));
+        assertTrue(patterns.matches("/static/", 0));
+        assertTrue(patterns.matches("/static/js/app.js", 0));
+        assertFalse(patterns.matches("/statics/app.js", 0));
+    }
+
+    @Test
+    public void matchesExtensionsOfTheLastSegment() {
+        assertTrue(patterns.matches("/theme/site.css", 0));
+        assertFalse(patterns.matches("/theme.css/site", 0));
+        assertFalse(patterns.matches("/site.cssx", 0));
+    }
+
+    @Test
+    public void matchesFollowingTheContextPath() {
+        assertTrue(patterns.matches("/app/health", 4));
+        assertTrue(patterns.matches("/app/static/app.js", 4));
+        assertFalse(patterns.matches("/health", 4));
+        assertFalse(patterns.matches("/app/healthz", 4));
+    }
+
+    @Test
+    public void matchesEveryPathWithTheDefaultPrefix() {
+        final UrlPatterns all = UrlPatterns.parse("/*");
+        assertTrue(all.matches("/", 0));
+        assertTrue(all.matches("/app/anything", 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRelativePaths() {
+        UrlPatterns.parse("health");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInnerWildcards() {
+        UrlPatterns.parse("/static/*/js");
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.anosym.cookie.metrics;
+
+import com.anosym.cookie.CookieWebListener;
+import com.anosym.cookie.MockServlet;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.ServletContextEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The measurements recorded, and the MBean exposing them for as long as the web application is deployed.
+ *
+ * @author mochieng
+ */
+public class CookieMetricsTest {
+
+    private final CookieMetrics metrics = CookieMetrics.getInstance();
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    @Before
+    public void reset() {
+        metrics.reset();
+    }
+
+    @After
+    public void unregister() {
+        metrics.unregister();
+    }
+
+    @Test
+    public void countsTheRecordedEvents() {
+        metrics.decoded(MeasuredCookie.class, 3, 1000);
+        metrics.decoded(MeasuredCookie.class, 2, 3000);
+        metrics.decodeCacheHit();
+        metrics.decodeCacheMiss();
+        metrics.decodeCacheMiss();
+        metrics.storeMiss();
+        metrics.cookieOverflow(MeasuredCookie.class, 5000);
+        metrics.decodeFailed(MeasuredCookie.class, new IllegalArgumentException());
+        metrics.decodeFailed(MeasuredCookie.class, new IllegalArgumentException());
+        metrics.decodeFailed(MeasuredCookie.class, new IndexOutOfBoundsException());
+        metrics.responseWritten(120, 2, 1);
+        metrics.responseWritten(80, 1, 3);
+
+        assertEquals(5, metrics.getCookiesParsed());
+        assertEquals(1, metrics.getDecodeCacheHits());
+        assertEquals(2, metrics.getDecodeCacheMisses());
+        assertEquals(1, metrics.getStoreMisses());
+        assertEquals(1, metrics.getCookieOverflows());
+        assertEquals(Long.valueOf(2), metrics.getDecodeFailures().get("IllegalArgumentException"));
+        assertEquals(Long.valueOf(1), metrics.getDecodeFailures().get("IndexOutOfBoundsException"));
+        assertEquals(3, metrics.getCookiesEmitted());
+        assertEquals(4, metrics.getCookiesSkipped());
+        assertEquals(2, metrics.getSetCookieBytes().getCount());
+        assertEquals(2, metrics.getDecodeLatencies().get(MeasuredCookie.class.getName()).getCount());
+    }
+
+    @Test
+    public void recordsHistogramsPerCookieClass() {
+        metrics.encoded(MeasuredCookie.class, 1000);
+        metrics.cookieWritten(MeasuredCookie.class, 40);
+        metrics.cookieWritten(MeasuredCookie.class, 60);
+        assertEquals(1, metrics.getEncodeLatencies().get(MeasuredCookie.class.getName()).getCount());
+        assertEquals(2, metrics.getCookieBytes().get(MeasuredCookie.class.getName()).getCount());
+
+        metrics.reset();
+        assertTrue(metrics.getEncodeLatencies().isEmpty());
+        assertTrue(metrics.getCookieBytes().isEmpty());
+    }
+
+    @Test
+    public void exposesTheMeasurementsWhileTheContextIsDeployed() throws JMException {
+        final ObjectName name = new ObjectName("com.anosym.cookie:type=CookieMetrics");
+        final ServletContextEvent event = new ServletContextEvent(MockServlet.context());
+        final CookieWebListener listener = new CookieWebListener();
+        listener.contextInitialized(event);
+        assertTrue(server.isRegistered(name));
+        metrics.storeMiss();
+        assertEquals(1L, server.getAttribute(name, "StoreMisses"));
+
+        listener.contextDestroyed(event);
+        assertFalse(server.isRegistered(name));
+        //registered again by another deployment.
+        listener.contextInitialized(event);
+        assertTrue(server.isRegistered(name));
+        listener.contextDestroyed(event);
+        assertFalse(server.isRegistered(name));
+    }
+
+    private static final class MeasuredCookie {
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.anosym.cookie.security;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Signing and encryption with rotating keys: values verify and decrypt with the key which protected them, and are
+ * rejected once changed, moved to another cookie, or protected by an unknown key.
+ *
+ * @author mochieng
+ */
+public class CookieKeyRingTest {
+
+    //"0123456789abcdef" and "fedcba9876543210", in base64.
+    private static final String OLD_KEY = "k1:MDEyMzQ1Njc4OWFiY2RlZg==";
+    private static final String NEW_KEY = "k2:ZmVkY2JhOTg3NjU0MzIxMA";
+    private static final String VALUE = "AQIDBAUGBwgJCgsMDQ4PEA";
+
+    private final CookieKeyRing ring = CookieKeyRing.parse(OLD_KEY);
+    private final CookieKeyRing rotated = CookieKeyRing.parse(NEW_KEY + ", " + OLD_KEY);
+
+    @Test
+    public void verifiesSignedValues() {
+        final String signed = ring.sign("Prefs", VALUE);
+        assertTrue(signed.startsWith(VALUE + ".k1."));
+        assertEquals(VALUE, ring.verify("Prefs", signed));
+        assertEquals(VALUE, ring.verify("Prefs", ring.sign("Prefs", VALUE)));
+    }
+
+    @Test
+    public void verifiesValuesSignedWithARotatedKey() {
+        assertEquals(VALUE, rotated.verify("Prefs", ring.sign("Prefs", VALUE)));
+        final String signed = rotated.sign("Prefs", VALUE);
+        assertTrue(signed.startsWith(VALUE + ".k2."));
+        assertEquals(VALUE, rotated.verify("Prefs", signed));
+        assertRejected(ring, "Prefs", signed, false);
+    }
+
+    @Test
+    public void rejectsChangedSignedValues() {
+        final String signed = ring.sign("Prefs", VALUE);
+        assertRejected(ring, "Prefs", "B" + signed.substring(1), false);
+        assertRejected(ring, "Prefs", signed.substring(0, signed.length() - 4) + "AAAA", false);
+        assertRejected(ring, "Prefs", signed.substring(0, signed.length() - 1), false);
+        assertRejected(ring, "Prefs", signed.replace(".k1.", ".k2."), false);
+    }
+
+    @Test
+    public void rejectsSignedValuesOfAnotherCookie() {
+        assertRejected(ring, "Other", ring.sign("Prefs", VALUE), false);
+    }
+
+    @Test
+    public void rejectsUnsignedValues() {
+        assertRejected(ring, "Prefs", VALUE, false);
+        assertRejected(ring, "Prefs", VALUE + ".k1", false);
+    }
+
+    @Test
+    public void decryptsEncryptedValues() {
+        final String encrypted = ring.encrypt("Prefs", VALUE);
+        assertTrue(encrypted.startsWith("k1."));
+        assertFalse(encrypted.contains(VALUE));
+        assertEquals(VALUE, ring.decrypt("Prefs", encrypted));
+        assertEquals("", ring.decrypt("Prefs", ring.encrypt("Prefs", "")));
+    }
+
+    @Test
+    public void encryptsWithRandomIvs() {
+        assertNotEquals(ring.encrypt("Prefs", VALUE), ring.encrypt("Prefs", VALUE));
+    }
+
+    @Test
+    public void decryptsValuesEncryptedWithARotatedKey() {
+        assertEquals(VALUE, rotated.decrypt("Prefs", ring.encrypt("Prefs", VALUE)));
+        final String encrypted = rotated.encrypt("Prefs", VALUE);
+        assertTrue(encrypted.startsWith("k2."));
+        assertEquals(VALUE, rotated.decrypt("Prefs", encrypted));
+        assertRejected(ring, "Prefs", encrypted, true);
+    }
+
+    @Test
+    public void rejectsChangedEncryptedValues() {
+        final String encrypted = ring.encrypt("Prefs", VALUE);
+        //within the iv, the ciphertext and the tag.
+        for (int i : new int[]{5, 20, encrypted.length() - 5}) {
+            final char changed = encrypted.charAt(i) == 'A' ? 'B' : 'A';
+            assertRejected(ring, "Prefs", encrypted.substring(0, i) + changed + encrypted.substring(i + 1), true);
+        }
+        assertRejected(ring, "Prefs", encrypted.substring(0, 20), true);
+        assertRejected(ring, "Prefs", "k3" + encrypted.substring(2), true);
+    }
+
+    @Test
+    public void rejectsEncryptedValuesOfAnotherCookie() {
+        assertRejected(ring, "Other", ring.encrypt("Prefs", VALUE), true);
+    }
+
+    @Test
+    public void rejectsUnencryptedValues() {
+        assertRejected(ring, "Prefs", VALUE, true);
+    }
+
+    @Test
+    public void rejectsMalformedKeys() {
+        for (String keys : new String[]{"", "k1", ":MDEyMzQ1Njc4OWFiY2RlZg", "k 1:MDEyMzQ1Njc4OWFiY2RlZg",
+                                        "k1:MDEyMzQ1Njc4OWFiY2Rl", "k1:not base64!", OLD_KEY + "," + OLD_KEY}) {
+            try {
+                CookieKeyRing.parse(keys);
+                fail("Parsed: " + keys);
+            } catch (IllegalArgumentException ex) {
+                //expected.
+            }
+        }
+    }
+
+    private static void assertRejected(final CookieKeyRing ring, final String name, final String value,
+                                       final boolean encrypted) {
+        try {
+            if (encrypted) {
+                ring.decrypt(name, value);
+            } else {
+                ring.verify(name, value);
+            }
+            fail("Accepted: " + value);
+        } catch (IllegalArgumentException ex) {
+            //expected.
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.anosym.cookie.store;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The cache in front of a store: values read through or touched are cached, and the store is only touched once the
+ * cached value is past half its time to live.
+ *
+ * @author mochieng
+ */
+public class CachingCookieStoreTest {
+
+    private final CountingStore store = new CountingStore();
+    private final CachingCookieStore cache = new CachingCookieStore(store, 1 << 20);
+
+    @Test
+    public void readsThroughOnce() {
+        store.put("~a", "value of a", 600);
+        assertEquals("value of a", cache.get("~a"));
+        assertEquals("value of a", cache.get("~a"));
+        assertEquals(1, store.gets);
+    }
+
+    @Test
+    public void touchesTheStoreOnlyPastHalfTheCachedTimeToLive() {
+        cache.put("~a", "value of a", 600);
+        assertFalse(cache.touch("~a", "value of a", 600));
+        assertEquals(0, store.touches);
+
+        //read through, hence cached for a few minutes only.
+        store.put("~b", "value of b", 3600);
+        cache.get("~b");
+        assertTrue(cache.touch("~b", "value of b", 3600));
+        assertFalse(cache.touch("~b", "value of b", 3600));
+        assertEquals(1, store.touches);
+    }
+
+    @Test
+    public void touchesTheStoreForValuesNotCached() {
+        store.put("~a", "value of a", 3600);
+        assertTrue(cache.touch("~a", "value of a", 3600));
+        assertFalse(cache.touch("~a", "value of a", 3600));
+        assertEquals(1, store.touches);
+        assertEquals("value of a", cache.get("~a"));
+        assertEquals(0, store.gets);
+    }
+
+    private static final class CountingStore implements CookieStore {
+
+        private final MemoryCookieStore values = new MemoryCookieStore(1 << 20);
+        private int gets;
+        private int touches;
+
+        @Nullable
+        @Override
+        public String get(@Nonnull String token) {
+            gets++;
+            return values.get(token);
+        }
+
+        @Override
+        public boolean put(@Nonnull String token, @Nonnull String value, int ttlSeconds) {
+            return values.put(token, value, ttlSeconds);
+        }
+
+        @Override
+        public void remove(@Nonnull String token) {
+            values.remove(token);
+        }
+
+        @Override
+        public boolean touch(@Nonnull String token, @Nonnull String value, int ttlSeconds) {
+            touches++;
+            return values.put(token, value, ttlSeconds);
+        }
+
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.anosym.cookie.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The values of the mapped file: bounded by their slot, evicted by expiry, touched only past half their time to live,
+ * and kept across reopening the file unless its layout changed.
+ *
+ * @author mochieng
+ */
+public class MappedFileCookieStoreTest {
+
+    private static final int SLOT_BYTES = 64;
+    //A single bucket, which all tokens share.
+    private static final long BUCKET_BYTES = 16 + 8 * SLOT_BYTES;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private MappedFileCookieStore store;
+
+    @After
+    public void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void getsPutValues() throws IOException {
+        store = open(file(), 4096);
+        assertTrue(store.put("~a", "value of a", 60));
+        assertTrue(store.put("~b", "value of b", 60));
+        assertEquals("value of a", store.get("~a"));
+        assertEquals("value of b", store.get("~b"));
+        assertNull(store.get("~c"));
+    }
+
+    @Test
+    public void removesValues() throws IOException {
+        store = open(file(), 4096);
+        store.put("~a", "value of a", 60);
+        store.remove("~a");
+        assertNull(store.get("~a"));
+    }
+
+    @Test
+    public void rejectsValuesLargerThanASlot() throws IOException {
+        store = open(file(), 4096);
+        assertFalse(store.put("~a", repeat(SLOT_BYTES), 60));
+        assertNull(store.get("~a"));
+        assertTrue(store.put("~b", repeat(SLOT_BYTES - 14 - 2), 60));
+        assertEquals(repeat(SLOT_BYTES - 14 - 2), store.get("~b"));
+    }
+
+    @Test
+    public void expiresValues() throws IOException {
+        store = open(file(), 4096);
+        store.put("~a", "value of a", 0);
+        assertNull(store.get("~a"));
+    }
+
+    @Test
+    public void evictsTheValueExpiringFirstFromAFullBucket() throws IOException {
+        store = open(file(), BUCKET_BYTES);
+        for (int i = 0; i < 8; i++) {
+            store.put("~" + i, "value " + i, i == 3 ? 60 : 120);
+        }
+        store.put("~8", "value 8", 120);
+        assertNull(store.get("~3"));
+        for (int i = 0; i < 9; i++) {
+            if (i != 3) {
+                assertEquals("value " + i, store.get("~" + i));
+            }
+        }
+    }
+
+    @Test
+    public void touchesValuesPastHalfTheirTimeToLive() throws IOException {
+        store = open(file(), BUCKET_BYTES);
+        store.put("~a", "value of a", 60);
+        assertFalse(store.touch("~a", "value of a", 100));
+        assertTrue(store.touch("~a", "value of a", 200));
+        assertFalse(store.touch("~a", "value of a", 200));
+        assertFalse(store.touch("~b", "value of b", 200));
+        assertNull(store.get("~b"));
+
+        //the touched value now outlives a value put with a longer time to live than its own.
+        for (int i = 0; i < 8; i++) {
+            store.put("~" + i, "value " + i, 120);
+        }
+        assertEquals("value of a", store.get("~a"));
+    }
+
+    @Test
+    public void keepsValuesAcrossReopening() throws IOException {
+        final Path file = file();
+        final MappedFileCookieStore previous = open(file, 4096);
+        previous.put("~a", "value of a", 60);
+        previous.close();
+        store = open(file, 4096);
+        assertEquals("value of a", store.get("~a"));
+    }
+
+    @Test
+    public void clearsFilesOfAnotherLayout() throws IOException {
+        final Path file = file();
+        final MappedFileCookieStore previous = open(file, 4096);
+        previous.put("~a", "value of a", 60);
+        previous.close();
+        store = new MappedFileCookieStore(file, 4096, SLOT_BYTES * 2);
+        assertNull(store.get("~a"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsFilesSmallerThanABucket() throws IOException {
+        open(file(), BUCKET_BYTES - 1);
+    }
+
+    private Path file() throws IOException {
+        return folder.newFile().toPath();
+    }
+
+    private static MappedFileCookieStore open(final Path file, final long maxBytes) throws IOException {
+        return new MappedFileCookieStore(file, maxBytes, SLOT_BYTES);
+    }
+
+    private static String repeat(final int count) {
+        final StringBuilder chars = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            chars.append('x');
+        }
+        return chars.toString();
+    }
+
+}
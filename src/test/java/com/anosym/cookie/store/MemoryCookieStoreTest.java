@@ -0,0 +1,76 @@
+package com.anosym.cookie.store;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The values of the heap: bounded by their footprint, evicting the least recently used first, expired once past their
+ * time to live, and touched only past half of it.
+ *
+ * @author mochieng
+ */
+public class MemoryCookieStoreTest {
+
+    //The footprint of a few dozen small entries, at most.
+    private static final long MAX_BYTES = 4096;
+
+    private final MemoryCookieStore store = new MemoryCookieStore(MAX_BYTES);
+
+    @Test
+    public void getsPutValues() {
+        assertTrue(store.put("~a", "value of a", 60));
+        assertTrue(store.put("~b", "value of b", 60));
+        assertEquals("value of a", store.get("~a"));
+        assertEquals("value of b", store.get("~b"));
+        assertNull(store.get("~c"));
+        store.remove("~a");
+        assertNull(store.get("~a"));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedValues() {
+        store.put("~a", "value of a", 60);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("value of a", store.get("~a"));
+            store.put("~" + i, "value " + i, 60);
+        }
+        assertTrue(Long.toString(store.size()), store.size() < MAX_BYTES / 96);
+        assertEquals("value of a", store.get("~a"));
+        assertEquals("value 999", store.get("~999"));
+        assertNull(store.get("~0"));
+    }
+
+    @Test
+    public void expiresValues() {
+        store.put("~a", "value of a", 0);
+        assertNull(store.get("~a"));
+        assertEquals(0, store.size());
+        assertFalse(store.touch("~a", "value of a", 60));
+        assertNull(store.get("~a"));
+    }
+
+    @Test
+    public void touchesValuesPastHalfTheirTimeToLive() {
+        store.put("~a", "value of a", 60);
+        assertFalse(store.touch("~a", "value of a", 60));
+        assertFalse(store.touch("~a", "value of a", 100));
+        assertTrue(store.touch("~a", "value of a", 200));
+        //now within half of its new time to live.
+        assertFalse(store.touch("~a", "value of a", 200));
+        assertEquals("value of a", store.get("~a"));
+        assertFalse(store.touch("~b", "value of b", 200));
+        assertNull(store.get("~b"));
+    }
+
+    @Test
+    public void keepsTheStoredValueWhenTouched() {
+        store.put("~a", "value of a", 60);
+        assertTrue(store.touch("~a", "another value", 600));
+        assertEquals("value of a", store.get("~a"));
+    }
+
+}